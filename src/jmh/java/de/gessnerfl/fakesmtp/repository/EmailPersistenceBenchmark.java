@@ -0,0 +1,110 @@
+package de.gessnerfl.fakesmtp.repository;
+
+import de.gessnerfl.fakesmtp.Application;
+import de.gessnerfl.fakesmtp.model.ContentType;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailAttachment;
+import de.gessnerfl.fakesmtp.model.EmailContent;
+import de.gessnerfl.fakesmtp.model.InlineImage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores batches of {@value #EMAILS_PER_BATCH} emails, each with the given
+ * number of attachments and inline images besides a plain and a html content,
+ * in a single transaction against the embedded database of the application.
+ * The score is the time needed per batch, so it shows how the insert cost
+ * grows with the number of rows per email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailPersistenceBenchmark {
+    private static final int EMAILS_PER_BATCH = 20;
+    private static final byte[] ATTACHMENT = "attachment content".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Param({"0", "5", "25"})
+    public int partsPerEmail;
+
+    private ConfigurableApplicationContext context;
+    private EmailRepository emailRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .run("--server.port=0",
+                        "--management.server.port=-1",
+                        "--fakesmtp.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.threads.virtual.enabled=false",
+                        "--logging.level.root=WARN");
+        emailRepository = context.getBean(EmailRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteEmails() {
+        jdbcTemplate.update("DELETE FROM email");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Email> saveBatch() {
+        final List<Email> emails = new ArrayList<>(EMAILS_PER_BATCH);
+        for (int i = 0; i < EMAILS_PER_BATCH; i++) {
+            emails.add(createEmail(i));
+        }
+        return transactionTemplate.execute(status -> emailRepository.saveAll(emails));
+    }
+
+    private Email createEmail(int index) {
+        final var email = new Email();
+        email.setFromAddress("sender@example.com");
+        email.setToAddress("recipient" + index + "@example.com");
+        email.addRecipient("recipient" + index + "@example.com");
+        email.setSubject("Benchmark " + index);
+        email.setReceivedOn(ZonedDateTime.now());
+        email.setRawData(("Subject: Benchmark " + index + "\r\n\r\nbody").getBytes(StandardCharsets.UTF_8));
+        email.addContent(createContent(ContentType.PLAIN, "body"));
+        email.addContent(createContent(ContentType.HTML, "<p>body</p>"));
+        for (int i = 0; i < partsPerEmail; i++) {
+            final var attachment = new EmailAttachment();
+            attachment.setFilename("attachment" + i + ".txt");
+            attachment.setData(ATTACHMENT);
+            email.addAttachment(attachment);
+
+            final var inlineImage = new InlineImage();
+            inlineImage.setContentId("image" + i);
+            inlineImage.setContentType("image/png");
+            inlineImage.setData("iVBORw0KGgo=".getBytes(StandardCharsets.US_ASCII));
+            email.addInlineImage(inlineImage);
+        }
+        return email;
+    }
+
+    private static EmailContent createContent(ContentType contentType, String data) {
+        final var content = new EmailContent();
+        content.setContentType(contentType);
+        content.setData(data);
+        return content;
+    }
+}
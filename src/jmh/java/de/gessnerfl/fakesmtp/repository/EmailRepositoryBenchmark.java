@@ -0,0 +1,145 @@
+package de.gessnerfl.fakesmtp.repository;
+
+import de.gessnerfl.fakesmtp.Application;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.query.EqualExpression;
+import de.gessnerfl.fakesmtp.model.query.SearchRequest;
+import de.gessnerfl.fakesmtp.model.query.SearchSpecification;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the queries of the email list, the search and the retention cleanup
+ * against the embedded database of the application filled with the given
+ * number of emails, each with one recipient and one content. The emails are
+ * inserted through JDBC, as inserting them through the repository would take
+ * far longer than the measurement. Every invocation of
+ * {@link #deleteExceedingRetentionLimit(NewerEmails)} first adds {@value #DELETED_PER_INVOCATION}
+ * newer emails, so the cleanup always deletes the same number of the oldest
+ * emails and the size of the table stays constant. The queries use different
+ * arguments on every invocation, as H2 reuses the result of a query repeated
+ * with the same arguments as long as the table is not modified.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EmailRepositoryBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final int DELETED_PER_INVOCATION = 100;
+    private static final int SENDERS = 1_000;
+    private static final int RECIPIENTS = 10_000;
+    private static final Instant FIRST_RECEIVED_ON = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int LISTED_PAGES = 10;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "receivedOn");
+
+    @Param({"1000000"})
+    public int emailCount;
+
+    private ConfigurableApplicationContext context;
+    private EmailRepository emailRepository;
+    private JdbcTemplate jdbcTemplate;
+    private long nextId;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .run("--server.port=0",
+                        "--management.server.port=-1",
+                        "--fakesmtp.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:repositorybenchmark",
+                        "--fakesmtp.persistence.maxNumberEmails=0",
+                        "--spring.threads.virtual.enabled=false",
+                        "--logging.level.root=WARN");
+        emailRepository = context.getBean(EmailRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        nextId = 1;
+        insertEmails(emailCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Email> listNewestEmails() {
+        return emailRepository.findAll(PageRequest.of(invocation++ % LISTED_PAGES, 10, NEWEST_FIRST));
+    }
+
+    @Benchmark
+    public Page<Email> searchByFromAddress() {
+        return search(new EqualExpression("fromAddress", sender(invocation++)));
+    }
+
+    @Benchmark
+    public Page<Email> searchByToAddress() {
+        return search(new EqualExpression(Email.TO_ADDRESS, recipient(invocation++)));
+    }
+
+    @Benchmark
+    public List<Email> findBySubject() {
+        return emailRepository.findBySubject(subject(1 + invocation++ % emailCount));
+    }
+
+    @Benchmark
+    public int deleteExceedingRetentionLimit(NewerEmails newerEmails) {
+        return emailRepository.deleteEmailsExceedingDateRetentionLimit(emailCount);
+    }
+
+    @State(Scope.Thread)
+    public static class NewerEmails {
+        @Setup(Level.Invocation)
+        public void insert(EmailRepositoryBenchmark benchmark) {
+            benchmark.insertEmails(DELETED_PER_INVOCATION);
+        }
+    }
+
+    private Page<Email> search(EqualExpression filter) {
+        final var request = SearchRequest.of(filter);
+        return emailRepository.findAll(new SearchSpecification<>(request), request.getPageable());
+    }
+
+    private void insertEmails(int count) {
+        for (int offset = 0; offset < count; offset += INSERT_BATCH_SIZE) {
+            final var size = Math.min(INSERT_BATCH_SIZE, count - offset);
+            final List<Object[]> emails = new ArrayList<>(size);
+            final List<Object[]> children = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final var id = nextId++;
+                emails.add(new Object[]{id, sender(id), recipient(id), subject(id), Timestamp.from(FIRST_RECEIVED_ON.plusSeconds(id))});
+                children.add(new Object[]{id, id, recipient(id)});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO email (id, from_address, to_address, subject, received_on) VALUES (?, ?, ?, ?, ?)", emails);
+            jdbcTemplate.batchUpdate("INSERT INTO email_recipient (id, email, address) VALUES (?, ?, ?)", children);
+            jdbcTemplate.batchUpdate("INSERT INTO email_content (id, email, content_type, data) VALUES (?, ?, 'PLAIN', 'body')",
+                    children.stream().map(child -> new Object[]{child[0], child[1]}).toList());
+        }
+    }
+
+    private static String sender(long id) {
+        return "sender" + (id % SENDERS) + "@example.com";
+    }
+
+    private static String recipient(long id) {
+        return "recipient" + (id % RECIPIENTS) + "@example.com";
+    }
+
+    private static String subject(long id) {
+        return "Benchmark " + id;
+    }
+}
@@ -0,0 +1,161 @@
+package de.gessnerfl.fakesmtp.smtp;
+
+import de.gessnerfl.fakesmtp.config.SmtpCommandConfig;
+import de.gessnerfl.fakesmtp.smtp.server.BaseSmtpServer;
+import de.gessnerfl.fakesmtp.smtp.server.MessageListener;
+import de.gessnerfl.fakesmtp.smtp.server.MessageListenerAdapter;
+import de.gessnerfl.fakesmtp.smtp.server.TimeBasedSessionIdFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a message with {@value #RECIPIENTS} recipients either in lock-step, i.e.
+ * waiting for the reply of every command, or with the envelope pipelined as
+ * described in RFC 2920. Besides the time per message the benchmark reports
+ * the number of round trips of the client and the number of socket reads
+ * needed to collect the replies, which corresponds to the number of response
+ * writes of the server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipeliningBenchmark {
+    private static final int RECIPIENTS = 50;
+    private static final byte[] CONTENT = "Subject: benchmark\r\n\r\nBody\r\n.\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"false", "true"})
+    public boolean pipelined;
+
+    private BaseSmtpServer server;
+    private Socket socket;
+    private InputStream input;
+    private OutputStream output;
+    private final byte[] readBuffer = new byte[8192];
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long messages;
+        public long roundTrips;
+        public long responseReads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            messages = 0;
+            roundTrips = 0;
+            responseReads = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final MessageListener listener = new MessageListener() {
+            @Override
+            public boolean accept(final String from, final String recipient) {
+                return true;
+            }
+
+            @Override
+            public void deliver(final String from, final String recipient, final InputStream data) throws IOException {
+                data.transferTo(OutputStream.nullOutputStream());
+            }
+        };
+        server = new BaseSmtpServer("benchmark",
+                new MessageListenerAdapter(List.of(listener)),
+                new SmtpCommandConfig().commandHandler(),
+                new TimeBasedSessionIdFactory(),
+                false);
+        server.setPort(0);
+        server.start();
+
+        socket = new Socket("localhost", server.getPort());
+        socket.setTcpNoDelay(true);
+        input = socket.getInputStream();
+        output = socket.getOutputStream();
+        final var counters = new Counters();
+        readReplies(1, counters);
+        send("EHLO localhost\r\n");
+        readUntil("250 ", counters);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        send("QUIT\r\n");
+        socket.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public void sendMessage(final Counters counters) throws IOException {
+        if (pipelined) {
+            final var envelope = new StringBuilder("MAIL FROM:<sender@example.com>\r\n");
+            for (int i = 0; i < RECIPIENTS; i++) {
+                envelope.append("RCPT TO:<recipient").append(i).append("@example.com>\r\n");
+            }
+            envelope.append("DATA\r\n");
+            send(envelope.toString());
+            readReplies(RECIPIENTS + 2, counters);
+        } else {
+            send("MAIL FROM:<sender@example.com>\r\n");
+            readReplies(1, counters);
+            for (int i = 0; i < RECIPIENTS; i++) {
+                send("RCPT TO:<recipient" + i + "@example.com>\r\n");
+                readReplies(1, counters);
+            }
+            send("DATA\r\n");
+            readReplies(1, counters);
+        }
+        output.write(CONTENT);
+        output.flush();
+        readReplies(1, counters);
+        counters.messages++;
+    }
+
+    private void send(final String commands) throws IOException {
+        output.write(commands.getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+
+    /**
+     * Reads the given number of single line replies. Every call is one round trip
+     * of the client.
+     */
+    private void readReplies(final int count, final Counters counters) throws IOException {
+        counters.roundTrips++;
+        int lines = 0;
+        while (lines < count) {
+            final int read = input.read(readBuffer);
+            if (read < 0) {
+                throw new IOException("Connection closed by server");
+            }
+            counters.responseReads++;
+            for (int i = 0; i < read; i++) {
+                if (readBuffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+
+    private void readUntil(final String finalLinePrefix, final Counters counters) throws IOException {
+        final var response = new StringBuilder();
+        while (!response.toString().contains("\n" + finalLinePrefix)) {
+            final int read = input.read(readBuffer);
+            if (read < 0) {
+                throw new IOException("Connection closed by server");
+            }
+            counters.responseReads++;
+            response.append(new String(readBuffer, 0, read, StandardCharsets.US_ASCII));
+        }
+    }
+}
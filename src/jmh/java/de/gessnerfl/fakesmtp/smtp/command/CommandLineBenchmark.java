@@ -0,0 +1,57 @@
+package de.gessnerfl.fakesmtp.smtp.command;
+
+import de.gessnerfl.fakesmtp.config.SmtpCommandConfig;
+import de.gessnerfl.fakesmtp.smtp.io.CRLFTerminatedReader;
+import de.gessnerfl.fakesmtp.smtp.server.InvalidCommandNameException;
+import de.gessnerfl.fakesmtp.smtp.server.UnknownCommandException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a pipelined envelope with {@value #RECIPIENTS} RCPT commands line by
+ * line and resolves the command of every line, like the session does. Run it
+ * with the GC profiler ({@code -prof gc}) to see the allocation rate per
+ * command line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandLineBenchmark {
+    private static final int RECIPIENTS = 1000;
+    private static final int SESSION_BUFFER_SIZE = 1024 * 32;
+
+    private byte[] envelope;
+    private CommandRegistry commandRegistry;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var out = new ByteArrayOutputStream();
+        out.writeBytes("MAIL FROM:<sender@example.com>\r\n".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < RECIPIENTS; i++) {
+            out.writeBytes(("RCPT TO:<recipient" + i + "@example.com>\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        out.writeBytes("DATA\r\n".getBytes(StandardCharsets.US_ASCII));
+        envelope = out.toByteArray();
+        commandRegistry = new SmtpCommandConfig().commandRegistry();
+    }
+
+    @Benchmark
+    public void readAndResolveCommands(final Blackhole blackhole) throws IOException, InvalidCommandNameException, UnknownCommandException {
+        final var input = new BufferedInputStream(new ByteArrayInputStream(envelope), SESSION_BUFFER_SIZE);
+        final var reader = new CRLFTerminatedReader(input, StandardCharsets.UTF_8);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            blackhole.consume(commandRegistry.getCommandFromString(line));
+        }
+    }
+}
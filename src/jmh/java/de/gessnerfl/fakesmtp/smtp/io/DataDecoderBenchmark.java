@@ -0,0 +1,80 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the decoding of DATA message content by the chain of
+ * {@link DotTerminatedInputStream} and {@link DotUnstuffingInputStream} with the
+ * fused {@link DotTerminatedUnstuffingInputStream}. The content consists of
+ * base64 like lines of 76 characters, some of them dot-stuffed, and is read
+ * through a buffered stream like the session input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataDecoderBenchmark {
+    private static final int SESSION_BUFFER_SIZE = 1024 * 32;
+    private static final byte[] LINE_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"1048576", "20971520"})
+    public int messageSize;
+
+    private byte[] content;
+    private final byte[] readBuffer = new byte[8192];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var random = new Random(42);
+        final var out = new ByteArrayOutputStream(messageSize + 128);
+        while (out.size() < messageSize) {
+            if (random.nextInt(100) == 0) {
+                out.write('.');
+            }
+            for (int i = 0; i < 76; i++) {
+                out.write(LINE_CHARACTERS[random.nextInt(LINE_CHARACTERS.length)]);
+            }
+            out.write('\r');
+            out.write('\n');
+        }
+        out.writeBytes(".\r\n".getBytes(StandardCharsets.US_ASCII));
+        content = out.toByteArray();
+    }
+
+    @Benchmark
+    public long legacyChain(final Blackhole blackhole) throws IOException {
+        return consume(new DotUnstuffingInputStream(new DotTerminatedInputStream(sessionInput())), blackhole);
+    }
+
+    @Benchmark
+    public long fusedDecoder(final Blackhole blackhole) throws IOException {
+        return consume(new DotTerminatedUnstuffingInputStream(sessionInput()), blackhole);
+    }
+
+    private InputStream sessionInput() {
+        return new BufferedInputStream(new ByteArrayInputStream(content), SESSION_BUFFER_SIZE);
+    }
+
+    private long consume(final InputStream in, final Blackhole blackhole) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = in.read(readBuffer)) != -1) {
+            blackhole.consume(readBuffer);
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,64 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers message content of the given size in memory and reads it again, like
+ * the message listener adapter does for every message below the spool
+ * threshold. The slabs are either reused from a shared {@link SlabPool} or
+ * allocated for every message by a new pool. Run it with the GC profiler
+ * ({@code -prof gc}) to see the allocation per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeferredFileOutputStreamBenchmark {
+    private static final int THRESHOLD = 1024 * 1024 * 5;
+    private static final int WRITE_SIZE = 8192;
+
+    @Param({"65536", "1048576"})
+    public int messageSize;
+
+    private byte[] content;
+    private final byte[] readBuffer = new byte[8192];
+    private final SlabPool slabPool = new SlabPool(SlabPool.DEFAULT_SLAB_SIZE, SlabPool.DEFAULT_MAX_POOLED_SLABS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        content = new byte[messageSize];
+        new Random(42).nextBytes(content);
+    }
+
+    @Benchmark
+    public void pooledSlabs(Blackhole blackhole) throws IOException {
+        bufferAndRead(slabPool, blackhole);
+    }
+
+    @Benchmark
+    public void unpooledSlabs(Blackhole blackhole) throws IOException {
+        bufferAndRead(new SlabPool(SlabPool.DEFAULT_SLAB_SIZE, 1), blackhole);
+    }
+
+    private void bufferAndRead(SlabPool pool, Blackhole blackhole) throws IOException {
+        try (var dfos = new DeferredFileOutputStream(THRESHOLD, null, pool)) {
+            for (int offset = 0; offset < content.length; offset += WRITE_SIZE) {
+                dfos.write(content, offset, Math.min(WRITE_SIZE, content.length - offset));
+            }
+            try (InputStream in = dfos.getInputStream()) {
+                int read;
+                while ((read = in.read(readBuffer)) >= 0) {
+                    blackhole.consume(read);
+                }
+            }
+        }
+    }
+}
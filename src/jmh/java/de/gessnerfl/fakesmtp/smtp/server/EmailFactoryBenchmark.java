@@ -0,0 +1,67 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts a multipart message with a text body and a binary attachment of
+ * the given size into an email entity, either completely or with the headers
+ * only as done by the lazy parsing mode. Run it with the GC profiler
+ * ({@code -prof gc}) to see the allocation per stored message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailFactoryBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int attachmentSize;
+
+    private EmailFactory emailFactory;
+    private byte[] message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var attachment = new byte[attachmentSize];
+        new Random(42).nextBytes(attachment);
+        final var out = new ByteArrayOutputStream();
+        out.writeBytes(("Subject: benchmark\r\n" +
+                "MIME-Version: 1.0\r\n" +
+                "Content-Type: multipart/mixed; boundary=\"boundary\"\r\n" +
+                "\r\n" +
+                "--boundary\r\n" +
+                "Content-Type: text/plain; charset=UTF-8\r\n" +
+                "\r\n" +
+                "This is the message content\r\n" +
+                "--boundary\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "Content-Disposition: attachment; filename=\"data.bin\"\r\n" +
+                "Content-Transfer-Encoding: base64\r\n" +
+                "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(Base64.getMimeEncoder().encode(attachment));
+        out.writeBytes("\r\n--boundary--\r\n".getBytes(StandardCharsets.US_ASCII));
+        message = out.toByteArray();
+        emailFactory = new EmailFactory(new TimestampProvider());
+    }
+
+    @Benchmark
+    public Email convert() throws IOException {
+        return emailFactory.convert(new RawData("sender@example.com", "recipient@example.com", message));
+    }
+
+    @Benchmark
+    public Email convertHeaders() {
+        return emailFactory.convertHeaders(new RawData("sender@example.com", "recipient@example.com", message));
+    }
+}
@@ -0,0 +1,97 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Moves the base64 encoded data of inline images into binary attachment blobs. Implemented in Java as the database
+ * does not provide a function to decode base64.
+ */
+public class V1_9_0__Inline_images_as_binary extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        final var connection = context.getConnection();
+        try (var statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE email_inline_image ADD COLUMN size BIGINT");
+            statement.execute("ALTER TABLE email_inline_image ADD COLUMN blob BIGINT");
+        }
+        migrateData(connection);
+        try (var statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE email_inline_image ALTER COLUMN size SET NOT NULL");
+            statement.execute("ALTER TABLE email_inline_image ALTER COLUMN blob SET NOT NULL");
+            statement.execute("ALTER TABLE email_inline_image ADD FOREIGN KEY (blob) REFERENCES attachment_blob(id)");
+            statement.execute("CREATE INDEX email_inline_image_blob_idx ON email_inline_image(blob)");
+            statement.execute("ALTER TABLE email_inline_image DROP COLUMN data");
+            statement.execute("ALTER TABLE email_inline_image DROP COLUMN compressed_data");
+        }
+    }
+
+    private void migrateData(Connection connection) throws SQLException, IOException, NoSuchAlgorithmException {
+        try (var select = connection.createStatement();
+             var images = select.executeQuery("SELECT id, data, compressed_data FROM email_inline_image");
+             var update = connection.prepareStatement("UPDATE email_inline_image SET blob = ?, size = ? WHERE id = ?")) {
+            while (images.next()) {
+                final var compressedData = images.getBytes("compressed_data");
+                final var text = compressedData != null ? inflate(compressedData) : images.getString("data");
+                final var data = decode(text);
+                update.setLong(1, findOrCreateBlob(connection, data));
+                update.setLong(2, data.length);
+                update.setLong(3, images.getLong("id"));
+                update.executeUpdate();
+            }
+        }
+    }
+
+    private static String inflate(byte[] compressedData) throws IOException {
+        try (var stream = new InflaterInputStream(new ByteArrayInputStream(compressedData))) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] decode(String text) {
+        try {
+            return Base64.getDecoder().decode(text);
+        } catch (IllegalArgumentException e) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long findOrCreateBlob(Connection connection, byte[] data) throws SQLException, NoSuchAlgorithmException {
+        final var digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        try (var select = connection.prepareStatement("SELECT MIN(id) FROM attachment_blob WHERE digest = ? AND orphaned_on IS NULL")) {
+            select.setString(1, digest);
+            try (var result = select.executeQuery()) {
+                result.next();
+                final var id = result.getLong(1);
+                if (!result.wasNull()) {
+                    return id;
+                }
+            }
+        }
+        final long id;
+        try (var statement = connection.createStatement();
+             var result = statement.executeQuery("SELECT NEXT VALUE FOR attachment_blob_sequence")) {
+            result.next();
+            id = result.getLong(1);
+        }
+        try (var insert = connection.prepareStatement("INSERT INTO attachment_blob (id, digest, data) VALUES (?, ?, ?)")) {
+            insert.setLong(1, id);
+            insert.setString(2, digest);
+            insert.setBytes(3, data);
+            insert.executeUpdate();
+        }
+        return id;
+    }
+}
@@ -0,0 +1,10 @@
+package de.gessnerfl.fakesmtp.blob;
+
+/**
+ * Decodes data which was stored in compressed form.
+ */
+public interface BlobCodec {
+
+    byte[] decode(byte[] data);
+
+}
@@ -0,0 +1,174 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses raw messages and text parts with {@link Deflater} before they are stored, when compression is enabled,
+ * and decompresses them again when they are accessed. The achieved compression ratio and the CPU time spent for
+ * compression and decompression are published as metrics.
+ */
+@Service
+public class BlobCompressor implements BlobCodec {
+    public static final String COMPRESSION_RATIO = "blobs.compression.ratio";
+    public static final String CPU_TIME = "blobs.compression.cpu.time";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong compressionCpuNanos = new AtomicLong();
+    private final AtomicLong decompressionCpuNanos = new AtomicLong();
+
+    @Autowired
+    public BlobCompressor(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties, MeterRegistry meterRegistry) {
+        this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+        Gauge.builder(COMPRESSION_RATIO, this, BlobCompressor::getCompressionRatio).register(meterRegistry);
+        registerCpuTime(meterRegistry, "compress", compressionCpuNanos);
+        registerCpuTime(meterRegistry, "decompress", decompressionCpuNanos);
+    }
+
+    private static void registerCpuTime(MeterRegistry meterRegistry, String operation, AtomicLong nanos) {
+        FunctionCounter.builder(CPU_TIME, nanos, n -> n.get() / 1_000_000_000d)
+                .baseUnit("seconds")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return fakeSmtpConfigurationProperties.getPersistence().getCompression().isEnabled();
+    }
+
+    /**
+     * @return the compressed data, or empty when compression is disabled, the data is smaller than the configured
+     * minimum size or would not become smaller by compression
+     */
+    public Optional<byte[]> compress(byte[] data) {
+        final var compression = fakeSmtpConfigurationProperties.getPersistence().getCompression();
+        if (!compression.isEnabled() || data.length < compression.getMinSize().toBytes()) {
+            return Optional.empty();
+        }
+        final var start = cpuTime();
+        final var deflater = new Deflater(compression.getLevel());
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final var out = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, data.length / 4));
+            final var buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished() && out.size() < data.length) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            final var compressed = deflater.finished() && out.size() < data.length;
+            uncompressedBytes.addAndGet(data.length);
+            storedBytes.addAndGet(compressed ? out.size() : data.length);
+            return compressed ? Optional.of(out.toByteArray()) : Optional.empty();
+        } finally {
+            deflater.end();
+            compressionCpuNanos.addAndGet(cpuTime() - start);
+        }
+    }
+
+    /**
+     * Compresses the data of the source while it is read, so the uncompressed data is not copied into memory.
+     *
+     * @return the compressed data, or empty when compression is disabled, the data is smaller than the configured
+     * minimum size or would not become smaller by compression
+     */
+    public Optional<byte[]> compress(BlobSource source) {
+        final var compression = fakeSmtpConfigurationProperties.getPersistence().getCompression();
+        if (!compression.isEnabled()) {
+            return Optional.empty();
+        }
+        final var start = cpuTime();
+        final var deflater = new Deflater(compression.getLevel());
+        try (var in = source.open()) {
+            final var minSize = compression.getMinSize().toBytes();
+            final var head = in.readNBytes((int) Math.min(minSize, Integer.MAX_VALUE));
+            if (head.length < minSize) {
+                return Optional.empty();
+            }
+            final var out = new ByteArrayOutputStream(BUFFER_SIZE);
+            final var buffer = new byte[BUFFER_SIZE];
+            long length = deflate(deflater, head, head.length, out, buffer);
+            final var input = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(input)) >= 0) {
+                length += deflate(deflater, input, read, out, buffer);
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            final var compressed = out.size() < length;
+            uncompressedBytes.addAndGet(length);
+            storedBytes.addAndGet(compressed ? out.size() : length);
+            return compressed ? Optional.of(out.toByteArray()) : Optional.empty();
+        } catch (IOException e) {
+            throw new BlobStoreException("Failed to read blob source", e);
+        } finally {
+            deflater.end();
+            compressionCpuNanos.addAndGet(cpuTime() - start);
+        }
+    }
+
+    private static int deflate(Deflater deflater, byte[] input, int length, ByteArrayOutputStream out, byte[] buffer) {
+        deflater.setInput(input, 0, length);
+        while (!deflater.needsInput()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return length;
+    }
+
+    @Override
+    public byte[] decode(byte[] data) {
+        final var start = cpuTime();
+        final var inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            final var out = new ByteArrayOutputStream((int) Math.min((long) data.length * 4, MAX_ARRAY_SIZE));
+            final var buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                final var length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new BlobStoreException("Compressed data is truncated", null);
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new BlobStoreException("Failed to decompress data", e);
+        } finally {
+            inflater.end();
+            decompressionCpuNanos.addAndGet(cpuTime() - start);
+        }
+    }
+
+    /**
+     * @return the ratio between the size of the data passed for compression and the size which was actually stored
+     */
+    public double getCompressionRatio() {
+        final var stored = storedBytes.get();
+        return stored == 0 ? 1.0 : (double) uncompressedBytes.get() / stored;
+    }
+
+    private static long cpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
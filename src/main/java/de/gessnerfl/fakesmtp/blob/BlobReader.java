@@ -0,0 +1,10 @@
+package de.gessnerfl.fakesmtp.blob;
+
+/**
+ * Reads blobs which are stored outside of the database.
+ */
+public interface BlobReader {
+
+    byte[] read(int segment, long offset, int length);
+
+}
@@ -0,0 +1,17 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Provides the data of a new blob as stream, e.g. from the file a message was spooled to, so it can be written to the
+ * blob store without being copied into a byte array first.
+ */
+public interface BlobSource {
+
+    /**
+     * @return a new stream on the data; the caller closes it
+     */
+    InputStream open() throws IOException;
+
+}
@@ -0,0 +1,7 @@
+package de.gessnerfl.fakesmtp.blob;
+
+public class BlobStoreException extends RuntimeException {
+    public BlobStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
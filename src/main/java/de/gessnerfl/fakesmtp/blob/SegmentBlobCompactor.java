@@ -0,0 +1,74 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.repository.AttachmentBlobRepository;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reclaims the space of segment files whose blobs were deleted. Segments without any referenced blob are retired
+ * directly; segments which are less than half used get their remaining blobs copied to the active segment first.
+ */
+@Service
+public class SegmentBlobCompactor {
+    /**
+     * Segments are only compacted when they were sealed for at least this duration, so blobs which were appended by
+     * transactions that have not been committed yet are not missed.
+     */
+    static final Duration SEALED_GRACE_PERIOD = Duration.ofMinutes(1);
+
+    private final SegmentBlobStore segmentBlobStore;
+    private final EmailRepository emailRepository;
+    private final AttachmentBlobRepository attachmentBlobRepository;
+    private final TimestampProvider timestampProvider;
+    private final Logger logger;
+
+    @Autowired
+    public SegmentBlobCompactor(SegmentBlobStore segmentBlobStore, EmailRepository emailRepository, AttachmentBlobRepository attachmentBlobRepository, TimestampProvider timestampProvider, Logger logger) {
+        this.segmentBlobStore = segmentBlobStore;
+        this.emailRepository = emailRepository;
+        this.attachmentBlobRepository = attachmentBlobRepository;
+        this.timestampProvider = timestampProvider;
+        this.logger = logger;
+    }
+
+    public void compact() {
+        segmentBlobStore.deleteRetiredSegments();
+        final var cutoff = timestampProvider.now().minus(SEALED_GRACE_PERIOD);
+        for (var segment : segmentBlobStore.getSegmentsSealedBefore(cutoff)) {
+            compact(segment);
+        }
+    }
+
+    private void compact(SegmentBlobStore.SegmentInfo segment) {
+        final var emails = emailRepository.findRawDataLocationsInSegment(segment.id());
+        final var attachmentBlobs = attachmentBlobRepository.findDataLocationsInSegment(segment.id());
+        final var liveBytes = liveBytesOf(emails) + liveBytesOf(attachmentBlobs);
+        if (liveBytes * 2 >= segment.size()) {
+            return;
+        }
+        for (var email : emails) {
+            final var location = copyToActiveSegment(segment.id(), email);
+            emailRepository.moveRawData(email.getId(), segment.id(), location.segment(), location.offset());
+        }
+        for (var attachmentBlob : attachmentBlobs) {
+            final var location = copyToActiveSegment(segment.id(), attachmentBlob);
+            attachmentBlobRepository.moveData(attachmentBlob.getId(), segment.id(), location.segment(), location.offset());
+        }
+        segmentBlobStore.retire(segment.id());
+        logger.info("Compacted segment {}; moved {} of {} bytes", segment.id(), liveBytes, segment.size());
+    }
+
+    private SegmentBlobStore.BlobLocation copyToActiveSegment(int segment, StoredBlobLocation blob) {
+        return segmentBlobStore.append(segmentBlobStore.read(segment, blob.getOffset(), blob.getLength()));
+    }
+
+    private static long liveBytesOf(List<StoredBlobLocation> locations) {
+        return locations.stream().mapToLong(StoredBlobLocation::getLength).sum();
+    }
+}
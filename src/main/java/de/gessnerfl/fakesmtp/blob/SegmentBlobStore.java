@@ -0,0 +1,327 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only store for large binary payloads such as raw messages and attachments. Blobs are appended to segment
+ * files, so stored payloads do not occupy the Java heap; the database rows only keep the segment, offset and length.
+ * Sealed segments are never modified and are read through one memory mapping each. The active segment is read with
+ * positional reads instead, so it does not have to be mapped again whenever it grows. The
+ * {@link SegmentBlobCompactor} copies the remaining blobs of mostly unused segments into the active segment and
+ * retires them.
+ */
+@Service
+public class SegmentBlobStore implements BlobReader {
+    static final long MAX_SEGMENT_SIZE = 1L << 30;
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("segment-(\\d{10})\\.dat");
+
+    private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+    private final TimestampProvider timestampProvider;
+    private final Logger logger;
+
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final List<Segment> retiredSegments = new ArrayList<>();
+    private Path directory;
+    private long segmentSize;
+    private boolean enabled;
+    private int nextSegmentId;
+    private Segment activeSegment;
+    private FileChannel activeChannel;
+
+    @Autowired
+    public SegmentBlobStore(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties, TimestampProvider timestampProvider, Logger logger) {
+        this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+        this.timestampProvider = timestampProvider;
+        this.logger = logger;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        final var blobStore = fakeSmtpConfigurationProperties.getPersistence().getBlobStore();
+        directory = blobStore.getDirectory();
+        segmentSize = Math.min(blobStore.getSegmentSize().toBytes(), MAX_SEGMENT_SIZE);
+        enabled = blobStore.getType() == FakeSmtpConfigurationProperties.BlobStoreType.SEGMENT_FILES;
+        if (enabled) {
+            logger.info("Store blobs in segment files of directory {}", directory);
+            Files.createDirectories(directory);
+        }
+        if (Files.isDirectory(directory)) {
+            openExistingSegments();
+        }
+    }
+
+    private void openExistingSegments() throws IOException {
+        final var now = timestampProvider.now();
+        try (var files = Files.list(directory)) {
+            for (var file : files.toList()) {
+                final var matcher = SEGMENT_FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    final var segment = new Segment(Integer.parseInt(matcher.group(1)), file, Files.size(file));
+                    segment.sealedOn = now;
+                    segments.put(segment.id, segment);
+                    nextSegmentId = Math.max(nextSegmentId, segment.id + 1);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+            activeSegment.seal(timestampProvider.now());
+        }
+    }
+
+    /**
+     * @return true when new blobs are stored in segment files
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized BlobLocation append(byte[] data) {
+        try {
+            if (activeSegment == null || (activeSegment.size > 0 && activeSegment.size + data.length > segmentSize)) {
+                rollActiveSegment();
+            }
+            final var offset = activeSegment.size;
+            final var buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                activeChannel.write(buffer, offset + buffer.position());
+            }
+            activeSegment.size += data.length;
+            return new BlobLocation(activeSegment.id, offset, data.length);
+        } catch (IOException e) {
+            throw new BlobStoreException("Failed to append blob to segment store " + directory, e);
+        }
+    }
+
+    /**
+     * Streams the data of the source into the active segment, so it is not copied into memory. As the length of the
+     * data is only known afterwards, a blob which exceeds the active segment is moved to the start of a new segment
+     * like an appended array which does not fit.
+     */
+    public synchronized BlobLocation append(BlobSource source) {
+        try (var in = source.open()) {
+            if (activeSegment == null) {
+                rollActiveSegment();
+            }
+            final var offset = activeSegment.size;
+            activeChannel.position(offset);
+            final var length = in.transferTo(Channels.newOutputStream(activeChannel));
+            if (length > Integer.MAX_VALUE) {
+                activeChannel.truncate(offset);
+                throw new BlobStoreException("Blob of " + length + " bytes exceeds the maximum blob size", null);
+            }
+            if (offset > 0 && offset + length > segmentSize) {
+                return moveToNewSegment(offset, (int) length);
+            }
+            activeSegment.size += length;
+            return new BlobLocation(activeSegment.id, offset, (int) length);
+        } catch (IOException e) {
+            throw new BlobStoreException("Failed to append blob to segment store " + directory, e);
+        }
+    }
+
+    private BlobLocation moveToNewSegment(long offset, int length) throws IOException {
+        final var previousSegment = activeSegment;
+        final var previousChannel = activeChannel;
+        openActiveSegment();
+        for (var copied = 0L; copied < length; ) {
+            copied += previousChannel.transferTo(offset + copied, length - copied, activeChannel);
+        }
+        previousChannel.truncate(offset);
+        previousChannel.close();
+        previousSegment.seal(timestampProvider.now());
+        activeSegment.size = length;
+        return new BlobLocation(activeSegment.id, 0, length);
+    }
+
+    private void rollActiveSegment() throws IOException {
+        if (activeSegment != null) {
+            activeChannel.close();
+            activeSegment.seal(timestampProvider.now());
+        }
+        openActiveSegment();
+    }
+
+    private void openActiveSegment() throws IOException {
+        final var id = nextSegmentId++;
+        final var file = directory.resolve("segment-%010d.dat".formatted(id));
+        activeChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = new Segment(id, file, 0);
+        activeSegment.reader = FileChannel.open(file, StandardOpenOption.READ);
+        segments.put(id, activeSegment);
+    }
+
+    @Override
+    public byte[] read(int segmentId, long offset, int length) {
+        final var segment = segments.get(segmentId);
+        if (segment == null) {
+            throw new BlobStoreException("Segment " + segmentId + " does not exist in segment store " + directory, null);
+        }
+        final var data = new byte[length];
+        if (!segment.readActive(offset, data)) {
+            segment.mapping().get((int) offset, data);
+        }
+        return data;
+    }
+
+    /**
+     * @return the segments which were sealed before the given point in time and are not retired
+     */
+    public List<SegmentInfo> getSegmentsSealedBefore(ZonedDateTime timestamp) {
+        return segments.values().stream()
+                .filter(s -> !s.retired && s.sealedOn != null && s.sealedOn.isBefore(timestamp))
+                .map(s -> new SegmentInfo(s.id, s.size))
+                .toList();
+    }
+
+    /**
+     * Marks a sealed segment as no longer referenced. The segment stays readable for requests which still hold the
+     * previous location of a moved blob until it is deleted by the next call of {@link #deleteRetiredSegments()}.
+     */
+    public synchronized void retire(int segmentId) {
+        final var segment = segments.get(segmentId);
+        if (segment != null && segment != activeSegment && !segment.retired) {
+            segment.retired = true;
+            retiredSegments.add(segment);
+        }
+    }
+
+    public synchronized void deleteRetiredSegments() {
+        for (var segment : retiredSegments) {
+            segments.remove(segment.id);
+            segment.mapping = null;
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                logger.warn("Failed to delete retired segment {}", segment.file, e);
+            }
+        }
+        retiredSegments.clear();
+    }
+
+    public record BlobLocation(int segment, long offset, int length) {
+    }
+
+    public record SegmentInfo(int id, long size) {
+    }
+
+    private static class Segment {
+        private final int id;
+        private final Path file;
+        private volatile long size;
+        private volatile ZonedDateTime sealedOn;
+        private volatile boolean retired;
+        private volatile MappedByteBuffer mapping;
+        private volatile FileChannel reader;
+
+        private Segment(int id, Path file, long size) {
+            this.id = id;
+            this.file = file;
+            this.size = size;
+        }
+
+        private synchronized void seal(ZonedDateTime timestamp) throws IOException {
+            sealedOn = timestamp;
+            final var current = reader;
+            reader = null;
+            if (current != null) {
+                current.close();
+            }
+        }
+
+        /**
+         * Reads the data with positional reads while the segment is active.
+         *
+         * @return false when the segment is sealed and has to be read through its mapping
+         */
+        private boolean readActive(long offset, byte[] data) {
+            while (true) {
+                final var current = reader;
+                if (current == null) {
+                    return false;
+                }
+                final var buffer = ByteBuffer.wrap(data);
+                try {
+                    while (buffer.hasRemaining()) {
+                        if (current.read(buffer, offset + buffer.position()) < 0) {
+                            throw new EOFException("Blob exceeds the end of segment " + file);
+                        }
+                    }
+                    return true;
+                } catch (ClosedByInterruptException e) {
+                    reopen(current);
+                    throw new BlobStoreException("Interrupted while reading segment " + file, e);
+                } catch (ClosedChannelException e) {
+                    // the segment was sealed or the channel was closed by an interrupted reader
+                    reopen(current);
+                } catch (IOException e) {
+                    throw new BlobStoreException("Failed to read segment " + file, e);
+                }
+            }
+        }
+
+        private synchronized void reopen(FileChannel closed) {
+            if (reader == closed) {
+                try {
+                    reader = FileChannel.open(file, StandardOpenOption.READ);
+                } catch (IOException e) {
+                    throw new BlobStoreException("Failed to open segment " + file, e);
+                }
+            }
+        }
+
+        /**
+         * @return the mapping of the sealed segment, which is created on first access
+         */
+        private MappedByteBuffer mapping() {
+            var current = mapping;
+            if (current == null) {
+                synchronized (this) {
+                    current = mapping;
+                    if (current == null) {
+                        current = map();
+                        mapping = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        private MappedByteBuffer map() {
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new BlobStoreException("Failed to map segment " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.model.AttachmentBlob;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailContent;
+import de.gessnerfl.fakesmtp.model.StoredBlob;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Compresses raw messages and text contents of new entities when compression is enabled and writes blobs of new
+ * entities to the {@link SegmentBlobStore} when it is enabled. Blobs created from a {@link BlobSource} are streamed
+ * into the compressor or the segment store; they are only read into memory when they are stored in the database.
+ * Loaded entities get the store and the codec attached, so their data can be read from the segment files and
+ * decompressed on access.
+ */
+@Component
+public class StoredBlobEntityListener {
+    private final SegmentBlobStore segmentBlobStore;
+    private final BlobCompressor blobCompressor;
+
+    @Autowired
+    public StoredBlobEntityListener(SegmentBlobStore segmentBlobStore, BlobCompressor blobCompressor) {
+        this.segmentBlobStore = segmentBlobStore;
+        this.blobCompressor = blobCompressor;
+    }
+
+    @PrePersist
+    public void store(Object entity) {
+        if (entity instanceof EmailContent content) {
+            compress(content);
+            return;
+        }
+        if (entity instanceof Email email) {
+            compress(email.getStoredRawData());
+        }
+        if (segmentBlobStore.isEnabled()) {
+            storedBlobOf(entity)
+                    .filter(blob -> blob.getPendingSource() != null || blob.getPendingData() != null)
+                    .ifPresent(this::moveToSegment);
+        } else {
+            // the database column is written from the byte array
+            storedBlobOf(entity).ifPresent(StoredBlob::getPendingData);
+        }
+    }
+
+    private void compress(EmailContent content) {
+        if (content.getData() != null && !content.isCompressed()) {
+            blobCompressor.compress(content.getData().getBytes(StandardCharsets.UTF_8))
+                    .ifPresent(compressed -> content.compress(compressed, blobCompressor));
+        }
+    }
+
+    private void compress(StoredBlob blob) {
+        if (blob == null || blob.isCompressed()) {
+            return;
+        }
+        if (blob.getPendingSource() != null) {
+            blobCompressor.compress(blob.getPendingSource()).ifPresent(compressed -> blob.compress(compressed, blobCompressor));
+        } else if (blob.getPendingData() != null) {
+            blobCompressor.compress(blob.getPendingData()).ifPresent(compressed -> blob.compress(compressed, blobCompressor));
+        }
+    }
+
+    private void moveToSegment(StoredBlob blob) {
+        final var location = blob.getPendingSource() != null
+                ? segmentBlobStore.append(blob.getPendingSource())
+                : segmentBlobStore.append(blob.getPendingData());
+        blob.moveToSegment(location.segment(), location.offset(), location.length(), segmentBlobStore);
+    }
+
+    @PostLoad
+    public void attach(Object entity) {
+        if (entity instanceof EmailContent content) {
+            content.attach(blobCompressor);
+        }
+        storedBlobOf(entity).ifPresent(blob -> blob.attach(segmentBlobStore, blobCompressor));
+    }
+
+    private static Optional<StoredBlob> storedBlobOf(Object entity) {
+        if (entity instanceof Email email) {
+            return Optional.ofNullable(email.getStoredRawData());
+        }
+        if (entity instanceof AttachmentBlob attachmentBlob) {
+            return Optional.ofNullable(attachmentBlob.getStoredData());
+        }
+        return Optional.empty();
+    }
+}
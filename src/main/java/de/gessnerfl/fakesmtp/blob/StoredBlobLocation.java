@@ -0,0 +1,14 @@
+package de.gessnerfl.fakesmtp.blob;
+
+/**
+ * Projection of an entity whose blob is stored in a segment file.
+ */
+public interface StoredBlobLocation {
+
+    Long getId();
+
+    Long getOffset();
+
+    Integer getLength();
+
+}
@@ -3,7 +3,11 @@ package de.gessnerfl.fakesmtp.config;
 import de.gessnerfl.fakesmtp.smtp.auth.BasicUsernamePasswordValidator;
 import de.gessnerfl.fakesmtp.smtp.auth.EasyAuthenticationHandlerFactory;
 import de.gessnerfl.fakesmtp.smtp.command.CommandHandler;
+import de.gessnerfl.fakesmtp.smtp.io.SlabPool;
 import de.gessnerfl.fakesmtp.smtp.server.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,6 +29,8 @@ import java.util.List;
 @Profile("default")
 @Configuration
 public class BaseSmtpServerConfig implements SmtpServerConfig {
+    public static final String OVERSIZED_MESSAGE_BYTES = "messages.oversized.bytes";
+    public static final String POOLED_SLABS = "spool.slabs.pooled";
 
     private final BuildProperties buildProperties;
     private final ResourceLoader resourceLoader;
@@ -33,6 +39,7 @@ public class BaseSmtpServerConfig implements SmtpServerConfig {
     private final BasicUsernamePasswordValidator basicUsernamePasswordValidator;
     private final CommandHandler commandHandler;
     private final boolean virtualThreadsEnabled;
+    private final MeterRegistry meterRegistry;
     private final Logger logger;
 
     @Autowired
@@ -43,6 +50,7 @@ public class BaseSmtpServerConfig implements SmtpServerConfig {
                                 BasicUsernamePasswordValidator basicUsernamePasswordValidator,
                                 CommandHandler commandHandler,
                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled,
+                                MeterRegistry meterRegistry,
                                 Logger logger) {
         this.buildProperties = buildProperties;
         this.resourceLoader = resourceLoader;
@@ -51,21 +59,34 @@ public class BaseSmtpServerConfig implements SmtpServerConfig {
         this.basicUsernamePasswordValidator = basicUsernamePasswordValidator;
         this.commandHandler = commandHandler;
         this.virtualThreadsEnabled = virtualThreadsEnabled;
+        this.meterRegistry = meterRegistry;
         this.logger = logger;
     }
 
     @Override
     @Bean
     public SmtpServer smtpServer() {
-        BaseSmtpServer smtpServer = createBaseSmtpServerFor(new MessageListenerAdapter(messageListeners), sessionIdFactory());
+        var ingest = fakeSmtpConfigurationProperties.getIngest();
+        var dataSpoolThreshold = (int) Math.min(ingest.getDataSpoolThreshold().toBytes(), Integer.MAX_VALUE);
+        var slabPool = new SlabPool((int) Math.min(ingest.getDataSpoolSlabSize().toBytes(), Integer.MAX_VALUE), ingest.getDataSpoolPooledSlabs());
+        var messageListenerAdapter = new MessageListenerAdapter(messageListeners, dataSpoolThreshold, ingest.getDataSpoolDirectory(), slabPool);
+        BaseSmtpServer smtpServer = createBaseSmtpServerFor(messageListenerAdapter, sessionIdFactory());
+        smtpServer.setSpoolDirectory(ingest.getDataSpoolDirectory());
+        smtpServer.setSlabPool(slabPool);
+        Gauge.builder(POOLED_SLABS, slabPool, SlabPool::getPooledSlabs).register(meterRegistry);
         smtpServer.setPort(fakeSmtpConfigurationProperties.getPort());
         smtpServer.setBindAddress(fakeSmtpConfigurationProperties.getBindAddress());
+        if (fakeSmtpConfigurationProperties.getTransport() != null) {
+            configureTransport(smtpServer, fakeSmtpConfigurationProperties.getTransport());
+        }
         if (fakeSmtpConfigurationProperties.getAuthentication() != null) {
             configureAuthentication(smtpServer, fakeSmtpConfigurationProperties.getAuthentication());
         }
         if (fakeSmtpConfigurationProperties.getMaxMessageSize() != null){
             smtpServer.setMaxMessageSizeInBytes(fakeSmtpConfigurationProperties.getMaxMessageSize().toBytes());
         }
+        var oversizedMessageBytes = Counter.builder(OVERSIZED_MESSAGE_BYTES).baseUnit("bytes").register(meterRegistry);
+        smtpServer.setOversizedMessageListener(oversizedMessageBytes::increment);
         if(fakeSmtpConfigurationProperties.isRequireTLS() && fakeSmtpConfigurationProperties.getTlsKeystore() == null){
             throw new IllegalArgumentException("SMTP server TLS keystore configuration is missing");
         }
@@ -111,6 +132,13 @@ public class BaseSmtpServerConfig implements SmtpServerConfig {
         return new BaseSmtpServer(softwareName, messageListenerAdapter, commandHandler, sessionIdFactory, virtualThreadsEnabled);
     }
 
+    private void configureTransport(BaseSmtpServer smtpServer, FakeSmtpConfigurationProperties.Transport transport) {
+        logger.info("Setup {} transport of SMTP server", transport.getType());
+        smtpServer.setTransportType(transport.getType());
+        smtpServer.setEventLoopThreads(transport.getEventLoopThreads());
+        smtpServer.setMaxConnections(transport.getMaxConnections());
+    }
+
     private void configureAuthentication(BaseSmtpServer smtpServer, FakeSmtpConfigurationProperties.Authentication authentication) {
         if (!StringUtils.hasText(authentication.getUsername())) {
             logger.error("Username is missing; skip configuration of authentication");
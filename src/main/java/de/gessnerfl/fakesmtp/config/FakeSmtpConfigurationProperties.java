@@ -1,6 +1,9 @@
 package de.gessnerfl.fakesmtp.config;
 
+import de.gessnerfl.fakesmtp.smtp.server.TransportType;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -9,6 +12,8 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.util.unit.DataSize;
 
 import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,6 +40,26 @@ public class FakeSmtpConfigurationProperties {
     @Valid
     private Persistence persistence = new Persistence();
 
+    @NotNull
+    @Valid
+    private Transport transport = new Transport();
+
+    @NotNull
+    @Valid
+    private Ingest ingest = new Ingest();
+
+    @NotNull
+    @Valid
+    private Metrics metrics = new Metrics();
+
+    @NotNull
+    @Valid
+    private Forwarding forwarding = new Forwarding();
+
+    @NotNull
+    @Valid
+    private Events events = new Events();
+
     public Integer getPort() {
         return port;
     }
@@ -115,6 +140,46 @@ public class FakeSmtpConfigurationProperties {
         this.forwardEmails = forwardEmails;
     }
 
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public Ingest getIngest() {
+        return ingest;
+    }
+
+    public void setIngest(Ingest ingest) {
+        this.ingest = ingest;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Forwarding getForwarding() {
+        return forwarding;
+    }
+
+    public void setForwarding(Forwarding forwarding) {
+        this.forwarding = forwarding;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public void setEvents(Events events) {
+        this.events = events;
+    }
+
     public static class Authentication {
         @NotNull
         private String username;
@@ -172,6 +237,14 @@ public class FakeSmtpConfigurationProperties {
         @Valid
         private FixedDelayTimerSettings emailDataRetentionTimer = new FixedDelayTimerSettings();
 
+        @NotNull
+        @Valid
+        private BlobStore blobStore = new BlobStore();
+
+        @NotNull
+        @Valid
+        private Compression compression = new Compression();
+
         public @NotNull Integer getMaxNumberEmails() {
             return maxNumberEmails;
         }
@@ -187,6 +260,434 @@ public class FakeSmtpConfigurationProperties {
         public void setEmailDataRetentionTimer(@NotNull @Valid FixedDelayTimerSettings emailDataRetentionTimer) {
             this.emailDataRetentionTimer = emailDataRetentionTimer;
         }
+
+        public @NotNull @Valid BlobStore getBlobStore() {
+            return blobStore;
+        }
+
+        public void setBlobStore(@NotNull @Valid BlobStore blobStore) {
+            this.blobStore = blobStore;
+        }
+
+        public @NotNull @Valid Compression getCompression() {
+            return compression;
+        }
+
+        public void setCompression(@NotNull @Valid Compression compression) {
+            this.compression = compression;
+        }
+    }
+
+    public enum BlobStoreType {
+        DATABASE, SEGMENT_FILES
+    }
+
+    public static class BlobStore {
+        public static final DataSize DEFAULT_SEGMENT_SIZE = DataSize.ofMegabytes(64);
+
+        @NotNull
+        private BlobStoreType type = BlobStoreType.DATABASE;
+        @NotNull
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "fake-smtp-server", "blobs");
+        @NotNull
+        private DataSize segmentSize = DEFAULT_SEGMENT_SIZE;
+
+        public @NotNull BlobStoreType getType() {
+            return type;
+        }
+
+        public void setType(@NotNull BlobStoreType type) {
+            this.type = type;
+        }
+
+        public @NotNull Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(@NotNull Path directory) {
+            this.directory = directory;
+        }
+
+        public @NotNull DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(@NotNull DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+    }
+
+    public static class Compression {
+        public static final int DEFAULT_LEVEL = 6;
+        public static final DataSize DEFAULT_MIN_SIZE = DataSize.ofBytes(512);
+
+        private boolean enabled = false;
+        @Min(1)
+        @Max(9)
+        private int level = DEFAULT_LEVEL;
+        @NotNull
+        private DataSize minSize = DEFAULT_MIN_SIZE;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public @NotNull DataSize getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(@NotNull DataSize minSize) {
+            this.minSize = minSize;
+        }
+    }
+
+    public static class Transport {
+        public static final int DEFAULT_EVENT_LOOP_THREADS = 2;
+        public static final int DEFAULT_MAX_CONNECTIONS = 1000;
+
+        @NotNull
+        private TransportType type = TransportType.BLOCKING;
+        @Min(1)
+        private int eventLoopThreads = DEFAULT_EVENT_LOOP_THREADS;
+        @Min(1)
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+        public @NotNull TransportType getType() {
+            return type;
+        }
+
+        public void setType(@NotNull TransportType type) {
+            this.type = type;
+        }
+
+        public int getEventLoopThreads() {
+            return eventLoopThreads;
+        }
+
+        public void setEventLoopThreads(int eventLoopThreads) {
+            this.eventLoopThreads = eventLoopThreads;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+    }
+
+    public enum MetricsTagMode {
+        NONE, DOMAIN, ADDRESS
+    }
+
+    public static class Metrics {
+        public static final int DEFAULT_MAX_TAG_VALUES = 100;
+        public static final int DEFAULT_HEAVY_HITTERS_CAPACITY = 1000;
+        public static final int DEFAULT_HEAVY_HITTERS_LIMIT = 10;
+
+        @NotNull
+        private MetricsTagMode tagMode = MetricsTagMode.DOMAIN;
+        @Min(1)
+        private int maxTagValues = DEFAULT_MAX_TAG_VALUES;
+        @Min(1)
+        private int heavyHittersCapacity = DEFAULT_HEAVY_HITTERS_CAPACITY;
+        @Min(1)
+        private int heavyHittersLimit = DEFAULT_HEAVY_HITTERS_LIMIT;
+
+        public @NotNull MetricsTagMode getTagMode() {
+            return tagMode;
+        }
+
+        public void setTagMode(@NotNull MetricsTagMode tagMode) {
+            this.tagMode = tagMode;
+        }
+
+        public int getMaxTagValues() {
+            return maxTagValues;
+        }
+
+        public void setMaxTagValues(int maxTagValues) {
+            this.maxTagValues = maxTagValues;
+        }
+
+        public int getHeavyHittersCapacity() {
+            return heavyHittersCapacity;
+        }
+
+        public void setHeavyHittersCapacity(int heavyHittersCapacity) {
+            this.heavyHittersCapacity = heavyHittersCapacity;
+        }
+
+        public int getHeavyHittersLimit() {
+            return heavyHittersLimit;
+        }
+
+        public void setHeavyHittersLimit(int heavyHittersLimit) {
+            this.heavyHittersLimit = heavyHittersLimit;
+        }
+    }
+
+    public enum IngestMode {
+        SYNCHRONOUS, ASYNCHRONOUS
+    }
+
+    public enum QueueFullPolicy {
+        BLOCK, REJECT
+    }
+
+    public enum ParsingMode {
+        EAGER, LAZY
+    }
+
+    public static class Ingest {
+        public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+        public static final int DEFAULT_BATCH_SIZE = 50;
+        public static final DataSize DEFAULT_DATA_SPOOL_THRESHOLD = DataSize.ofMegabytes(5);
+        public static final DataSize DEFAULT_DATA_SPOOL_SLAB_SIZE = DataSize.ofKilobytes(64);
+        public static final int DEFAULT_DATA_SPOOL_POOLED_SLABS = 256;
+        public static final int DEFAULT_PERSIST_MAX_ATTEMPTS = 3;
+        public static final Duration DEFAULT_PERSIST_INITIAL_BACKOFF = Duration.ofSeconds(1);
+        public static final Duration DEFAULT_PERSIST_MAX_BACKOFF = Duration.ofSeconds(30);
+
+        @NotNull
+        private IngestMode mode = IngestMode.SYNCHRONOUS;
+        @Min(1)
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        @Min(1)
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        @NotNull
+        private QueueFullPolicy queueFullPolicy = QueueFullPolicy.BLOCK;
+        @NotNull
+        private Path spoolDirectory = Path.of(System.getProperty("java.io.tmpdir"), "fake-smtp-server", "ingest");
+        @NotNull
+        private ParsingMode parsing = ParsingMode.EAGER;
+        @NotNull
+        private DataSize dataSpoolThreshold = DEFAULT_DATA_SPOOL_THRESHOLD;
+        @NotNull
+        private Path dataSpoolDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+        @NotNull
+        private DataSize dataSpoolSlabSize = DEFAULT_DATA_SPOOL_SLAB_SIZE;
+        @Min(1)
+        private int dataSpoolPooledSlabs = DEFAULT_DATA_SPOOL_POOLED_SLABS;
+        @Min(1)
+        private int persistMaxAttempts = DEFAULT_PERSIST_MAX_ATTEMPTS;
+        @NotNull
+        private Duration persistInitialBackoff = DEFAULT_PERSIST_INITIAL_BACKOFF;
+        @NotNull
+        private Duration persistMaxBackoff = DEFAULT_PERSIST_MAX_BACKOFF;
+
+        public @NotNull IngestMode getMode() {
+            return mode;
+        }
+
+        public void setMode(@NotNull IngestMode mode) {
+            this.mode = mode;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public @NotNull QueueFullPolicy getQueueFullPolicy() {
+            return queueFullPolicy;
+        }
+
+        public void setQueueFullPolicy(@NotNull QueueFullPolicy queueFullPolicy) {
+            this.queueFullPolicy = queueFullPolicy;
+        }
+
+        public @NotNull Path getSpoolDirectory() {
+            return spoolDirectory;
+        }
+
+        public void setSpoolDirectory(@NotNull Path spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+        }
+
+        public @NotNull ParsingMode getParsing() {
+            return parsing;
+        }
+
+        public void setParsing(@NotNull ParsingMode parsing) {
+            this.parsing = parsing;
+        }
+
+        public @NotNull DataSize getDataSpoolThreshold() {
+            return dataSpoolThreshold;
+        }
+
+        public void setDataSpoolThreshold(@NotNull DataSize dataSpoolThreshold) {
+            this.dataSpoolThreshold = dataSpoolThreshold;
+        }
+
+        public @NotNull Path getDataSpoolDirectory() {
+            return dataSpoolDirectory;
+        }
+
+        public void setDataSpoolDirectory(@NotNull Path dataSpoolDirectory) {
+            this.dataSpoolDirectory = dataSpoolDirectory;
+        }
+
+        public @NotNull DataSize getDataSpoolSlabSize() {
+            return dataSpoolSlabSize;
+        }
+
+        public void setDataSpoolSlabSize(@NotNull DataSize dataSpoolSlabSize) {
+            this.dataSpoolSlabSize = dataSpoolSlabSize;
+        }
+
+        public int getDataSpoolPooledSlabs() {
+            return dataSpoolPooledSlabs;
+        }
+
+        public void setDataSpoolPooledSlabs(int dataSpoolPooledSlabs) {
+            this.dataSpoolPooledSlabs = dataSpoolPooledSlabs;
+        }
+
+        public int getPersistMaxAttempts() {
+            return persistMaxAttempts;
+        }
+
+        public void setPersistMaxAttempts(int persistMaxAttempts) {
+            this.persistMaxAttempts = persistMaxAttempts;
+        }
+
+        public @NotNull Duration getPersistInitialBackoff() {
+            return persistInitialBackoff;
+        }
+
+        public void setPersistInitialBackoff(@NotNull Duration persistInitialBackoff) {
+            this.persistInitialBackoff = persistInitialBackoff;
+        }
+
+        public @NotNull Duration getPersistMaxBackoff() {
+            return persistMaxBackoff;
+        }
+
+        public void setPersistMaxBackoff(@NotNull Duration persistMaxBackoff) {
+            this.persistMaxBackoff = persistMaxBackoff;
+        }
+    }
+
+    public static class Forwarding {
+        public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+        public static final int DEFAULT_WORKERS = 2;
+        public static final int DEFAULT_BATCH_SIZE = 20;
+        public static final int DEFAULT_MAX_ATTEMPTS = 5;
+        public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofSeconds(1);
+        public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(5);
+        public static final int DEFAULT_DEAD_LETTER_CAPACITY = 1000;
+
+        @Min(1)
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        @Min(1)
+        private int workers = DEFAULT_WORKERS;
+        @Min(1)
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        @Min(1)
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        @NotNull
+        private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+        @NotNull
+        private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+        @Min(1)
+        private int deadLetterCapacity = DEFAULT_DEAD_LETTER_CAPACITY;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public @NotNull Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(@NotNull Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public @NotNull Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(@NotNull Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public int getDeadLetterCapacity() {
+            return deadLetterCapacity;
+        }
+
+        public void setDeadLetterCapacity(int deadLetterCapacity) {
+            this.deadLetterCapacity = deadLetterCapacity;
+        }
+    }
+
+    public static class Events {
+        public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+        @Min(1)
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
     }
 
     public enum KeyStoreType {
@@ -28,7 +28,8 @@ public class SmtpCommandConfig {
                 resetCommand(),
                 startTLSCommand(),
                 verifyCommand(),
-                expandCommand());
+                expandCommand(),
+                bdatCommand());
     }
 
     @Bean
@@ -95,6 +96,12 @@ public class SmtpCommandConfig {
         return withAuthCheckWhenRequired(withTlsCheckWhenRequired(new ExpandCommand()));
     }
 
+    @Bean
+    public Command bdatCommand() {
+        // checks authentication and TLS itself, as the chunk has to be consumed when the command is rejected
+        return new BdatCommand();
+    }
+
     private Command withTlsCheckWhenRequired(Command c) {
         return new RequireTLSCommandWrapper(c);
     }
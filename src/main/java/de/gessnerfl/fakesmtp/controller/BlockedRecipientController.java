@@ -0,0 +1,51 @@
+package de.gessnerfl.fakesmtp.controller;
+
+import de.gessnerfl.fakesmtp.smtp.server.BlockedRecipientAddresses;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Manages the {@link BlockedRecipientAddresses} at runtime. Changes are not persisted; after a restart the addresses
+ * configured in {@code fakesmtp.blockedRecipientAddresses} apply again.
+ */
+@RestController
+@RequestMapping("/api/blocked-recipients")
+public class BlockedRecipientController {
+
+    private final BlockedRecipientAddresses blockedRecipientAddresses;
+
+    public BlockedRecipientController(BlockedRecipientAddresses blockedRecipientAddresses) {
+        this.blockedRecipientAddresses = blockedRecipientAddresses;
+    }
+
+    @GetMapping
+    public List<String> getEntries() {
+        return blockedRecipientAddresses.getEntries();
+    }
+
+    @PostMapping
+    public List<String> addEntries(@RequestBody List<String> entries) {
+        try {
+            blockedRecipientAddresses.add(entries);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidBlockedRecipientException(e.getMessage(), e);
+        }
+        return blockedRecipientAddresses.getEntries();
+    }
+
+    @DeleteMapping
+    public List<String> removeEntries(@RequestBody List<String> entries) {
+        try {
+            blockedRecipientAddresses.remove(entries);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidBlockedRecipientException(e.getMessage(), e);
+        }
+        return blockedRecipientAddresses.getEntries();
+    }
+}
@@ -0,0 +1,41 @@
+package de.gessnerfl.fakesmtp.controller;
+
+import de.gessnerfl.fakesmtp.smtp.server.EmailFilter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Reads and replaces the rules of the {@link EmailFilter} at runtime. Replaced rules are not persisted; after a restart
+ * the rules configured in {@code fakesmtp.filteredEmailRegexList} apply again.
+ */
+@RestController
+@RequestMapping("/api/filter-rules")
+public class EmailFilterController {
+
+    private final EmailFilter emailFilter;
+
+    public EmailFilterController(EmailFilter emailFilter) {
+        this.emailFilter = emailFilter;
+    }
+
+    @GetMapping
+    public List<String> getRules() {
+        return emailFilter.getRules();
+    }
+
+    @PutMapping
+    public List<String> replaceRules(@RequestBody List<String> rules) {
+        try {
+            emailFilter.replaceRules(rules);
+        } catch (PatternSyntaxException e) {
+            throw new InvalidFilterRuleException("Invalid filter rule " + e.getPattern(), e);
+        }
+        return emailFilter.getRules();
+    }
+}
@@ -1,14 +1,18 @@
 package de.gessnerfl.fakesmtp.controller;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -19,19 +23,29 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import de.gessnerfl.fakesmtp.event.EmailDeleted;
+import de.gessnerfl.fakesmtp.event.EmailsPurged;
 import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailSummary;
+import de.gessnerfl.fakesmtp.model.query.AwaitRequest;
 import de.gessnerfl.fakesmtp.model.query.SearchRequest;
 import de.gessnerfl.fakesmtp.model.query.SearchSpecification;
 import de.gessnerfl.fakesmtp.repository.EmailAttachmentRepository;
 import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import de.gessnerfl.fakesmtp.service.AttachmentBlobStore;
+import de.gessnerfl.fakesmtp.service.EmailAwaitService;
+import de.gessnerfl.fakesmtp.service.EmailBodyLoader;
 import de.gessnerfl.fakesmtp.service.EmailSseEmitterService;
 import de.gessnerfl.fakesmtp.util.MediaTypeUtil;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import jakarta.servlet.ServletContext;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/emails")
@@ -39,24 +53,47 @@ import jakarta.servlet.ServletContext;
 public class EmailRestController {
 
     private static final String DEFAULT_SORT_PROPERTY = "receivedOn";
+    private static final MediaType MESSAGE_RFC822 = new MediaType("message", "rfc822");
+    /**
+     * Email ids restart with the database and content ids are reused by other emails, so browsers have to revalidate
+     * inline images with the digest of their content as ETag.
+     */
+    private static final CacheControl INLINE_IMAGE_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+    /**
+     * Additional time granted to an await request before the asynchronous request processing times out, so the
+     * request can answer with the emails found until its own timeout.
+     */
+    private static final long AWAIT_GRACE_PERIOD_MILLIS = 10000;
 
     private final EmailRepository emailRepository;
     private final EmailAttachmentRepository emailAttachmentRepository;
     private final MediaTypeUtil mediaTypeUtil;
     private final ServletContext servletContext;
     private final EmailSseEmitterService emailSseEmitterService;
+    private final EmailBodyLoader emailBodyLoader;
+    private final AttachmentBlobStore attachmentBlobStore;
+    private final EmailAwaitService emailAwaitService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public EmailRestController(EmailRepository emailRepository,
             EmailAttachmentRepository emailAttachmentRepository,
             MediaTypeUtil mediaTypeUtil,
             ServletContext servletContext,
-            EmailSseEmitterService emailSseEmitterService) {
+            EmailSseEmitterService emailSseEmitterService,
+            EmailBodyLoader emailBodyLoader,
+            AttachmentBlobStore attachmentBlobStore,
+            EmailAwaitService emailAwaitService,
+            ApplicationEventPublisher eventPublisher) {
         this.emailRepository = emailRepository;
         this.emailAttachmentRepository = emailAttachmentRepository;
         this.mediaTypeUtil = mediaTypeUtil;
         this.servletContext = servletContext;
         this.emailSseEmitterService = emailSseEmitterService;
+        this.emailBodyLoader = emailBodyLoader;
+        this.attachmentBlobStore = attachmentBlobStore;
+        this.emailAwaitService = emailAwaitService;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping()
@@ -65,12 +102,40 @@ public class EmailRestController {
     @Parameter(name = "sort", description = "Sort criteria", example = DEFAULT_SORT_PROPERTY)
     public Page<Email> all(
             @SortDefault(sort = DEFAULT_SORT_PROPERTY, direction = Sort.Direction.DESC) @Parameter(hidden = true) Pageable pageable) {
-        return emailRepository.findAll(pageable);
+        var emails = emailRepository.findAll(pageable);
+        emailBodyLoader.loadBodies(emails.getContent());
+        return emails;
+    }
+
+    /**
+     * Lists the emails without their contents, attachments and inline images, as needed for an overview.
+     */
+    @GetMapping("/summaries")
+    @Parameter(name = "page", description = "Page number", example = "0")
+    @Parameter(name = "size", description = "Page size", example = "1")
+    @Parameter(name = "sort", description = "Sort criteria", example = DEFAULT_SORT_PROPERTY)
+    public Page<EmailSummary> summaries(
+            @SortDefault(sort = DEFAULT_SORT_PROPERTY, direction = Sort.Direction.DESC) @Parameter(hidden = true) Pageable pageable) {
+        return emailRepository.findAllSummaries(pageable);
     }
 
     @GetMapping("/{id}")
     public Email getEmailById(@PathVariable Long id) {
-        return emailRepository.findById(id).orElseThrow(() -> new EmailNotFoundException("Could not find email " + id));
+        var email = emailRepository.findById(id).orElseThrow(() -> new EmailNotFoundException("Could not find email " + id));
+        emailBodyLoader.loadBody(email);
+        return email;
+    }
+
+    @GetMapping("/{id}/raw")
+    public ResponseEntity<ByteArrayResource> getRawEmailById(@PathVariable Long id) {
+        var email = emailRepository.findById(id).orElseThrow(() -> new EmailNotFoundException("Could not find email " + id));
+        var rawData = email.getRawData();
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=email-" + id + ".eml")
+                .contentType(MESSAGE_RFC822)
+                .contentLength(rawData.length)
+                .body(new ByteArrayResource(rawData));
     }
 
     @GetMapping("/{mailId}/attachments/{attachmentId}")
@@ -82,25 +147,58 @@ public class EmailRestController {
                         "Attachment with id " + attachmentId + " not found for mail " + mailId));
 
         var mediaType = mediaTypeUtil.getMediaTypeForFileName(this.servletContext, attachment.getFilename());
+        var data = attachment.getData();
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + attachment.getFilename())
                 .contentType(mediaType)
-                .contentLength(attachment.getData().length) //
-                .body(new ByteArrayResource(attachment.getData()));
+                .contentLength(data.length) //
+                .body(new ByteArrayResource(data));
+    }
+
+    @GetMapping("/{mailId}/inline-images/{contentId}")
+    public ResponseEntity<ByteArrayResource> getEmailInlineImageByContentId(@PathVariable Long mailId,
+            @PathVariable String contentId, WebRequest webRequest) {
+        var email = emailRepository.findById(mailId).orElseThrow(() -> new EmailNotFoundException("Could not find email " + mailId));
+        emailBodyLoader.loadBody(email);
+        var inlineImage = email.getInlineImageByContentId(contentId)
+                .orElseThrow(() -> new InlineImageNotFoundException(
+                        "Inline image with content id " + contentId + " not found for mail " + mailId));
+        var eTag = inlineImage.getBlob().getDigest();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(INLINE_IMAGE_CACHE_CONTROL)
+                    .eTag(eTag)
+                    .build();
+        }
+        var mediaType = mediaTypeUtil.getMediaType(inlineImage.getContentType());
+        var data = inlineImage.getData();
+
+        return ResponseEntity.ok()
+                .cacheControl(INLINE_IMAGE_CACHE_CONTROL)
+                .eTag(eTag)
+                .header("Content-Security-Policy", "sandbox")
+                .contentType("image".equals(mediaType.getType()) ? mediaType : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(data.length)
+                .body(new ByteArrayResource(data));
     }
 
     @DeleteMapping("/{id}")
     public void deleteEmailById(@PathVariable Long id) {
         emailRepository.deleteById(id);
         emailRepository.flush();
+        attachmentBlobStore.removeOrphans();
+        eventPublisher.publishEvent(new EmailDeleted(id));
     }
 
     @DeleteMapping()
     public void deleteAllEmails() {
+        final var count = emailRepository.count();
         emailAttachmentRepository.deleteAllInBatch();
         emailRepository.deleteAllInBatch();
         emailRepository.flush();
+        attachmentBlobStore.removeOrphans();
+        eventPublisher.publishEvent(new EmailsPurged(count));
     }
 
     @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -172,7 +270,20 @@ public class EmailRestController {
                             }""")
             })) @RequestBody SearchRequest request) {
         SearchSpecification<Email> specification = new SearchSpecification<>(request);
-        return emailRepository.findAll(specification, request.getPageable());
+        var emails = emailRepository.findAll(specification, request.getPageable());
+        emailBodyLoader.loadBodies(emails.getContent());
+        return emails;
+    }
+
+    /**
+     * Waits until at least the given minimum number of emails match the filter and returns the requested page of
+     * them. When the timeout expires first, the result is not satisfied and contains the emails found so far; it is
+     * still answered with 200 as clients retry a 408 automatically.
+     */
+    @PostMapping(value = "/await")
+    public WebAsyncTask<EmailAwaitService.AwaitResult> await(@Valid @RequestBody AwaitRequest request) {
+        final var timeout = TimeUnit.SECONDS.toMillis(request.getTimeoutSeconds()) + AWAIT_GRACE_PERIOD_MILLIS;
+        return new WebAsyncTask<>(timeout, emailAwaitService.getExecutor(), () -> emailAwaitService.await(request));
     }
 
 }
@@ -0,0 +1,42 @@
+package de.gessnerfl.fakesmtp.controller;
+
+import de.gessnerfl.fakesmtp.smtp.server.MessageForwarder;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Exposes the messages which could not be forwarded to the target email system.
+ */
+@RestController
+@RequestMapping("/api/forwarding/dead-letters")
+public class ForwardingController {
+
+    private final MessageForwarder messageForwarder;
+
+    public ForwardingController(MessageForwarder messageForwarder) {
+        this.messageForwarder = messageForwarder;
+    }
+
+    @GetMapping
+    public List<MessageForwarder.DeadLetter> getDeadLetters() {
+        return messageForwarder.getDeadLetters();
+    }
+
+    /**
+     * @return the number of dead letters which were added to the forwarding queue again
+     */
+    @PostMapping("/retry")
+    public int retryDeadLetters() {
+        return messageForwarder.retryDeadLetters();
+    }
+
+    @DeleteMapping
+    public void deleteDeadLetters() {
+        messageForwarder.deleteDeadLetters();
+    }
+}
@@ -0,0 +1,12 @@
+package de.gessnerfl.fakesmtp.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidFilterRuleException extends RuntimeException {
+
+    public InvalidFilterRuleException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
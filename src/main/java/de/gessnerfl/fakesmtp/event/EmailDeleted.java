@@ -0,0 +1,7 @@
+package de.gessnerfl.fakesmtp.event;
+
+/**
+ * The email with the given id was deleted.
+ */
+public record EmailDeleted(Long emailId) implements EmailEvent {
+}
@@ -0,0 +1,9 @@
+package de.gessnerfl.fakesmtp.event;
+
+/**
+ * Events about stored emails. The events are published as Spring application events within the transaction which
+ * changes the emails and are dispatched to the {@link EmailEventSubscriber}s by the {@link EmailEventBus} after the
+ * transaction is committed.
+ */
+public sealed interface EmailEvent permits EmailReceived, EmailDeleted, EmailsPurged {
+}
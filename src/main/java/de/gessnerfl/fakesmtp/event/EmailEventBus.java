@@ -0,0 +1,129 @@
+package de.gessnerfl.fakesmtp.event;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches the {@link EmailEvent}s to the {@link EmailEventSubscriber}s once the publishing transaction is
+ * committed; events of rolled back transactions are discarded. Events published outside of a transaction are
+ * dispatched immediately. Every subscriber has its own thread and bounded queue, so dispatching never blocks the
+ * publisher and a slow subscriber does not delay the others. Events which do not fit into the queue of a subscriber are
+ * dropped for this subscriber, handed to its {@link EmailEventSubscriber#onEventDropped(EmailEvent)} and counted by
+ * {@value #DROPPED}.
+ */
+@Service
+public class EmailEventBus {
+    public static final String QUEUE_DEPTH = "events.queue.depth";
+    public static final String DROPPED = "events.dropped";
+    private static final String SUBSCRIBER_TAG = "subscriber";
+
+    private final List<EmailEventSubscriber> subscribers;
+    private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+    private final MeterRegistry meterRegistry;
+    private final Logger logger;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
+    @Autowired
+    public EmailEventBus(List<EmailEventSubscriber> subscribers,
+                         FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties,
+                         MeterRegistry meterRegistry,
+                         Logger logger) {
+        this.subscribers = subscribers;
+        this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+        this.meterRegistry = meterRegistry;
+        this.logger = logger;
+    }
+
+    @PostConstruct
+    public void start() {
+        final var queueCapacity = fakeSmtpConfigurationProperties.getEvents().getQueueCapacity();
+        for (var subscriber : subscribers) {
+            final var name = subscriber.getSubscriberName();
+            final var dropped = Counter.builder(DROPPED).tag(SUBSCRIBER_TAG, name).register(meterRegistry);
+            final var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    Thread.ofPlatform().name("email-events-" + name).daemon().factory(),
+                    (task, pool) -> {
+                        dropped.increment();
+                        logger.warn("Event queue of subscriber {} is full; event is dropped", name);
+                        dropped(subscriber, ((Delivery) task).event());
+                    });
+            Gauge.builder(QUEUE_DEPTH, executor, e -> e.getQueue().size()).tag(SUBSCRIBER_TAG, name).register(meterRegistry);
+            subscriptions.add(new Subscription(subscriber, executor));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.forEach(s -> s.executor().shutdown());
+        for (var subscription : subscriptions) {
+            try {
+                if (!subscription.executor().awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("Subscriber {} did not process all events before shutdown", subscription.subscriber().getSubscriberName());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void dispatch(EmailEvent event) {
+        for (var subscription : subscriptions) {
+            subscription.executor().execute(new Delivery(subscription.subscriber(), event));
+        }
+    }
+
+    private void dropped(EmailEventSubscriber subscriber, EmailEvent event) {
+        try {
+            subscriber.onEventDropped(event);
+        } catch (RuntimeException e) {
+            logger.error("Subscriber {} failed to process dropped event {}", subscriber.getSubscriberName(), event, e);
+        }
+    }
+
+    private void deliver(EmailEventSubscriber subscriber, EmailEvent event) {
+        try {
+            subscriber.onEmailEvent(event);
+        } catch (RuntimeException e) {
+            logger.error("Subscriber {} failed to process event {}", subscriber.getSubscriberName(), event, e);
+        }
+    }
+
+    private record Subscription(EmailEventSubscriber subscriber, ThreadPoolExecutor executor) {
+    }
+
+    private final class Delivery implements Runnable {
+        private final EmailEventSubscriber subscriber;
+        private final EmailEvent event;
+
+        private Delivery(EmailEventSubscriber subscriber, EmailEvent event) {
+            this.subscriber = subscriber;
+            this.event = event;
+        }
+
+        private EmailEvent event() {
+            return event;
+        }
+
+        @Override
+        public void run() {
+            deliver(subscriber, event);
+        }
+    }
+}
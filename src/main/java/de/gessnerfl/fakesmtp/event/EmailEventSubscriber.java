@@ -0,0 +1,24 @@
+package de.gessnerfl.fakesmtp.event;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Receives the {@link EmailEvent}s of committed transactions. All beans implementing this interface are subscribed to
+ * the {@link EmailEventBus}; events are delivered one after another on a thread of the subscriber.
+ */
+public interface EmailEventSubscriber {
+
+    void onEmailEvent(EmailEvent event);
+
+    /**
+     * Called instead of {@link #onEmailEvent(EmailEvent)} when the event does not fit into the queue of the subscriber,
+     * so the subscriber can compensate for the missed event. The call happens on the publishing thread and must not
+     * block.
+     */
+    default void onEventDropped(EmailEvent event) {
+    }
+
+    default String getSubscriberName() {
+        return ClassUtils.getUserClass(this).getSimpleName();
+    }
+}
@@ -0,0 +1,27 @@
+package de.gessnerfl.fakesmtp.event;
+
+import de.gessnerfl.fakesmtp.model.Email;
+
+/**
+ * A received message was stored as email with the given id. The email only holds the envelope and the headers of the
+ * stored email, so queued events do not keep the message data in memory; subscribers which need the data load it by
+ * the id of the email.
+ */
+public record EmailReceived(Long emailId, Email email) implements EmailEvent {
+
+    /**
+     * @param stored the stored email
+     * @return the event with a copy of the envelope and the headers of the stored email
+     */
+    public static EmailReceived of(Email stored) {
+        final var email = new Email();
+        email.setId(stored.getId());
+        email.setFromAddress(stored.getFromAddress());
+        email.setToAddress(stored.getToAddress());
+        email.setRecipients(stored.getRecipients());
+        email.setSubject(stored.getSubject());
+        email.setReceivedOn(stored.getReceivedOn());
+        email.setMessageId(stored.getMessageId().orElse(null));
+        return new EmailReceived(stored.getId(), email);
+    }
+}
@@ -0,0 +1,7 @@
+package de.gessnerfl.fakesmtp.event;
+
+/**
+ * Multiple emails were deleted at once, either on request or by the data retention.
+ */
+public record EmailsPurged(long count) implements EmailEvent {
+}
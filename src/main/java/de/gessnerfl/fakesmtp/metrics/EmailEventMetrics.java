@@ -0,0 +1,37 @@
+package de.gessnerfl.fakesmtp.metrics;
+
+import de.gessnerfl.fakesmtp.event.EmailDeleted;
+import de.gessnerfl.fakesmtp.event.EmailEvent;
+import de.gessnerfl.fakesmtp.event.EmailEventSubscriber;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.event.EmailsPurged;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+/**
+ * Counts the stored and deleted emails based on the committed {@link EmailEvent}s.
+ */
+@Service
+public class EmailEventMetrics implements EmailEventSubscriber {
+
+	public static final String EMAILS_STORED = "emails.stored";
+	public static final String EMAILS_DELETED = "emails.deleted";
+
+	private final Counter storedCounter;
+	private final Counter deletedCounter;
+
+	public EmailEventMetrics(MeterRegistry registry) {
+		this.storedCounter = Counter.builder(EMAILS_STORED).register(registry);
+		this.deletedCounter = Counter.builder(EMAILS_DELETED).register(registry);
+	}
+
+	@Override
+	public void onEmailEvent(EmailEvent event) {
+		switch (event) {
+			case EmailReceived ignored -> storedCounter.increment();
+			case EmailDeleted ignored -> deletedCounter.increment();
+			case EmailsPurged emailsPurged -> deletedCounter.increment(emailsPurged.count());
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package de.gessnerfl.fakesmtp.metrics;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Keeps track of the senders and recipients with the most messages without
+ * creating a time series per address.
+ */
+@Service
+public class HeavyHitters {
+
+	private final SpaceSavingSketch senders;
+	private final SpaceSavingSketch recipients;
+
+	@Autowired
+	public HeavyHitters(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties) {
+		var capacity = fakeSmtpConfigurationProperties.getMetrics().getHeavyHittersCapacity();
+		this.senders = new SpaceSavingSketch(capacity);
+		this.recipients = new SpaceSavingSketch(capacity);
+	}
+
+	public void recordSender(String sender) {
+		senders.add(sender);
+	}
+
+	public void recordRecipient(String recipient) {
+		recipients.add(recipient);
+	}
+
+	public List<SpaceSavingSketch.Entry> topSenders(int limit) {
+		return senders.top(limit);
+	}
+
+	public List<SpaceSavingSketch.Entry> topRecipients(int limit) {
+		return recipients.top(limit);
+	}
+}
@@ -0,0 +1,33 @@
+package de.gessnerfl.fakesmtp.metrics;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the senders and recipients with the most messages.
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+
+	private final HeavyHitters heavyHitters;
+	private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+
+	public HeavyHittersEndpoint(HeavyHitters heavyHitters, FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties) {
+		this.heavyHitters = heavyHitters;
+		this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+	}
+
+	@ReadOperation
+	public HeavyHittersDescriptor heavyHitters() {
+		var limit = fakeSmtpConfigurationProperties.getMetrics().getHeavyHittersLimit();
+		return new HeavyHittersDescriptor(heavyHitters.topSenders(limit), heavyHitters.topRecipients(limit));
+	}
+
+	public record HeavyHittersDescriptor(List<SpaceSavingSketch.Entry> senders, List<SpaceSavingSketch.Entry> recipients) {
+	}
+}
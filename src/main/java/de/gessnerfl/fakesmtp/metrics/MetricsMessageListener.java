@@ -1,5 +1,6 @@
 package de.gessnerfl.fakesmtp.metrics;
 
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
 import de.gessnerfl.fakesmtp.smtp.server.BlockedRecipientAddresses;
 import de.gessnerfl.fakesmtp.smtp.server.MessageListener;
 import io.micrometer.core.instrument.Counter;
@@ -7,31 +8,48 @@ import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Counts blocked and delivered messages. The counters are tagged with the
+ * sender and recipient according to the configured
+ * {@link FakeSmtpConfigurationProperties.MetricsTagMode}; the number of
+ * distinct tag values is limited, further values are reported as
+ * {@value #OTHER_TAG_VALUE}. Counters are registered once and looked up from a
+ * local cache afterwards.
+ */
 @Service
 public class MetricsMessageListener implements MessageListener {
 
 
 	public static final String MESSAGES_BLOCKED = "messages.blocked";
 	public static final String MESSAGES_DELIVERED = "messages.delivered";
-	private MeterRegistry registry;
+	public static final String OTHER_TAG_VALUE = "other";
+	private final MeterRegistry registry;
 
-	private BlockedRecipientAddresses blockedRecipientAddresses;
+	private final BlockedRecipientAddresses blockedRecipientAddresses;
+	private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+	private final HeavyHitters heavyHitters;
+	private final Map<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+	private final Set<String> tagValues = ConcurrentHashMap.newKeySet();
 
-	public MetricsMessageListener(MeterRegistry registry, BlockedRecipientAddresses blockedRecipientAddresses) {
+	public MetricsMessageListener(MeterRegistry registry, BlockedRecipientAddresses blockedRecipientAddresses,
+			FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties, HeavyHitters heavyHitters) {
 		this.registry = registry;
 		this.blockedRecipientAddresses = blockedRecipientAddresses;
+		this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+		this.heavyHitters = heavyHitters;
 	}
 
 	@Override
 	public boolean accept(String from, String recipient) {
 		boolean isBlocked = blockedRecipientAddresses.isBlocked(recipient);
 		if (isBlocked) {
-			Counter.builder(MESSAGES_BLOCKED)
-					.tag("from", from)
-					.tag("recipient", recipient)
-					.register(registry)
-					.increment();
+			counter(MESSAGES_BLOCKED, from, recipient).increment();
 		}
 		return !isBlocked;
 
@@ -39,10 +57,55 @@ public class MetricsMessageListener implements MessageListener {
 
 	@Override
 	public void deliver(String from, String recipient, InputStream data) {
-		Counter.builder(MESSAGES_DELIVERED)
-				.tag("from", from)
-				.tag("recipient", recipient)
-				.register(registry)
-				.increment();
+		heavyHitters.recordSender(from);
+		recordDelivery(from, recipient);
+	}
+
+	@Override
+	public void deliver(String from, List<String> recipients, InputStream data) {
+		heavyHitters.recordSender(from);
+		for (String recipient : recipients) {
+			recordDelivery(from, recipient);
+		}
+	}
+
+	private void recordDelivery(String from, String recipient) {
+		heavyHitters.recordRecipient(recipient);
+		counter(MESSAGES_DELIVERED, from, recipient).increment();
+	}
+
+	private Counter counter(String name, String from, String recipient) {
+		var metrics = fakeSmtpConfigurationProperties.getMetrics();
+		var key = new CounterKey(name, tagValue(metrics, from), tagValue(metrics, recipient));
+		return counters.computeIfAbsent(key, this::register);
+	}
+
+	private Counter register(CounterKey key) {
+		var builder = Counter.builder(key.name());
+		if (key.from() != null) {
+			builder.tag("from", key.from()).tag("recipient", key.recipient());
+		}
+		return builder.register(registry);
+	}
+
+	private String tagValue(FakeSmtpConfigurationProperties.Metrics metrics, String address) {
+		var value = switch (metrics.getTagMode()) {
+			case NONE -> null;
+			case DOMAIN -> address.substring(address.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+			case ADDRESS -> address;
+		};
+		if (value == null || tagValues.contains(value)) {
+			return value;
+		}
+		synchronized (tagValues) {
+			if (tagValues.size() < metrics.getMaxTagValues()) {
+				tagValues.add(value);
+				return value;
+			}
+		}
+		return tagValues.contains(value) ? value : OTHER_TAG_VALUE;
+	}
+
+	private record CounterKey(String name, String from, String recipient) {
 	}
 }
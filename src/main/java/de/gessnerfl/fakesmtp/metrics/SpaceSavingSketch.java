@@ -0,0 +1,80 @@
+package de.gessnerfl.fakesmtp.metrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks the most frequent items of a stream in constant space using the
+ * Space-Saving algorithm. At most {@code capacity} items are counted; when a new
+ * item arrives and the sketch is full, the item with the lowest count is
+ * replaced and the new item inherits its count as possible overestimation.
+ * Every item which occurred more than {@code n / capacity} times in a stream of
+ * {@code n} items is guaranteed to be tracked.
+ */
+public class SpaceSavingSketch {
+
+	private final int capacity;
+	private final Map<String, Slot> slots = new HashMap<>();
+	private final TreeSet<Slot> slotsByCount = new TreeSet<>(
+			Comparator.comparingLong((Slot s) -> s.count).thenComparingLong(s -> s.sequence));
+	private long sequence;
+
+	public SpaceSavingSketch(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1");
+		}
+		this.capacity = capacity;
+	}
+
+	public synchronized void add(String item) {
+		var slot = slots.get(item);
+		if (slot != null) {
+			slotsByCount.remove(slot);
+			slot.count++;
+			slotsByCount.add(slot);
+			return;
+		}
+		if (slots.size() < capacity) {
+			slot = new Slot(item, 1, 0, sequence++);
+		} else {
+			var min = slotsByCount.pollFirst();
+			slots.remove(min.item);
+			slot = new Slot(item, min.count + 1, min.count, sequence++);
+		}
+		slots.put(item, slot);
+		slotsByCount.add(slot);
+	}
+
+	/**
+	 * @return the items with the highest counts in descending order of their counts
+	 */
+	public synchronized List<Entry> top(int limit) {
+		return slotsByCount.descendingSet().stream()
+				.limit(limit)
+				.map(s -> new Entry(s.item, s.count, s.error))
+				.toList();
+	}
+
+	/**
+	 * A tracked item; its real number of occurrences is between {@code count - error} and {@code count}.
+	 */
+	public record Entry(String item, long count, long error) {
+	}
+
+	private static class Slot {
+		private final String item;
+		private final long error;
+		private final long sequence;
+		private long count;
+
+		private Slot(String item, long count, long error, long sequence) {
+			this.item = item;
+			this.count = count;
+			this.error = error;
+			this.sequence = sequence;
+		}
+	}
+}
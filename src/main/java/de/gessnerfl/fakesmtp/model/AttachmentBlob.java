@@ -0,0 +1,82 @@
+package de.gessnerfl.fakesmtp.model;
+
+import de.gessnerfl.fakesmtp.blob.StoredBlobEntityListener;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.util.HexFormat;
+
+/**
+ * The content of an attachment or inline image, stored once per SHA-256 digest and shared by all attachments and
+ * inline images with the same content.
+ */
+@Entity
+@Table(name = "attachment_blob")
+@DynamicUpdate
+@EntityListeners(StoredBlobEntityListener.class)
+public class AttachmentBlob {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    @Id
+    @SequenceGenerator(name = "attachment_blob_generator", sequenceName = "attachment_blob_sequence", allocationSize = 50)
+    @GeneratedValue(generator = "attachment_blob_generator")
+    private Long id;
+
+    @Column(name = "digest", length = 64, nullable = false)
+    @Basic(optional = false)
+    private String digest;
+
+    @Embedded
+    @AttributeOverride(name = "segment", column = @Column(name = "data_segment"))
+    @AttributeOverride(name = "offset", column = @Column(name = "data_offset"))
+    @AttributeOverride(name = "length", column = @Column(name = "data_length"))
+    @AttributeOverride(name = "compressed", column = @Column(name = "data_compressed", nullable = false))
+    private StoredBlob data;
+
+    @Column(name = "orphaned_on")
+    @Temporal(TemporalType.TIMESTAMP)
+    private ZonedDateTime orphanedOn;
+
+    protected AttachmentBlob() {
+    }
+
+    public AttachmentBlob(byte[] data) {
+        this.digest = digestOf(data);
+        this.data = new StoredBlob(data);
+    }
+
+    public static String digestOf(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported", e);
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public byte[] getData() {
+        return data.getData();
+    }
+
+    public StoredBlob getStoredData() {
+        return data;
+    }
+
+    /**
+     * @return the point in time when the blob was found to be no longer referenced by any attachment, or null
+     */
+    public ZonedDateTime getOrphanedOn() {
+        return orphanedOn;
+    }
+}
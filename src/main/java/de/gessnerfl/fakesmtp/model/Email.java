@@ -1,10 +1,16 @@
 package de.gessnerfl.fakesmtp.model;
 
+import de.gessnerfl.fakesmtp.blob.BlobSource;
+import de.gessnerfl.fakesmtp.blob.StoredBlobEntityListener;
+
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.*;
 
@@ -12,9 +18,16 @@ import static java.util.Comparator.comparing;
 
 @Entity
 @Table(name = "email")
+@DynamicUpdate
+@EntityListeners(StoredBlobEntityListener.class)
 public class Email {
+    public static final String TO_ADDRESS = "toAddress";
+    public static final String RECIPIENTS = "recipients";
+    public static final int MAX_TO_ADDRESS_LENGTH = 65535;
+    public static final int MAX_SUBJECT_LENGTH = 65535;
+
     @Id
-    @SequenceGenerator(name = "email_generator", sequenceName = "email_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "email_generator", sequenceName = "email_sequence", allocationSize = 50)
     @GeneratedValue(generator = "email_generator")
     private Long id;
 
@@ -22,12 +35,11 @@ public class Email {
     @Basic(optional = false)
     private String fromAddress;
 
-    @Column(name = "to_address", length = 255, nullable = false)
+    @Column(name = "to_address", length = MAX_TO_ADDRESS_LENGTH, nullable = false)
     @Basic(optional = false)
     private String toAddress;
 
-    @Lob
-    @Column(name = "subject", nullable = false)
+    @Column(name = "subject", length = MAX_SUBJECT_LENGTH, nullable = false)
     @Basic(optional = false)
     private String subject;
 
@@ -37,15 +49,25 @@ public class Email {
     @JsonFormat(pattern="yyyy-MM-dd'T'HH:mm:ss.SSSXXX", timezone="UTC")
     private ZonedDateTime receivedOn;
 
-    @Lob
-    @Column(name = "raw_data", nullable = false)
-    @Basic(optional = false)
-    private String rawData;
+    @Embedded
+    @AttributeOverride(name = "data", column = @Column(name = "raw_data"))
+    @AttributeOverride(name = "segment", column = @Column(name = "raw_data_segment"))
+    @AttributeOverride(name = "offset", column = @Column(name = "raw_data_offset"))
+    @AttributeOverride(name = "length", column = @Column(name = "raw_data_length"))
+    @AttributeOverride(name = "compressed", column = @Column(name = "raw_data_compressed", nullable = false))
+    private StoredBlob rawData;
 
     @Column(name = "message_id", nullable = true)
     @Basic(optional = true)
     private String messageId;
 
+    @Column(name = "body_parsed", nullable = false)
+    @Basic(optional = false)
+    private boolean bodyParsed = true;
+
+    @OneToMany(mappedBy = "email", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<EmailRecipient> recipients = new ArrayList<>();
+
     @OneToMany(mappedBy = "email", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<EmailContent> contents = new ArrayList<>();
 
@@ -79,6 +101,22 @@ public class Email {
         this.toAddress = toAddress;
     }
 
+    public void addRecipient(String address) {
+        var recipient = new EmailRecipient();
+        recipient.setAddress(address);
+        recipient.setEmail(this);
+        recipients.add(recipient);
+    }
+
+    public List<String> getRecipients() {
+        return recipients.stream().map(EmailRecipient::getAddress).toList();
+    }
+
+    public void setRecipients(List<String> addresses) {
+        recipients.clear();
+        addresses.forEach(this::addRecipient);
+    }
+
     public String getSubject() {
         return subject;
     }
@@ -95,14 +133,41 @@ public class Email {
         this.receivedOn = receivedOn;
     }
 
-    public void setRawData(String rawData) {
-        this.rawData = rawData;
+    public void setRawData(byte[] rawData) {
+        this.rawData = new StoredBlob(rawData);
     }
 
-    public String getRawData() {
+    /**
+     * @param rawData the raw message, which is streamed into the blob store when the email is persisted
+     */
+    @JsonIgnore
+    public void setRawDataSource(BlobSource rawData) {
+        this.rawData = new StoredBlob(rawData);
+    }
+
+    @JsonIgnore
+    public byte[] getRawData() {
+        return rawData.getData();
+    }
+
+    @JsonIgnore
+    public StoredBlob getStoredRawData() {
         return rawData;
     }
 
+    /**
+     * @return the raw message decoded as UTF-8, only intended for displaying it
+     */
+    @JsonProperty("rawData")
+    public String getRawDataAsString() {
+        return new String(getRawData(), StandardCharsets.UTF_8);
+    }
+
+    @JsonProperty("rawData")
+    public void setRawDataAsString(String rawData) {
+        setRawData(rawData.getBytes(StandardCharsets.UTF_8));
+    }
+
     public void addContent(EmailContent content) {
         content.setEmail(this);
         contents.add(content);
@@ -158,6 +223,19 @@ public class Email {
         this.messageId = messageId;
     }
 
+    /**
+     * @return false when only the headers were parsed on receive and the contents, attachments and inline images
+     * still have to be extracted from the raw data
+     */
+    @JsonIgnore
+    public boolean isBodyParsed() {
+        return bodyParsed;
+    }
+
+    public void setBodyParsed(boolean bodyParsed) {
+        this.bodyParsed = bodyParsed;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
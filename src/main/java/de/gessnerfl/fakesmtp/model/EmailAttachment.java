@@ -8,7 +8,7 @@ import jakarta.persistence.*;
 @Table(name = "email_attachment")
 public class EmailAttachment {
     @Id
-    @SequenceGenerator(name = "email_attachment_generator", sequenceName = "email_attachment_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "email_attachment_generator", sequenceName = "email_attachment_sequence", allocationSize = 50)
     @GeneratedValue(generator = "email_attachment_generator")
     private Long id;
 
@@ -20,10 +20,9 @@ public class EmailAttachment {
     @Basic(optional = false)
     private String filename;
 
-    @Lob
-    @Column(name="data", nullable = false)
-    @Basic(optional = false)
-    private byte[] data;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false, cascade = CascadeType.PERSIST)
+    @JoinColumn(name = "blob")
+    private AttachmentBlob blob;
 
     public Long getId() {
         return id;
@@ -50,11 +49,20 @@ public class EmailAttachment {
         this.filename = filename;
     }
 
+    @JsonIgnore
+    public AttachmentBlob getBlob() {
+        return blob;
+    }
+
+    public void setBlob(AttachmentBlob blob) {
+        this.blob = blob;
+    }
+
     public byte[] getData() {
-        return data;
+        return blob.getData();
     }
 
     public void setData(byte[] data) {
-        this.data = data;
+        this.blob = new AttachmentBlob(data);
     }
 }
@@ -1,10 +1,18 @@
 package de.gessnerfl.fakesmtp.model;
 
+import de.gessnerfl.fakesmtp.blob.BlobCodec;
+import de.gessnerfl.fakesmtp.blob.StoredBlobEntityListener;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 
+import java.nio.charset.StandardCharsets;
+
 @Entity
 @Table(name = "email_content")
-@SequenceGenerator(name = "email_part_generator", sequenceName = "email_content_sequence", allocationSize = 1)
+@SequenceGenerator(name = "email_part_generator", sequenceName = "email_content_sequence", allocationSize = 50)
+@EntityListeners(StoredBlobEntityListener.class)
 public class EmailContent extends EmailPart {
 
     @Enumerated(EnumType.STRING)
@@ -12,6 +20,17 @@ public class EmailContent extends EmailPart {
     @Basic(optional = false)
     private ContentType contentType;
 
+    @Lob
+    @Column(name = "data")
+    private String data;
+
+    @Lob
+    @Column(name = "compressed_data")
+    private byte[] compressedData;
+
+    @Transient
+    private BlobCodec codec;
+
     public ContentType getContentType() {
         return contentType;
     }
@@ -19,4 +38,37 @@ public class EmailContent extends EmailPart {
     public void setContentType(ContentType contentType) {
         this.contentType = contentType;
     }
+
+    public String getData() {
+        if (compressedData == null) {
+            return data;
+        }
+        if (codec == null) {
+            throw new IllegalStateException("Data of email content is compressed but no blob codec is attached");
+        }
+        return new String(codec.decode(compressedData), StandardCharsets.UTF_8);
+    }
+
+    public void setData(String data) {
+        this.data = data;
+        this.compressedData = null;
+    }
+
+    @JsonIgnore
+    public boolean isCompressed() {
+        return compressedData != null;
+    }
+
+    /**
+     * Replaces the data by its compressed UTF-8 representation; the data is decompressed by the given codec on access.
+     */
+    public void compress(byte[] compressedData, BlobCodec codec) {
+        this.data = null;
+        this.compressedData = compressedData;
+        this.codec = codec;
+    }
+
+    public void attach(BlobCodec codec) {
+        this.codec = codec;
+    }
 }
@@ -14,11 +14,6 @@ public abstract class EmailPart {
     @JoinColumn(name = "email")
     private Email email;
 
-    @Lob
-    @Column(name = "data", nullable = false)
-    @Basic(optional = false)
-    private String data;
-
     @JsonIgnore
     public Long getId() {
         return id;
@@ -36,12 +31,4 @@ public abstract class EmailPart {
     public void setEmail(Email email) {
         this.email = email;
     }
-
-    public String getData() {
-        return data;
-    }
-
-    public void setData(String data) {
-        this.data = data;
-    }
 }
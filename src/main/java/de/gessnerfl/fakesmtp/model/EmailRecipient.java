@@ -0,0 +1,51 @@
+package de.gessnerfl.fakesmtp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "email_recipient")
+public class EmailRecipient {
+    public static final String ADDRESS = "address";
+    public static final String EMAIL = "email";
+
+    @Id
+    @SequenceGenerator(name = "email_recipient_generator", sequenceName = "email_recipient_sequence", allocationSize = 50)
+    @GeneratedValue(generator = "email_recipient_generator")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "email")
+    private Email email;
+
+    @Column(name = "address", length = 255, nullable = false)
+    @Basic(optional = false)
+    private String address;
+
+    @JsonIgnore
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @JsonIgnore
+    public Email getEmail() {
+        return email;
+    }
+
+    public void setEmail(Email email) {
+        this.email = email;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+}
@@ -0,0 +1,18 @@
+package de.gessnerfl.fakesmtp.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Projection of an email for list views. It only contains the columns of the
+ * email table and the number of attachments, so neither the raw data nor the
+ * contents, attachments or inline images of the email are loaded.
+ */
+public record EmailSummary(Long id,
+                           String fromAddress,
+                           String toAddress,
+                           String subject,
+                           @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX", timezone = "UTC") ZonedDateTime receivedOn,
+                           int attachmentCount) {
+}
@@ -1,10 +1,16 @@
 package de.gessnerfl.fakesmtp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 
+/**
+ * An image which is referenced by its content id from the html content of an email. Only the metadata is part of the
+ * email representation; the image itself is served by its own endpoint.
+ */
 @Entity
 @Table(name = "email_inline_image")
-@SequenceGenerator(name = "email_part_generator", sequenceName = "email_inline_image_sequence", allocationSize = 1)
+@SequenceGenerator(name = "email_part_generator", sequenceName = "email_inline_image_sequence", allocationSize = 50)
 public class InlineImage extends EmailPart {
     @Column(name = "content_id", length = 255, nullable = false)
     @Basic(optional = false)
@@ -14,6 +20,14 @@ public class InlineImage extends EmailPart {
     @Basic(optional = false)
     private String contentType;
 
+    @Column(name = "size", nullable = false)
+    @Basic(optional = false)
+    private long size;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false, cascade = CascadeType.PERSIST)
+    @JoinColumn(name = "blob")
+    private AttachmentBlob blob;
+
     public String getContentId() {
         return contentId;
     }
@@ -29,4 +43,30 @@ public class InlineImage extends EmailPart {
     public void setContentType(String contentType) {
         this.contentType = contentType;
     }
+
+    /**
+     * @return the size of the image in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    @JsonIgnore
+    public AttachmentBlob getBlob() {
+        return blob;
+    }
+
+    public void setBlob(AttachmentBlob blob) {
+        this.blob = blob;
+    }
+
+    @JsonIgnore
+    public byte[] getData() {
+        return blob.getData();
+    }
+
+    public void setData(byte[] data) {
+        this.blob = new AttachmentBlob(data);
+        this.size = data.length;
+    }
 }
@@ -0,0 +1,142 @@
+package de.gessnerfl.fakesmtp.model;
+
+import de.gessnerfl.fakesmtp.blob.BlobCodec;
+import de.gessnerfl.fakesmtp.blob.BlobReader;
+import de.gessnerfl.fakesmtp.blob.BlobSource;
+import de.gessnerfl.fakesmtp.blob.BlobStoreException;
+
+import jakarta.persistence.*;
+
+import java.io.IOException;
+
+/**
+ * Binary data which is either stored in the database column itself or in a segment file of the blob store. In the
+ * latter case the row only holds the segment, offset and length of the data. The data can be stored compressed, in
+ * which case it is decompressed on access. New blobs can be created from a {@link BlobSource}, so their data is streamed
+ * into the blob store instead of being held in memory.
+ */
+@Embeddable
+public class StoredBlob {
+    @Lob
+    @Column(name = "data")
+    private byte[] data;
+
+    @Column(name = "segment")
+    private Integer segment;
+
+    @Column(name = "segment_offset")
+    private Long offset;
+
+    @Column(name = "segment_length")
+    private Integer length;
+
+    @Column(name = "compressed", nullable = false)
+    private boolean compressed;
+
+    @Transient
+    private BlobReader reader;
+
+    @Transient
+    private BlobCodec codec;
+
+    @Transient
+    private BlobSource source;
+
+    protected StoredBlob() {
+    }
+
+    public StoredBlob(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * @param source the data of the blob; it must stay readable until the blob is persisted
+     */
+    public StoredBlob(BlobSource source) {
+        this.source = source;
+    }
+
+    public byte[] getData() {
+        final var storedData = getStoredData();
+        if (!compressed) {
+            return storedData;
+        }
+        if (codec == null) {
+            throw new IllegalStateException("Blob is compressed but no blob codec is attached");
+        }
+        return codec.decode(storedData);
+    }
+
+    private byte[] getStoredData() {
+        if (data != null || source != null) {
+            return getPendingData();
+        }
+        if (reader == null) {
+            throw new IllegalStateException("Blob is stored in segment " + segment + " but no blob reader is attached");
+        }
+        return reader.read(segment, offset, length);
+    }
+
+    /**
+     * @return the data when it still has to be written to the blob store, otherwise null; data of a source is read into
+     * memory
+     */
+    public byte[] getPendingData() {
+        if (source != null) {
+            try (var in = source.open()) {
+                data = in.readAllBytes();
+            } catch (IOException e) {
+                throw new BlobStoreException("Failed to read blob source", e);
+            }
+            source = null;
+        }
+        return data;
+    }
+
+    /**
+     * @return the source when the data still has to be written to the blob store and was not read into memory,
+     * otherwise null
+     */
+    public BlobSource getPendingSource() {
+        return source;
+    }
+
+    public boolean isStoredInSegment() {
+        return segment != null;
+    }
+
+    public Integer getSegment() {
+        return segment;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Replaces the pending data by its compressed form; the data is decompressed by the given codec on access.
+     */
+    public void compress(byte[] compressedData, BlobCodec codec) {
+        this.data = compressedData;
+        this.source = null;
+        this.compressed = true;
+        this.codec = codec;
+    }
+
+    /**
+     * Replaces the data by the location it was written to; the data is read through the given reader afterwards.
+     */
+    public void moveToSegment(int segment, long offset, int length, BlobReader reader) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+        this.data = null;
+        this.source = null;
+        this.reader = reader;
+    }
+
+    public void attach(BlobReader reader, BlobCodec codec) {
+        this.reader = reader;
+        this.codec = codec;
+    }
+}
@@ -0,0 +1,43 @@
+package de.gessnerfl.fakesmtp.model.query;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * A search request which waits until at least {@link #getMinCount()} emails match the filter or the timeout expires.
+ */
+public class AwaitRequest extends SearchRequest {
+    public static AwaitRequest of(FilterExpression filter, int minCount, int timeoutSeconds) {
+        final var req = new AwaitRequest();
+        req.setFilter(filter);
+        req.setMinCount(minCount);
+        req.setTimeoutSeconds(timeoutSeconds);
+        return req;
+    }
+
+    public static final int DEFAULT_MIN_COUNT = 1;
+    public static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    public static final int MAX_TIMEOUT_SECONDS = 300;
+
+    @Min(1)
+    private int minCount = DEFAULT_MIN_COUNT;
+    @Min(0)
+    @Max(MAX_TIMEOUT_SECONDS)
+    private int timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+
+    public int getMinCount() {
+        return minCount;
+    }
+
+    public void setMinCount(Integer minCount) {
+        this.minCount = minCount != null ? minCount : DEFAULT_MIN_COUNT;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(Integer timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds != null ? timeoutSeconds : DEFAULT_TIMEOUT_SECONDS;
+    }
+}
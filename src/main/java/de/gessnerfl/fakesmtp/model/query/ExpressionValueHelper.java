@@ -4,6 +4,7 @@ import jakarta.persistence.criteria.Path;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.function.IntPredicate;
 
 public class ExpressionValueHelper {
     private ExpressionValueHelper(){}
@@ -12,6 +13,28 @@ public class ExpressionValueHelper {
         return path.getJavaType().isAssignableFrom(ZonedDateTime.class) ? parseDate(value) : value;
     }
 
+    /**
+     * Compares the value of a property with the value of an expression in memory and applies the condition to the
+     * result. Returns false if one of the values is null, as a comparison with null is never fulfilled in SQL.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static boolean compareIfApplicable(Object propertyValue, Object value, IntPredicate condition) {
+        if (propertyValue == null || value == null) {
+            return false;
+        }
+        final int result;
+        if (propertyValue instanceof ZonedDateTime date) {
+            result = date.toInstant().compareTo(((ZonedDateTime) parseDate(value)).toInstant());
+        } else if (propertyValue instanceof Long number) {
+            result = Long.compare(number, value instanceof Number n ? n.longValue() : Long.parseLong(value.toString()));
+        } else if (propertyValue instanceof String string) {
+            result = string.compareTo(value.toString());
+        } else {
+            result = ((Comparable) propertyValue).compareTo(value);
+        }
+        return condition.test(result);
+    }
+
     private  static Object parseDate(Object value) {
         String dateString = value.toString();
         return ZonedDateTime.parse(dateString, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
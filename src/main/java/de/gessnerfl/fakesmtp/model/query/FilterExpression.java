@@ -3,6 +3,7 @@ package de.gessnerfl.fakesmtp.model.query;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import de.gessnerfl.fakesmtp.model.Email;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
@@ -28,4 +29,10 @@ import jakarta.persistence.criteria.Root;
 })
 public interface FilterExpression {
     <T> Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb);
+
+    /**
+     * Evaluates the expression in memory against the given email, e.g. to check newly received emails without
+     * querying the database. Conditions on a property which is null are not fulfilled, as in SQL.
+     */
+    boolean matches(Email email);
 }
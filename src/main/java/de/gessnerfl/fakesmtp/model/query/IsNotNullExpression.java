@@ -3,6 +3,7 @@ package de.gessnerfl.fakesmtp.model.query;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import de.gessnerfl.fakesmtp.model.Email;
 import jakarta.persistence.criteria.*;
 import jakarta.validation.constraints.NotEmpty;
 
@@ -12,7 +13,11 @@ import jakarta.validation.constraints.NotEmpty;
 public record IsNotNullExpression(@NotEmpty String property) implements FilterExpression {
     @Override
     public <T> Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
-        Path<?> path = root.get(property);
-        return cb.isNotNull(path);
+        return PropertyPredicates.toPredicate(root, query, cb, property, (Path<Object> path) -> cb.isNotNull(path));
+    }
+
+    @Override
+    public boolean matches(Email email) {
+        return PropertyPredicates.matches(email, property, v -> v != null);
     }
 }
@@ -3,9 +3,11 @@ package de.gessnerfl.fakesmtp.model.query;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import de.gessnerfl.fakesmtp.model.Email;
 import jakarta.persistence.criteria.*;
 import jakarta.validation.constraints.NotEmpty;
 
+import static de.gessnerfl.fakesmtp.model.query.ExpressionValueHelper.compareIfApplicable;
 import static de.gessnerfl.fakesmtp.model.query.ExpressionValueHelper.convertDateIfApplicable;
 
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
@@ -15,7 +17,12 @@ public record LessThanExpression(@NotEmpty String property, @NotEmpty Object val
     @Override
     @SuppressWarnings("rawtypes")
     public <T> Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
-        Path<Comparable> path = root.get(property);
-        return cb.lessThan(path, (Comparable) convertDateIfApplicable(path, value));
+        return PropertyPredicates.toPredicate(root, query, cb, property,
+                (Path<Comparable> path) -> cb.lessThan(path, (Comparable) convertDateIfApplicable(path, value)));
+    }
+
+    @Override
+    public boolean matches(Email email) {
+        return PropertyPredicates.matches(email, property, v -> compareIfApplicable(v, value, c -> c < 0));
     }
 }
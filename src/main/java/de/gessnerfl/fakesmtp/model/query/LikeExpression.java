@@ -3,6 +3,7 @@ package de.gessnerfl.fakesmtp.model.query;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import de.gessnerfl.fakesmtp.model.Email;
 import jakarta.persistence.criteria.*;
 import jakarta.validation.constraints.NotEmpty;
 
@@ -12,6 +13,12 @@ import jakarta.validation.constraints.NotEmpty;
 public record LikeExpression(@NotEmpty String property, @NotEmpty String value) implements FilterExpression {
     @Override
     public <T> Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
-        return cb.like(cb.upper(root.get(property)), "%"+value.toUpperCase()+"%");
+        return PropertyPredicates.toPredicate(root, query, cb, property,
+                (Path<String> path) -> cb.like(cb.upper(path), "%"+value.toUpperCase()+"%"));
+    }
+
+    @Override
+    public boolean matches(Email email) {
+        return PropertyPredicates.matches(email, property, v -> v != null && v.toString().toUpperCase().contains(value.toUpperCase()));
     }
 }
@@ -3,6 +3,7 @@ package de.gessnerfl.fakesmtp.model.query;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import de.gessnerfl.fakesmtp.model.Email;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
@@ -19,4 +20,9 @@ public record LogicalOr(@NotEmpty List<FilterExpression> expressions) implements
     public <T> Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
         return cb.or(expressions.stream().map(e -> e.toPredicate(root, query, cb)).toArray(Predicate[]::new));
     }
+
+    @Override
+    public boolean matches(Email email) {
+        return expressions.stream().anyMatch(e -> e.matches(email));
+    }
 }
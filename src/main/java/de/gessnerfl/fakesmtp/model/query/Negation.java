@@ -3,6 +3,7 @@ package de.gessnerfl.fakesmtp.model.query;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import de.gessnerfl.fakesmtp.model.Email;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
@@ -19,4 +20,10 @@ public record Negation(@NotNull FilterExpression expression) implements FilterEx
         Assert.notNull(expression, "expression of negation is missing");
         return cb.not(expression.toPredicate(root, query, cb));
     }
+
+    @Override
+    public boolean matches(Email email) {
+        Assert.notNull(expression, "expression of negation is missing");
+        return !expression.matches(email);
+    }
 }
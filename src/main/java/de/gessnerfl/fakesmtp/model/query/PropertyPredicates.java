@@ -0,0 +1,52 @@
+package de.gessnerfl.fakesmtp.model.query;
+
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailRecipient;
+import jakarta.persistence.criteria.*;
+
+import java.util.function.Function;
+
+public class PropertyPredicates {
+    private PropertyPredicates(){}
+
+    /**
+     * Applies the condition to the given property of the root entity. As an email
+     * is stored once for all its envelope recipients, a condition on the
+     * {@code toAddress} of an email matches if any of its recipients fulfills it.
+     * The recipients are selected by an {@code IN} subquery rather than a
+     * correlated {@code EXISTS}, so the database looks up the matching recipients
+     * once through the address index instead of probing them for every email.
+     */
+    public static <T, Y> Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, String property, Function<Path<Y>, Predicate> condition) {
+        if (Email.class.equals(root.getJavaType()) && Email.TO_ADDRESS.equals(property)) {
+            var subquery = query.subquery(Long.class);
+            var recipient = subquery.from(EmailRecipient.class);
+            subquery.select(recipient.get(EmailRecipient.EMAIL).get("id"))
+                    .where(condition.apply(recipient.get(EmailRecipient.ADDRESS)));
+            return root.get("id").in(subquery);
+        }
+        return condition.apply(root.get(property));
+    }
+
+    /**
+     * Applies the condition in memory to the value of the given property of the email, following the same rules as
+     * {@link #toPredicate(Root, CriteriaQuery, CriteriaBuilder, String, Function)}.
+     */
+    public static boolean matches(Email email, String property, java.util.function.Predicate<Object> condition) {
+        if (Email.TO_ADDRESS.equals(property)) {
+            return email.getRecipients().stream().anyMatch(condition);
+        }
+        return condition.test(valueOf(email, property));
+    }
+
+    private static Object valueOf(Email email, String property) {
+        return switch (property) {
+            case "id" -> email.getId();
+            case "fromAddress" -> email.getFromAddress();
+            case "subject" -> email.getSubject();
+            case "receivedOn" -> email.getReceivedOn();
+            case "messageId" -> email.getMessageId().orElse(null);
+            default -> throw new IllegalArgumentException("Property " + property + " cannot be filtered in memory");
+        };
+    }
+}
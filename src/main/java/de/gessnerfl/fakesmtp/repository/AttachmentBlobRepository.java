@@ -0,0 +1,42 @@
+package de.gessnerfl.fakesmtp.repository;
+
+import de.gessnerfl.fakesmtp.blob.StoredBlobLocation;
+import de.gessnerfl.fakesmtp.model.AttachmentBlob;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, Long> {
+
+    /**
+     * Does not flush pending changes, so attachments which are about to be deduplicated are not inserted before.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<AttachmentBlob> findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(String digest);
+
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.orphanedOn = ?1 WHERE b.orphanedOn IS NULL AND NOT EXISTS (SELECT a FROM EmailAttachment a WHERE a.blob = b) AND NOT EXISTS (SELECT i FROM InlineImage i WHERE i.blob = b)")
+    int markOrphans(ZonedDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM AttachmentBlob b WHERE b.orphanedOn < ?1 AND NOT EXISTS (SELECT a FROM EmailAttachment a WHERE a.blob = b) AND NOT EXISTS (SELECT i FROM InlineImage i WHERE i.blob = b)")
+    int deleteOrphansMarkedBefore(ZonedDateTime timestamp);
+
+    @Query("SELECT b.id AS id, b.data.offset AS offset, b.data.length AS length FROM AttachmentBlob b WHERE b.data.segment = ?1")
+    List<StoredBlobLocation> findDataLocationsInSegment(int segment);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.data.segment = ?3, b.data.offset = ?4 WHERE b.id = ?1 AND b.data.segment = ?2")
+    int moveData(long id, int fromSegment, int toSegment, long toOffset);
+}
@@ -1,6 +1,10 @@
 package de.gessnerfl.fakesmtp.repository;
 
+import de.gessnerfl.fakesmtp.blob.StoredBlobLocation;
 import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -15,11 +19,24 @@ public interface EmailRepository extends JpaRepository<Email, Long>, JpaSpecific
 
     @Transactional
     @Modifying
-    @Query(value = "DELETE email o WHERE o.id IN ( SELECT i.id FROM email i ORDER BY i.received_on DESC OFFSET ?1)", nativeQuery = true)
+    // selects the oldest emails instead of skipping the newest ones, so only the deleted entries of the received_on index are scanned
+    @Query(value = "DELETE email o WHERE o.id IN ( SELECT i.id FROM email i ORDER BY i.received_on ASC FETCH FIRST (SELECT GREATEST(COUNT(*) - ?1, 0) FROM email) ROWS ONLY)", nativeQuery = true)
     int deleteEmailsExceedingDateRetentionLimit(int maxNumber);
 
     @Transactional
     @Query
     List<Email> findBySubject(String subject);
 
+    @Query(value = "SELECT new de.gessnerfl.fakesmtp.model.EmailSummary(e.id, e.fromAddress, e.toAddress, e.subject, e.receivedOn, SIZE(e.attachments)) FROM Email e",
+            countQuery = "SELECT COUNT(e) FROM Email e")
+    Page<EmailSummary> findAllSummaries(Pageable pageable);
+
+    @Query("SELECT e.id AS id, e.rawData.offset AS offset, e.rawData.length AS length FROM Email e WHERE e.rawData.segment = ?1")
+    List<StoredBlobLocation> findRawDataLocationsInSegment(int segment);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Email e SET e.rawData.segment = ?3, e.rawData.offset = ?4 WHERE e.id = ?1 AND e.rawData.segment = ?2")
+    int moveRawData(long id, int fromSegment, int toSegment, long toOffset);
+
 }
@@ -0,0 +1,70 @@
+package de.gessnerfl.fakesmtp.service;
+
+import de.gessnerfl.fakesmtp.model.AttachmentBlob;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.repository.AttachmentBlobRepository;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the content of attachments and inline images once per SHA-256 digest. Blobs which are no longer referenced
+ * by any attachment or inline image are removed in two steps: they are marked as orphaned first and deleted by a later
+ * run after a grace period. Marked blobs are not reused, so an email which picked up a blob shortly before it was
+ * marked is stored before the blob is deleted.
+ */
+@Service
+public class AttachmentBlobStore {
+    static final Duration ORPHAN_GRACE_PERIOD = Duration.ofMinutes(1);
+
+    private final AttachmentBlobRepository attachmentBlobRepository;
+    private final TimestampProvider timestampProvider;
+    private final Logger logger;
+
+    @Autowired
+    public AttachmentBlobStore(AttachmentBlobRepository attachmentBlobRepository, TimestampProvider timestampProvider, Logger logger) {
+        this.attachmentBlobRepository = attachmentBlobRepository;
+        this.timestampProvider = timestampProvider;
+        this.logger = logger;
+    }
+
+    /**
+     * Replaces the new blobs of the attachments and inline images of the given emails by already stored blobs with the
+     * same digest. Attachments and inline images with the same content within the given emails share one new blob.
+     */
+    @Transactional
+    public void deduplicate(Collection<Email> emails) {
+        final Map<String, AttachmentBlob> blobs = new HashMap<>();
+        for (var email : emails) {
+            for (var attachment : email.getAttachments()) {
+                attachment.setBlob(deduplicate(attachment.getBlob(), blobs));
+            }
+            for (var inlineImage : email.getInlineImages()) {
+                inlineImage.setBlob(deduplicate(inlineImage.getBlob(), blobs));
+            }
+        }
+    }
+
+    private AttachmentBlob deduplicate(AttachmentBlob blob, Map<String, AttachmentBlob> blobs) {
+        if (blob.getId() != null) {
+            return blob;
+        }
+        return blobs.computeIfAbsent(blob.getDigest(),
+                digest -> attachmentBlobRepository.findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(digest).orElse(blob));
+    }
+
+    @Transactional
+    public void removeOrphans() {
+        final var now = timestampProvider.now();
+        final var deleted = attachmentBlobRepository.deleteOrphansMarkedBefore(now.minus(ORPHAN_GRACE_PERIOD));
+        final var marked = attachmentBlobRepository.markOrphans(now);
+        logger.debug("Deleted {} orphaned attachment blobs, marked {} attachment blobs as orphaned", deleted, marked);
+    }
+}
@@ -0,0 +1,126 @@
+package de.gessnerfl.fakesmtp.service;
+
+import de.gessnerfl.fakesmtp.event.EmailEvent;
+import de.gessnerfl.fakesmtp.event.EmailEventSubscriber;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.query.AwaitRequest;
+import de.gessnerfl.fakesmtp.model.query.FilterExpression;
+import de.gessnerfl.fakesmtp.model.query.SearchSpecification;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits until a minimum number of emails match a filter. The database is only queried when a request starts, when
+ * enough newly received emails matched the filter in memory, when an event was dropped and when the timeout expires,
+ * instead of polling it repeatedly. Waiting requests run on virtual threads provided by {@link #getExecutor()}, so
+ * they neither block a servlet thread nor a platform thread.
+ */
+@Service
+public class EmailAwaitService implements EmailEventSubscriber {
+    private final EmailRepository emailRepository;
+    private final EmailBodyLoader emailBodyLoader;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("email-await-");
+
+    @Autowired
+    public EmailAwaitService(EmailRepository emailRepository, EmailBodyLoader emailBodyLoader) {
+        this.emailRepository = emailRepository;
+        this.emailBodyLoader = emailBodyLoader;
+        executor.setVirtualThreads(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.close();
+    }
+
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Blocks until at least {@link AwaitRequest#getMinCount()} emails match the filter of the request or the timeout of
+     * the request expired.
+     *
+     * @return the requested page of matching emails and whether the minimum count was reached
+     */
+    public AwaitResult await(AwaitRequest request) throws InterruptedException {
+        final var specification = new SearchSpecification<Email>(request);
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(request.getTimeoutSeconds());
+        final var waiter = new Waiter(request.getFilter().orElse(null));
+        waiters.add(waiter);
+        try {
+            while (true) {
+                // emails which are not included in the following query are received afterwards and release a permit
+                waiter.matches.drainPermits();
+                final var emails = emailRepository.findAll(specification, request.getPageable());
+                final var missing = request.getMinCount() - emails.getTotalElements();
+                final var remaining = deadline - System.nanoTime();
+                if (missing <= 0 || remaining <= 0) {
+                    emailBodyLoader.loadBodies(emails.getContent());
+                    return new AwaitResult(missing <= 0, emails);
+                }
+                waiter.required = (int) missing;
+                waiter.matches.tryAcquire(waiter.required, remaining, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            waiters.remove(waiter);
+        }
+    }
+
+    @Override
+    public void onEmailEvent(EmailEvent event) {
+        if (event instanceof EmailReceived emailReceived && emailReceived.email() != null) {
+            for (var waiter : waiters) {
+                if (waiter.matches(emailReceived.email())) {
+                    waiter.matches.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * A dropped event may have matched any filter, so all waiters query the database again.
+     */
+    @Override
+    public void onEventDropped(EmailEvent event) {
+        if (event instanceof EmailReceived) {
+            for (var waiter : waiters) {
+                waiter.matches.release(waiter.required);
+            }
+        }
+    }
+
+    public record AwaitResult(boolean satisfied, Page<Email> emails) {
+    }
+
+    private static final class Waiter {
+        private final FilterExpression filter;
+        private final Semaphore matches = new Semaphore(0);
+        private volatile int required = 1;
+
+        private Waiter(FilterExpression filter) {
+            this.filter = filter;
+        }
+
+        private boolean matches(Email email) {
+            try {
+                return filter == null || filter.matches(email);
+            } catch (RuntimeException e) {
+                // let the database decide about expressions which cannot be evaluated in memory
+                return true;
+            }
+        }
+    }
+}
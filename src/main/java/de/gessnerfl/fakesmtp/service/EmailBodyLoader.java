@@ -0,0 +1,50 @@
+package de.gessnerfl.fakesmtp.service;
+
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.smtp.server.EmailFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Extracts the body of emails which were stored with the lazy parsing mode when they are accessed for the first
+ * time. The extracted contents, attachments and inline images are stored, so each email is parsed only once.
+ */
+@Service
+public class EmailBodyLoader {
+    private final EmailFactory emailFactory;
+    private final AttachmentBlobStore attachmentBlobStore;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public EmailBodyLoader(EmailFactory emailFactory, AttachmentBlobStore attachmentBlobStore, EntityManager entityManager) {
+        this.emailFactory = emailFactory;
+        this.attachmentBlobStore = attachmentBlobStore;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional
+    public void loadBody(Email email) {
+        if (!email.isBodyParsed()) {
+            parseBody(email);
+        }
+    }
+
+    @Transactional
+    public void loadBodies(List<Email> emails) {
+        emails.stream().filter(e -> !e.isBodyParsed()).forEach(this::parseBody);
+    }
+
+    private void parseBody(Email email) {
+        // lock the email so that concurrent requests do not extract the body twice
+        entityManager.refresh(email, LockModeType.PESSIMISTIC_WRITE);
+        if (!email.isBodyParsed()) {
+            emailFactory.parseBody(email);
+            attachmentBlobStore.deduplicate(List.of(email));
+        }
+    }
+}
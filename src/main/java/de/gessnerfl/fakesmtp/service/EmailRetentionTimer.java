@@ -1,26 +1,32 @@
 package de.gessnerfl.fakesmtp.service;
 
+import de.gessnerfl.fakesmtp.blob.SegmentBlobCompactor;
 import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.event.EmailsPurged;
 import de.gessnerfl.fakesmtp.repository.EmailRepository;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
-@Transactional(propagation = Propagation.REQUIRES_NEW)
 public class EmailRetentionTimer {
 
     private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
     private final EmailRepository emailRepository;
+    private final AttachmentBlobStore attachmentBlobStore;
+    private final SegmentBlobCompactor segmentBlobCompactor;
+    private final ApplicationEventPublisher eventPublisher;
     private final Logger logger;
 
     @Autowired
-    public EmailRetentionTimer(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties, EmailRepository emailRepository, Logger logger) {
+    public EmailRetentionTimer(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties, EmailRepository emailRepository, AttachmentBlobStore attachmentBlobStore, SegmentBlobCompactor segmentBlobCompactor, ApplicationEventPublisher eventPublisher, Logger logger) {
         this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
         this.emailRepository = emailRepository;
+        this.attachmentBlobStore = attachmentBlobStore;
+        this.segmentBlobCompactor = segmentBlobCompactor;
+        this.eventPublisher = eventPublisher;
         this.logger = logger;
     }
 
@@ -31,7 +37,12 @@ public class EmailRetentionTimer {
             var maxNumber = persistence.getMaxNumberEmails();
             var count = emailRepository.deleteEmailsExceedingDateRetentionLimit(maxNumber);
             logger.info("Deleted {} emails which exceeded the maximum number {} of emails to be stored", count, maxNumber);
+            if(count > 0){
+                eventPublisher.publishEvent(new EmailsPurged(count));
+            }
         }
+        attachmentBlobStore.removeOrphans();
+        segmentBlobCompactor.compact();
     }
 
 }
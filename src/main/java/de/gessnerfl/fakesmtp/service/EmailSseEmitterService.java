@@ -9,10 +9,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.event.EmailEvent;
+import de.gessnerfl.fakesmtp.event.EmailEventSubscriber;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
 
 @Service
-public class EmailSseEmitterService {
+public class EmailSseEmitterService implements EmailEventSubscriber {
     private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
     private final Logger logger;
 
@@ -69,19 +71,26 @@ public class EmailSseEmitterService {
         return emitter;
     }
 
+    @Override
+    public void onEmailEvent(EmailEvent event) {
+        if (event instanceof EmailReceived emailReceived) {
+            sendEmailReceivedEvent(emailReceived.emailId());
+        }
+    }
+
     /**
      * Send an event to all connected clients when a new email is received
      *
-     * @param email The newly received email
+     * @param emailId The id of the newly received email
      */
-    public void sendEmailReceivedEvent(Email email) {
+    public void sendEmailReceivedEvent(Long emailId) {
         List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
 
         emitters.forEach(emitter -> {
             try {
                 emitter.send(SseEmitter.event()
                         .name("email-received")
-                        .data(email.getId()));
+                        .data(emailId));
             } catch (IOException e) {
                 deadEmitters.add(emitter);
                 logger.warn("Failed to send event to emitter", e);
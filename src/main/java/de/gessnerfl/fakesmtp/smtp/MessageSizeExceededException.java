@@ -0,0 +1,11 @@
+package de.gessnerfl.fakesmtp.smtp;
+
+/**
+ * Thrown while reading the message content when it exceeds the maximum message
+ * size of the server.
+ */
+public class MessageSizeExceededException extends RejectException {
+	public MessageSizeExceededException() {
+		super(552, "5.3.4 Message size exceeds fixed limit");
+	}
+}
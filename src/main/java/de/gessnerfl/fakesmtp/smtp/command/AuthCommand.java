@@ -65,6 +65,7 @@ public class AuthCommand extends BaseCommand {
 			}
 
 			while (response != null) {
+				sess.flush();
 				final String clientInput = reader.readLine();
 				if (clientInput.trim().equals(AUTH_CANCEL_COMMAND)) {
 					// RFC 2554 explicitly states this:
@@ -1,7 +1,10 @@
 package de.gessnerfl.fakesmtp.smtp.command;
 
+import de.gessnerfl.fakesmtp.smtp.io.ReceivedHeaderStream;
 import de.gessnerfl.fakesmtp.smtp.server.HelpMessage;
+import de.gessnerfl.fakesmtp.smtp.server.Session;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
@@ -50,4 +53,17 @@ public abstract class BaseCommand implements Command {
 
 		return strings.toArray(new String[strings.size()]);
 	}
+
+	/**
+	 * Prepends the Received: header of the session to the message content.
+	 */
+	protected ReceivedHeaderStream withReceivedHeader(final InputStream content, final Session sess) {
+		return new ReceivedHeaderStream(content,
+				sess.getHelo(),
+				sess.getRemoteAddress().getAddress(),
+				sess.getServer().getHostName(),
+				sess.getServer().getSoftwareName(),
+				sess.getSessionId(),
+				sess.getSingleRecipient());
+	}
 }
@@ -0,0 +1,115 @@
+package de.gessnerfl.fakesmtp.smtp.command;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import de.gessnerfl.fakesmtp.smtp.RejectException;
+import de.gessnerfl.fakesmtp.smtp.server.Session;
+
+/**
+ * Implements the BDAT command of the CHUNKING extension (RFC 3030). The message
+ * content is transferred in chunks of a declared size, so the chunks are copied
+ * in bulk into the chunk spool of the session without searching for a
+ * terminating sequence or removing stuffed dots. The message is delivered when
+ * the last chunk was received.
+ */
+public class BdatCommand extends BaseCommand {
+	private static final int COPY_BUFFER_SIZE = 1024 * 8;
+
+	public BdatCommand() {
+		super(CommandVerb.BDAT, "Transfers a chunk of the message content of the given size.\n"
+				+ "The last chunk is marked with LAST", "<chunk-size> [ LAST ]");
+	}
+
+	@Override
+	public void execute(final String commandString, final Session sess) throws IOException {
+		final String[] args = this.getArgs(commandString);
+		final long chunkSize = parseChunkSize(args);
+		if (chunkSize < 0) {
+			sess.sendResponse("501 5.5.4 Syntax: BDAT <chunk-size> [ LAST ]");
+			return;
+		}
+
+		// once the size is known the chunk always has to be consumed, otherwise it
+		// would be interpreted as commands
+		if (args.length > 3 || (args.length == 3 && !"LAST".equalsIgnoreCase(args[2]))) {
+			sess.getRawInput().skipNBytes(chunkSize);
+			sess.sendResponse("501 5.5.4 Syntax: BDAT <chunk-size> [ LAST ]");
+			return;
+		}
+		final boolean last = args.length == 3;
+
+		// authentication and TLS are checked here instead of by the command wrappers,
+		// which would answer without consuming the chunk
+		if (sess.getServer().getRequireAuth() && !sess.isAuthenticated()) {
+			sess.getRawInput().skipNBytes(chunkSize);
+			sess.sendResponse("530 5.7.0  Authentication required");
+			return;
+		}
+		if (sess.getServer().getRequireTLS() && !sess.isTLSStarted()) {
+			sess.getRawInput().skipNBytes(chunkSize);
+			sess.sendResponse("530 Must issue a STARTTLS command first");
+			return;
+		}
+		if (!sess.isMailTransactionInProgress()) {
+			sess.getRawInput().skipNBytes(chunkSize);
+			sess.sendResponse("503 5.5.1 Error: need MAIL command");
+			return;
+		}
+		if (sess.getRecipientCount() == 0) {
+			sess.getRawInput().skipNBytes(chunkSize);
+			sess.sendResponse("503 Error: need RCPT command");
+			return;
+		}
+		final long maxSize = sess.getServer().getMaxMessageSizeInBytes();
+		if (maxSize > 0 && sess.getChunkSpool().getByteCount() + chunkSize > maxSize) {
+			sess.getRawInput().skipNBytes(chunkSize);
+			sess.getServer().getOversizedMessageListener().accept(sess.getChunkSpool().getByteCount() + chunkSize);
+			sess.resetMailTransaction();
+			sess.sendResponse("552 5.3.4 Message size exceeds fixed limit");
+			return;
+		}
+
+		copyChunk(sess.getRawInput(), sess.getChunkSpool(), chunkSize);
+		if (!last) {
+			sess.sendResponse("250 Ok " + chunkSize + " octets received");
+			return;
+		}
+
+		try (var rhs = withReceivedHeader(sess.getChunkSpool().getInputStream(), sess)) {
+			sess.getMessageHandler().data(rhs);
+		} catch (final RejectException ex) {
+			sess.resetMailTransaction();
+			sess.sendResponse(ex.getErrorResponse());
+			return;
+		}
+
+		sess.sendResponse("250 Ok");
+		sess.resetMailTransaction();
+	}
+
+	/**
+	 * @return the chunk size of the command or -1 if it is missing or invalid
+	 */
+	private static long parseChunkSize(final String[] args) {
+		if (args.length < 2 || !args[1].matches("\\d{1,18}")) {
+			return -1;
+		}
+		return Long.parseLong(args[1]);
+	}
+
+	private static void copyChunk(final InputStream in, final OutputStream out, final long chunkSize) throws IOException {
+		final byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, Math.max(chunkSize, 1))];
+		long remaining = chunkSize;
+		while (remaining > 0) {
+			final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (read < 0) {
+				throw new EOFException("Pre-mature end of BDAT chunk");
+			}
+			out.write(buffer, 0, read);
+			remaining -= read;
+		}
+	}
+}
@@ -3,14 +3,13 @@ package de.gessnerfl.fakesmtp.smtp.command;
 import de.gessnerfl.fakesmtp.smtp.server.InvalidCommandNameException;
 import de.gessnerfl.fakesmtp.smtp.server.UnknownCommandException;
 
-import java.util.Locale;
 import java.util.Map;
-import java.util.StringTokenizer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class CommandRegistry {
+    private static final CommandVerb[] VERBS = CommandVerb.values();
 
     private final Map<CommandVerb, Command> commands;
 
@@ -27,21 +26,39 @@ public class CommandRegistry {
         return command;
     }
 
+    /**
+     * Matches the first token of the command line case-insensitively against the
+     * command verbs without allocating intermediate strings.
+     */
     private CommandVerb getVerbByCommand(final String commandString) throws InvalidCommandNameException, UnknownCommandException {
         if (commandString == null || commandString.length() < 4) {
             throw new InvalidCommandNameException("Error: bad syntax");
         }
 
-        final var commandStringUpperCase = commandString.toUpperCase(Locale.ENGLISH);
-        try {
-            return CommandVerb.valueOf(commandStringUpperCase);
-        } catch (IllegalArgumentException e1) {
-            final StringTokenizer stringTokenizer = new StringTokenizer(commandStringUpperCase);
-            try {
-                return CommandVerb.valueOf(stringTokenizer.nextToken());
-            } catch (IllegalArgumentException e2) {
-                throw new UnknownCommandException("Error: command not implemented");
+        final int length = commandString.length();
+        int start = 0;
+        while (start < length && isTokenDelimiter(commandString.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < length && !isTokenDelimiter(commandString.charAt(end))) {
+            end++;
+        }
+
+        final int tokenLength = end - start;
+        for (final CommandVerb verb : VERBS) {
+            final String name = verb.name();
+            if (name.length() == tokenLength && commandString.regionMatches(true, start, name, 0, tokenLength)) {
+                return verb;
             }
         }
+        throw new UnknownCommandException("Error: command not implemented");
+    }
+
+    /**
+     * @return true for the default delimiters of {@link java.util.StringTokenizer}
+     */
+    private static boolean isTokenDelimiter(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
     }
 }
@@ -13,5 +13,6 @@ public enum CommandVerb {
     RSET,
     STARTTLS,
     VRFY,
-    EXPN;
+    EXPN,
+    BDAT;
 }
@@ -1,16 +1,15 @@
 package de.gessnerfl.fakesmtp.smtp.command;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
+import de.gessnerfl.fakesmtp.smtp.MessageSizeExceededException;
 import de.gessnerfl.fakesmtp.smtp.RejectException;
-import de.gessnerfl.fakesmtp.smtp.io.DotTerminatedInputStream;
-import de.gessnerfl.fakesmtp.smtp.io.DotUnstuffingInputStream;
-import de.gessnerfl.fakesmtp.smtp.io.ReceivedHeaderStream;
+import de.gessnerfl.fakesmtp.smtp.io.DotTerminatedUnstuffingInputStream;
+import de.gessnerfl.fakesmtp.smtp.io.SizeLimitedInputStream;
 import de.gessnerfl.fakesmtp.smtp.server.Session;
 
 public class DataCommand extends BaseCommand {
-    private static final int BUFFER_SIZE = 1024 * 32; // 32k seems reasonable
 
     public DataCommand() {
         super(CommandVerb.DATA, "Following text is collected as the message.\n" + "End data with <CR><LF>.<CR><LF>");
@@ -26,18 +25,33 @@ public class DataCommand extends BaseCommand {
             sess.sendResponse("503 Error: need RCPT command");
             return;
         }
+        if (sess.isBinaryMimeBody() || sess.isChunkingInProgress()) {
+            sess.sendResponse("503 5.5.1 Error: message content must be sent with BDAT");
+            return;
+        }
 
         sess.sendResponse("354 End data with <CR><LF>.<CR><LF>");
+        sess.flush();
 
-        final var rhs = buildReceivedHeaderStream(sess);
+        final var dtuis = new DotTerminatedUnstuffingInputStream(sess.getRawInput());
+        final long maxSize = sess.getServer().getMaxMessageSizeInBytes();
+        final var limited = maxSize > 0 ? new SizeLimitedInputStream(dtuis, maxSize) : null;
+        final var rhs = withReceivedHeader(limited != null ? limited : dtuis, sess);
         try {
             sess.getMessageHandler().data(rhs);
-            while (rhs.read() != -1) {
-                // Just in case the handler didn't consume all the data, we might as well
-                // suck it up so it doesn't pollute further exchanges.  This code used to
-                // throw an exception, but this seems an arbitrary part of the contract that
-                // we might as well relax.
-            }
+            // Just in case the handler didn't consume all the data, we might as well
+            // suck it up so it doesn't pollute further exchanges.  This code used to
+            // throw an exception, but this seems an arbitrary part of the contract that
+            // we might as well relax.
+            rhs.transferTo(OutputStream.nullOutputStream());
+        } catch (final MessageSizeExceededException ex) {
+            // the rest of the message has to be consumed, otherwise it would be
+            // interpreted as commands; it is discarded without buffering
+            final long discarded = dtuis.transferTo(OutputStream.nullOutputStream());
+            sess.getServer().getOversizedMessageListener().accept((limited != null ? limited.getByteCount() : 0) + discarded);
+            sess.resetMailTransaction();
+            sess.sendResponse(ex.getErrorResponse());
+            return;
         } catch (final RejectException ex) {
             sess.sendResponse(ex.getErrorResponse());
             return;
@@ -46,17 +60,4 @@ public class DataCommand extends BaseCommand {
         sess.sendResponse("250 Ok");
         sess.resetMailTransaction();
     }
-
-    private static ReceivedHeaderStream buildReceivedHeaderStream(Session sess) {
-        final var bis = new BufferedInputStream(sess.getRawInput(), BUFFER_SIZE);
-        final var btis = new DotTerminatedInputStream(bis);
-        final var duis = new DotUnstuffingInputStream(btis);
-        return new ReceivedHeaderStream(duis,
-                sess.getHelo(),
-                sess.getRemoteAddress().getAddress(),
-                sess.getServer().getHostName(),
-                sess.getServer().getSoftwareName(),
-                sess.getSessionId(),
-                sess.getSingleRecipient());
-    }
 }
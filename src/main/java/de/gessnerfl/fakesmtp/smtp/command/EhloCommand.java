@@ -39,7 +39,13 @@ public class EhloCommand extends BaseCommand {
         response.append("250-")
                 .append(sess.getServer().getHostName())
                 .append("\r\n")
-                .append("250-8BITMIME");
+                .append("250-8BITMIME")
+                .append("\r\n")
+                .append("250-PIPELINING")
+                .append("\r\n")
+                .append("250-CHUNKING")
+                .append("\r\n")
+                .append("250-BINARYMIME");
 
         final long maxSize = sess.getServer().getMaxMessageSizeInBytes();
         if (maxSize > 0) {
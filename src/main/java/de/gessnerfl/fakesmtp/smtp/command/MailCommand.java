@@ -58,6 +58,7 @@ public class MailCommand extends BaseCommand {
 		}
 
 		sess.startMailTransaction();
+		sess.setBinaryMimeBody(largs.contains(" body=binarymime"));
 
 		try {
 			sess.getMessageHandler().from(emailAddress);
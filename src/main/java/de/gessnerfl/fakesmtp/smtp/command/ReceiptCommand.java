@@ -1,7 +1,6 @@
 package de.gessnerfl.fakesmtp.smtp.command;
 
 import java.io.IOException;
-import java.util.Locale;
 
 import de.gessnerfl.fakesmtp.smtp.RejectException;
 import de.gessnerfl.fakesmtp.smtp.server.Session;
@@ -20,7 +19,7 @@ public class ReceiptCommand extends BaseCommand {
 		}
 
 		final String args = this.getArgPredicate(commandString);
-		if (!args.toUpperCase(Locale.ENGLISH).startsWith("TO:")) {
+		if (!args.regionMatches(true, 0, "TO:", 0, 3)) {
 			sess.sendResponse("501 Syntax: RCPT TO: <address>  Error in parameters: \"" + args + "\"");
 		}
 		final String recipientAddress = EmailUtils.extractEmailAddress(args, 3);
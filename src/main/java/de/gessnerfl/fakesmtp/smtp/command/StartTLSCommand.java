@@ -38,6 +38,7 @@ public class StartTLSCommand extends BaseCommand {
             }
 
             sess.sendResponse("220 Ready to start TLS");
+            sess.flush();
 
             final SSLSocket s = sess.getServer().createSSLSocket(socket);
             s.startHandshake();
@@ -1,26 +1,60 @@
 package de.gessnerfl.fakesmtp.smtp.io;
 
-import java.io.FilterReader;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 
 /**
  * A Reader for use with SMTP or other protocols in which lines must end with
- * CRLF. Extends Reader and overrides its readLine() method. The Reader
- * readLine() method cannot serve for SMTP because it ends lines with either CR
- * or LF alone.
+ * CRLF. It provides a readLine() method, as the Reader readLine() method
+ * cannot serve for SMTP because it ends lines with either CR or LF alone.
  * JSS: The readline() method of this class has been 'enhanced' from the Apache
  * JAMES version to throw an IOException if the line is greater than or equal to
  * MAX_LINE_LENGTH (998) which is defined in
  * <a href="http://rfc.net/rfc2822.html#s2.1.1.">RFC 2822</a>.
+ * <p>
+ * The reader works on the bytes of the underlying stream and decodes complete
+ * lines only. Bytes are read in small blocks into a reusable buffer; the
+ * stream is marked before each block and reset to the end of the line, so the
+ * reader never consumes bytes beyond the terminating CRLF and the same stream
+ * can be used to read binary message content (e.g. BDAT chunks) directly after a
+ * command line. Therefore the stream has to support mark and reset; otherwise
+ * it is wrapped in a {@link BufferedInputStream}. Apart from the returned
+ * String no objects are allocated per line.
  */
-public class CRLFTerminatedReader extends FilterReader {
+public class CRLFTerminatedReader implements Closeable {
 	static final int MAX_LINE_LENGTH = 998;
-	private static final int EOF = -1;
-	private static final char CR = 13;
-	private static final char LF = 10;
+	private static final int BLOCK_SIZE = 256;
+	private static final byte CR = 13;
+	private static final byte LF = 10;
+
+	private final InputStream in;
+
+	private final Charset charset;
+
+	/**
+	 * The block of bytes read from the stream which is currently scanned
+	 */
+	private final byte[] block = new byte[BLOCK_SIZE];
+
+	/**
+	 * The content of the current line. A CR followed by another character can add
+	 * two bytes at once, so the line can exceed the maximum length by one.
+	 */
+	private final byte[] line = new byte[MAX_LINE_LENGTH + 1];
+
+	private int lineLength;
+
+	/*
+	 * This boolean tells which state we are in, depending upon whether we got a CR
+	 * in the preceding byte.
+	 */
+	private boolean crJustReceived;
+
+	/* If not -1 this int tells us where the first "wrong" line break is */
+	private int tainted;
 
 	public static class TerminationException extends IOException {
 		private final int where;
@@ -48,7 +82,8 @@ public class CRLFTerminatedReader extends FilterReader {
 	 * @param charset the {@link Charset} to use
 	 */
 	public CRLFTerminatedReader(final InputStream in, final Charset charset) {
-		super(new InputStreamReader(in, charset));
+		this.in = in.markSupported() ? in : new BufferedInputStream(in);
+		this.charset = charset;
 	}
 
 	/**
@@ -64,86 +99,99 @@ public class CRLFTerminatedReader extends FilterReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public String readLine() throws IOException {
-		final var state = new ReadState();
+		this.lineLength = 0;
+		this.crJustReceived = false;
+		this.tainted = -1;
 		while (true) {
-			final int inChar = this.read();
-
-			processCharacter(state, inChar);
-			if (state.isPrematureEol){
+			this.in.mark(BLOCK_SIZE);
+			final int count = this.in.read(this.block, 0, BLOCK_SIZE);
+			if (count < 0) {
 				return null;
 			}
-			if (state.isComplete){
-				return state.lineBuilder.toString();
-			}
-			if (state.lineBuilder.length() >= MAX_LINE_LENGTH) {
-				throw new MaxLineLengthException("Input line length is too long!");
+			int position = 0;
+			try {
+				while (position < count) {
+					if (processByte(this.block[position++])) {
+						return new String(this.line, 0, this.lineLength, this.charset);
+					}
+				}
+			} finally {
+				if (position < count) {
+					// give back the bytes following the line
+					this.in.reset();
+					this.in.skipNBytes(position);
+				}
 			}
 		}
 	}
 
-	private static void processCharacter(ReadState state, int inChar) throws TerminationException {
-		if (!state.crJustReceived) {
-			processCharacterBeforeCarriageReturn(state, inChar);
-		} else {
-			processCharacterAfterCarriageReturn(state, inChar);
+	/**
+	 * @return true if bytes of the underlying stream can be read without blocking
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public boolean ready() throws IOException {
+		return this.in.available() > 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	/**
+	 * @return true if the byte completed the line
+	 */
+	private boolean processByte(final byte b) throws TerminationException, MaxLineLengthException {
+		if (!this.crJustReceived) {
+			processByteBeforeCarriageReturn(b);
+		} else if (processByteAfterCarriageReturn(b)) {
+			return true;
+		}
+		if (this.lineLength >= MAX_LINE_LENGTH) {
+			throw new MaxLineLengthException("Input line length is too long!");
 		}
+		return false;
 	}
 
-	private static void processCharacterBeforeCarriageReturn(ReadState state, int inChar) {
+	private void processByteBeforeCarriageReturn(final byte b) {
 		// the most common case, somewhere before the end of a line
-		switch (inChar) {
+		switch (b) {
 		case CR:
-			state.crJustReceived = true;
-			break;
-		case EOF:
-			state.isPrematureEol = true;
+			this.crJustReceived = true;
 			break;
 		case LF: // the normal ending of a line
-			if (state.tainted == -1) {
-				state.tainted = state.lineBuilder.length();
+			if (this.tainted == -1) {
+				this.tainted = this.lineLength;
 			}
 			// intentional fall-through
 		default:
-			state.lineBuilder.append((char) inChar);
+			this.line[this.lineLength++] = b;
 		}
 	}
 
-	private static void processCharacterAfterCarriageReturn(ReadState state, int inChar) throws TerminationException {
-		switch (inChar) {
+	private boolean processByteAfterCarriageReturn(final byte b) throws TerminationException {
+		switch (b) {
 			case LF -> { // LF without a preceding CR
-				if (state.tainted != -1) {
-					throw new TerminationException("\"bare\" CR or LF in data stream", state.tainted);
+				if (this.tainted != -1) {
+					throw new TerminationException("\"bare\" CR or LF in data stream", this.tainted);
 				}
-				state.isComplete = true;
+				return true;
 			}
-			case EOF -> state.isPrematureEol = true;
 			case CR -> { // we got two (or more) CRs in a row
-				if (state.tainted == -1) {
-					state.tainted = state.lineBuilder.length();
+				if (this.tainted == -1) {
+					this.tainted = this.lineLength;
 				}
-				state.lineBuilder.append(CR);
+				this.line[this.lineLength++] = CR;
 			}
 			default -> { // we got some other character following a CR
-				if (state.tainted == -1) {
-					state.tainted = state.lineBuilder.length();
+				if (this.tainted == -1) {
+					this.tainted = this.lineLength;
 				}
-				state.lineBuilder.append(CR);
-				state.lineBuilder.append((char) inChar);
-				state.crJustReceived = false;
+				this.line[this.lineLength++] = CR;
+				this.line[this.lineLength++] = b;
+				this.crJustReceived = false;
 			}
 		}
-	}
-
-	private static final class ReadState {
-		/*
-		 * This boolean tells which state we are in, depending upon whether we
-		 * got a CR in the preceding read().
-		 */
-		boolean crJustReceived = false;
-		/* If not -1 this int tells us where the first "wrong" line break is */
-		int tainted = -1;
-		final StringBuilder lineBuilder = new StringBuilder();
-		boolean isPrematureEol = false;
-		boolean isComplete = false;
+		return false;
 	}
 }
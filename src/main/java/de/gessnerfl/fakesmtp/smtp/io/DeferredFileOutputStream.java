@@ -1,34 +1,35 @@
 package de.gessnerfl.fakesmtp.smtp.io;
 
-import java.io.BufferedInputStream;
+import jakarta.mail.util.SharedFileInputStream;
+
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermissions;
 
 /**
- * This works like a ByteArrayOutputStream until a certain size is reached, then
- * creates a temp file and acts like a buffered FileOutputStream. The data can
- * be retreived afterwards by calling getInputStream().
- * When this object is closed, the temporary file is deleted. You can no longer
- * call getInputStream().
+ * This buffers the data in slabs of a {@link SlabPool} until a certain size is
+ * reached, then creates a temp file, returns the slabs to the pool and acts
+ * like a buffered FileOutputStream. The data can be retreived afterwards by
+ * calling getInputStream(), which returns a
+ * {@link jakarta.mail.internet.SharedInputStream} in both states, so the data
+ * can be read several times and parsed without copying it into the heap.
+ * When this object is closed, the temporary file is deleted and the slabs are
+ * returned to the pool. You can no longer call getInputStream() or read the
+ * streams returned by it.
  */
 public class DeferredFileOutputStream extends ThresholdingOutputStream {
-	/**
-	 * Initial size of the byte array buffer. Better to make this large to start
-	 * with so that we can avoid reallocs; mail messages are rarely tiny.
-	 */
-	static final int INITIAL_BUF_SIZE = 8192;
-
 	public static final String TMPFILE_PREFIX = "subetha";
 
 	public static final String TMPFILE_SUFFIX = ".msg";
 
+	/** The directory of the temp file, or null for the default temp directory. */
+	private final Path directory;
+
 	/** If we switch to file output, this is the file. */
 	File outFile;
 
@@ -43,31 +44,59 @@ public class DeferredFileOutputStream extends ThresholdingOutputStream {
 	 *                       array to a real file.
 	 */
 	public DeferredFileOutputStream(final int transitionSize) {
-		super(new BetterByteArrayOutputStream(INITIAL_BUF_SIZE), transitionSize);
+		this(transitionSize, null);
+	}
+
+	/**
+	 * @param transitionSize is the number of bytes at which to convert from a byte
+	 *                       array to a real file.
+	 * @param directory      is the directory in which the temp file is created, or
+	 *                       null to use the default temp directory.
+	 */
+	public DeferredFileOutputStream(final int transitionSize, final Path directory) {
+		this(transitionSize, directory, SlabPool.DEFAULT);
+	}
+
+	/**
+	 * @param transitionSize is the number of bytes at which to convert from a byte
+	 *                       array to a real file.
+	 * @param directory      is the directory in which the temp file is created, or
+	 *                       null to use the default temp directory.
+	 * @param slabPool       is the pool of the slabs which buffer the data until
+	 *                       the transition size is reached.
+	 */
+	public DeferredFileOutputStream(final int transitionSize, final Path directory, final SlabPool slabPool) {
+		super(new SlabOutputStream(slabPool), transitionSize);
+		this.directory = directory;
 	}
 
 	@Override
-	protected void thresholdReached(final int current, final int predicted) throws IOException {
-		// Open a temp file, write the byte array version, and swap the
-		// output stream to the file version.
+	protected void thresholdReached(final long current, final long predicted) throws IOException {
+		// Open a temp file, write the buffered slabs, release them and swap
+		// the output stream to the file version.
 
 		var attr = PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
-		var outFilePath = Files.createTempFile(TMPFILE_PREFIX, TMPFILE_SUFFIX, attr);
+		var outFilePath = this.directory == null
+				? Files.createTempFile(TMPFILE_PREFIX, TMPFILE_SUFFIX, attr)
+				: Files.createTempFile(Files.createDirectories(this.directory), TMPFILE_PREFIX, TMPFILE_SUFFIX, attr);
 		this.outFile = outFilePath.toFile();
 		this.outFileStream = new FileOutputStream(this.outFile);
 
-		((ByteArrayOutputStream) this.output).writeTo(this.outFileStream);
+		final SlabOutputStream slabs = (SlabOutputStream) this.output;
+		slabs.writeTo(this.outFileStream);
+		slabs.release();
 		this.output = new BufferedOutputStream(this.outFileStream);
 	}
 
 	/**
 	 * Closes the output stream and creates an InputStream on the same data.
 	 *
-	 * @return either a BetterByteArrayOutputStream or buffered FileInputStream,
-	 *         depending on what state we are in.
+	 * @return either a SharedInputStream on the slabs or a
+	 *         SharedFileInputStream on the temp file, depending on what state we
+	 *         are in. The caller has to close the returned stream.
 	 */
 	public InputStream getInputStream() throws IOException {
-		if (this.output instanceof BetterByteArrayOutputStream os) {
+		if (this.output instanceof SlabOutputStream os) {
 			return os.getInputStream();
 		}
 		if (!this.closed) {
@@ -76,7 +105,7 @@ public class DeferredFileOutputStream extends ThresholdingOutputStream {
 			this.closed = true;
 		}
 
-		return new BufferedInputStream(new FileInputStream(this.outFile));
+		return new SharedFileInputStream(this.outFile);
 	}
 
 	@Override
@@ -87,6 +116,9 @@ public class DeferredFileOutputStream extends ThresholdingOutputStream {
 			this.closed = true;
 		}
 
+		if (this.output instanceof SlabOutputStream os) {
+			os.release();
+		}
 		if (this.outFile != null) {
 			Files.delete(this.outFile.toPath());
 		}
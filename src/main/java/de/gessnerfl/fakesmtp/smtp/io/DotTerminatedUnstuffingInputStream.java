@@ -0,0 +1,219 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes the message content of the DATA command. It combines
+ * {@link DotTerminatedInputStream} and {@link DotUnstuffingInputStream}: the
+ * stream terminates at a US-ASCII encoded dot CR LF line following a CR LF line
+ * end and removes the dot-stuffing of all other lines.
+ * <p>
+ * Instead of shifting a lookahead window for every byte, whole blocks are read
+ * from the wrapped stream into the buffer of the caller, scanned for lines
+ * starting with a dot and unstuffed in place. The wrapped stream is marked
+ * before each block and reset to the end of the terminating sequence, so the
+ * stream never consumes bytes following the terminating sequence, e.g.
+ * pipelined commands of the client. Therefore the wrapped stream has to
+ * support mark and reset; otherwise it is wrapped in a
+ * {@link BufferedInputStream}.
+ */
+public class DotTerminatedUnstuffingInputStream extends FilterInputStream {
+	/**
+	 * Maximum number of bytes scanned in one block. It must not exceed the buffer
+	 * size of the wrapped stream, otherwise the mark might get invalid.
+	 */
+	static final int MAX_BLOCK_SIZE = 1024 * 8;
+
+	/**
+	 * True if the next byte is the first byte of a line, i.e. the last bytes were
+	 * CR LF. The first byte of the stream is considered to be the first byte of a
+	 * line. This makes it possible to receive empty data.
+	 */
+	private boolean lineStart = true;
+
+	/**
+	 * True if a leading dot of the current line is removed. Like in
+	 * {@link DotUnstuffingInputStream} this is not the case for the first line of
+	 * the stream.
+	 */
+	private boolean unstuffLine = false;
+
+	/**
+	 * True if the last byte returned was a CR.
+	 */
+	private boolean lastByteCr = false;
+
+	/**
+	 * Indicates that the terminating sequence was consumed from the wrapped stream.
+	 */
+	private boolean endReached = false;
+
+	public DotTerminatedUnstuffingInputStream(final InputStream in) {
+		super(in.markSupported() ? in : new BufferedInputStream(in, MAX_BLOCK_SIZE));
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (endReached) {
+			return -1;
+		}
+		int b = readWrapped();
+		if (lineStart && b == '.') {
+			if (isFollowedByCrLf()) {
+				endReached = true;
+				return -1;
+			}
+			if (unstuffLine) {
+				// skip this '.' because it should have been stuffed
+				b = readWrapped();
+				lastByteCr = false;
+			}
+		}
+		updateLineState(b);
+		return b;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (endReached) {
+			return -1;
+		}
+		if (len < 3) {
+			return readBytewise(b, off, len);
+		}
+
+		final int blockSize = Math.min(len, MAX_BLOCK_SIZE);
+		this.in.mark(blockSize);
+		final int count = this.in.read(b, off, blockSize);
+		if (count < 0) {
+			throw prematureEnd();
+		}
+
+		final int end = off + count;
+		int readPos = off;
+		int writePos = off;
+		while (readPos < end) {
+			byte current = b[readPos];
+			if (lineStart && current == '.') {
+				if (readPos + 2 >= end) {
+					// not enough lookahead in this block; continue with the dot in the next call
+					break;
+				}
+				if (b[readPos + 1] == '\r' && b[readPos + 2] == '\n') {
+					readPos += 3;
+					endReached = true;
+					break;
+				}
+				if (unstuffLine) {
+					readPos++;
+					current = b[readPos];
+					lastByteCr = false;
+				}
+			}
+			b[writePos++] = current;
+			readPos++;
+			updateLineState(current);
+		}
+
+		if (readPos < end) {
+			// give back the bytes following the terminating sequence or the pending dot
+			this.in.reset();
+			this.in.skipNBytes((long) readPos - off);
+		}
+		if (writePos > off) {
+			return writePos - off;
+		}
+		if (endReached) {
+			return -1;
+		}
+		// the block started with a dot at the beginning of a line without enough lookahead
+		return readBytewise(b, off, 1);
+	}
+
+	@Override
+	public int available() throws IOException {
+		return endReached ? 0 : super.available();
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		long skipped = 0;
+		while (skipped < n && read() >= 0) {
+			skipped++;
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(final int readlimit) {
+		// mark is not supported
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	private int readBytewise(final byte[] b, final int off, final int len) throws IOException {
+		int i = 0;
+		for (; i < len; i++) {
+			final int c = read();
+			if (c == -1) {
+				break;
+			}
+			b[off + i] = (byte) c;
+		}
+		return i == 0 ? -1 : i;
+	}
+
+	/**
+	 * Checks if the next bytes of the wrapped stream are CR LF. The bytes are only
+	 * consumed if this is the case.
+	 */
+	private boolean isFollowedByCrLf() throws IOException {
+		this.in.mark(2);
+		if (this.in.read() == '\r' && this.in.read() == '\n') {
+			return true;
+		}
+		this.in.reset();
+		return false;
+	}
+
+	private int readWrapped() throws IOException {
+		final int b = this.in.read();
+		if (b == -1) {
+			throw prematureEnd();
+		}
+		return b;
+	}
+
+	private void updateLineState(final int b) {
+		lineStart = lastByteCr && b == '\n';
+		if (lineStart) {
+			unstuffLine = true;
+		}
+		lastByteCr = b == '\r';
+	}
+
+	private static EOFException prematureEnd() {
+		return new EOFException("Pre-mature end of <CRLF>.<CRLF> terminated data");
+	}
+}
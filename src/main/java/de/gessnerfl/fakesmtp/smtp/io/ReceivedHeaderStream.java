@@ -114,7 +114,7 @@ public class ReceivedHeaderStream extends FilterInputStream {
             final int remainder = len - countRead;
             final int additionalRead = super.read(b, off + countRead, remainder);
 
-            return countRead + additionalRead;
+            return additionalRead < 0 ? countRead : countRead + additionalRead;
         }
         return countRead;
     }
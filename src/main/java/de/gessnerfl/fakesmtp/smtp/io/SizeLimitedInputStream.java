@@ -0,0 +1,76 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import de.gessnerfl.fakesmtp.smtp.MessageSizeExceededException;
+
+/**
+ * Counts the bytes read from the wrapped stream and throws a
+ * {@link MessageSizeExceededException} as soon as more than the limit was read.
+ * A read never requests more than one byte beyond the limit from the wrapped
+ * stream, so the excess of an oversized message is not buffered by the reader.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+	private final long limit;
+	private long byteCount;
+
+	public SizeLimitedInputStream(final InputStream in, final long limit) {
+		super(in);
+		this.limit = limit;
+	}
+
+	/**
+	 * @return the number of bytes read from the wrapped stream
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkLimit();
+		final int b = super.read();
+		if (b >= 0) {
+			count(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		checkLimit();
+		final int read = super.read(b, off, (int) Math.min(len, limit - byteCount + 1));
+		if (read > 0) {
+			count(read);
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		checkLimit();
+		final long skipped = super.skip(Math.min(n, limit - byteCount + 1));
+		if (skipped > 0) {
+			count(skipped);
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void count(final long n) {
+		byteCount += n;
+		checkLimit();
+	}
+
+	private void checkLimit() {
+		if (byteCount > limit) {
+			throw new MessageSizeExceededException();
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import jakarta.mail.internet.SharedInputStream;
+
+/**
+ * Buffers the written data in slabs acquired from a {@link SlabPool}. Unlike a
+ * ByteArrayOutputStream the buffer is never copied when it grows, and the slabs
+ * are returned to the pool by {@link #release()}.
+ */
+class SlabOutputStream extends OutputStream {
+	private final SlabPool pool;
+
+	private final int slabSize;
+
+	private final List<byte[]> slabs = new ArrayList<>();
+
+	/** Number of bytes written so far */
+	private int count;
+
+	private boolean released;
+
+	SlabOutputStream(final SlabPool pool) {
+		this.pool = pool;
+		this.slabSize = pool.getSlabSize();
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		final int offset = this.count % this.slabSize;
+		if (offset == 0 && this.count / this.slabSize == this.slabs.size()) {
+			this.addSlab();
+		}
+		this.slabs.get(this.count / this.slabSize)[offset] = (byte) b;
+		this.count++;
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		Objects.checkFromIndexSize(off, len, b.length);
+		int written = 0;
+		while (written < len) {
+			final int offset = this.count % this.slabSize;
+			if (offset == 0 && this.count / this.slabSize == this.slabs.size()) {
+				this.addSlab();
+			}
+			final int chunk = Math.min(len - written, this.slabSize - offset);
+			System.arraycopy(b, off + written, this.slabs.get(this.count / this.slabSize), offset, chunk);
+			written += chunk;
+			this.count += chunk;
+		}
+	}
+
+	private void addSlab() throws IOException {
+		if (this.released) {
+			throw new IOException("Buffer was released");
+		}
+		this.slabs.add(this.pool.acquire());
+	}
+
+	/**
+	 * @return the number of bytes written so far
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Writes the buffered data to the given stream.
+	 */
+	public void writeTo(final OutputStream out) throws IOException {
+		int remaining = this.count;
+		for (final byte[] slab : this.slabs) {
+			final int chunk = Math.min(remaining, this.slabSize);
+			out.write(slab, 0, chunk);
+			remaining -= chunk;
+		}
+	}
+
+	/**
+	 * Does not make a copy of the buffered data. The returned stream is a
+	 * {@link SharedInputStream}, so sub streams of it share the slabs as well.
+	 * The streams can only be read until the buffer is released.
+	 */
+	public InputStream getInputStream() {
+		return new SlabInputStream(0, this.count);
+	}
+
+	/**
+	 * Returns the slabs to the pool. Streams on the buffer cannot be read
+	 * afterwards.
+	 */
+	public void release() {
+		if (!this.released) {
+			this.released = true;
+			this.slabs.forEach(this.pool::release);
+			this.slabs.clear();
+		}
+	}
+
+	private final class SlabInputStream extends InputStream implements SharedInputStream {
+		private final int start;
+
+		private final int end;
+
+		private int pos;
+
+		private int mark;
+
+		private SlabInputStream(final int start, final int end) {
+			this.start = start;
+			this.end = end;
+			this.pos = start;
+			this.mark = start;
+		}
+
+		@Override
+		public int read() throws IOException {
+			this.checkReleased();
+			if (this.pos >= this.end) {
+				return -1;
+			}
+			final int b = SlabOutputStream.this.slabs.get(this.pos / SlabOutputStream.this.slabSize)[this.pos % SlabOutputStream.this.slabSize] & 0xff;
+			this.pos++;
+			return b;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			this.checkReleased();
+			if (len == 0) {
+				return 0;
+			}
+			if (this.pos >= this.end) {
+				return -1;
+			}
+			final int total = Math.min(len, this.end - this.pos);
+			int read = 0;
+			while (read < total) {
+				final int offset = this.pos % SlabOutputStream.this.slabSize;
+				final int chunk = Math.min(total - read, SlabOutputStream.this.slabSize - offset);
+				System.arraycopy(SlabOutputStream.this.slabs.get(this.pos / SlabOutputStream.this.slabSize), offset, b, off + read, chunk);
+				read += chunk;
+				this.pos += chunk;
+			}
+			return total;
+		}
+
+		@Override
+		public long skip(final long n) {
+			final int skipped = (int) Math.max(0, Math.min(n, this.end - this.pos));
+			this.pos += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return this.end - this.pos;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public void mark(final int readlimit) {
+			this.mark = this.pos;
+		}
+
+		@Override
+		public void reset() {
+			this.pos = this.mark;
+		}
+
+		@Override
+		public long getPosition() {
+			return this.pos - this.start;
+		}
+
+		@Override
+		public InputStream newStream(final long start, final long end) {
+			if (start < 0) {
+				throw new IllegalArgumentException("start < 0");
+			}
+			final long length = this.end - this.start;
+			final long newEnd = end == -1 ? length : Math.min(end, length);
+			return new SlabInputStream(this.start + (int) start, this.start + (int) Math.max(start, newEnd));
+		}
+
+		private void checkReleased() throws IOException {
+			if (SlabOutputStream.this.released) {
+				throw new IOException("Buffer was released");
+			}
+		}
+	}
+}
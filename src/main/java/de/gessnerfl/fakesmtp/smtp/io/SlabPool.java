@@ -0,0 +1,64 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of fixed-size byte arrays (slabs) which buffer message data in memory.
+ * Released slabs are reused by the following messages instead of allocating and
+ * growing a new array for every message. The pool keeps at most a fixed number
+ * of slabs; further released slabs are left to the garbage collector.
+ */
+public class SlabPool {
+	public static final int DEFAULT_SLAB_SIZE = 1024 * 64;
+
+	public static final int DEFAULT_MAX_POOLED_SLABS = 256;
+
+	/** The pool used by buffers which are not given a pool explicitly. */
+	public static final SlabPool DEFAULT = new SlabPool(DEFAULT_SLAB_SIZE, DEFAULT_MAX_POOLED_SLABS);
+
+	private final int slabSize;
+
+	private final BlockingQueue<byte[]> slabs;
+
+	/**
+	 * @param slabSize       the size of a slab in bytes
+	 * @param maxPooledSlabs the maximum number of slabs kept for reuse
+	 */
+	public SlabPool(final int slabSize, final int maxPooledSlabs) {
+		if (slabSize < 1 || maxPooledSlabs < 1) {
+			throw new IllegalArgumentException("Slab size and number of pooled slabs must be positive");
+		}
+		this.slabSize = slabSize;
+		this.slabs = new ArrayBlockingQueue<>(maxPooledSlabs);
+	}
+
+	public int getSlabSize() {
+		return this.slabSize;
+	}
+
+	/**
+	 * @return the number of slabs which are currently available for reuse
+	 */
+	public int getPooledSlabs() {
+		return this.slabs.size();
+	}
+
+	/**
+	 * @return a pooled slab or a new one if the pool is empty. The content of a
+	 *         pooled slab is not cleared.
+	 */
+	public byte[] acquire() {
+		final byte[] slab = this.slabs.poll();
+		return slab != null ? slab : new byte[this.slabSize];
+	}
+
+	/**
+	 * Returns the slab to the pool. It must not be used by the caller anymore.
+	 */
+	public void release(final byte[] slab) {
+		if (slab.length == this.slabSize) {
+			this.slabs.offer(slab);
+		}
+	}
+}
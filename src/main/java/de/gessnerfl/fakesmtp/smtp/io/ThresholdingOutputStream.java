@@ -15,7 +15,7 @@ public abstract class ThresholdingOutputStream extends OutputStream {
 	private final int threshold;
 
 	/** Number of bytes written so far */
-	private int written = 0;
+	private long written = 0;
 
 	private boolean thresholdReached = false;
 
@@ -88,11 +88,18 @@ public abstract class ThresholdingOutputStream extends OutputStream {
 		this.written++;
 	}
 
+	/**
+	 * @return the number of bytes written so far
+	 */
+	public long getByteCount() {
+		return this.written;
+	}
+
 	/**
 	 * Checks whether reading count bytes would cross the limit.
 	 */
 	protected void checkThreshold(final int count) throws IOException {
-		final int predicted = this.written + count;
+		final long predicted = this.written + count;
 		if (!this.thresholdReached && predicted > this.threshold) {
 			this.thresholdReached(this.written, predicted);
 			this.thresholdReached = true;
@@ -107,5 +114,5 @@ public abstract class ThresholdingOutputStream extends OutputStream {
 	 * @param current   is the current number of bytes that have been written
 	 * @param predicted is the total number after the write completes
 	 */
-	protected abstract void thresholdReached(int current, int predicted) throws IOException;
+	protected abstract void thresholdReached(long current, long predicted) throws IOException;
 }
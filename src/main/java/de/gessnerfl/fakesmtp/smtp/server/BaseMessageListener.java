@@ -1,42 +1,33 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
-import de.gessnerfl.fakesmtp.repository.EmailRepository;
-import de.gessnerfl.fakesmtp.service.EmailSseEmitterService;
+import jakarta.mail.internet.SharedInputStream;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 @Service
-@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = IOException.class)
 public class BaseMessageListener implements MessageListener {
     private final BlockedRecipientAddresses blockedRecipientAddresses;
-    private final EmailFactory emailFactory;
     private final EmailFilter emailFilter;
-    private final EmailRepository emailRepository;
-    private final MessageForwarder messageForwarder;
-    private final EmailSseEmitterService emailSseEmitterService;
+    private final MessagePersister messagePersister;
+    private final MessageIngestQueue messageIngestQueue;
     private final Logger logger;
 
     @Autowired
     public BaseMessageListener(BlockedRecipientAddresses blockedRecipientAddresses,
-                               EmailFactory emailFactory,
                                EmailFilter emailFilter,
-                               EmailRepository emailRepository,
-                               MessageForwarder messageForwarder,
-                               EmailSseEmitterService emailSseEmitterService,
+                               MessagePersister messagePersister,
+                               MessageIngestQueue messageIngestQueue,
                                Logger logger) {
         this.blockedRecipientAddresses = blockedRecipientAddresses;
-        this.emailFactory = emailFactory;
         this.emailFilter = emailFilter;
-        this.emailRepository = emailRepository;
-        this.messageForwarder = messageForwarder;
-        this.emailSseEmitterService = emailSseEmitterService;
+        this.messagePersister = messagePersister;
+        this.messageIngestQueue = messageIngestQueue;
         this.logger = logger;
     }
 
@@ -47,17 +38,30 @@ public class BaseMessageListener implements MessageListener {
 
     @Override
     public void deliver(String sender, String recipient, InputStream data) throws IOException {
-        logger.debug("Received email from {} for {}", sender, recipient);
-
-        var rawData = new RawData(sender, recipient, IOUtils.toByteArray(data));
+        deliver(sender, List.of(recipient), data);
+    }
 
-        if(!emailFilter.ignore(sender,recipient)) {
-            var email = emailFactory.convert(rawData);
-            email = emailRepository.save(email);
+    /**
+     * Stores the message once for all recipients which are not filtered. If the
+     * data is a {@link SharedInputStream}, e.g. a spool file of the
+     * {@link MessageListenerAdapter}, it is read directly from there instead of
+     * being copied into a byte array first.
+     */
+    @Override
+    public void deliver(String sender, List<String> recipients, InputStream data) throws IOException {
+        logger.debug("Received email from {} for {}", sender, recipients);
 
-            emailSseEmitterService.sendEmailReceivedEvent(email);
+        var acceptedRecipients = recipients.stream().filter(recipient -> !emailFilter.ignore(sender, recipient)).toList();
 
-            messageForwarder.forward(rawData);
+        if(!acceptedRecipients.isEmpty()) {
+            var rawData = data instanceof SharedInputStream sharedData
+                    ? new RawData(sender, acceptedRecipients, sharedData)
+                    : new RawData(sender, acceptedRecipients, IOUtils.toByteArray(data));
+            if (messageIngestQueue.isEnabled()) {
+                messageIngestQueue.enqueue(rawData);
+            } else {
+                messagePersister.persist(rawData);
+            }
         }
     }
 }
@@ -6,6 +6,9 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocket;
@@ -17,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import de.gessnerfl.fakesmtp.smtp.AuthenticationHandlerFactory;
 import de.gessnerfl.fakesmtp.smtp.MessageHandlerFactory;
+import de.gessnerfl.fakesmtp.smtp.io.SlabPool;
 
 /**
  * Main SMTPServer class. Construct this object, set the hostName, port, and
@@ -43,6 +47,8 @@ public class BaseSmtpServer implements SmtpServer {
      */
     private static final String UNKNOWN_HOSTNAME = "localhost";
     private static final int BACKLOG = 50;
+    private static final int DEFAULT_MAX_CONNECTIONS = 1000;
+    private static final int DEFAULT_EVENT_LOOP_THREADS = 2;
 
     private InetAddress bindAddress = null; // default to all interfaces
     private int port = 25; // default to 25
@@ -55,6 +61,25 @@ public class BaseSmtpServer implements SmtpServer {
     private BaseSmtpServerRunnable baseSmtpServerRunnable;
     private final boolean virtualThreadsEnabled;
 
+    /**
+     * The transport used to serve client connections. Default is
+     * {@link TransportType#BLOCKING}.
+     */
+    private TransportType transportType = TransportType.BLOCKING;
+
+    /**
+     * The number of selector threads used by the {@link TransportType#NIO}
+     * transport to wait for input on idle connections.
+     */
+    private int eventLoopThreads = DEFAULT_EVENT_LOOP_THREADS;
+
+    /**
+     * Hard limit on the maximum number of connections this server will accept.
+     * Once this limit is reached, the server gracefully rejects new connections.
+     * Default is 1000.
+     */
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
     /**
      * True if this SMTPServer was started. It remains true even if the SMTPServer
      * has been stopped since. It is used to prevent restarting this object. Even if
@@ -83,13 +108,31 @@ public class BaseSmtpServer implements SmtpServer {
     /**
      * The maximum size of a message that the server will accept. This value is
      * advertised during the EHLO phase if it is larger than 0. If the message size
-     * specified by the client during the MAIL phase, the message will be rejected
-     * at that time. (RFC 1870) Default is 0. Note this doesn't actually enforce any
-     * limits on the message being read; you must do that yourself when reading
-     * data.
+     * specified by the client during the MAIL phase exceeds it, the message will be
+     * rejected at that time. (RFC 1870) The DATA and BDAT commands reject messages
+     * which exceed the limit while they are transferred and discard the remaining
+     * content without buffering it. Default is 0, i.e. no limit.
      */
     private long maxMessageSizeInBytes = 0;
 
+    /**
+     * Called with the number of bytes a client sent for a message which was
+     * rejected because it exceeded {@link #maxMessageSizeInBytes}.
+     */
+    private LongConsumer oversizedMessageListener = bytes -> {
+    };
+
+    /**
+     * The directory of the temp files of message content which is buffered on
+     * disk, or null to use the default temp directory.
+     */
+    private Path spoolDirectory = null;
+
+    /**
+     * The pool of the slabs which buffer message content in memory.
+     */
+    private SlabPool slabPool = SlabPool.DEFAULT;
+
     private final SessionIdFactory sessionIdFactory;
 
     /**
@@ -184,14 +227,13 @@ public class BaseSmtpServer implements SmtpServer {
         }
 
         // Create our server socket here.
-        ServerSocket serverSocket;
+        final BaseSmtpServerRunnable serverThread;
         try {
-            serverSocket = this.createServerSocket();
+            serverThread = this.createServerRunnable(this.createServerSocket());
         } catch (final Exception e) {
             throw new FailedToCreateServerSocketException(e);
         }
 
-        final var serverThread = new BaseSmtpServerRunnable(this, serverSocket);
         final var threadBuilder = isVirtualThreadsEnabled() ? Thread.ofVirtual() : Thread.ofPlatform();
         this.serverThread = threadBuilder.name(BaseSmtpServerRunnable.class.getName() + " " + getDisplayableLocalSocketAddress()).start(serverThread);
         this.baseSmtpServerRunnable = serverThread;
@@ -221,6 +263,13 @@ public class BaseSmtpServer implements SmtpServer {
         LOGGER.info("SMTP server {} stopped", getDisplayableLocalSocketAddress());
     }
 
+    private BaseSmtpServerRunnable createServerRunnable(final ServerSocket serverSocket) throws IOException {
+        if (this.transportType == TransportType.NIO) {
+            return new NioSmtpServerRunnable(this, serverSocket);
+        }
+        return new BaseSmtpServerRunnable(this, serverSocket);
+    }
+
     @SuppressWarnings("java:S2095")
     private ServerSocket createServerSocket() throws IOException {
         InetSocketAddress isa;
@@ -231,7 +280,11 @@ public class BaseSmtpServer implements SmtpServer {
             isa = new InetSocketAddress(this.bindAddress, this.port);
         }
 
-        final ServerSocket serverSocket = new ServerSocket();
+        // the NIO transport requires sockets which are backed by a channel; the
+        // adapter socket of the channel accepts exactly like a plain server socket
+        final ServerSocket serverSocket = this.transportType == TransportType.NIO
+                ? ServerSocketChannel.open().socket()
+                : new ServerSocket();
         serverSocket.bind(isa, BACKLOG);
 
         if (this.port == 0) {
@@ -362,6 +415,77 @@ public class BaseSmtpServer implements SmtpServer {
         this.maxMessageSizeInBytes = maxMessageSizeInBytes;
     }
 
+    public LongConsumer getOversizedMessageListener() {
+        return oversizedMessageListener;
+    }
+
+    /**
+     * @param oversizedMessageListener called with the number of bytes a client sent
+     *                                 for a message which was rejected because it
+     *                                 exceeded the maximum message size
+     */
+    public void setOversizedMessageListener(final LongConsumer oversizedMessageListener) {
+        this.oversizedMessageListener = oversizedMessageListener;
+    }
+
+    public Path getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    /**
+     * @param spoolDirectory the directory of the temp files of message content
+     *                       which is buffered on disk, or null to use the
+     *                       default temp directory
+     */
+    public void setSpoolDirectory(final Path spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public SlabPool getSlabPool() {
+        return slabPool;
+    }
+
+    /**
+     * @param slabPool the pool of the slabs which buffer message content in
+     *                 memory
+     */
+    public void setSlabPool(final SlabPool slabPool) {
+        this.slabPool = slabPool;
+    }
+
+    public TransportType getTransportType() {
+        return transportType;
+    }
+
+    /**
+     * @param transportType the transport used to serve client connections. Must
+     *                      be set before the server is started.
+     */
+    public void setTransportType(final TransportType transportType) {
+        this.transportType = transportType;
+    }
+
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    /**
+     * @param eventLoopThreads the number of selector threads of the
+     *                         {@link TransportType#NIO} transport; ignored by
+     *                         the blocking transport.
+     */
+    public void setEventLoopThreads(final int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(final int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
     public SessionIdFactory getSessionIdFactory() {
         return sessionIdFactory;
     }
@@ -19,17 +19,16 @@ class BaseSmtpServerRunnable implements Runnable {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BaseSmtpServerRunnable.class);
 
 	/**
-	 * set a hard limit on the maximum number of connections this server will accept
+	 * hard limit on the maximum number of connections this server will accept
 	 * once we reach this limit, the server will gracefully reject new connections.
-	 * Default is 1000.
 	 */
-	private static final int MAX_CONNECTIONS = 1000;
+	private final int maxConnections;
 
-	private final BaseSmtpServer server;
+	protected final BaseSmtpServer server;
 
 	private final ServerSocket serverSocket;
 
-	private final ExecutorService executorService;
+	protected final ExecutorService executorService;
 
 	/**
 	 * A semaphore which is used to prevent accepting new connections by blocking
@@ -51,9 +50,10 @@ class BaseSmtpServerRunnable implements Runnable {
 	public BaseSmtpServerRunnable(final BaseSmtpServer server, final ServerSocket serverSocket) {
 		this.server = server;
 		this.serverSocket = serverSocket;
+		this.maxConnections = server.getMaxConnections();
 		// reserve a few places for graceful disconnects with informative
 		// messages
-		final int countOfConnectionPermits = MAX_CONNECTIONS + 10;
+		final int countOfConnectionPermits = maxConnections + 10;
 		this.connectionPermits = new Semaphore(countOfConnectionPermits);
 		this.sessionThreads = new HashSet<>(countOfConnectionPermits * 4 / 3 + 1);
 		this.executorService = server.isVirtualThreadsEnabled() ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
@@ -191,7 +191,7 @@ class BaseSmtpServerRunnable implements Runnable {
 		}
 	}
 
-	private void shutdownSessions() {
+	protected void shutdownSessions() {
 		// Copy the sessionThreads collection so the guarding lock on this
 		// instance can be released before calling the Session.shutdown methods.
 		// This is necessary to avoid a deadlock, because the terminating
@@ -215,13 +215,31 @@ class BaseSmtpServerRunnable implements Runnable {
 	}
 
 	public synchronized boolean hasTooManyConnections() {
-		return sessionThreads.size() > MAX_CONNECTIONS;
+		return sessionThreads.size() > maxConnections;
 	}
 
 	public synchronized int getNumberOfConnections() {
 		return sessionThreads.size();
 	}
 
+	/**
+	 * Called by a {@link Session} which is waiting for the next command of its
+	 * client and has no buffered input left. Implementations may take over the
+	 * idle connection and release the session thread, in which case they are
+	 * responsible to run the session again once the client sends more data.
+	 *
+	 * @return true if the session was suspended and its thread must return
+	 *         without closing the connection, false if the session thread should
+	 *         continue to block on the connection.
+	 */
+	public boolean suspendWhileIdle(final Session session) {
+		return false;
+	}
+
+	protected boolean isShuttingDown() {
+		return shuttingDown;
+	}
+
 	/**
 	 * Registers that the specified {@link Session} thread ended. Session threads
 	 * must call this function.
@@ -3,23 +3,197 @@ package de.gessnerfl.fakesmtp.smtp.server;
 import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
+/**
+ * Case-insensitive set of blocked recipients. An entry is either an email address, {@code *@example.com} to block all
+ * addresses of a domain or {@code *@*.example.com} to block all addresses of the subdomains of a domain. Entries are
+ * initialized from {@code fakesmtp.blockedRecipientAddresses} and can be added and removed at runtime. The entries are
+ * kept in immutable open-addressed hash tables which are probed with the range of the checked recipient, so a lookup
+ * neither copies nor lower-cases the recipient. Changes replace the tables.
+ */
 @Service
 public class BlockedRecipientAddresses {
+    static final String ANY_ADDRESS_OF_DOMAIN = "*@";
+    static final String ANY_ADDRESS_OF_SUBDOMAINS = "*@*.";
 
-    final List<String> blockedAddresses;
+    private volatile AddressTable addresses = AddressTable.EMPTY;
+    private volatile AddressTable domains = AddressTable.EMPTY;
+    private volatile AddressTable parentDomains = AddressTable.EMPTY;
 
     @Autowired
     public BlockedRecipientAddresses(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties) {
-        this.blockedAddresses = fakeSmtpConfigurationProperties.getBlockedRecipientAddresses()
-                .stream()
-                .map(String::toLowerCase)
-                .toList();
+        add(fakeSmtpConfigurationProperties.getBlockedRecipientAddresses());
     }
 
     public boolean isBlocked(String recipient){
-        return recipient != null && blockedAddresses.contains(recipient.toLowerCase());
+        if (recipient == null) {
+            return false;
+        }
+        var length = recipient.length();
+        if (addresses.contains(recipient, 0, length)) {
+            return true;
+        }
+        var at = recipient.lastIndexOf('@');
+        if (at < 0) {
+            return false;
+        }
+        if (domains.contains(recipient, at + 1, length)) {
+            return true;
+        }
+        var parents = parentDomains;
+        if (!parents.isEmpty()) {
+            for (int i = at + 1; i < length; i++) {
+                if (recipient.charAt(i) == '.' && parents.contains(recipient, i + 1, length)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @throws IllegalArgumentException if one of the entries is empty
+     */
+    public synchronized void add(Collection<String> entries) {
+        entries.forEach(this::validate);
+        update(entries, Set::add);
+    }
+
+    /**
+     * @throws IllegalArgumentException if one of the entries is empty
+     */
+    public synchronized void remove(Collection<String> entries) {
+        entries.forEach(this::validate);
+        update(entries, Set::remove);
+    }
+
+    private void update(Collection<String> entries, BiConsumer<Set<String>, String> operation) {
+        final Set<String> updatedAddresses = new HashSet<>(addresses.entries());
+        final Set<String> updatedDomains = new HashSet<>(domains.entries());
+        final Set<String> updatedParentDomains = new HashSet<>(parentDomains.entries());
+        for (var entry : entries) {
+            var normalized = entry.strip();
+            if (normalized.startsWith(ANY_ADDRESS_OF_SUBDOMAINS)) {
+                operation.accept(updatedParentDomains, keyOf(normalized.substring(ANY_ADDRESS_OF_SUBDOMAINS.length())));
+            } else if (normalized.startsWith(ANY_ADDRESS_OF_DOMAIN)) {
+                operation.accept(updatedDomains, keyOf(normalized.substring(ANY_ADDRESS_OF_DOMAIN.length())));
+            } else {
+                operation.accept(updatedAddresses, keyOf(normalized));
+            }
+        }
+        addresses = new AddressTable(updatedAddresses);
+        domains = new AddressTable(updatedDomains);
+        parentDomains = new AddressTable(updatedParentDomains);
+    }
+
+    /**
+     * @return all entries in lower case and sorted alphabetically
+     */
+    public List<String> getEntries() {
+        return Stream.of(
+                        addresses.entries().stream(),
+                        domains.entries().stream().map(key -> ANY_ADDRESS_OF_DOMAIN + key),
+                        parentDomains.entries().stream().map(key -> ANY_ADDRESS_OF_SUBDOMAINS + key))
+                .flatMap(s -> s)
+                .sorted()
+                .toList();
+    }
+
+    private void validate(String entry) {
+        if (!StringUtils.hasText(entry) || entry.strip().equals(ANY_ADDRESS_OF_DOMAIN) || entry.strip().equals(ANY_ADDRESS_OF_SUBDOMAINS)) {
+            throw new IllegalArgumentException("Invalid blocked recipient address '" + entry + "'");
+        }
+    }
+
+    private static String keyOf(String value) {
+        var lowerCase = new StringBuilder(value.length());
+        value.chars().forEach(c -> lowerCase.append(Character.toLowerCase((char) c)));
+        return lowerCase.toString();
+    }
+
+    /**
+     * Immutable open-addressed hash table of lower case keys with linear probing. It is probed with a range of
+     * characters which is compared case-insensitively, so lookups do not allocate.
+     */
+    private static final class AddressTable {
+        private static final AddressTable EMPTY = new AddressTable(Set.of());
+
+        private final Set<String> entries;
+        private final String[] keys;
+        private final int[] hashes;
+        private final int mask;
+
+        private AddressTable(Set<String> entries) {
+            this.entries = Set.copyOf(entries);
+            var capacity = 2;
+            while (capacity < this.entries.size() * 2) {
+                capacity <<= 1;
+            }
+            this.keys = new String[capacity];
+            this.hashes = new int[capacity];
+            this.mask = capacity - 1;
+            for (var key : this.entries) {
+                var hash = hash(key, 0, key.length());
+                var slot = spread(hash) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                hashes[slot] = hash;
+            }
+        }
+
+        private Set<String> entries() {
+            return entries;
+        }
+
+        private boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        private boolean contains(String value, int start, int end) {
+            if (entries.isEmpty()) {
+                return false;
+            }
+            var hash = hash(value, start, end);
+            for (var slot = spread(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && matches(keys[slot], value, start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean matches(String key, String value, int start, int end) {
+            if (key.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != Character.toLowerCase(value.charAt(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(String value, int start, int end) {
+            var h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + Character.toLowerCase(value.charAt(i));
+            }
+            return h;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
     }
 }
@@ -7,8 +7,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.*;
+import jakarta.mail.internet.InternetHeaders;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeUtility;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Objects;
 import java.util.Optional;
@@ -16,6 +21,8 @@ import java.util.Optional;
 @Service
 public class EmailFactory {
     public static final String UNDEFINED = "<undefined>";
+    private static final String SUBJECT_HEADER = "Subject";
+    private static final String MESSAGE_ID_HEADER = "Message-ID";
 
     private final TimestampProvider timestampProvider;
 
@@ -27,40 +34,81 @@ public class EmailFactory {
     public Email convert(RawData rawData) throws IOException {
         try {
             var mimeMessage = rawData.toMimeMessage();
-            var subject = Objects.toString(mimeMessage.getSubject(), UNDEFINED);
-            var contentType = ContentType.fromString(mimeMessage.getContentType());
-            var messageContent = mimeMessage.getContent();
-            var messageId = mimeMessage.getMessageID();
-
-            switch (contentType) {
-                case HTML, PLAIN, OCTET_STREAM:
-                    return createPlainOrHtmlMail(rawData, subject, contentType, messageContent, messageId);
-                case MULTIPART_ALTERNATIVE, MULTIPART_MIXED, MULTIPART_RELATED:
-                    return createMultipartMail(rawData, subject, (Multipart) messageContent, messageId);
-                default:
-                    throw new IllegalStateException("Unsupported e-mail content type " + mimeMessage.getContentType());
-            }
+            var email = createEmailFromRawData(rawData);
+            email.setSubject(abbreviate(Objects.toString(mimeMessage.getSubject(), UNDEFINED), Email.MAX_SUBJECT_LENGTH));
+            email.setMessageId(mimeMessage.getMessageID());
+            appendBody(email, rawData, mimeMessage);
+            return email;
         } catch (MessagingException e) {
             return buildFallbackEmail(rawData);
         }
     }
 
-    private Email createPlainOrHtmlMail(RawData rawData, String subject, ContentType contentType, Object messageContent, String messageId) {
+    /**
+     * Creates an email of which only the envelope and the headers are parsed. The contents, attachments and
+     * inline images are extracted later on by {@link #parseBody(Email)}.
+     */
+    public Email convertHeaders(RawData rawData) {
         var email = createEmailFromRawData(rawData);
-        email.setSubject(subject);
-        createEmailContent(rawData, contentType, messageContent).ifPresent(email::addContent);
-        email.setMessageId(messageId);
+        email.setBodyParsed(false);
+        try (var content = rawData.getContentAsStream()) {
+            var headers = new InternetHeaders(content);
+            email.setSubject(abbreviate(Objects.toString(decodeSubject(headers.getHeader(SUBJECT_HEADER, null)), UNDEFINED), Email.MAX_SUBJECT_LENGTH));
+            email.setMessageId(headers.getHeader(MESSAGE_ID_HEADER, null));
+        } catch (MessagingException e) {
+            email.setSubject(UNDEFINED);
+        } catch (IOException e) {
+            // only thrown when closing the stream; the headers were read already
+        }
         return email;
     }
 
-    private Email createMultipartMail(RawData rawData, String subject, Multipart multipart, String messageId) throws MessagingException, IOException {
-        var email = createEmailFromRawData(rawData);
-        email.setSubject(subject);
-        email.setMessageId(messageId);
+    /**
+     * Extracts the contents, attachments and inline images of an email which was created by
+     * {@link #convertHeaders(RawData)}. Emails which cannot be parsed get the raw data as plain content.
+     */
+    public void parseBody(Email email) {
+        var rawData = new RawData(email.getFromAddress(), email.getRecipients(), email.getRawData());
+        var body = new Email();
+        try {
+            appendBody(body, rawData, rawData.toMimeMessage());
+        } catch (MessagingException e) {
+            body = new Email();
+            body.addContent(createFallbackContent(rawData));
+        } catch (IOException e) {
+            throw new EmailProcessingException("Failed to parse email " + email.getId(), e);
+        }
+        body.getContents().forEach(email::addContent);
+        body.getAttachments().forEach(email::addAttachment);
+        body.getInlineImages().forEach(email::addInlineImage);
+        email.setBodyParsed(true);
+    }
 
-        appendMultipartBodyParts(email, rawData, multipart);
+    private void appendBody(Email email, RawData rawData, MimeMessage mimeMessage) throws MessagingException, IOException {
+        var contentType = ContentType.fromString(mimeMessage.getContentType());
+        var messageContent = mimeMessage.getContent();
+
+        switch (contentType) {
+            case HTML, PLAIN, OCTET_STREAM:
+                createEmailContent(rawData, contentType, messageContent).ifPresent(email::addContent);
+                break;
+            case MULTIPART_ALTERNATIVE, MULTIPART_MIXED, MULTIPART_RELATED:
+                appendMultipartBodyParts(email, rawData, (Multipart) messageContent);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported e-mail content type " + mimeMessage.getContentType());
+        }
+    }
 
-        return email;
+    private static String decodeSubject(String subject) {
+        if (subject == null) {
+            return null;
+        }
+        try {
+            return MimeUtility.decodeText(MimeUtility.unfold(subject));
+        } catch (UnsupportedEncodingException e) {
+            return subject;
+        }
     }
 
     private void appendMultipartBodyParts(Email email, RawData rawData, Multipart multipart) throws MessagingException, IOException {
@@ -90,25 +138,36 @@ public class EmailFactory {
     }
 
     private Email buildFallbackEmail(RawData rawData) {
-        var content = new EmailContent();
-        content.setContentType(ContentType.PLAIN);
-        content.setData(rawData.getContentAsString());
-
         var email = createEmailFromRawData(rawData);
         email.setSubject(UNDEFINED);
-        email.addContent(content);
+        email.addContent(createFallbackContent(rawData));
         return email;
     }
 
+    private EmailContent createFallbackContent(RawData rawData) {
+        var content = new EmailContent();
+        content.setContentType(ContentType.PLAIN);
+        content.setData(rawData.getContentAsString());
+        return content;
+    }
+
     private Email createEmailFromRawData(RawData rawData) {
         var email = new Email();
         email.setFromAddress(rawData.getFrom());
-        email.setToAddress(rawData.getTo());
+        email.setToAddress(abbreviate(rawData.getTo(), Email.MAX_TO_ADDRESS_LENGTH));
+        rawData.getRecipients().forEach(email::addRecipient);
         email.setReceivedOn(timestampProvider.now());
-        email.setRawData(rawData.getContentAsString());
+        email.setRawDataSource(rawData::getContentAsStream);
         return email;
     }
 
+    private static String abbreviate(String value, int maxLength) {
+        if (value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength - 3) + "...";
+    }
+
     private Optional<EmailContent> createEmailContent(RawData rawData, ContentType contentType, Object messageContent) {
         var data = getMessageContentAsString(messageContent).map(this::normalizeContent).orElseGet(() -> normalizeContent(rawData.getContentAsString()));
         if (data == null) {
@@ -123,7 +182,7 @@ public class EmailFactory {
     private Optional<InlineImage> createInlineImage(final BodyPart part) throws MessagingException, IOException {
         var contentType = part.getContentType();
         Object rawContent = part.getContent();
-        Optional<String> data = getMessageContentAsString(rawContent);
+        Optional<byte[]> data = getMessageContentAsBytes(rawContent);
         return extractContentId(part).flatMap(contentId ->
             data.map(d -> {
                 var img = new InlineImage();
@@ -135,14 +194,20 @@ public class EmailFactory {
     }
 
     private Optional<String> getMessageContentAsString(Object rawContent) {
-        var content = rawContent instanceof InputStream stream ? readInputStreamAsBase64(stream) : Objects.toString(rawContent, null);
+        var content = rawContent instanceof InputStream stream ? Base64.getEncoder().encodeToString(readInputStream(stream)) : Objects.toString(rawContent, null);
         return Optional.ofNullable(content);
     }
 
-    private String readInputStreamAsBase64(InputStream stream) {
+    private Optional<byte[]> getMessageContentAsBytes(Object rawContent) {
+        if (rawContent instanceof InputStream stream) {
+            return Optional.of(readInputStream(stream));
+        }
+        return Optional.ofNullable(rawContent).map(c -> c.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] readInputStream(InputStream stream) {
         try {
-            var byteArray = IOUtils.toByteArray(stream);
-            return Base64.getEncoder().encodeToString(byteArray);
+            return IOUtils.toByteArray(stream);
         } catch (IOException e) {
             throw new EmailProcessingException("Failed to read message content", e);
         }
@@ -1,40 +1,102 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
 import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
-import java.util.Arrays;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.PatternSyntaxException;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+/**
+ * Filters emails of which the sender or recipient matches one of the filter rules. The rules are initialized from
+ * {@code fakesmtp.filteredEmailRegexList}, compiled once and can be replaced at runtime. Every rule has a counter
+ * {@value #FILTER_RULE_HITS} which is tagged with the rule.
+ */
 @Service
 public class EmailFilter {
+  public static final String FILTER_RULE_HITS = "email.filter.rule.hits";
 
-  private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+  private final MeterRegistry registry;
   private final Logger logger;
+  private final Map<String, Counter> hitCounters = new ConcurrentHashMap<>();
+  private volatile EmailFilterRules rules = EmailFilterRules.EMPTY;
 
   @Autowired
-  public EmailFilter(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties, Logger logger) {
-    this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+  public EmailFilter(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties, MeterRegistry registry, Logger logger) {
+    this.registry = registry;
     this.logger = logger;
+    activate(compileConfiguredRules(fakeSmtpConfigurationProperties.getFilteredEmailRegexList()));
+  }
+
+  private EmailFilterRules compileConfiguredRules(String filteredEmailRegexList) {
+    if(!StringUtils.hasText(filteredEmailRegexList)){
+      return EmailFilterRules.EMPTY;
+    }
+    var validRules = new ArrayList<String>();
+    for(var rule : filteredEmailRegexList.split(",")){
+      try{
+        EmailFilterRules.compile(List.of(rule));
+        validRules.add(rule);
+      }catch(PatternSyntaxException e){
+        logger.error("Ignoring invalid entry '{}' of configured email filteredEmailRegexList '{}'", rule, filteredEmailRegexList, e);
+      }
+    }
+    return EmailFilterRules.compile(validRules);
+  }
+
+  public List<String> getRules() {
+    return rules.getRules();
+  }
+
+  /**
+   * Replaces the current filter rules. The rules are only replaced when all of them are valid.
+   *
+   * @throws PatternSyntaxException if one of the rules is not a valid regular expression
+   */
+  public synchronized void replaceRules(List<String> rules) {
+    activate(EmailFilterRules.compile(rules));
+    logger.info("Replaced email filter rules with {}", rules);
+  }
+
+  private synchronized void activate(EmailFilterRules compiledRules) {
+    var activeRules = compiledRules.getRules();
+    for(var rule : activeRules){
+      hitCounters.computeIfAbsent(rule, r -> Counter.builder(FILTER_RULE_HITS).tag("rule", r).register(registry));
+    }
+    this.rules = compiledRules;
+    hitCounters.entrySet().removeIf(entry -> {
+      if(activeRules.contains(entry.getKey())){
+        return false;
+      }
+      registry.remove(entry.getValue());
+      return true;
+    });
   }
 
   public boolean ignore(String sender, String recipient){
-    if(!StringUtils.hasText(this.fakeSmtpConfigurationProperties.getFilteredEmailRegexList())){
+    var currentRules = this.rules;
+    if(currentRules.isEmpty()){
       return false;
     }
-    return ignoreParticipant(sender) || ignoreParticipant(recipient);
+    return ignoreParticipant(currentRules, sender) || ignoreParticipant(currentRules, recipient);
   }
 
-  private boolean ignoreParticipant(String participant) {
+  private boolean ignoreParticipant(EmailFilterRules currentRules, String participant) {
     if(StringUtils.hasText(participant)){
-      try{
-        if(Arrays.stream(this.fakeSmtpConfigurationProperties.getFilteredEmailRegexList().split(",")).anyMatch(participant::matches)){
-          logger.info("Participant '{}' matches a filtered email regex entry. Email will be filtered.", participant);
-          return true;
+      var rule = currentRules.match(participant);
+      if(rule != null){
+        var hitCounter = hitCounters.get(rule);
+        if(hitCounter != null){
+          hitCounter.increment();
         }
-      }catch(RuntimeException e){
-        logger.error("Unable to check participant '{}' against configured email filteredEmailRegexList '{}'", participant, this.fakeSmtpConfigurationProperties.getFilteredEmailRegexList(), e);
+        logger.info("Participant '{}' matches filter rule '{}'. Email will be filtered.", participant, rule);
+        return true;
       }
     }
     return false;
@@ -0,0 +1,134 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, compiled set of email filter rules. Each rule is a regular expression which has to match the whole email
+ * address. Rules which only match a literal address or any address of a literal domain ({@code .*@example\.com}) are
+ * looked up in hash maps; all other rules are merged into a single alternation so that an address which is not filtered
+ * is checked with one match. Rules with back references or quotes as well as all rules of an alternation which does not
+ * compile, e.g. because of duplicate named groups, are matched one by one.
+ */
+final class EmailFilterRules {
+    static final EmailFilterRules EMPTY = compile(List.of());
+
+    private static final String REGEX_META_CHARACTERS = ".[]{}()*+?^$|";
+    private static final String ANY_LOCAL_PART = ".*@";
+    private static final Pattern BACK_REFERENCE_OR_QUOTE = Pattern.compile("\\\\(?:[1-9]|k<|Q)");
+
+    private final List<String> rules;
+    private final Map<String, String> addressRules = new HashMap<>();
+    private final Map<String, String> domainRules = new HashMap<>();
+    private final List<Map.Entry<String, Pattern>> expressionRules = new ArrayList<>();
+    private final List<Map.Entry<String, Pattern>> separateExpressionRules = new ArrayList<>();
+    private final Pattern combinedExpression;
+
+    private EmailFilterRules(List<String> rules) {
+        this.rules = List.copyOf(rules);
+        for (var rule : this.rules) {
+            var pattern = Pattern.compile(rule);
+            var address = literalOf(rule);
+            var domain = rule.startsWith(ANY_LOCAL_PART) ? literalOf(rule.substring(ANY_LOCAL_PART.length())) : null;
+            if (address != null) {
+                addressRules.putIfAbsent(address, rule);
+            } else if (domain != null && domain.indexOf('@') < 0) {
+                domainRules.putIfAbsent(domain, rule);
+            } else if (BACK_REFERENCE_OR_QUOTE.matcher(rule).find()) {
+                separateExpressionRules.add(Map.entry(rule, pattern));
+            } else {
+                expressionRules.add(Map.entry(rule, pattern));
+            }
+        }
+        combinedExpression = combine(expressionRules);
+        if (combinedExpression == null) {
+            separateExpressionRules.addAll(expressionRules);
+            expressionRules.clear();
+        }
+    }
+
+    /**
+     * @return the alternation of all given rules or null if there are no rules or the alternation does not compile
+     */
+    private static Pattern combine(List<Map.Entry<String, Pattern>> rules) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        try {
+            return Pattern.compile(rules.stream()
+                    .map(e -> "(?:" + e.getKey() + ")")
+                    .collect(Collectors.joining("|")));
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @throws java.util.regex.PatternSyntaxException if one of the rules is not a valid regular expression
+     */
+    static EmailFilterRules compile(List<String> rules) {
+        return new EmailFilterRules(rules);
+    }
+
+    List<String> getRules() {
+        return rules;
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * @return the first rule which matches the given email address or null if no rule matches
+     */
+    String match(String address) {
+        var rule = addressRules.get(address);
+        if (rule != null) {
+            return rule;
+        }
+        var at = address.lastIndexOf('@');
+        if (at >= 0 && (rule = domainRules.get(address.substring(at + 1))) != null) {
+            return rule;
+        }
+        if (combinedExpression != null && combinedExpression.matcher(address).matches()) {
+            return firstMatching(expressionRules, address);
+        }
+        return firstMatching(separateExpressionRules, address);
+    }
+
+    private static String firstMatching(List<Map.Entry<String, Pattern>> rules, String address) {
+        for (var rule : rules) {
+            if (rule.getValue().matcher(address).matches()) {
+                return rule.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the string matched by the given regular expression if it does not contain any meta characters apart from
+     * escaped ones, otherwise null
+     */
+    private static String literalOf(String regex) {
+        var literal = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); i++) {
+            var c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 == regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    return null;
+                }
+                literal.append(regex.charAt(++i));
+            } else if (REGEX_META_CHARACTERS.indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.toString();
+    }
+}
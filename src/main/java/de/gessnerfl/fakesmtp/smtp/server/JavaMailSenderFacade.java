@@ -2,12 +2,18 @@ package de.gessnerfl.fakesmtp.smtp.server;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class JavaMailSenderFacade {
 
@@ -24,6 +30,35 @@ public class JavaMailSenderFacade {
         }
     }
 
+    /**
+     * Sends all messages through a single connection to the mail server.
+     *
+     * @return the messages which could not be sent and the cause of the failure
+     */
+    public Map<MimeMessage, Exception> sendAll(List<MimeMessage> mimeMessages){
+        if(javaMailSender == null){
+            logger.error(ERROR_MESSAGE);
+            return Map.of();
+        }
+        try {
+            javaMailSender.send(mimeMessages.toArray(MimeMessage[]::new));
+            return Map.of();
+        } catch (MailException e) {
+            var failedMessages = new HashMap<MimeMessage, Exception>();
+            if (e instanceof MailSendException sendException) {
+                sendException.getFailedMessages().forEach((message, cause) -> {
+                    if (message instanceof MimeMessage mimeMessage) {
+                        failedMessages.put(mimeMessage, cause);
+                    }
+                });
+            }
+            if (failedMessages.isEmpty()) {
+                mimeMessages.forEach(message -> failedMessages.put(message, e));
+            }
+            return failedMessages;
+        }
+    }
+
     public void send(SimpleMailMessage message){
         if(javaMailSender != null){
             javaMailSender.send(message);
@@ -1,40 +1,365 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
 import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.event.EmailEvent;
+import de.gessnerfl.fakesmtp.event.EmailEventSubscriber;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forwards received messages to the configured target email system when
+ * {@code fakesmtp.forwardEmails} is enabled. Messages are added to a bounded
+ * queue and sent by background workers, so a slow or unavailable relay does
+ * not block the SMTP sessions. The queue only references the stored emails;
+ * the raw data is loaded when a message is sent. A worker sends up to
+ * {@link FakeSmtpConfigurationProperties.Forwarding#getBatchSize()} messages
+ * through one connection. Failed messages are retried with exponential backoff;
+ * messages which still fail after the maximum number of attempts, or which do
+ * not fit into the forwarding or the event queue, are kept in a bounded dead
+ * letter list.
+ */
 @Service
-public class MessageForwarder {
+public class MessageForwarder implements EmailEventSubscriber {
+    public static final String QUEUE_DEPTH = "forwarding.queue.depth";
+    public static final String LATENCY = "forwarding.latency";
+    public static final String BATCH_SIZE = "forwarding.batch.size";
+    public static final String RETRIES = "forwarding.retries";
+    public static final String DEAD_LETTERS = "forwarding.dead.letters";
+
+    static final String QUEUE_FULL_ERROR = "Forwarding queue is full";
+    static final String EVENT_DROPPED_ERROR = "Event queue of the forwarder is full";
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
 
     private final FakeSmtpConfigurationProperties configurationProperties;
     private final JavaMailSenderFacade javaMailSenderFacade;
+    private final RawDataLoader rawDataLoader;
+    private final TimestampProvider timestampProvider;
+    private final MeterRegistry meterRegistry;
     private final Logger logger;
+    private final AtomicLong deadLetterSequence = new AtomicLong();
+    private final Deque<DeadLetter> deadLetters = new ArrayDeque<>();
+    private final DelayQueue<ForwardingTask> retryQueue = new DelayQueue<>();
+
+    private BlockingQueue<ForwardingTask> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    private Timer latencyTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter retriesCounter;
 
     @Autowired
-    public MessageForwarder(FakeSmtpConfigurationProperties configurationProperties, JavaMailSenderFacade javaMailSenderFacade, Logger logger) {
+    public MessageForwarder(FakeSmtpConfigurationProperties configurationProperties,
+                            JavaMailSenderFacade javaMailSenderFacade,
+                            RawDataLoader rawDataLoader,
+                            TimestampProvider timestampProvider,
+                            MeterRegistry meterRegistry,
+                            Logger logger) {
         this.configurationProperties = configurationProperties;
         this.javaMailSenderFacade = javaMailSenderFacade;
+        this.rawDataLoader = rawDataLoader;
+        this.timestampProvider = timestampProvider;
+        this.meterRegistry = meterRegistry;
         this.logger = logger;
     }
 
-    public void forward(RawData rawData){
+    @PostConstruct
+    public void start() {
+        if (!configurationProperties.isForwardEmails()) {
+            return;
+        }
+        var forwarding = configurationProperties.getForwarding();
+        logger.info("Setup forwarding of emails with {} workers", forwarding.getWorkers());
+        queue = new ArrayBlockingQueue<>(forwarding.getQueueCapacity());
+        Gauge.builder(QUEUE_DEPTH, this, f -> f.queue.size() + f.retryQueue.size()).register(meterRegistry);
+        Gauge.builder(DEAD_LETTERS, this, f -> f.getDeadLetters().size()).register(meterRegistry);
+        latencyTimer = Timer.builder(LATENCY).register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder(BATCH_SIZE).register(meterRegistry);
+        retriesCounter = Counter.builder(RETRIES).register(meterRegistry);
+
+        running = true;
+        for (int i = 0; i < forwarding.getWorkers(); i++) {
+            workers.add(Thread.ofPlatform()
+                    .name(MessageForwarder.class.getSimpleName() + "-Worker-" + i)
+                    .daemon()
+                    .start(() -> runWorker(forwarding.getBatchSize())));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (var worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                logger.warn("Interrupted waiting for termination of forwarding worker", e);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        var pending = queue.size() + retryQueue.size();
+        if (pending > 0) {
+            logger.warn("{} messages were not forwarded before shutdown", pending);
+        }
+    }
+
+    @Override
+    public void onEmailEvent(EmailEvent event) {
+        if (event instanceof EmailReceived emailReceived) {
+            forward(emailReceived.email());
+        }
+    }
+
+    @Override
+    public void onEventDropped(EmailEvent event) {
+        if (event instanceof EmailReceived emailReceived && configurationProperties.isForwardEmails()) {
+            final var task = new ForwardingTask(emailReceived.email());
+            logger.warn("Event of message from {} to {} was dropped; message is added to the dead letters", task.from, task.getTo());
+            addDeadLetter(task, EVENT_DROPPED_ERROR);
+        }
+    }
+
+    /**
+     * Adds the stored email to the forwarding queue. The call does not block; if
+     * the queue is full the message is added to the dead letters.
+     *
+     * @param email the stored email; only the id and the envelope are used
+     */
+    public void forward(Email email){
         if(configurationProperties.isForwardEmails()){
             logger.info("Forward message to configured target email system");
+            enqueue(new ForwardingTask(email));
+        }
+    }
+
+    private void enqueue(ForwardingTask task) {
+        if (!queue.offer(task)) {
+            logger.warn("Forwarding queue is full; message from {} to {} is added to the dead letters", task.from, task.getTo());
+            addDeadLetter(task, QUEUE_FULL_ERROR);
+        }
+    }
+
+    private void runWorker(int batchSize) {
+        final List<ForwardingTask> batch = new ArrayList<>(batchSize);
+        while (running) {
             try {
-                javaMailSenderFacade.send(rawData.toMimeMessage());
+                retryQueue.drainTo(batch, batchSize);
+                if (batch.isEmpty()) {
+                    final var first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                send(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                logger.warn("Forwarding worker interrupted");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to forward batch of {} messages", batch.size(), e);
+                batch.forEach(task -> failed(task, e));
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Sends the given messages through one connection. Messages which cannot be
+     * converted into a MimeMessage are sent as simple messages; messages whose
+     * email was deleted in the meantime are skipped.
+     */
+    void send(List<ForwardingTask> batch) {
+        final var mimeMessages = new LinkedHashMap<MimeMessage, ForwardingTask>();
+        for (var task : batch) {
+            final var rawData = rawDataLoader.load(task.emailId, task.from, task.recipients);
+            if (rawData.isEmpty()) {
+                logger.warn("Email {} from {} to {} was deleted before it was forwarded", task.emailId, task.from, task.getTo());
+                continue;
+            }
+            try {
+                mimeMessages.put(rawData.get().toMimeMessage(), task);
             } catch (MessagingException e) {
                 logger.warn("Failed to convert raw data to MimeMessage; fall back to simple message forwarding", e);
-                var message = new SimpleMailMessage();
-                message.setFrom(rawData.getFrom());
-                message.setTo(rawData.getTo());
-                message.setText(rawData.getContentAsString());
-                javaMailSenderFacade.send(message);
+                sendSimpleMessage(task, rawData.get());
+            }
+        }
+        if (!mimeMessages.isEmpty()) {
+            final var failures = javaMailSenderFacade.sendAll(List.copyOf(mimeMessages.keySet()));
+            mimeMessages.forEach((mimeMessage, task) -> {
+                final var failure = failures.get(mimeMessage);
+                if (failure == null) {
+                    succeeded(task);
+                } else {
+                    failed(task, failure);
+                }
+            });
+        }
+        batchSizeSummary.record(batch.size());
+    }
+
+    private void sendSimpleMessage(ForwardingTask task, RawData rawData) {
+        var message = new SimpleMailMessage();
+        message.setFrom(rawData.getFrom());
+        message.setTo(rawData.getRecipients().toArray(String[]::new));
+        message.setText(rawData.getContentAsString());
+        try {
+            javaMailSenderFacade.send(message);
+            succeeded(task);
+        } catch (MailException e) {
+            failed(task, e);
+        }
+    }
+
+    private void succeeded(ForwardingTask task) {
+        latencyTimer.record(Duration.ofNanos(System.nanoTime() - task.enqueuedAt));
+    }
+
+    private void failed(ForwardingTask task, Exception cause) {
+        final var forwarding = configurationProperties.getForwarding();
+        task.attempts++;
+        if (task.attempts >= forwarding.getMaxAttempts()) {
+            logger.error("Failed to forward message from {} to {} after {} attempts", task.from, task.getTo(), task.attempts, cause);
+            addDeadLetter(task, cause.getMessage());
+            return;
+        }
+        final var backoff = backoff(forwarding, task.attempts);
+        logger.warn("Failed to forward message from {} to {}; retry in {}", task.from, task.getTo(), backoff, cause);
+        task.dueAt = System.nanoTime() + backoff.toNanos();
+        retriesCounter.increment();
+        retryQueue.add(task);
+    }
+
+    static Duration backoff(FakeSmtpConfigurationProperties.Forwarding forwarding, int attempts) {
+        final var backoff = forwarding.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(forwarding.getMaxBackoff()) > 0 ? forwarding.getMaxBackoff() : backoff;
+    }
+
+    private void addDeadLetter(ForwardingTask task, String error) {
+        final var deadLetter = new DeadLetter(deadLetterSequence.incrementAndGet(), task.emailId, task.from,
+                task.recipients, task.attempts, error, timestampProvider.now());
+        synchronized (deadLetters) {
+            if (deadLetters.size() >= configurationProperties.getForwarding().getDeadLetterCapacity()) {
+                deadLetters.removeFirst();
+            }
+            deadLetters.addLast(deadLetter);
+        }
+    }
+
+    /**
+     * @return the messages which could not be forwarded, oldest first
+     */
+    public List<DeadLetter> getDeadLetters() {
+        synchronized (deadLetters) {
+            return List.copyOf(deadLetters);
+        }
+    }
+
+    /**
+     * Adds all dead letters to the forwarding queue again.
+     *
+     * @return the number of messages which were added to the queue
+     */
+    public int retryDeadLetters() {
+        if (!running) {
+            return 0;
+        }
+        final List<DeadLetter> retried;
+        synchronized (deadLetters) {
+            retried = List.copyOf(deadLetters);
+            deadLetters.clear();
+        }
+        var requeued = 0;
+        for (var deadLetter : retried) {
+            final var task = new ForwardingTask(deadLetter.emailId(), deadLetter.from(), deadLetter.recipients());
+            if (queue.offer(task)) {
+                requeued++;
+            } else {
+                addDeadLetter(task, QUEUE_FULL_ERROR);
             }
         }
+        return requeued;
+    }
+
+    public void deleteDeadLetters() {
+        synchronized (deadLetters) {
+            deadLetters.clear();
+        }
+    }
+
+    public record DeadLetter(long id, Long emailId, String from, List<String> recipients, int attempts, String error,
+                             ZonedDateTime failedOn) {
+    }
+
+    static final class ForwardingTask implements Delayed {
+        private final Long emailId;
+        private final String from;
+        private final List<String> recipients;
+        private final long enqueuedAt = System.nanoTime();
+        private int attempts;
+        private long dueAt;
+
+        ForwardingTask(Email email) {
+            this(email.getId(), email.getFromAddress(), email.getRecipients());
+        }
+
+        ForwardingTask(Long emailId, String from, List<String> recipients) {
+            this.emailId = emailId;
+            this.from = from;
+            this.recipients = List.copyOf(recipients);
+        }
+
+        String getTo() {
+            return String.join(", ", recipients);
+        }
+
+        int getAttempts() {
+            return attempts;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((ForwardingTask) other).dueAt);
+        }
     }
 }
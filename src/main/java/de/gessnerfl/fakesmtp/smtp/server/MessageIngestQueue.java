@@ -0,0 +1,421 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.smtp.RejectException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.SharedInputStream;
+import jakarta.mail.util.SharedFileInputStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Decouples the SMTP DATA phase from the persistence of the received messages
+ * when the {@link FakeSmtpConfigurationProperties.IngestMode#ASYNCHRONOUS}
+ * ingest mode is configured. Accepted messages are written to a spool
+ * directory and added to a bounded queue, so the client receives its reply
+ * without waiting for the database. A writer thread takes the messages from the
+ * queue and persists them in batches. A failed batch is retried with
+ * exponential backoff; if it still fails, its messages are persisted one at a
+ * time, so a single message the database refuses does not hold back the others.
+ * Messages which cannot be read or persisted are moved to a dead-letter
+ * directory below the spool directory. Spooled messages which were not
+ * persisted before the application stopped are recovered on the next start.
+ */
+@Service
+public class MessageIngestQueue {
+    public static final String QUEUE_DEPTH = "ingest.queue.depth";
+    public static final String LAG = "ingest.lag";
+    public static final String BATCH_SIZE = "ingest.batch.size";
+    public static final String REJECTED = "ingest.rejected";
+    public static final String DEAD_LETTERS = "ingest.dead.letters";
+    public static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    private static final String SPOOL_FILE_SUFFIX = ".msg";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+    private final MessagePersister messagePersister;
+    private final MeterRegistry meterRegistry;
+    private final Logger logger;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BlockingQueue<SpooledMessage> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private Timer lagTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter rejectedCounter;
+    private Counter deadLetterCounter;
+
+    @Autowired
+    public MessageIngestQueue(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties,
+                              MessagePersister messagePersister,
+                              MeterRegistry meterRegistry,
+                              Logger logger) {
+        this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+        this.messagePersister = messagePersister;
+        this.meterRegistry = meterRegistry;
+        this.logger = logger;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        var ingest = fakeSmtpConfigurationProperties.getIngest();
+        if (ingest == null || ingest.getMode() != FakeSmtpConfigurationProperties.IngestMode.ASYNCHRONOUS) {
+            return;
+        }
+        logger.info("Setup asynchronous ingest with spool directory {}", ingest.getSpoolDirectory());
+        Files.createDirectories(ingest.getSpoolDirectory());
+        final var recoveredMessages = recoverSpooledMessages(ingest.getSpoolDirectory());
+
+        queue = new ArrayBlockingQueue<>(ingest.getQueueCapacity());
+        Gauge.builder(QUEUE_DEPTH, queue, BlockingQueue::size).register(meterRegistry);
+        lagTimer = Timer.builder(LAG).register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder(BATCH_SIZE).register(meterRegistry);
+        rejectedCounter = Counter.builder(REJECTED).register(meterRegistry);
+        deadLetterCounter = Counter.builder(DEAD_LETTERS).register(meterRegistry);
+
+        running = true;
+        writer = Thread.ofPlatform()
+                .name(MessageIngestQueue.class.getSimpleName() + "-Writer")
+                .start(() -> runWriter(recoveredMessages, ingest.getBatchSize()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted waiting for termination of ingest writer", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true if the asynchronous ingest is active
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Spools the message and adds it to the queue. Depending on the configured
+     * {@link FakeSmtpConfigurationProperties.QueueFullPolicy} the call blocks
+     * when the queue is full or the message is rejected with a temporary failure.
+     *
+     * @throws RejectException if the message is rejected because the queue is full
+     * @throws IOException if the message cannot be spooled
+     */
+    public void enqueue(RawData rawData) throws IOException {
+        final var policy = fakeSmtpConfigurationProperties.getIngest().getQueueFullPolicy();
+        if (policy == FakeSmtpConfigurationProperties.QueueFullPolicy.REJECT && queue.remainingCapacity() == 0) {
+            throw rejectQueueFull();
+        }
+        final var message = spool(rawData);
+        try {
+            if (policy == FakeSmtpConfigurationProperties.QueueFullPolicy.REJECT) {
+                if (!queue.offer(message)) {
+                    throw rejectQueueFull();
+                }
+            } else {
+                while (!queue.offer(message, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        throw rejectQueueFull();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteSpoolFile(message.file());
+            throw rejectQueueFull();
+        } catch (RejectException e) {
+            deleteSpoolFile(message.file());
+            throw e;
+        }
+    }
+
+    private RejectException rejectQueueFull() {
+        rejectedCounter.increment();
+        return new RejectException(451, "4.3.1 Ingest queue is full, try again later");
+    }
+
+    /**
+     * Writes the message to a temporary file first and renames it afterwards, so
+     * the spool directory only contains complete messages.
+     */
+    private SpooledMessage spool(RawData rawData) throws IOException {
+        final var directory = fakeSmtpConfigurationProperties.getIngest().getSpoolDirectory();
+        final var acceptedAt = System.currentTimeMillis();
+        final var name = String.format("%019d-%010d", acceptedAt, sequence.incrementAndGet());
+        final var tempFile = directory.resolve(name + TEMP_FILE_SUFFIX);
+        final var file = directory.resolve(name + SPOOL_FILE_SUFFIX);
+        try (var channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            final var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeUTF(rawData.getFrom());
+            out.writeInt(rawData.getRecipients().size());
+            for (String recipient : rawData.getRecipients()) {
+                out.writeUTF(recipient);
+            }
+            try (var content = rawData.getContentAsStream()) {
+                content.transferTo(out);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+        return new SpooledMessage(file, acceptedAt);
+    }
+
+    /**
+     * Reads the envelope of the spooled message. The content is read from the
+     * spool file on demand, so it is streamed into the blob store instead of
+     * being copied into memory.
+     */
+    private static LoadedMessage load(SpooledMessage message) throws IOException {
+        final var file = new SharedFileInputStream(message.file().toFile());
+        try {
+            final var in = new DataInputStream(file);
+            final var from = in.readUTF();
+            final var numberOfRecipients = in.readInt();
+            final List<String> recipients = new ArrayList<>(numberOfRecipients);
+            for (int i = 0; i < numberOfRecipients; i++) {
+                recipients.add(in.readUTF());
+            }
+            final var content = (SharedInputStream) file.newStream(file.getPosition(), -1);
+            return new LoadedMessage(message, file, new RawData(from, recipients, content));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private List<SpooledMessage> recoverSpooledMessages(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            final var recovered = files.filter(f -> f.getFileName().toString().endsWith(SPOOL_FILE_SUFFIX))
+                    .sorted()
+                    .map(f -> new SpooledMessage(f, lastModified(f)))
+                    .toList();
+            if (!recovered.isEmpty()) {
+                logger.info("Recovered {} spooled messages which were not persisted yet", recovered.size());
+            }
+            return recovered;
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    private void runWriter(List<SpooledMessage> recoveredMessages, int batchSize) {
+        for (int i = 0; i < recoveredMessages.size(); i += batchSize) {
+            persistBatch(recoveredMessages.subList(i, Math.min(i + batchSize, recoveredMessages.size())));
+        }
+        final List<SpooledMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                final var first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                persistBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                logger.warn("Ingest writer interrupted; remaining messages are recovered on next start");
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Persists the batch in a single transaction. If this keeps failing, the
+     * messages are persisted one at a time and the ones which still fail are
+     * moved to the dead-letter directory. When the writer is stopped while
+     * retrying, the spool files are kept and the messages are recovered on the
+     * next start.
+     */
+    private void persistBatch(List<SpooledMessage> batch) {
+        final List<LoadedMessage> loaded = new ArrayList<>(batch.size());
+        for (SpooledMessage message : batch) {
+            try {
+                loaded.add(load(message));
+            } catch (IOException e) {
+                logger.error("Failed to read spooled message {}", message.file(), e);
+                moveToDeadLetters(message.file());
+            }
+        }
+        try {
+            persistLoaded(loaded);
+        } finally {
+            loaded.forEach(LoadedMessage::close);
+        }
+    }
+
+    private void persistLoaded(List<LoadedMessage> loaded) {
+        if (loaded.isEmpty() || persistWithRetries(loaded)) {
+            return;
+        }
+        if (loaded.size() > 1 && !isStopping()) {
+            logger.warn("Persisting the {} messages of the failed batch one at a time", loaded.size());
+        }
+        for (LoadedMessage message : loaded) {
+            if (isStopping()) {
+                logger.warn("Ingest writer stopped; remaining messages are recovered on next start");
+                return;
+            }
+            if ((loaded.size() == 1 || !persistWithRetries(List.of(message))) && !isStopping()) {
+                logger.error("Giving up to persist spooled message {}", message.spooled().file());
+                message.close();
+                moveToDeadLetters(message.spooled().file());
+            }
+        }
+    }
+
+    /**
+     * Messages which cannot be converted into an email do not get better with a
+     * retry, so they are moved to the dead-letter directory right away.
+     *
+     * @return true if the messages were persisted, false if all attempts failed
+     *         or the writer was stopped while waiting for the next attempt
+     */
+    private boolean persistWithRetries(List<LoadedMessage> messages) {
+        final var ingest = fakeSmtpConfigurationProperties.getIngest();
+        final var rawData = messages.stream().map(LoadedMessage::rawData).toList();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                final var unconvertible = messagePersister.persistAll(rawData);
+                final List<LoadedMessage> persisted = new ArrayList<>(messages.size());
+                for (LoadedMessage message : messages) {
+                    if (unconvertible.contains(message.rawData())) {
+                        message.close();
+                        moveToDeadLetters(message.spooled().file());
+                    } else {
+                        persisted.add(message);
+                    }
+                }
+                completed(persisted);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= ingest.getPersistMaxAttempts()) {
+                    logger.error("Failed to persist {} messages in attempt {}", messages.size(), attempt, e);
+                    return false;
+                }
+                final var backoff = backoff(ingest, attempt);
+                logger.warn("Failed to persist {} messages in attempt {}; retry in {}", messages.size(), attempt, backoff, e);
+                if (!awaitRetry(backoff)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    static Duration backoff(FakeSmtpConfigurationProperties.Ingest ingest, int attempts) {
+        final var backoff = ingest.getPersistInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(ingest.getPersistMaxBackoff()) > 0 ? ingest.getPersistMaxBackoff() : backoff;
+    }
+
+    /**
+     * @return false if the writer was stopped or interrupted before the backoff elapsed
+     */
+    private boolean awaitRetry(Duration backoff) {
+        final var deadline = System.nanoTime() + backoff.toNanos();
+        try {
+            for (var remaining = backoff.toNanos(); remaining > 0; remaining = deadline - System.nanoTime()) {
+                if (!running) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT_MILLIS)));
+            }
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean isStopping() {
+        return !running || Thread.currentThread().isInterrupted();
+    }
+
+    private void completed(List<LoadedMessage> messages) {
+        final var now = System.currentTimeMillis();
+        for (LoadedMessage message : messages) {
+            message.close();
+            deleteSpoolFile(message.spooled().file());
+            lagTimer.record(Duration.ofMillis(Math.max(0, now - message.spooled().acceptedAt())));
+        }
+        batchSizeSummary.record(messages.size());
+    }
+
+    private void moveToDeadLetters(Path file) {
+        deadLetterCounter.increment();
+        try {
+            final var directory = Files.createDirectories(file.resolveSibling(DEAD_LETTER_DIRECTORY));
+            Files.move(file, directory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Failed to move spool file {} to the dead-letter directory", file, e);
+        }
+    }
+
+    private void deleteSpoolFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spool file {}", file, e);
+        }
+    }
+
+    private record SpooledMessage(Path file, long acceptedAt) {
+    }
+
+    private record LoadedMessage(SpooledMessage spooled, SharedFileInputStream file, RawData rawData) {
+
+        /**
+         * Closes the spool file including all streams on its content.
+         */
+        private void close() {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+}
@@ -2,6 +2,10 @@ package de.gessnerfl.fakesmtp.smtp.server;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
+
+import de.gessnerfl.fakesmtp.smtp.io.DeferredFileOutputStream;
+import jakarta.mail.internet.SharedInputStream;
 
 /**
  * This is an interface for processing the end-result messages that is
@@ -9,12 +13,12 @@ import java.io.InputStream;
  *
  * While the SMTP message is being received, all listeners are asked if they
  * want to accept each recipient. After the message has arrived, the message is
- * handed off to all accepting listeners.
+ * handed off to all accepting listeners, once per listener with all the
+ * recipients it accepted.
  */
 public interface MessageListener {
 	/**
-	 * Called once for every RCPT TO during a SMTP exchange. Each accepted recipient
-	 * will result in a separate deliver() call later.
+	 * Called once for every RCPT TO during a SMTP exchange.
 	 *
 	 * @param from      is a rfc822-compliant email address.
 	 * @param recipient is a rfc822-compliant email address.
@@ -37,4 +41,40 @@ public interface MessageListener {
 	 * @throws IOException          if there is an IO error reading the input data.
 	 */
 	void deliver(String from, String recipient, InputStream data) throws IOException;
+
+	/**
+	 * When message data arrives, this method will be called once with all the
+	 * recipients this listener accepted. Listeners which can handle a message for
+	 * several recipients at once should override it; by default the data is
+	 * buffered and {@link #deliver(String, String, InputStream)} is called for
+	 * every recipient.
+	 *
+	 * @param from       is the envelope sender in rfc822 form
+	 * @param recipients are the accepted recipients in rfc822 form, in the order
+	 *                   of the RCPT TO commands
+	 * @param data       will be the smtp data stream, stripped of any extra '.'
+	 *                   chars. The data stream is only valid for the duration of
+	 *                   this call.
+	 *
+	 * @throws IOException          if there is an IO error reading the input data.
+	 */
+	default void deliver(final String from, final List<String> recipients, final InputStream data) throws IOException {
+		if (recipients.size() == 1) {
+			deliver(from, recipients.getFirst(), data);
+			return;
+		}
+		if (data instanceof SharedInputStream sharedData) {
+			for (final String recipient : recipients) {
+				deliver(from, recipient, sharedData.newStream(0, -1));
+			}
+			return;
+		}
+		try (DeferredFileOutputStream dfos = new DeferredFileOutputStream(MessageListenerAdapter.DEFAULT_DATA_DEFERRED_SIZE)) {
+			data.transferTo(dfos);
+
+			for (final String recipient : recipients) {
+				deliver(from, recipient, dfos.getInputStream());
+			}
+		}
+	}
 }
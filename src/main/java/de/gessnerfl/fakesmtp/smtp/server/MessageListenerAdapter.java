@@ -2,15 +2,20 @@ package de.gessnerfl.fakesmtp.smtp.server;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import de.gessnerfl.fakesmtp.smtp.MessageContext;
 import de.gessnerfl.fakesmtp.smtp.MessageHandler;
 import de.gessnerfl.fakesmtp.smtp.MessageHandlerFactory;
 import de.gessnerfl.fakesmtp.smtp.RejectException;
 import de.gessnerfl.fakesmtp.smtp.io.DeferredFileOutputStream;
+import de.gessnerfl.fakesmtp.smtp.io.SlabPool;
+import jakarta.mail.internet.SharedInputStream;
 
 /**
  * MessageHandlerFactory implementation which adapts to a collection of
@@ -21,12 +26,16 @@ public class MessageListenerAdapter implements MessageHandlerFactory {
 	 * 5 megs by default. The server will buffer incoming messages to disk when they
 	 * hit this limit in the DATA received.
 	 */
-	private static final int DEFAULT_DATA_DEFERRED_SIZE = 1024 * 1024 * 5;
+	static final int DEFAULT_DATA_DEFERRED_SIZE = 1024 * 1024 * 5;
 
 	private final Collection<MessageListener> listeners;
 
 	private final int dataDeferredSize;
 
+	private final Path dataDeferredDirectory;
+
+	private final SlabPool slabPool;
+
 	/**
 	 * Initializes this factory with the listeners.
 	 *
@@ -43,35 +52,43 @@ public class MessageListenerAdapter implements MessageHandlerFactory {
 	 *                         they hit this limit in the DATA received.
 	 */
 	public MessageListenerAdapter(final Collection<MessageListener> listeners, final int dataDeferredSize) {
-		this.listeners = listeners;
-		this.dataDeferredSize = dataDeferredSize;
+		this(listeners, dataDeferredSize, null);
 	}
 
-	@Override
-	public MessageHandler create(final MessageContext ctx) {
-		return new Handler(ctx);
+	/**
+	 * Initializes this factory with the listeners.
+	 *
+	 * @param dataDeferredSize      The server will buffer incoming messages to disk
+	 *                              when they hit this limit in the DATA received.
+	 * @param dataDeferredDirectory The directory of the buffer files, or null to
+	 *                              use the default temp directory.
+	 */
+	public MessageListenerAdapter(final Collection<MessageListener> listeners, final int dataDeferredSize,
+			final Path dataDeferredDirectory) {
+		this(listeners, dataDeferredSize, dataDeferredDirectory, SlabPool.DEFAULT);
 	}
 
 	/**
-	 * Needed by this class to track which listeners need delivery.
+	 * Initializes this factory with the listeners.
+	 *
+	 * @param dataDeferredSize      The server will buffer incoming messages to disk
+	 *                              when they hit this limit in the DATA received.
+	 * @param dataDeferredDirectory The directory of the buffer files, or null to
+	 *                              use the default temp directory.
+	 * @param slabPool              The pool of the slabs which buffer incoming
+	 *                              messages in memory.
 	 */
-	static class Delivery {
-		MessageListener listener;
-
-		public MessageListener getListener() {
-			return this.listener;
-		}
-
-		String recipient;
-
-		public String getRecipient() {
-			return this.recipient;
-		}
+	public MessageListenerAdapter(final Collection<MessageListener> listeners, final int dataDeferredSize,
+			final Path dataDeferredDirectory, final SlabPool slabPool) {
+		this.listeners = listeners;
+		this.dataDeferredSize = dataDeferredSize;
+		this.dataDeferredDirectory = dataDeferredDirectory;
+		this.slabPool = slabPool;
+	}
 
-		public Delivery(final MessageListener listener, final String recipient) {
-			this.listener = listener;
-			this.recipient = recipient;
-		}
+	@Override
+	public MessageHandler create(final MessageContext ctx) {
+		return new Handler(ctx);
 	}
 
 	/**
@@ -82,7 +99,10 @@ public class MessageListenerAdapter implements MessageHandlerFactory {
 
 		String from;
 
-		List<Delivery> deliveries = new ArrayList<>();
+		/**
+		 * The accepted recipients of every listener which needs delivery.
+		 */
+		Map<MessageListener, List<String>> deliveries = new LinkedHashMap<>();
 
 		public Handler(final MessageContext ctx) {
 			this.ctx = ctx;
@@ -99,7 +119,7 @@ public class MessageListenerAdapter implements MessageHandlerFactory {
 
 			for (final MessageListener listener : MessageListenerAdapter.this.listeners) {
 				if (listener.accept(this.from, recipient)) {
-					this.deliveries.add(new Delivery(listener, recipient));
+					this.deliveries.computeIfAbsent(listener, l -> new ArrayList<>()).add(recipient);
 					addedListener = true;
 				}
 			}
@@ -109,21 +129,22 @@ public class MessageListenerAdapter implements MessageHandlerFactory {
 			}
 		}
 
+		/**
+		 * Buffers the data, in memory up to the data deferred size and on disk
+		 * beyond it, and hands every listener a
+		 * {@link SharedInputStream} on the buffer. This bounds the heap used
+		 * by a message in flight, also when only one listener needs delivery.
+		 */
 		@Override
 		public void data(final InputStream data) throws IOException {
-			if (this.deliveries.size() == 1) {
-				final Delivery delivery = this.deliveries.get(0);
-				delivery.getListener().deliver(this.from, delivery.getRecipient(), data);
-			} else {
-				try (DeferredFileOutputStream dfos
-						= new DeferredFileOutputStream(MessageListenerAdapter.this.dataDeferredSize)) {
-					int value;
-					while ((value = data.read()) >= 0) {
-						dfos.write(value);
-					}
-
-					for (final Delivery delivery : this.deliveries) {
-						delivery.getListener().deliver(this.from, delivery.getRecipient(), dfos.getInputStream());
+			try (DeferredFileOutputStream dfos = new DeferredFileOutputStream(MessageListenerAdapter.this.dataDeferredSize,
+					MessageListenerAdapter.this.dataDeferredDirectory, MessageListenerAdapter.this.slabPool)) {
+				data.transferTo(dfos);
+
+				try (InputStream content = dfos.getInputStream()) {
+					final SharedInputStream sharedContent = (SharedInputStream) content;
+					for (final var delivery : this.deliveries.entrySet()) {
+						delivery.getKey().deliver(this.from, delivery.getValue(), sharedContent.newStream(0, -1));
 					}
 				}
 			}
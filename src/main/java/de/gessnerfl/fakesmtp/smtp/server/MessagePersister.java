@@ -0,0 +1,91 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import de.gessnerfl.fakesmtp.service.AttachmentBlobStore;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts received messages into emails, stores them and publishes an
+ * {@link EmailReceived} event for every stored email. The event only references
+ * the stored email, so subscribers do not keep the message data in memory.
+ * With the lazy parsing mode only the headers are parsed; the body is extracted
+ * on first access by the {@link de.gessnerfl.fakesmtp.service.EmailBodyLoader}.
+ */
+@Service
+@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = IOException.class)
+public class MessagePersister {
+    private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+    private final EmailFactory emailFactory;
+    private final EmailRepository emailRepository;
+    private final AttachmentBlobStore attachmentBlobStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Logger logger;
+
+    @Autowired
+    public MessagePersister(FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties,
+                            EmailFactory emailFactory,
+                            EmailRepository emailRepository,
+                            AttachmentBlobStore attachmentBlobStore,
+                            ApplicationEventPublisher eventPublisher,
+                            Logger logger) {
+        this.fakeSmtpConfigurationProperties = fakeSmtpConfigurationProperties;
+        this.emailFactory = emailFactory;
+        this.emailRepository = emailRepository;
+        this.attachmentBlobStore = attachmentBlobStore;
+        this.eventPublisher = eventPublisher;
+        this.logger = logger;
+    }
+
+    public void persist(RawData rawData) throws IOException {
+        var email = convert(rawData);
+        attachmentBlobStore.deduplicate(List.of(email));
+        email = emailRepository.save(email);
+
+        eventPublisher.publishEvent(EmailReceived.of(email));
+    }
+
+    /**
+     * Persists a batch of messages in a single transaction. Messages which cannot
+     * be converted into an email are logged and skipped, so they do not fail the
+     * whole batch.
+     *
+     * @return the messages which could not be converted into an email
+     */
+    public List<RawData> persistAll(List<RawData> messages) {
+        final List<Email> emails = new ArrayList<>(messages.size());
+        final List<RawData> unconvertible = new ArrayList<>();
+        for (RawData rawData : messages) {
+            try {
+                emails.add(convert(rawData));
+            } catch (IOException e) {
+                logger.error("Failed to convert message from {} to {}", rawData.getFrom(), rawData.getTo(), e);
+                unconvertible.add(rawData);
+            }
+        }
+
+        attachmentBlobStore.deduplicate(emails);
+        for (var email : emailRepository.saveAll(emails)) {
+            eventPublisher.publishEvent(EmailReceived.of(email));
+        }
+        return unconvertible;
+    }
+
+    private Email convert(RawData rawData) throws IOException {
+        if (fakeSmtpConfigurationProperties.getIngest().getParsing() == FakeSmtpConfigurationProperties.ParsingMode.LAZY) {
+            return emailFactory.convertHeaders(rawData);
+        }
+        return emailFactory.convert(rawData);
+    }
+}
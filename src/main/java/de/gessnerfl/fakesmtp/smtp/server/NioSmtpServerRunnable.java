@@ -0,0 +1,295 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server thread of the {@link TransportType#NIO} transport. Connections are
+ * accepted and greeted like in the blocking transport, but as soon as a
+ * {@link Session} runs out of buffered input it hands its channel over to one
+ * of a small number of {@link Selector} event loops and releases its thread.
+ * When the client sends the next command the event loop switches the channel
+ * back to blocking mode and runs the session again on the session executor.
+ * This way idle connections do not occupy a thread (and its stack). The idle
+ * deadlines of the parked connections are kept in a priority queue, so an event
+ * loop only wakes up when the earliest deadline expires and only touches the
+ * expired connections.
+ * <p>
+ * Connections which upgraded to TLS are not parked anymore, as the readiness of
+ * the plain channel does not reflect the state of the TLS layer; they keep their
+ * session thread like in the blocking transport.
+ */
+class NioSmtpServerRunnable extends BaseSmtpServerRunnable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(NioSmtpServerRunnable.class);
+
+	/**
+	 * Minimum number of stale entries in the idle deadline queue of an event loop
+	 * before they are removed.
+	 */
+	private static final int MIN_STALE_DEADLINES = 64;
+
+	private final List<EventLoop> eventLoops;
+
+	private final List<Thread> eventLoopThreads;
+
+	private final AtomicInteger nextEventLoop = new AtomicInteger();
+
+	public NioSmtpServerRunnable(final BaseSmtpServer server, final ServerSocket serverSocket) throws IOException {
+		super(server, serverSocket);
+		final int numberOfEventLoops = Math.max(1, server.getEventLoopThreads());
+		this.eventLoops = new ArrayList<>(numberOfEventLoops);
+		this.eventLoopThreads = new ArrayList<>(numberOfEventLoops);
+		for (int i = 0; i < numberOfEventLoops; i++) {
+			final var eventLoop = new EventLoop(Selector.open());
+			this.eventLoops.add(eventLoop);
+			this.eventLoopThreads.add(Thread.ofPlatform()
+					.name(NioSmtpServerRunnable.class.getName() + "-EventLoop-" + i + " " + server.getDisplayableLocalSocketAddress())
+					.start(eventLoop));
+		}
+	}
+
+	@Override
+	public boolean suspendWhileIdle(final Session session) {
+		final var socket = session.getSocket();
+		final SocketChannel channel = socket.getChannel();
+		if (isShuttingDown() || channel == null || socket instanceof SSLSocket || session.isTLSStarted()) {
+			return false;
+		}
+		try {
+			if (session.hasBufferedInput()) {
+				return false;
+			}
+			channel.configureBlocking(false);
+		} catch (final IOException e) {
+			LOGGER.debug("Failed to switch channel to non-blocking mode; keep session thread", e);
+			return false;
+		}
+		final var index = Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.size());
+		eventLoops.get(index).park(session, channel);
+		return true;
+	}
+
+	@Override
+	public void shutdown() {
+		stopEventLoops();
+		super.shutdown();
+	}
+
+	private void stopEventLoops() {
+		for (final EventLoop eventLoop : eventLoops) {
+			eventLoop.stop();
+		}
+		for (final Thread thread : eventLoopThreads) {
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (final InterruptedException e) {
+				LOGGER.warn("Interrupted waiting for termination of event loop threads", e);
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Runs the session again on the session executor. If the executor does not
+	 * accept the session anymore, the connection is closed.
+	 */
+	private void resume(final Session session) {
+		try {
+			executorService.execute(session);
+		} catch (final RejectedExecutionException e) {
+			LOGGER.debug("Session executor rejected parked session; closing connection", e);
+			session.quit();
+			sessionEnded(session);
+		}
+	}
+
+	private record ParkedSession(Session session, SocketChannel channel, long idleDeadline) {
+	}
+
+	/**
+	 * Idle deadline of a registered session. Entries of sessions which were
+	 * resumed because the client sent data stay in the queue with a cancelled key
+	 * until they are discarded.
+	 */
+	private record IdleDeadline(SelectionKey key, long deadline) {
+	}
+
+	/**
+	 * A single selector thread which waits for input on parked connections.
+	 */
+	private final class EventLoop implements Runnable {
+		private final Selector selector;
+
+		/**
+		 * Sessions handed over by session threads, which still need to be registered
+		 * with the selector by the event loop thread.
+		 */
+		private final Queue<ParkedSession> pendingSessions = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Idle deadlines of the registered sessions, earliest first; only accessed by
+		 * the event loop thread.
+		 */
+		private final PriorityQueue<IdleDeadline> idleDeadlines = new PriorityQueue<>(Comparator.comparingLong(IdleDeadline::deadline));
+
+		private volatile boolean running = true;
+
+		private EventLoop(final Selector selector) {
+			this.selector = selector;
+		}
+
+		void park(final Session session, final SocketChannel channel) {
+			final var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Session.CONNECTION_TIMEOUT);
+			pendingSessions.add(new ParkedSession(session, channel, deadline));
+			selector.wakeup();
+		}
+
+		void stop() {
+			running = false;
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (running) {
+					selector.select(selectTimeoutMillis());
+					registerPendingSessions();
+					resumeSessions(collectSessionsToResume());
+				}
+			} catch (final IOException e) {
+				LOGGER.error("SMTP event loop failed", e);
+			} finally {
+				resumeRemainingSessions();
+				closeSelector();
+			}
+		}
+
+		/**
+		 * @return the time until the earliest idle deadline expires, or 0 to wait
+		 *         without timeout when no session is parked
+		 */
+		private long selectTimeoutMillis() {
+			IdleDeadline next;
+			while ((next = idleDeadlines.peek()) != null && !next.key().isValid()) {
+				idleDeadlines.poll();
+			}
+			if (next == null) {
+				return 0;
+			}
+			final var remaining = next.deadline() - System.nanoTime();
+			return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+		}
+
+		private void registerPendingSessions() {
+			ParkedSession parkedSession;
+			while ((parkedSession = pendingSessions.poll()) != null) {
+				try {
+					final var key = parkedSession.channel().register(selector, SelectionKey.OP_READ, parkedSession);
+					idleDeadlines.add(new IdleDeadline(key, parkedSession.idleDeadline()));
+				} catch (final IOException | RuntimeException e) {
+					LOGGER.debug("Failed to register parked session", e);
+					resumeClosed(parkedSession);
+				}
+			}
+		}
+
+		/**
+		 * Collects and deregisters all sessions whose client sent new data or whose
+		 * idle timeout expired. Only the expired head of the idle deadline queue is
+		 * inspected instead of all registered sessions.
+		 */
+		private List<ParkedSession> collectSessionsToResume() throws IOException {
+			final List<ParkedSession> sessionsToResume = new ArrayList<>();
+			for (final SelectionKey key : selector.selectedKeys()) {
+				if (key.isValid()) {
+					key.cancel();
+					sessionsToResume.add((ParkedSession) key.attachment());
+				}
+			}
+			selector.selectedKeys().clear();
+
+			final var now = System.nanoTime();
+			IdleDeadline next;
+			while ((next = idleDeadlines.peek()) != null && now - next.deadline() >= 0) {
+				idleDeadlines.poll();
+				if (next.key().isValid()) {
+					next.key().cancel();
+					final var parkedSession = (ParkedSession) next.key().attachment();
+					parkedSession.session().idleTimeoutExpired();
+					sessionsToResume.add(parkedSession);
+				}
+			}
+
+			if (!sessionsToResume.isEmpty()) {
+				// deregisters the cancelled keys, which is required before the channels can be
+				// switched back to blocking mode
+				selector.selectNow();
+			}
+			if (idleDeadlines.size() > 2 * selector.keys().size() + MIN_STALE_DEADLINES) {
+				idleDeadlines.removeIf(idleDeadline -> !idleDeadline.key().isValid());
+			}
+			return sessionsToResume;
+		}
+
+		private void resumeSessions(final List<ParkedSession> sessionsToResume) {
+			for (final ParkedSession parkedSession : sessionsToResume) {
+				try {
+					parkedSession.channel().configureBlocking(true);
+					resume(parkedSession.session());
+				} catch (final IOException | RuntimeException e) {
+					LOGGER.debug("Failed to resume parked session", e);
+					resumeClosed(parkedSession);
+				}
+			}
+		}
+
+		/**
+		 * Quits the session and runs it once more so that it completes its regular
+		 * termination.
+		 */
+		private void resumeClosed(final ParkedSession parkedSession) {
+			parkedSession.session().quit();
+			resume(parkedSession.session());
+		}
+
+		private void resumeRemainingSessions() {
+			final List<ParkedSession> remaining = new ArrayList<>();
+			if (selector.isOpen()) {
+				for (final SelectionKey key : selector.keys()) {
+					remaining.add((ParkedSession) key.attachment());
+				}
+			}
+			ParkedSession parkedSession;
+			while ((parkedSession = pendingSessions.poll()) != null) {
+				remaining.add(parkedSession);
+			}
+			remaining.forEach(this::resumeClosed);
+		}
+
+		private void closeSelector() {
+			try {
+				selector.close();
+			} catch (final IOException e) {
+				LOGGER.debug("Failed to close selector", e);
+			}
+		}
+	}
+}
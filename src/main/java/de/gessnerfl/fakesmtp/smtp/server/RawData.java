@@ -3,37 +3,95 @@ package de.gessnerfl.fakesmtp.smtp.server;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Session;
 import jakarta.mail.internet.MimeMessage;
-import java.io.ByteArrayInputStream;
+import jakarta.mail.internet.SharedInputStream;
+import jakarta.mail.util.SharedByteArrayInputStream;
+
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Properties;
 
+/**
+ * The envelope and content of a received message. The content is either kept
+ * as byte array or read from a {@link SharedInputStream}, e.g. a file the
+ * message was spooled to. In the latter case the bytes are only loaded when
+ * {@link #getContent()} is called and the MimeMessage is parsed from the shared
+ * stream, so the parts of the message are not copied into the heap.
+ */
 public class RawData {
     private final String from;
-    private final String to;
-    private final byte[] content;
+    private final List<String> recipients;
+    private final SharedInputStream source;
+    private byte[] content;
+    private String contentAsString;
     private MimeMessage mimeMessage;
 
     RawData(String from, String to, byte[] content) {
+        this(from, List.of(to), content);
+    }
+
+    RawData(String from, List<String> recipients, byte[] content) {
         this.from = from;
-        this.to = to;
+        this.recipients = List.copyOf(recipients);
+        this.source = null;
         this.content = content;
     }
 
+    /**
+     * @param source the content of the message; it must stay readable as long as this instance is used
+     */
+    RawData(String from, List<String> recipients, SharedInputStream source) {
+        this.from = from;
+        this.recipients = List.copyOf(recipients);
+        this.source = source;
+    }
+
     public String getFrom() {
         return from;
     }
 
+    /**
+     * @return the envelope recipients separated by a comma
+     */
     public String getTo() {
-        return to;
+        return String.join(", ", recipients);
+    }
+
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    /**
+     * @return the received message bytes; the array is not copied and must not be modified
+     */
+    public byte[] getContent() {
+        if (content == null) {
+            try (var in = source.newStream(0, -1)) {
+                content = in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read message content", e);
+            }
+        }
+        return content;
     }
 
     public String getContentAsString() {
-        return new String(content, StandardCharsets.UTF_8);
+        if (contentAsString == null) {
+            contentAsString = new String(getContent(), StandardCharsets.UTF_8);
+        }
+        return contentAsString;
     }
 
+    /**
+     * @return a new stream on the content, which does not copy the content
+     */
     public InputStream getContentAsStream() {
-        return new ByteArrayInputStream(content);
+        if (content == null) {
+            return source.newStream(0, -1);
+        }
+        return new SharedByteArrayInputStream(content);
     }
 
     public MimeMessage toMimeMessage() throws MessagingException {
@@ -0,0 +1,31 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Loads the raw data of stored emails, so queued work only references an email
+ * by its id instead of keeping the message data in memory.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RawDataLoader {
+    private final EmailRepository emailRepository;
+
+    @Autowired
+    public RawDataLoader(EmailRepository emailRepository) {
+        this.emailRepository = emailRepository;
+    }
+
+    /**
+     * @return the raw data of the email with the given envelope or empty if the email does not exist anymore
+     */
+    public Optional<RawData> load(Long emailId, String from, List<String> recipients) {
+        return emailRepository.findById(emailId).map(email -> new RawData(from, recipients, email.getRawData()));
+    }
+}
@@ -1,5 +1,6 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
@@ -21,6 +22,7 @@ import de.gessnerfl.fakesmtp.smtp.AuthenticationHandler;
 import de.gessnerfl.fakesmtp.smtp.MessageContext;
 import de.gessnerfl.fakesmtp.smtp.MessageHandler;
 import de.gessnerfl.fakesmtp.smtp.io.CRLFTerminatedReader;
+import de.gessnerfl.fakesmtp.smtp.io.DeferredFileOutputStream;
 
 /**
  * The thread that handles a connection. This class passes most of it's
@@ -31,7 +33,19 @@ public class Session implements Runnable, MessageContext {
     /**
      * The timeout for waiting for data on a connection is one minute: 1000 * 60 * 1
      */
-    private static final int CONNECTION_TIMEOUT = 1000 * 60;
+    static final int CONNECTION_TIMEOUT = 1000 * 60;
+
+    /**
+     * Size of the buffer of the client input, which is shared by the command
+     * reader and the commands reading the message content: 32k
+     */
+    private static final int INPUT_BUFFER_SIZE = 1024 * 32;
+
+    /**
+     * Message content received by BDAT chunks is spooled to disk when it hits this
+     * limit: 5 megs
+     */
+    private static final int CHUNK_SPOOL_DEFERRED_SIZE = 1024 * 1024 * 5;
 
     /**
      * A link to our parent server
@@ -62,6 +76,19 @@ public class Session implements Runnable, MessageContext {
      */
     private volatile boolean quitting = false;
 
+    /**
+     * True once the greeting was sent to the client. A session which was suspended
+     * while its connection was idle continues with the next command when it is
+     * run again.
+     */
+    private boolean greeted = false;
+
+    /**
+     * Set by the transport when a suspended session was resumed because the
+     * client did not send any data within the connection timeout.
+     */
+    private volatile boolean idleTimeoutExpired = false;
+
     /**
      * I/O to the client
      */
@@ -99,6 +126,18 @@ public class Session implements Runnable, MessageContext {
      */
     private String singleRecipient;
 
+    /**
+     * True if the client announced a binary message body with the MAIL parameter
+     * BODY=BINARYMIME (RFC 3030). Such a body can only be transferred by BDAT.
+     */
+    private boolean binaryMimeBody;
+
+    /**
+     * Collects the chunks of the message content received by BDAT commands of the
+     * current mail transaction. It is null if no chunk was received yet.
+     */
+    private DeferredFileOutputStream chunkSpool;
+
     /**
      * Some more state information
      */
@@ -129,28 +168,35 @@ public class Session implements Runnable, MessageContext {
 
     /**
      * The thread for each session runs on this and shuts down when the quitting
-     * member goes true.
+     * member goes true. If the transport suspends the session while the
+     * connection is idle, this method returns without closing the connection and
+     * is called again once the client sends more data.
      */
     @Override
     public void run() {
         MDC.setContextMap(parentLoggingMdcContext);
-        sessionId = server.getSessionIdFactory().create();
+        if (sessionId == null) {
+            sessionId = server.getSessionIdFactory().create();
+        }
         MDC.put("SessionId", sessionId);
         final String originalName;
         originalName = Thread.currentThread().getName();
         Thread.currentThread()
                 .setName(Session.class.getName() + "-" + socket.getInetAddress() + ":" + socket.getPort());
 
-        logDebugDetailsOnRun();
-
+        boolean suspended = false;
         try {
-            runCommandLoop();
+            suspended = runCommandLoop();
         } catch (final IOException e1) {
             handleIOExceptionOnRun(e1);
         } catch (final Exception e) {
             handleExceptionDuringRun(e);
         } finally {
-            onRunCompleted(originalName);
+            if (suspended) {
+                onRunSuspended(originalName);
+            } else {
+                onRunCompleted(originalName);
+            }
         }
     }
 
@@ -188,30 +234,55 @@ public class Session implements Runnable, MessageContext {
     private void onRunCompleted(String originalName) {
         this.closeConnection();
         this.endMessageHandler();
+        this.releaseChunkSpool();
         baseSmtpServerRunnable.sessionEnded(this);
         Thread.currentThread().setName(originalName);
         MDC.clear();
     }
 
+    private void onRunSuspended(String originalName) {
+        Thread.currentThread().setName(originalName);
+        MDC.clear();
+    }
+
     /**
      * Sends the welcome message and starts receiving and processing client
      * commands. It quits when {@link #quitting} becomes true or when it can be
      * noticed or at least assumed that the client no longer sends valid commands,
      * for example on timeout.
      *
+     * @return true if the session was suspended by the transport while the
+     * connection is idle, false if the session is finished.
      * @throws IOException if sending to or receiving from the client fails.
      */
-    private void runCommandLoop() throws IOException {
-        if (this.baseSmtpServerRunnable.hasTooManyConnections()) {
-            LOGGER.debug("SMTP Too many connections!");
+    private boolean runCommandLoop() throws IOException {
+        if (!this.greeted) {
+            this.greeted = true;
+            logDebugDetailsOnRun();
 
-            this.sendResponse("421 Too many connections, try again later");
-            return;
-        }
+            if (this.baseSmtpServerRunnable.hasTooManyConnections()) {
+                LOGGER.debug("SMTP Too many connections!");
+
+                this.sendResponse("421 Too many connections, try again later");
+                return false;
+            }
 
-        this.sendResponse("220 " + this.server.getHostName() + " ESMTP " + this.server.getSoftwareName());
+            this.sendResponse("220 " + this.server.getHostName() + " ESMTP " + this.server.getSoftwareName());
+        }
 
         while (!this.quitting) {
+            if (this.idleTimeoutExpired) {
+                this.idleTimeoutExpired = false;
+                this.sendResponse("421 Timeout waiting for data from client.");
+            }
+            if (!this.hasBufferedInput()) {
+                // all pipelined commands of the client are processed; send the
+                // collected responses at once before waiting for more input
+                this.flush();
+                if (this.baseSmtpServerRunnable.suspendWhileIdle(this)) {
+                    return true;
+                }
+            }
             try {
                 Optional<String> line = readCommandLine();
                 if (line.isPresent()) {
@@ -219,7 +290,7 @@ public class Session implements Runnable, MessageContext {
                     this.server.getCommandHandler().handleCommand(this, line.get());
                 } else {
                     LOGGER.debug("no more lines from client");
-                    return;
+                    return false;
                 }
             } catch (final SocketTimeoutException ex) {
                 this.sendResponse("421 Timeout waiting for data from client.");
@@ -237,6 +308,7 @@ public class Session implements Runnable, MessageContext {
                 this.sendResponse(msg);
             }
         }
+        return false;
     }
 
     private Optional<String> readCommandLine() throws IOException {
@@ -277,7 +349,7 @@ public class Session implements Runnable, MessageContext {
      */
     public void setSocket(final Socket socket) throws IOException {
         this.socket = socket;
-        this.input = this.socket.getInputStream();
+        this.input = new BufferedInputStream(this.socket.getInputStream(), INPUT_BUFFER_SIZE);
         this.reader = new CRLFTerminatedReader(this.input,StandardCharsets.UTF_8);
         this.writer = new PrintWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
 
@@ -303,12 +375,22 @@ public class Session implements Runnable, MessageContext {
     }
 
     /**
-     * @return the raw input stream from the client
+     * @return the buffered input stream from the client. The buffer is shared
+     * with the command reader, so message content sent by the client right after
+     * the command line is not lost.
      */
     public InputStream getRawInput() {
         return this.input;
     }
 
+    /**
+     * @return true if input of the client was already received which is not yet
+     * consumed by the session
+     */
+    boolean hasBufferedInput() throws IOException {
+        return this.reader.ready();
+    }
+
     /**
      * @return the cooked CRLF-terminated reader from the client
      */
@@ -317,14 +399,25 @@ public class Session implements Runnable, MessageContext {
     }
 
     /**
-     * Sends the response to the client
+     * Sends the response to the client. Responses are buffered to support
+     * command pipelining (RFC 2920); they are flushed when the session runs out
+     * of buffered client input or when {@link #flush()} is called. Commands
+     * which wait for further input of the client after sending a response (e.g.
+     * DATA or AUTH) must flush explicitly.
      */
     public void sendResponse(final String response) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Server: {}", response);
         }
 
-        this.writer.print(response + "\r\n");
+        this.writer.print(response);
+        this.writer.print("\r\n");
+    }
+
+    /**
+     * Sends all buffered responses to the client
+     */
+    public void flush() {
         this.writer.flush();
     }
 
@@ -382,6 +475,35 @@ public class Session implements Runnable, MessageContext {
         return singleRecipient;
     }
 
+    public boolean isBinaryMimeBody() {
+        return binaryMimeBody;
+    }
+
+    public void setBinaryMimeBody(final boolean binaryMimeBody) {
+        this.binaryMimeBody = binaryMimeBody;
+    }
+
+    /**
+     * Returns true if chunks of the message content were already received by BDAT
+     * commands in the current mail transaction.
+     */
+    public boolean isChunkingInProgress() {
+        return this.chunkSpool != null;
+    }
+
+    /**
+     * Returns the spool of the message content received by BDAT chunks of the
+     * current mail transaction. The spool is created with the first chunk and
+     * released when the mail transaction is reset.
+     */
+    public DeferredFileOutputStream getChunkSpool() {
+        if (this.chunkSpool == null) {
+            this.chunkSpool = new DeferredFileOutputStream(CHUNK_SPOOL_DEFERRED_SIZE, this.server.getSpoolDirectory(),
+                    this.server.getSlabPool());
+        }
+        return this.chunkSpool;
+    }
+
     public boolean isAuthenticated() {
         return this.authenticationHandler != null;
     }
@@ -435,6 +557,23 @@ public class Session implements Runnable, MessageContext {
         this.messageHandler = null;
         this.recipientCount = 0;
         this.singleRecipient = null;
+        this.binaryMimeBody = false;
+        this.releaseChunkSpool();
+    }
+
+    /**
+     * Safely closes the chunk spool, which deletes its temporary file, if one
+     * exists
+     */
+    private void releaseChunkSpool() {
+        if (this.chunkSpool != null) {
+            try {
+                this.chunkSpool.close();
+            } catch (final IOException ex) {
+                LOGGER.warn("Failed to release spooled message chunks", ex);
+            }
+            this.chunkSpool = null;
+        }
     }
 
     /**
@@ -467,6 +606,14 @@ public class Session implements Runnable, MessageContext {
         this.closeConnection();
     }
 
+    /**
+     * Called by the transport when a suspended session is resumed because the
+     * client did not send any data within the connection timeout.
+     */
+    void idleTimeoutExpired() {
+        this.idleTimeoutExpired = true;
+    }
+
     /**
      * @return true when the TLS handshake was completed, false otherwise
      */
@@ -0,0 +1,19 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+/**
+ * The transport used by the {@link BaseSmtpServer} to accept and serve client
+ * connections.
+ */
+public enum TransportType {
+    /**
+     * Every connection is served by its own {@link Session} thread for its whole
+     * lifetime.
+     */
+    BLOCKING,
+    /**
+     * Idle connections are parked on a small pool of {@link java.nio.channels.Selector}
+     * event loops and only occupy a {@link Session} thread while the client is
+     * actually sending data.
+     */
+    NIO
+}
@@ -9,9 +9,12 @@ import jakarta.servlet.ServletContext;
 public class MediaTypeUtil {
 
     public MediaType getMediaTypeForFileName(ServletContext servletContext, String fileName) {
-        var mineType = servletContext.getMimeType(fileName);
+        return getMediaType(servletContext.getMimeType(fileName));
+    }
+
+    public MediaType getMediaType(String mimeType) {
         try {
-            return MediaType.parseMediaType(mineType);
+            return MediaType.parseMediaType(mimeType);
         } catch (Exception e) {
             return MediaType.APPLICATION_OCTET_STREAM;
         }
@@ -0,0 +1,10 @@
+UPDATE email SET subject = LEFT(subject, 65532) || '...' WHERE LENGTH(subject) > 65535;
+ALTER TABLE email ALTER COLUMN subject SET DATA TYPE VARCHAR(65535);
+
+CREATE INDEX email_received_on_idx ON email(received_on);
+CREATE INDEX email_from_address_idx ON email(from_address);
+CREATE INDEX email_subject_idx ON email(subject);
+
+-- the email columns of email_content, email_attachment, email_inline_image and email_recipient are already indexed,
+-- as H2 creates an index for the referencing columns of a foreign key when the constraint is added
+-- to_address is not indexed, as searches by recipient use the address index of email_recipient
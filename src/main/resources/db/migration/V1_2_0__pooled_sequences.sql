@@ -0,0 +1,4 @@
+ALTER SEQUENCE email_sequence INCREMENT BY 50;
+ALTER SEQUENCE email_content_sequence INCREMENT BY 50;
+ALTER SEQUENCE email_attachment_sequence INCREMENT BY 50;
+ALTER SEQUENCE email_inline_image_sequence INCREMENT BY 50;
@@ -0,0 +1,14 @@
+CREATE TABLE email_recipient (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email BIGINT NOT NULL,
+    address VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+ALTER TABLE email_recipient ADD FOREIGN KEY (email) REFERENCES email(id) ON DELETE CASCADE;
+CREATE INDEX email_recipient_address_idx ON email_recipient(address);
+
+CREATE SEQUENCE email_recipient_sequence START WITH 1 INCREMENT BY 50;
+
+INSERT INTO email_recipient (id, email, address) SELECT NEXT VALUE FOR email_recipient_sequence, id, to_address FROM email;
+
+ALTER TABLE email ALTER COLUMN to_address SET DATA TYPE VARCHAR(65535);
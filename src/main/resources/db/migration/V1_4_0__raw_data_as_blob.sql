@@ -0,0 +1 @@
+ALTER TABLE email ALTER COLUMN raw_data SET DATA TYPE BLOB;
@@ -0,0 +1 @@
+ALTER TABLE email ADD COLUMN body_parsed BOOLEAN DEFAULT TRUE NOT NULL;
@@ -0,0 +1,23 @@
+CREATE TABLE attachment_blob (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    digest VARCHAR(64) NOT NULL,
+    data BLOB NOT NULL,
+    orphaned_on TIMESTAMP,
+    PRIMARY KEY (id)
+);
+CREATE INDEX attachment_blob_digest_idx ON attachment_blob(digest);
+
+CREATE SEQUENCE attachment_blob_sequence START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE email_attachment ADD COLUMN blob BIGINT;
+
+INSERT INTO attachment_blob (id, digest, data)
+    SELECT NEXT VALUE FOR attachment_blob_sequence, d.digest, a.data
+    FROM (SELECT MIN(id) AS attachment_id, RAWTOHEX(HASH('SHA-256', data)) AS digest FROM email_attachment GROUP BY RAWTOHEX(HASH('SHA-256', data))) d
+    JOIN email_attachment a ON a.id = d.attachment_id;
+UPDATE email_attachment a SET blob = (SELECT MIN(b.id) FROM attachment_blob b WHERE b.digest = RAWTOHEX(HASH('SHA-256', a.data)));
+
+ALTER TABLE email_attachment ALTER COLUMN blob SET NOT NULL;
+ALTER TABLE email_attachment ADD FOREIGN KEY (blob) REFERENCES attachment_blob(id);
+CREATE INDEX email_attachment_blob_idx ON email_attachment(blob);
+ALTER TABLE email_attachment DROP COLUMN data;
@@ -0,0 +1,11 @@
+ALTER TABLE email ALTER COLUMN raw_data SET NULL;
+ALTER TABLE email ADD COLUMN raw_data_segment INT;
+ALTER TABLE email ADD COLUMN raw_data_offset BIGINT;
+ALTER TABLE email ADD COLUMN raw_data_length INT;
+CREATE INDEX email_raw_data_segment_idx ON email(raw_data_segment);
+
+ALTER TABLE attachment_blob ALTER COLUMN data SET NULL;
+ALTER TABLE attachment_blob ADD COLUMN data_segment INT;
+ALTER TABLE attachment_blob ADD COLUMN data_offset BIGINT;
+ALTER TABLE attachment_blob ADD COLUMN data_length INT;
+CREATE INDEX attachment_blob_data_segment_idx ON attachment_blob(data_segment);
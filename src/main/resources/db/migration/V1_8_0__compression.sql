@@ -0,0 +1,8 @@
+ALTER TABLE email ADD COLUMN raw_data_compressed BOOLEAN DEFAULT FALSE NOT NULL;
+ALTER TABLE attachment_blob ADD COLUMN data_compressed BOOLEAN DEFAULT FALSE NOT NULL;
+
+ALTER TABLE email_content ALTER COLUMN data SET NULL;
+ALTER TABLE email_content ADD COLUMN compressed_data BLOB;
+
+ALTER TABLE email_inline_image ALTER COLUMN data SET NULL;
+ALTER TABLE email_inline_image ADD COLUMN compressed_data BLOB;
@@ -0,0 +1,67 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.model.ContentType;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailContent;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles({"mockserver", "integrationtest_with_compression"})
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class BlobCompressionIntegrationTest {
+    private static final String HTML = "<html><body><p>Hello World</p></body></html>\n".repeat(50);
+
+    @Autowired
+    private EmailRepository emailRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        emailRepository.deleteAll();
+    }
+
+    @Test
+    void shouldStoreRawDataAndContentsCompressedAndDecompressThemOnAccess() {
+        var content = new EmailContent();
+        content.setContentType(ContentType.HTML);
+        content.setData(HTML);
+        var mail = new Email();
+        mail.setSubject("Test Subject");
+        mail.setRawDataAsString(HTML);
+        mail.setReceivedOn(ZonedDateTime.now(ZoneId.of("UTC")));
+        mail.setFromAddress("sender@example.com");
+        mail.setToAddress("receiver@example.com");
+        mail.addRecipient("receiver@example.com");
+        mail.addContent(content);
+        var id = emailRepository.saveAndFlush(mail).getId();
+
+        assertTrue(jdbcTemplate.queryForObject("SELECT raw_data_compressed FROM email WHERE id = ?", Boolean.class, id));
+        assertTrue(jdbcTemplate.queryForObject("SELECT LENGTH(raw_data) FROM email WHERE id = ?", Integer.class, id) < HTML.length() / 10);
+        assertNull(jdbcTemplate.queryForObject("SELECT data FROM email_content WHERE email = ?", String.class, id));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            var loaded = emailRepository.findById(id).orElseThrow();
+            assertEquals(HTML, loaded.getRawDataAsString());
+            assertEquals(HTML, loaded.getContents().getFirst().getData());
+        });
+    }
+}
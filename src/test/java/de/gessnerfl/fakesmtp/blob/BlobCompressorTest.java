@@ -0,0 +1,102 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobCompressorTest {
+    private static final byte[] TEMPLATED_HTML = "<html><body><p>Hello World</p></body></html>\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    private FakeSmtpConfigurationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private BlobCompressor sut;
+
+    @BeforeEach
+    void init() {
+        properties = new FakeSmtpConfigurationProperties();
+        properties.getPersistence().getCompression().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        sut = new BlobCompressor(properties, meterRegistry);
+    }
+
+    @Test
+    void shouldCompressAndDecompressData() {
+        var compressed = sut.compress(TEMPLATED_HTML).orElseThrow();
+
+        assertTrue(compressed.length < TEMPLATED_HTML.length / 10);
+        assertArrayEquals(TEMPLATED_HTML, sut.decode(compressed));
+    }
+
+    @Test
+    void shouldCompressDataOfSource() {
+        var compressed = sut.compress(source(TEMPLATED_HTML)).orElseThrow();
+
+        assertArrayEquals(sut.compress(TEMPLATED_HTML).orElseThrow(), compressed);
+        assertArrayEquals(TEMPLATED_HTML, sut.decode(compressed));
+    }
+
+    @Test
+    void shouldNotCompressDataOfSourceWhichIsSmallerThanMinimumSizeOrDoesNotBecomeSmaller() {
+        var random = new byte[4096];
+        new Random(42).nextBytes(random);
+        properties.getPersistence().getCompression().setMinSize(DataSize.ofBytes(TEMPLATED_HTML.length + 1));
+
+        assertTrue(sut.compress(source(TEMPLATED_HTML)).isEmpty());
+        assertTrue(sut.compress(source(random)).isEmpty());
+    }
+
+    @Test
+    void shouldNotCompressWhenCompressionIsDisabled() {
+        properties.getPersistence().getCompression().setEnabled(false);
+
+        assertTrue(sut.compress(TEMPLATED_HTML).isEmpty());
+    }
+
+    @Test
+    void shouldNotCompressDataSmallerThanMinimumSize() {
+        properties.getPersistence().getCompression().setMinSize(DataSize.ofBytes(TEMPLATED_HTML.length + 1));
+
+        assertTrue(sut.compress(TEMPLATED_HTML).isEmpty());
+    }
+
+    @Test
+    void shouldNotCompressDataWhichDoesNotBecomeSmaller() {
+        var random = new byte[4096];
+        new Random(42).nextBytes(random);
+
+        assertTrue(sut.compress(random).isEmpty());
+        assertEquals(1.0, sut.getCompressionRatio());
+    }
+
+    @Test
+    void shouldReportCompressionRatioAndCpuTime() {
+        var compressed = sut.compress(TEMPLATED_HTML).orElseThrow();
+        sut.decode(compressed);
+
+        var ratio = meterRegistry.get(BlobCompressor.COMPRESSION_RATIO).gauge().value();
+        assertEquals((double) TEMPLATED_HTML.length / compressed.length, ratio, 0.0001);
+        assertNotNull(meterRegistry.get(BlobCompressor.CPU_TIME).tag("operation", "compress").functionCounter());
+        assertNotNull(meterRegistry.get(BlobCompressor.CPU_TIME).tag("operation", "decompress").functionCounter());
+    }
+
+    @Test
+    void shouldFailToDecompressCorruptData() {
+        var compressed = sut.compress(TEMPLATED_HTML).orElseThrow();
+        var truncated = new byte[compressed.length / 2];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+        assertThrows(BlobStoreException.class, () -> sut.decode(truncated));
+    }
+
+    private static BlobSource source(byte[] data) {
+        return () -> new ByteArrayInputStream(data);
+    }
+}
@@ -0,0 +1,129 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailAttachment;
+import de.gessnerfl.fakesmtp.repository.AttachmentBlobRepository;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import de.gessnerfl.fakesmtp.service.AttachmentBlobStore;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayInputStream;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles({"mockserver", "integrationtest_with_segment_blob_store"})
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class SegmentBlobStoreIntegrationTest {
+
+    @Autowired
+    private SegmentBlobStore segmentBlobStore;
+    @Autowired
+    private EmailRepository emailRepository;
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+    @Autowired
+    private AttachmentBlobStore attachmentBlobStore;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        emailRepository.deleteAll();
+        attachmentBlobRepository.deleteAll();
+    }
+
+    @Test
+    void shouldStoreRawDataAndAttachmentsInSegmentFiles() {
+        var mail = saveEmail("small message", "attachment content");
+
+        assertNull(jdbcTemplate.queryForObject("SELECT raw_data FROM email WHERE id = ?", byte[].class, mail.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attachment_blob WHERE data IS NOT NULL", Integer.class));
+
+        var loaded = emailRepository.findById(mail.getId()).orElseThrow();
+        assertEquals("small message", loaded.getRawDataAsString());
+        var blob = attachmentBlobRepository.findById(mail.getAttachments().getFirst().getBlob().getId()).orElseThrow();
+        assertEquals("attachment content", new String(blob.getData()));
+    }
+
+    @Test
+    void shouldStreamRawDataOfSourceIntoSegmentFile() {
+        var mail = new Email();
+        mail.setSubject("Test Subject");
+        mail.setRawDataSource(() -> new ByteArrayInputStream("streamed message".getBytes()));
+        mail.setReceivedOn(ZonedDateTime.now(ZoneId.of("UTC")));
+        mail.setFromAddress("sender@example.com");
+        mail.setToAddress("receiver@example.com");
+        mail.addRecipient("receiver@example.com");
+
+        mail = emailRepository.saveAndFlush(mail);
+
+        assertTrue(mail.getStoredRawData().isStoredInSegment());
+        assertNull(mail.getStoredRawData().getPendingSource());
+        assertNull(jdbcTemplate.queryForObject("SELECT raw_data FROM email WHERE id = ?", byte[].class, mail.getId()));
+        assertEquals("streamed message", emailRepository.findById(mail.getId()).orElseThrow().getRawDataAsString());
+    }
+
+    @Test
+    void shouldMoveRemainingBlobsOfMostlyUnusedSegmentsAndDeleteThem() {
+        var kept = saveEmail("small message", null);
+        var deleted = saveEmail("x".repeat(600), null);
+        saveEmail("y".repeat(600), null);
+        var segment = kept.getStoredRawData().getSegment();
+        var offset = jdbcTemplate.queryForObject("SELECT raw_data_offset FROM email WHERE id = ?", Long.class, kept.getId());
+        assertEquals(segment, deleted.getStoredRawData().getSegment());
+
+        emailRepository.deleteById(deleted.getId());
+        var compactor = compactorAt(ZonedDateTime.now(ZoneId.of("UTC")).plusMinutes(2));
+        compactor.compact();
+
+        var newSegment = jdbcTemplate.queryForObject("SELECT raw_data_segment FROM email WHERE id = ?", Integer.class, kept.getId());
+        assertNotEquals(segment, newSegment);
+        assertEquals("small message", emailRepository.findById(kept.getId()).orElseThrow().getRawDataAsString());
+        assertArrayEquals("small message".getBytes(), segmentBlobStore.read(segment, offset, 13));
+
+        compactor.compact();
+
+        assertThrows(BlobStoreException.class, () -> segmentBlobStore.read(segment, offset, 13));
+        assertEquals("small message", emailRepository.findById(kept.getId()).orElseThrow().getRawDataAsString());
+    }
+
+    private SegmentBlobCompactor compactorAt(ZonedDateTime now) {
+        var timestampProvider = mock(TimestampProvider.class);
+        when(timestampProvider.now()).thenReturn(now);
+        return new SegmentBlobCompactor(segmentBlobStore, emailRepository, attachmentBlobRepository, timestampProvider, mock(Logger.class));
+    }
+
+    private Email saveEmail(String content, String attachmentContent) {
+        var mail = new Email();
+        mail.setSubject("Test Subject");
+        mail.setRawDataAsString(content);
+        mail.setReceivedOn(ZonedDateTime.now(ZoneId.of("UTC")));
+        mail.setFromAddress("sender@example.com");
+        mail.setToAddress("receiver@example.com");
+        mail.addRecipient("receiver@example.com");
+        if (attachmentContent != null) {
+            var attachment = new EmailAttachment();
+            attachment.setFilename("file.txt");
+            attachment.setData(attachmentContent.getBytes());
+            mail.addAttachment(attachment);
+        }
+        attachmentBlobStore.deduplicate(List.of(mail));
+        return emailRepository.saveAndFlush(mail);
+    }
+}
@@ -0,0 +1,181 @@
+package de.gessnerfl.fakesmtp.blob;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SegmentBlobStoreTest {
+    private static final ZonedDateTime NOW = ZonedDateTime.now(ZoneId.of("UTC"));
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private TimestampProvider timestampProvider;
+    @Mock
+    private Logger logger;
+
+    private FakeSmtpConfigurationProperties properties;
+    private SegmentBlobStore sut;
+
+    @BeforeEach
+    void init() throws IOException {
+        lenient().when(timestampProvider.now()).thenReturn(NOW);
+        properties = new FakeSmtpConfigurationProperties();
+        properties.getPersistence().getBlobStore().setType(FakeSmtpConfigurationProperties.BlobStoreType.SEGMENT_FILES);
+        properties.getPersistence().getBlobStore().setDirectory(directory);
+        properties.getPersistence().getBlobStore().setSegmentSize(DataSize.ofBytes(16));
+        sut = open();
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        sut.close();
+    }
+
+    @Test
+    void shouldNotBeEnabledWhenBlobsAreStoredInDatabase() throws IOException {
+        properties.getPersistence().getBlobStore().setType(FakeSmtpConfigurationProperties.BlobStoreType.DATABASE);
+
+        var store = open();
+
+        assertFalse(store.isEnabled());
+        assertTrue(sut.isEnabled());
+    }
+
+    @Test
+    void shouldReadAppendedBlobs() {
+        var first = sut.append(bytes("first"));
+        var second = sut.append(bytes("second"));
+
+        assertEquals(new SegmentBlobStore.BlobLocation(0, 0, 5), first);
+        assertEquals(new SegmentBlobStore.BlobLocation(0, 5, 6), second);
+        assertArrayEquals(bytes("first"), sut.read(0, 0, 5));
+        assertArrayEquals(bytes("second"), sut.read(0, 5, 6));
+    }
+
+    @Test
+    void shouldReadBlobsOfActiveSegmentWhileItGrowsAndAfterItWasSealed() {
+        sut.append(bytes("first"));
+        assertArrayEquals(bytes("first"), sut.read(0, 0, 5));
+        sut.append(bytes("second"));
+        assertArrayEquals(bytes("second"), sut.read(0, 5, 6));
+
+        sut.append(bytes("0123456789"));
+
+        assertEquals(1, sut.getSegmentsSealedBefore(NOW.plusSeconds(1)).size());
+        assertArrayEquals(bytes("first"), sut.read(0, 0, 5));
+        assertArrayEquals(bytes("second"), sut.read(0, 5, 6));
+    }
+
+    @Test
+    void shouldKeepActiveSegmentReadableWhenReadingThreadIsInterrupted() {
+        sut.append(bytes("first"));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(BlobStoreException.class, () -> sut.read(0, 0, 5));
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertArrayEquals(bytes("first"), sut.read(0, 0, 5));
+        sut.append(bytes("second"));
+        assertArrayEquals(bytes("second"), sut.read(0, 5, 6));
+    }
+
+    @Test
+    void shouldStartNewSegmentWhenBlobDoesNotFitIntoActiveSegment() {
+        sut.append(bytes("0123456789"));
+        var location = sut.append(bytes("0123456789"));
+        var oversized = sut.append(bytes("this blob is larger than a segment"));
+
+        assertEquals(new SegmentBlobStore.BlobLocation(1, 0, 10), location);
+        assertEquals(new SegmentBlobStore.BlobLocation(2, 0, 34), oversized);
+        assertArrayEquals(bytes("this blob is larger than a segment"), sut.read(2, 0, 34));
+        assertEquals(2, sut.getSegmentsSealedBefore(NOW.plusSeconds(1)).size());
+        assertTrue(sut.getSegmentsSealedBefore(NOW).isEmpty());
+    }
+
+    @Test
+    void shouldStreamBlobsOfSourcesIntoSegments() throws IOException {
+        var first = sut.append(source("first"));
+        var second = sut.append(source("0123456789ab"));
+        var third = sut.append(source("cde"));
+
+        assertEquals(new SegmentBlobStore.BlobLocation(0, 0, 5), first);
+        assertEquals(new SegmentBlobStore.BlobLocation(1, 0, 12), second);
+        assertEquals(new SegmentBlobStore.BlobLocation(1, 12, 3), third);
+        assertEquals(5, Files.size(directory.resolve("segment-0000000000.dat")));
+        assertArrayEquals(bytes("first"), sut.read(0, 0, 5));
+        assertArrayEquals(bytes("0123456789ab"), sut.read(1, 0, 12));
+        assertArrayEquals(bytes("cde"), sut.read(1, 12, 3));
+        assertEquals(1, sut.getSegmentsSealedBefore(NOW.plusSeconds(1)).size());
+    }
+
+    @Test
+    void shouldReadBlobsOfExistingSegmentsAfterReopening() throws IOException {
+        sut.append(bytes("first"));
+        sut.close();
+
+        sut = open();
+        var location = sut.append(bytes("second"));
+
+        assertArrayEquals(bytes("first"), sut.read(0, 0, 5));
+        assertEquals(new SegmentBlobStore.BlobLocation(1, 0, 6), location);
+        assertEquals(1, sut.getSegmentsSealedBefore(NOW.plusSeconds(1)).size());
+    }
+
+    @Test
+    void shouldKeepRetiredSegmentReadableUntilRetiredSegmentsAreDeleted() {
+        sut.append(bytes("0123456789"));
+        sut.append(bytes("0123456789"));
+
+        sut.retire(0);
+        sut.retire(1);
+
+        assertArrayEquals(bytes("0123456789"), sut.read(0, 0, 10));
+        assertTrue(sut.getSegmentsSealedBefore(NOW.plusSeconds(1)).isEmpty());
+
+        sut.deleteRetiredSegments();
+
+        assertFalse(Files.exists(directory.resolve("segment-0000000000.dat")));
+        assertTrue(Files.exists(directory.resolve("segment-0000000001.dat")));
+        assertThrows(BlobStoreException.class, () -> sut.read(0, 0, 10));
+        assertArrayEquals(bytes("0123456789"), sut.read(1, 0, 10));
+    }
+
+    private SegmentBlobStore open() throws IOException {
+        var store = new SegmentBlobStore(properties, timestampProvider, logger);
+        store.open();
+        return store;
+    }
+
+    private static BlobSource source(String value) {
+        return () -> new ByteArrayInputStream(bytes(value));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -2,7 +2,9 @@ package de.gessnerfl.fakesmtp.config;
 
 import de.gessnerfl.fakesmtp.smtp.auth.BasicUsernamePasswordValidator;
 import de.gessnerfl.fakesmtp.smtp.command.CommandHandler;
+import de.gessnerfl.fakesmtp.smtp.io.SlabPool;
 import de.gessnerfl.fakesmtp.smtp.server.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -16,6 +18,7 @@ import org.springframework.core.io.ResourceLoader;
 
 import java.net.InetAddress;
 import java.util.Collections;
+import java.util.function.LongConsumer;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.instanceOf;
@@ -41,12 +44,15 @@ class BaseSmtpServerConfigTest {
     @Mock
     private Logger logger;
 
+    private SimpleMeterRegistry meterRegistry;
     private BaseSmtpServerConfig sut;
 
     @BeforeEach
     public void init() {
         MockitoAnnotations.openMocks(this);
-        sut = spy(new BaseSmtpServerConfig(buildProperties, resourceLoader, fakeSmtpConfigurationProperties, Collections.singletonList(baseMessageListener), basicUsernamePasswordValidator, commandHandler, true, logger));
+        meterRegistry = new SimpleMeterRegistry();
+        when(fakeSmtpConfigurationProperties.getIngest()).thenReturn(new FakeSmtpConfigurationProperties.Ingest());
+        sut = spy(new BaseSmtpServerConfig(buildProperties, resourceLoader, fakeSmtpConfigurationProperties, Collections.singletonList(baseMessageListener), basicUsernamePasswordValidator, commandHandler, true, meterRegistry, logger));
         when(sut.createBaseSmtpServerFor(any(MessageListenerAdapter.class), any(SessionIdFactory.class))).thenReturn(smtpServer);
     }
 
@@ -66,6 +72,29 @@ class BaseSmtpServerConfigTest {
         verify(smtpServer, never()).setRequireAuth(true);
     }
 
+    @Test
+    void shouldConfigureSpoolOfMessageContent() {
+        var slabPoolCaptor = ArgumentCaptor.forClass(SlabPool.class);
+
+        sut.smtpServer();
+
+        verify(smtpServer).setSpoolDirectory(new FakeSmtpConfigurationProperties.Ingest().getDataSpoolDirectory());
+        verify(smtpServer).setSlabPool(slabPoolCaptor.capture());
+        assertEquals(64 * 1024, slabPoolCaptor.getValue().getSlabSize());
+        assertEquals(0, meterRegistry.get(BaseSmtpServerConfig.POOLED_SLABS).gauge().value());
+    }
+
+    @Test
+    void shouldCountBytesOfOversizedMessages() {
+        var listenerCaptor = ArgumentCaptor.forClass(LongConsumer.class);
+
+        sut.smtpServer();
+
+        verify(smtpServer).setOversizedMessageListener(listenerCaptor.capture());
+        listenerCaptor.getValue().accept(2048);
+        assertEquals(2048, meterRegistry.get(BaseSmtpServerConfig.OVERSIZED_MESSAGE_BYTES).counter().count());
+    }
+
     @Test
     void shouldConfigureAuthenticationWhenAuthenticationIsConfiguredProperly() {
         var username = "username";
@@ -91,6 +120,22 @@ class BaseSmtpServerConfigTest {
         assertSame(basicUsernamePasswordValidator, easyAuthenticationHandlerFactory.getValidator());
     }
 
+    @Test
+    void shouldConfigureTransport() {
+        var transport = new FakeSmtpConfigurationProperties.Transport();
+        transport.setType(TransportType.NIO);
+        transport.setEventLoopThreads(4);
+        transport.setMaxConnections(20000);
+        when(fakeSmtpConfigurationProperties.getTransport()).thenReturn(transport);
+
+        SmtpServer result = sut.smtpServer();
+
+        assertSame(smtpServer, result);
+        verify(smtpServer).setTransportType(TransportType.NIO);
+        verify(smtpServer).setEventLoopThreads(4);
+        verify(smtpServer).setMaxConnections(20000);
+    }
+
     @Test
     void shouldSkipConfigurationOfAuthenticationWhenUsernameIsNull() {
         var authentication = mock(FakeSmtpConfigurationProperties.Authentication.class);
@@ -0,0 +1,60 @@
+package de.gessnerfl.fakesmtp.controller;
+
+import de.gessnerfl.fakesmtp.smtp.server.BlockedRecipientAddresses;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlockedRecipientControllerTest {
+
+    @Mock
+    private BlockedRecipientAddresses blockedRecipientAddresses;
+
+    @InjectMocks
+    private BlockedRecipientController sut;
+
+    @Test
+    void shouldReturnEntries() {
+        final var entries = List.of("*@example.com");
+        when(blockedRecipientAddresses.getEntries()).thenReturn(entries);
+
+        assertEquals(entries, sut.getEntries());
+    }
+
+    @Test
+    void shouldAddEntriesAndReturnAllEntries() {
+        final var entries = List.of("*@example.com");
+        when(blockedRecipientAddresses.getEntries()).thenReturn(entries);
+
+        assertEquals(entries, sut.addEntries(entries));
+        verify(blockedRecipientAddresses).add(entries);
+    }
+
+    @Test
+    void shouldRemoveEntriesAndReturnAllEntries() {
+        final var entries = List.of("*@example.com");
+        when(blockedRecipientAddresses.getEntries()).thenReturn(List.of());
+
+        assertEquals(List.of(), sut.removeEntries(entries));
+        verify(blockedRecipientAddresses).remove(entries);
+    }
+
+    @Test
+    void shouldRejectInvalidEntries() {
+        final var entries = List.of(" ");
+        doThrow(new IllegalArgumentException("Invalid blocked recipient address ' '")).when(blockedRecipientAddresses).add(entries);
+
+        var exception = assertThrows(InvalidBlockedRecipientException.class, () -> sut.addEntries(entries));
+
+        assertEquals("Invalid blocked recipient address ' '", exception.getMessage());
+        verify(blockedRecipientAddresses, never()).getEntries();
+    }
+}
@@ -4,6 +4,7 @@ import de.gessnerfl.fakesmtp.model.ContentType;
 import de.gessnerfl.fakesmtp.model.Email;
 import de.gessnerfl.fakesmtp.model.EmailAttachment;
 import de.gessnerfl.fakesmtp.model.EmailContent;
+import de.gessnerfl.fakesmtp.model.InlineImage;
 import org.apache.commons.lang3.RandomStringUtils;
 
 import java.nio.charset.StandardCharsets;
@@ -64,6 +65,26 @@ class EmailControllerUtil {
                 receivedOn, "sender@example.com", toAdress, messageId);
     }
 
+    public static Email prepareEmailWithUnparsedBody(String subject, String rawData) {
+        var mail = new Email();
+        mail.setSubject(subject);
+        mail.setRawDataAsString(rawData);
+        mail.setReceivedOn(getUtcNow());
+        mail.setFromAddress("sender@example.com");
+        mail.setToAddress("receiver@example.com");
+        mail.addRecipient("receiver@example.com");
+        mail.setBodyParsed(false);
+        return mail;
+    }
+
+    public static InlineImage prepareInlineImage(String contentId, String contentType, byte[] data) {
+        var inlineImage = new InlineImage();
+        inlineImage.setContentId(contentId);
+        inlineImage.setContentType(contentType);
+        inlineImage.setData(data);
+        return inlineImage;
+    }
+
     private static ZonedDateTime getUtcNow() {
         return ZonedDateTime.now(ZoneId.of("UTC"));
     }
@@ -79,10 +100,11 @@ class EmailControllerUtil {
             String messageId) {
         var mail = new Email();
         mail.setSubject(subject);
-        mail.setRawData(rawData);
+        mail.setRawDataAsString(rawData);
         mail.setReceivedOn(receivedOn);
         mail.setFromAddress(fromAddress);
         mail.setToAddress(toAdress);
+        mail.addRecipient(toAdress);
         mail.setMessageId(messageId);
         mail.addContent(emailContent);
         mail.addAttachment(emailAttachment);
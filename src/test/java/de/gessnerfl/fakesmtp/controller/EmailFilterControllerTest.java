@@ -0,0 +1,52 @@
+package de.gessnerfl.fakesmtp.controller;
+
+import de.gessnerfl.fakesmtp.smtp.server.EmailFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailFilterControllerTest {
+
+    @Mock
+    private EmailFilter emailFilter;
+
+    @InjectMocks
+    private EmailFilterController sut;
+
+    @Test
+    void shouldReturnActiveRules() {
+        final var rules = List.of(".*@example\\.com");
+        when(emailFilter.getRules()).thenReturn(rules);
+
+        assertEquals(rules, sut.getRules());
+    }
+
+    @Test
+    void shouldReplaceRulesAndReturnActiveRules() {
+        final var rules = List.of(".*@example\\.com");
+        when(emailFilter.getRules()).thenReturn(rules);
+
+        assertEquals(rules, sut.replaceRules(rules));
+        verify(emailFilter).replaceRules(rules);
+    }
+
+    @Test
+    void shouldRejectInvalidRules() {
+        final var rules = List.of("****");
+        doThrow(new PatternSyntaxException("Dangling meta character", "****", 0)).when(emailFilter).replaceRules(rules);
+
+        var exception = assertThrows(InvalidFilterRuleException.class, () -> sut.replaceRules(rules));
+
+        assertEquals("Invalid filter rule ****", exception.getMessage());
+        verify(emailFilter, never()).getRules();
+    }
+}
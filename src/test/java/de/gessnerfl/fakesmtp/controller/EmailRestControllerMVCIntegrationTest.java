@@ -3,7 +3,10 @@ package de.gessnerfl.fakesmtp.controller;
 import tools.jackson.core.type.TypeReference;
 import tools.jackson.databind.ObjectMapper;
 
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.model.AttachmentBlob;
 import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailSummary;
 import de.gessnerfl.fakesmtp.model.RestResponsePage;
 import de.gessnerfl.fakesmtp.model.query.*;
 import de.gessnerfl.fakesmtp.repository.EmailRepository;
@@ -14,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
@@ -23,6 +27,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.io.IOException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,6 +38,7 @@ import java.time.format.DateTimeFormatter;
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -51,6 +57,8 @@ class EmailRestControllerMVCIntegrationTest {
 
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @BeforeEach
     void init() {
@@ -120,6 +128,41 @@ class EmailRestControllerMVCIntegrationTest {
         assertEquals(0, emailPage.getContent().size());
     }
 
+    @Test
+    void shouldReturnFirstPageOfEmailSummaries() throws Exception {
+        createRandomEmail(5);
+        var email2 = createRandomEmail(2);
+        var email3 = createRandomEmail(1);
+
+        final var mvcResult = this.mockMvc.perform(get("/api/emails/summaries?page=0&size=2")).andReturn();
+
+        assertEquals(200, mvcResult.getResponse().getStatus());
+        final var summaryPage = mapFromJson(mvcResult.getResponse().getContentAsString(), new TypeReference<RestResponsePage<EmailSummary>>() {});
+        assertEquals(0, summaryPage.getNumber());
+        assertEquals(2, summaryPage.getSize());
+        assertEquals(2, summaryPage.getTotalPages());
+        assertEquals(3, summaryPage.getTotalElements());
+        assertEquals(List.of(email3.getId(), email2.getId()), summaryPage.getContent().stream().map(EmailSummary::id).toList());
+        var summary = summaryPage.getContent().getFirst();
+        assertEquals(email3.getFromAddress(), summary.fromAddress());
+        assertEquals(email3.getToAddress(), summary.toAddress());
+        assertEquals(email3.getSubject(), summary.subject());
+        assertEquals(email3.getReceivedOn().toInstant().truncatedTo(ChronoUnit.MILLIS), summary.receivedOn().toInstant());
+        assertEquals(1, summary.attachmentCount());
+    }
+
+    @Test
+    void shouldReturnSummariesWithoutContentOfEmails() throws Exception {
+        createRandomEmail(1);
+
+        this.mockMvc.perform(get("/api/emails/summaries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].subject").exists())
+                .andExpect(jsonPath("$.content[0].rawData").doesNotExist())
+                .andExpect(jsonPath("$.content[0].contents").doesNotExist())
+                .andExpect(jsonPath("$.content[0].attachments").doesNotExist());
+    }
+
     @Test
     void shouldReturnMailById() throws Exception {
         var email = createRandomEmail(1);
@@ -137,6 +180,42 @@ class EmailRestControllerMVCIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldExtractBodyOfMailOnFirstAccessWhenOnlyHeadersWereParsed() throws Exception {
+        var email = save(EmailControllerUtil.prepareEmailWithUnparsedBody("Lazy", "Subject: Lazy\r\nContent-Type: text/plain\r\n\r\nLazy content\r\n"));
+
+        final var mvcResult = this.mockMvc.perform(get("/api/emails/" + email.getId())).andReturn();
+
+        assertEquals(200, mvcResult.getResponse().getStatus());
+        final var actualEmail = mapFromJson(mvcResult.getResponse().getContentAsString());
+        assertThat(actualEmail.getContents(), hasSize(1));
+        assertEquals("Lazy content", actualEmail.getPlainContent().orElseThrow().getData());
+        assertTrue(emailRepository.findById(email.getId()).orElseThrow().isBodyParsed());
+
+        final var secondResult = this.mockMvc.perform(get("/api/emails")).andReturn();
+
+        final var emailPage = mapFromJson(secondResult.getResponse().getContentAsString(), new TypeReference<RestResponsePage<Email>>() {});
+        assertThat(emailPage.getContent().getFirst().getContents(), hasSize(1));
+    }
+
+    @Test
+    void shouldReturnRawDataOfEmail() throws Exception {
+        var email = createRandomEmail(1);
+
+        this.mockMvc.perform(get("/api/emails/" + email.getId() + "/raw"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=email-" + email.getId() + ".eml"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, String.valueOf(email.getRawData().length)))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "message/rfc822"))
+                .andExpect(content().bytes(email.getRawData()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenRawDataIsRequestedButMailIdIsNotValid() throws Exception {
+        this.mockMvc.perform(get("/api/emails/123/raw"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldReturnAttachmentForEmail() throws Exception {
         var email = createRandomEmail(1);
@@ -166,6 +245,40 @@ class EmailRestControllerMVCIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldReturnInlineImageOfEmailAndOnlyReferenceItInEmail() throws Exception {
+        var imageData = new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, 1, 2, 3};
+        var email = EmailControllerUtil.prepareRandomEmail(1);
+        email.addInlineImage(EmailControllerUtil.prepareInlineImage("icon@example.com", "image/png", imageData));
+        email = save(email);
+
+        this.mockMvc.perform(get("/api/emails/" + email.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inlineImages[0].contentId").value("icon@example.com"))
+                .andExpect(jsonPath("$.inlineImages[0].contentType").value("image/png"))
+                .andExpect(jsonPath("$.inlineImages[0].size").value(imageData.length))
+                .andExpect(jsonPath("$.inlineImages[0].data").doesNotExist());
+        this.mockMvc.perform(get("/api/emails/" + email.getId() + "/inline-images/icon@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_PNG_VALUE))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, String.valueOf(imageData.length)))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + AttachmentBlob.digestOf(imageData) + "\""))
+                .andExpect(content().bytes(imageData));
+        this.mockMvc.perform(get("/api/emails/" + email.getId() + "/inline-images/icon@example.com")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + AttachmentBlob.digestOf(imageData) + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void shouldReturnErrorWhenInlineImageIsRequestedButContentIdIsNotValid() throws Exception {
+        var email = createRandomEmail(1);
+
+        this.mockMvc.perform(get("/api/emails/" + email.getId() + "/inline-images/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldDeleteEmail() throws Exception {
         var email = createRandomEmail(1);
@@ -225,6 +338,30 @@ class EmailRestControllerMVCIntegrationTest {
         assertEquals(List.of(email1), emailSearchResult.getContent());
     }
 
+    @Test
+    void shouldSearchEmailsByAnyRecipientOfToAddress() throws Exception {
+        createRandomEmails(5, 1);
+        var email = EmailControllerUtil.prepareEmail("subject", "first@address.domain", 1);
+        email.setToAddress("first@address.domain, second@address.domain");
+        email.addRecipient("second@address.domain");
+        var email1 = save(email);
+
+        final var mvcResult = this.mockMvc.perform(post("/api/emails/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filter\": {" +
+                                "\"type\": \"equal\"," +
+                                "\"property\": \"toAddress\"," +
+                                "\"value\": \"second@address.domain\"" +
+                                "}}"))
+                .andReturn();
+
+        final var emailSearchResult = mapFromJson(mvcResult.getResponse().getContentAsString(), new TypeReference<RestResponsePage<Email>>() {});
+
+        assertEquals(1, emailSearchResult.getNumberOfElements());
+        assertEquals(List.of(email1), emailSearchResult.getContent());
+        assertEquals(List.of("first@address.domain", "second@address.domain"), emailSearchResult.getContent().getFirst().getRecipients());
+    }
+
     @Test
     void shouldSearchEmailsByMessageId() throws Exception {
         final var messageId = "my-message-id";
@@ -547,6 +684,80 @@ class EmailRestControllerMVCIntegrationTest {
         assertEquals(0, emailSearchResult.getNumberOfElements());
     }
 
+    @Test
+    void shouldAwaitEmailsWhichAreAlreadyStored() throws Exception {
+        var email = save(EmailControllerUtil.prepareEmail("await subject", "receiver@example.com", 1));
+        final var awaitRequest = AwaitRequest.of(new EqualExpression("subject", "await subject"), 1, 10);
+
+        final var asyncResult = mockMvc.perform(post("/api/emails/await")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapToJson(awaitRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        final var mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        final var awaitResult = mapFromJson(mvcResult.getResponse().getContentAsString(), new TypeReference<AwaitResponse>() {});
+        assertTrue(awaitResult.satisfied());
+        assertEquals(List.of(email), awaitResult.emails().getContent());
+    }
+
+    @Test
+    void shouldAwaitEmailWhichIsReceivedWhileWaiting() throws Exception {
+        final var awaitRequest = AwaitRequest.of(new LikeExpression(Email.TO_ADDRESS, "awaited@"), 1, 30);
+
+        final var asyncResult = mockMvc.perform(post("/api/emails/await")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapToJson(awaitRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var otherEmail = save(EmailControllerUtil.prepareEmail("other subject", "other@example.com", 0));
+        eventPublisher.publishEvent(EmailReceived.of(otherEmail));
+        var email = save(EmailControllerUtil.prepareEmail("await subject", "awaited@example.com", 0));
+        eventPublisher.publishEvent(EmailReceived.of(email));
+
+        final var mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        final var awaitResult = mapFromJson(mvcResult.getResponse().getContentAsString(), new TypeReference<AwaitResponse>() {});
+        assertTrue(awaitResult.satisfied());
+        assertEquals(List.of(email), awaitResult.emails().getContent());
+    }
+
+    @Test
+    void shouldRespondWithUnsatisfiedResultWhenAwaitedEmailsAreNotReceived() throws Exception {
+        save(EmailControllerUtil.prepareEmail("await subject", "receiver@example.com", 1));
+        final var awaitRequest = AwaitRequest.of(new EqualExpression("subject", "await subject"), 2, 1);
+
+        final var asyncResult = mockMvc.perform(post("/api/emails/await")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapToJson(awaitRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        final var mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        final var awaitResult = mapFromJson(mvcResult.getResponse().getContentAsString(), new TypeReference<AwaitResponse>() {});
+        assertFalse(awaitResult.satisfied());
+        assertEquals(1, awaitResult.emails().getTotalElements());
+    }
+
+    @Test
+    void shouldRejectAwaitRequestWithInvalidTimeout() throws Exception {
+        final var awaitRequest = AwaitRequest.of(null, 1, AwaitRequest.MAX_TIMEOUT_SECONDS + 1);
+
+        mockMvc.perform(post("/api/emails/await")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapToJson(awaitRequest)))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    private record AwaitResponse(boolean satisfied, RestResponsePage<Email> emails) {
+    }
 
     private Email mapFromJson(String json) throws IOException {
         return objectMapper.readValue(json, Email.class);
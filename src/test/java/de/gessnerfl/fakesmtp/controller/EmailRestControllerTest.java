@@ -2,7 +2,9 @@ package de.gessnerfl.fakesmtp.controller;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -24,6 +26,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,12 +35,25 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import de.gessnerfl.fakesmtp.event.EmailDeleted;
+import de.gessnerfl.fakesmtp.event.EmailsPurged;
 import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.AttachmentBlob;
 import de.gessnerfl.fakesmtp.model.EmailAttachment;
+import de.gessnerfl.fakesmtp.model.EmailSummary;
+import de.gessnerfl.fakesmtp.model.InlineImage;
+import de.gessnerfl.fakesmtp.model.query.AwaitRequest;
+import de.gessnerfl.fakesmtp.model.query.LikeExpression;
 import de.gessnerfl.fakesmtp.repository.EmailAttachmentRepository;
 import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import de.gessnerfl.fakesmtp.service.AttachmentBlobStore;
+import de.gessnerfl.fakesmtp.service.EmailAwaitService;
+import de.gessnerfl.fakesmtp.service.EmailBodyLoader;
 import de.gessnerfl.fakesmtp.service.EmailSseEmitterService;
 import de.gessnerfl.fakesmtp.util.MediaTypeUtil;
 import jakarta.servlet.ServletContext;
@@ -53,6 +70,14 @@ class EmailRestControllerTest {
 	private ServletContext servletContext;
 	@Mock
 	private EmailSseEmitterService emailSseEmitterService;
+	@Mock
+	private EmailBodyLoader emailBodyLoader;
+	@Mock
+	private AttachmentBlobStore attachmentBlobStore;
+	@Mock
+	private EmailAwaitService emailAwaitService;
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
 
 	@InjectMocks
 	private EmailRestController sut;
@@ -70,9 +95,25 @@ class EmailRestControllerTest {
 		verify(emailRepository).findAll(pageableCaptor.capture());
 		assertEquals(pageableCaptor.getValue(), pageable);
 		assertEquals(page, result);
+		verify(emailBodyLoader).loadBodies(page.getContent());
 		verifyNoMoreInteractions(emailRepository);
 	}
 
+	@Test
+	void shouldReturnSummariesOfEmails() {
+		@SuppressWarnings("unchecked")
+		final Page<EmailSummary> page = mock(Page.class);
+		var pageable = PageRequest.of(0, 5, Sort.Direction.DESC, "receivedOn");
+		when(emailRepository.findAllSummaries(pageable)).thenReturn(page);
+
+		var result = sut.summaries(pageable);
+
+		assertEquals(page, result);
+		verify(emailRepository).findAllSummaries(pageable);
+		verifyNoMoreInteractions(emailRepository);
+		verifyNoMoreInteractions(emailBodyLoader);
+	}
+
 	@Test
 	void shouldReturnSingleEmailWhenIdIsValid() {
 		var id = 12L;
@@ -83,6 +124,7 @@ class EmailRestControllerTest {
 
 		assertEquals(mail, result);
 		verify(emailRepository).findById(id);
+		verify(emailBodyLoader).loadBody(mail);
 	}
 
 	@Test
@@ -111,6 +153,83 @@ class EmailRestControllerTest {
 		assertArrayEquals(fileContent, result.getBody().getByteArray());
 	}
 
+	@Test
+	void shouldReturnResponseEntityForInlineImage() {
+		var imageData = new byte[]{1, 2, 3};
+		var emailId = 123L;
+		var contentType = "image/png; name=icon.png";
+		var email = mock(Email.class);
+		var inlineImage = mock(InlineImage.class);
+
+		when(emailRepository.findById(emailId)).thenReturn(Optional.of(email));
+		when(email.getInlineImageByContentId("icon")).thenReturn(Optional.of(inlineImage));
+		when(inlineImage.getBlob()).thenReturn(new AttachmentBlob(imageData));
+		when(inlineImage.getContentType()).thenReturn(contentType);
+		when(inlineImage.getData()).thenReturn(imageData);
+		when(mediaTypeUtil.getMediaType(contentType)).thenReturn(MediaType.IMAGE_PNG);
+
+		var result = sut.getEmailInlineImageByContentId(emailId, "icon", new ServletWebRequest(new MockHttpServletRequest()));
+
+		assertEquals(HttpStatus.OK, result.getStatusCode());
+		assertEquals(MediaType.IMAGE_PNG_VALUE, result.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+		assertEquals("no-cache, private", result.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+		assertEquals("\"" + AttachmentBlob.digestOf(imageData) + "\"", result.getHeaders().getETag());
+		assertArrayEquals(imageData, result.getBody().getByteArray());
+		verify(emailBodyLoader).loadBody(email);
+	}
+
+	@Test
+	void shouldReturnNotModifiedWhenInlineImageMatchesTheETagOfTheRequest() {
+		var imageData = new byte[]{1, 2, 3};
+		var emailId = 123L;
+		var email = mock(Email.class);
+		var inlineImage = mock(InlineImage.class);
+		var request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + AttachmentBlob.digestOf(imageData) + "\"");
+
+		when(emailRepository.findById(emailId)).thenReturn(Optional.of(email));
+		when(email.getInlineImageByContentId("icon")).thenReturn(Optional.of(inlineImage));
+		when(inlineImage.getBlob()).thenReturn(new AttachmentBlob(imageData));
+
+		var result = sut.getEmailInlineImageByContentId(emailId, "icon", new ServletWebRequest(request));
+
+		assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+		assertEquals("no-cache, private", result.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+		assertNull(result.getBody());
+		verify(inlineImage, never()).getData();
+	}
+
+	@Test
+	void shouldReturnInlineImageWithoutImageContentTypeAsOctetStream() {
+		var emailId = 123L;
+		var email = mock(Email.class);
+		var inlineImage = mock(InlineImage.class);
+
+		when(emailRepository.findById(emailId)).thenReturn(Optional.of(email));
+		when(email.getInlineImageByContentId("page")).thenReturn(Optional.of(inlineImage));
+		when(inlineImage.getBlob()).thenReturn(new AttachmentBlob(new byte[]{1}));
+		when(inlineImage.getContentType()).thenReturn(MediaType.TEXT_HTML_VALUE);
+		when(inlineImage.getData()).thenReturn(new byte[]{1});
+		when(mediaTypeUtil.getMediaType(MediaType.TEXT_HTML_VALUE)).thenReturn(MediaType.TEXT_HTML);
+
+		var result = sut.getEmailInlineImageByContentId(emailId, "page", new ServletWebRequest(new MockHttpServletRequest()));
+
+		assertEquals(MediaType.APPLICATION_OCTET_STREAM_VALUE, result.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+		assertEquals("sandbox", result.getHeaders().getFirst("Content-Security-Policy"));
+	}
+
+	@Test
+	void shouldThrowExceptionWhenNoInlineImageExistsForTheGivenContentId() {
+		var emailId = 123L;
+		var email = mock(Email.class);
+
+		when(emailRepository.findById(emailId)).thenReturn(Optional.of(email));
+		when(email.getInlineImageByContentId("icon")).thenReturn(Optional.empty());
+
+		assertThrows(InlineImageNotFoundException.class, () -> sut.getEmailInlineImageByContentId(emailId, "icon",
+				new ServletWebRequest(new MockHttpServletRequest())));
+	}
+
 	@Test
 	void shouldThrowExceptionWhenNoAttachmentExistsForTheGivenId() {
 		var emailId = 123L;
@@ -147,15 +266,22 @@ class EmailRestControllerTest {
 
 		verify(emailRepository).deleteById(emailId);
 		verify(emailRepository).flush();
+		verify(attachmentBlobStore).removeOrphans();
+		verify(eventPublisher).publishEvent(new EmailDeleted(emailId));
 	}
 
 	@Test
 	void shouldDeleteAllEmails() {
+		when(emailRepository.count()).thenReturn(5L);
+
 		sut.deleteAllEmails();
 
+		verify(emailRepository).count();
 		verify(emailAttachmentRepository).deleteAllInBatch();
 		verify(emailRepository).deleteAllInBatch();
 		verify(emailRepository).flush();
+		verify(attachmentBlobStore).removeOrphans();
+		verify(eventPublisher).publishEvent(new EmailsPurged(5));
 		verifyNoMoreInteractions(emailRepository);
 	}
 
@@ -229,4 +355,36 @@ class EmailRestControllerTest {
 		verifyNoMoreInteractions(emailSseEmitterService, emitter);
 	}
 
+	@Test
+	void shouldAwaitEmailsOnExecutorOfAwaitService() throws Exception {
+		final var request = AwaitRequest.of(new LikeExpression("subject", "foo"), 2, 5);
+		@SuppressWarnings("unchecked")
+		final Page<Email> page = mock(Page.class);
+		final var executor = new SimpleAsyncTaskExecutor();
+		when(emailAwaitService.getExecutor()).thenReturn(executor);
+		when(emailAwaitService.await(request)).thenReturn(new EmailAwaitService.AwaitResult(true, page));
+
+		var task = sut.await(request);
+
+		assertSame(executor, task.getExecutor());
+		assertEquals(15000L, task.getTimeout());
+		var result = (EmailAwaitService.AwaitResult) task.getCallable().call();
+		assertTrue(result.satisfied());
+		assertSame(page, result.emails());
+	}
+
+	@Test
+	void shouldRespondWithUnsatisfiedResultWhenNotEnoughEmailsWereReceived() throws Exception {
+		final var request = AwaitRequest.of(new LikeExpression("subject", "foo"), 2, 5);
+		@SuppressWarnings("unchecked")
+		final Page<Email> page = mock(Page.class);
+		when(emailAwaitService.getExecutor()).thenReturn(new SimpleAsyncTaskExecutor());
+		when(emailAwaitService.await(request)).thenReturn(new EmailAwaitService.AwaitResult(false, page));
+
+		var result = (EmailAwaitService.AwaitResult) sut.await(request).getCallable().call();
+
+		assertFalse(result.satisfied());
+		assertSame(page, result.emails());
+	}
+
 }
@@ -0,0 +1,46 @@
+package de.gessnerfl.fakesmtp.controller;
+
+import de.gessnerfl.fakesmtp.smtp.server.MessageForwarder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ForwardingControllerTest {
+
+    @Mock
+    private MessageForwarder messageForwarder;
+
+    @InjectMocks
+    private ForwardingController sut;
+
+    @Test
+    void shouldReturnDeadLetters() {
+        final var deadLetters = List.of(new MessageForwarder.DeadLetter(1, 2L, "from", List.of("to"), 5, "error", ZonedDateTime.now()));
+        when(messageForwarder.getDeadLetters()).thenReturn(deadLetters);
+
+        assertEquals(deadLetters, sut.getDeadLetters());
+    }
+
+    @Test
+    void shouldRetryDeadLetters() {
+        when(messageForwarder.retryDeadLetters()).thenReturn(3);
+
+        assertEquals(3, sut.retryDeadLetters());
+    }
+
+    @Test
+    void shouldDeleteDeadLetters() {
+        sut.deleteDeadLetters();
+
+        verify(messageForwarder).deleteDeadLetters();
+    }
+}
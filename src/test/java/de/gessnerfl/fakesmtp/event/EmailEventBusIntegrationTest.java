@@ -0,0 +1,50 @@
+package de.gessnerfl.fakesmtp.event;
+
+import de.gessnerfl.fakesmtp.metrics.EmailEventMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles({"mockserver", "integrationtest"})
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class EmailEventBusIntegrationTest {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldOnlyDeliverEventsOfCommittedTransactions() throws Exception {
+        final var deletedCounter = meterRegistry.get(EmailEventMetrics.EMAILS_DELETED).counter();
+        final var initialCount = deletedCounter.count();
+        final var transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new EmailsPurged(100));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new EmailsPurged(3));
+            assertEquals(initialCount, deletedCounter.count());
+        });
+
+        final var deadline = System.currentTimeMillis() + 5000;
+        while (deletedCounter.count() == initialCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(initialCount + 3, deletedCounter.count());
+    }
+}
@@ -0,0 +1,101 @@
+package de.gessnerfl.fakesmtp.event;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EmailEventBusTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties = new FakeSmtpConfigurationProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Logger logger = mock(Logger.class);
+    private final CountDownLatch releaseSlowSubscriber = new CountDownLatch(1);
+    private EmailEventBus sut;
+
+    @AfterEach
+    void cleanup() {
+        releaseSlowSubscriber.countDown();
+        sut.stop();
+    }
+
+    @Test
+    void shouldDeliverEventsToAllSubscribersWithoutWaitingForSlowSubscribers() throws Exception {
+        var slowSubscriber = new SlowSubscriber();
+        var subscriber = mock(EmailEventSubscriber.class);
+        when(subscriber.getSubscriberName()).thenReturn("subscriber");
+        startBus(slowSubscriber, subscriber);
+        var event = new EmailDeleted(1L);
+
+        sut.dispatch(event);
+
+        verify(subscriber, timeout(TIMEOUT_MILLIS)).onEmailEvent(event);
+        assertTrue(slowSubscriber.started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldDropEventsWhenQueueOfSubscriberIsFull() throws Exception {
+        fakeSmtpConfigurationProperties.getEvents().setQueueCapacity(1);
+        var slowSubscriber = new SlowSubscriber();
+        startBus(slowSubscriber);
+
+        sut.dispatch(new EmailDeleted(1L));
+        assertTrue(slowSubscriber.started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        sut.dispatch(new EmailDeleted(2L));
+        sut.dispatch(new EmailDeleted(3L));
+
+        assertEquals(List.of(new EmailDeleted(3L)), slowSubscriber.dropped);
+        assertEquals(1, meterRegistry.get(EmailEventBus.DROPPED).tag("subscriber", "SlowSubscriber").counter().count());
+        assertEquals(1, meterRegistry.get(EmailEventBus.QUEUE_DEPTH).tag("subscriber", "SlowSubscriber").gauge().value());
+    }
+
+    @Test
+    void shouldContinueDeliveryWhenSubscriberFails() {
+        var subscriber = mock(EmailEventSubscriber.class);
+        when(subscriber.getSubscriberName()).thenReturn("subscriber");
+        var failingEvent = new EmailDeleted(1L);
+        var event = new EmailDeleted(2L);
+        doThrow(new IllegalStateException("failed")).when(subscriber).onEmailEvent(failingEvent);
+        startBus(subscriber);
+
+        sut.dispatch(failingEvent);
+        sut.dispatch(event);
+
+        verify(subscriber, timeout(TIMEOUT_MILLIS)).onEmailEvent(event);
+    }
+
+    private void startBus(EmailEventSubscriber... subscribers) {
+        sut = new EmailEventBus(List.of(subscribers), fakeSmtpConfigurationProperties, meterRegistry, logger);
+        sut.start();
+    }
+
+    private class SlowSubscriber implements EmailEventSubscriber {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final List<EmailEvent> dropped = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEmailEvent(EmailEvent event) {
+            started.countDown();
+            try {
+                releaseSlowSubscriber.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void onEventDropped(EmailEvent event) {
+            dropped.add(event);
+        }
+    }
+}
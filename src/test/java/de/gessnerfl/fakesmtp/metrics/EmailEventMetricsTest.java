@@ -0,0 +1,32 @@
+package de.gessnerfl.fakesmtp.metrics;
+
+import de.gessnerfl.fakesmtp.event.EmailDeleted;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.event.EmailsPurged;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailEventMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final EmailEventMetrics sut = new EmailEventMetrics(registry);
+
+	@Test
+	void shouldCountStoredEmails() {
+		sut.onEmailEvent(new EmailReceived(1L, null));
+		sut.onEmailEvent(new EmailReceived(2L, null));
+
+		assertThat(registry.get(EmailEventMetrics.EMAILS_STORED).counter().count()).isEqualTo(2);
+		assertThat(registry.get(EmailEventMetrics.EMAILS_DELETED).counter().count()).isZero();
+	}
+
+	@Test
+	void shouldCountDeletedAndPurgedEmails() {
+		sut.onEmailEvent(new EmailDeleted(1L));
+		sut.onEmailEvent(new EmailsPurged(5));
+
+		assertThat(registry.get(EmailEventMetrics.EMAILS_DELETED).counter().count()).isEqualTo(6);
+	}
+}
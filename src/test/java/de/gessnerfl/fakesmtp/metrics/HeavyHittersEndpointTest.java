@@ -0,0 +1,26 @@
+package de.gessnerfl.fakesmtp.metrics;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeavyHittersEndpointTest {
+
+	@Test
+	void shouldReturnConfiguredNumberOfTopSendersAndRecipients() {
+		var properties = new FakeSmtpConfigurationProperties();
+		properties.getMetrics().setHeavyHittersLimit(1);
+		var heavyHitters = new HeavyHitters(properties);
+		heavyHitters.recordSender("a@example.com");
+		heavyHitters.recordSender("b@example.com");
+		heavyHitters.recordSender("b@example.com");
+		heavyHitters.recordRecipient("c@example.com");
+		var sut = new HeavyHittersEndpoint(heavyHitters, properties);
+
+		var result = sut.heavyHitters();
+
+		assertThat(result.senders()).containsExactly(new SpaceSavingSketch.Entry("b@example.com", 2, 0));
+		assertThat(result.recipients()).containsExactly(new SpaceSavingSketch.Entry("c@example.com", 1, 0));
+	}
+}
@@ -1,5 +1,6 @@
 package de.gessnerfl.fakesmtp.metrics;
 
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
 import de.gessnerfl.fakesmtp.smtp.server.BlockedRecipientAddresses;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -10,6 +11,8 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.verify;
@@ -20,8 +23,12 @@ class MetricsMessageListenerTest {
 
 	@Mock
 	private BlockedRecipientAddresses blockedRecipientAddresses;
+	@Mock
+	private HeavyHitters heavyHitters;
 	@Spy
 	private MeterRegistry registry = new SimpleMeterRegistry();
+	@Spy
+	private FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties = new FakeSmtpConfigurationProperties();
 	@InjectMocks
 	private MetricsMessageListener sut;
 
@@ -57,4 +64,63 @@ class MetricsMessageListenerTest {
 				.isEqualTo(1);
 
 	}
+
+	@Test
+	void shouldTagCountersWithDomainsByDefault() {
+		sut.deliver("Sender@Example.com", List.of("first@test.org", "second@test.org"), null);
+
+		assertThat(registry.getMeters()).hasSize(1);
+		assertThat(registry.counter(MetricsMessageListener.MESSAGES_DELIVERED,
+				"from", "example.com", "recipient", "test.org")
+				.count())
+				.isEqualTo(2);
+	}
+
+	@Test
+	void shouldTagCountersWithAddressesWhenConfigured() {
+		fakeSmtpConfigurationProperties.getMetrics().setTagMode(FakeSmtpConfigurationProperties.MetricsTagMode.ADDRESS);
+
+		sut.deliver("sender@example.com", "receiver@test.org", null);
+
+		assertThat(registry.counter(MetricsMessageListener.MESSAGES_DELIVERED,
+				"from", "sender@example.com", "recipient", "receiver@test.org")
+				.count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotTagCountersWhenConfigured() {
+		fakeSmtpConfigurationProperties.getMetrics().setTagMode(FakeSmtpConfigurationProperties.MetricsTagMode.NONE);
+
+		sut.deliver("sender@example.com", List.of("first@test.org", "second@other.org"), null);
+
+		assertThat(registry.getMeters()).hasSize(1);
+		assertThat(registry.get(MetricsMessageListener.MESSAGES_DELIVERED).counter().getId().getTags()).isEmpty();
+		assertThat(registry.get(MetricsMessageListener.MESSAGES_DELIVERED).counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldReportTagValuesExceedingTheLimitAsOther() {
+		fakeSmtpConfigurationProperties.getMetrics().setMaxTagValues(2);
+
+		sut.deliver("sender@example.com", List.of("first@test.org", "second@other.org", "third@test.org"), null);
+
+		assertThat(registry.counter(MetricsMessageListener.MESSAGES_DELIVERED,
+				"from", "example.com", "recipient", "test.org")
+				.count())
+				.isEqualTo(2);
+		assertThat(registry.counter(MetricsMessageListener.MESSAGES_DELIVERED,
+				"from", "example.com", "recipient", MetricsMessageListener.OTHER_TAG_VALUE)
+				.count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void shouldRecordSenderOncePerMessageAndEveryRecipientAsHeavyHitters() {
+		sut.deliver("sender@example.com", List.of("first@test.org", "second@test.org"), null);
+
+		verify(heavyHitters).recordSender("sender@example.com");
+		verify(heavyHitters).recordRecipient("first@test.org");
+		verify(heavyHitters).recordRecipient("second@test.org");
+	}
 }
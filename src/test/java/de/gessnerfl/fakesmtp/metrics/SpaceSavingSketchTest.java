@@ -0,0 +1,66 @@
+package de.gessnerfl.fakesmtp.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpaceSavingSketchTest {
+
+	@Test
+	void shouldCountItemsExactlyAsLongAsCapacityIsNotExceeded() {
+		var sut = new SpaceSavingSketch(3);
+
+		add(sut, "a", 3);
+		add(sut, "b", 1);
+		add(sut, "c", 2);
+
+		assertThat(sut.top(10)).containsExactly(
+				new SpaceSavingSketch.Entry("a", 3, 0),
+				new SpaceSavingSketch.Entry("c", 2, 0),
+				new SpaceSavingSketch.Entry("b", 1, 0));
+	}
+
+	@Test
+	void shouldReplaceItemWithLowestCountWhenCapacityIsExceeded() {
+		var sut = new SpaceSavingSketch(2);
+
+		add(sut, "a", 5);
+		add(sut, "b", 2);
+		sut.add("c");
+
+		assertThat(sut.top(2)).containsExactly(
+				new SpaceSavingSketch.Entry("a", 5, 0),
+				new SpaceSavingSketch.Entry("c", 3, 2));
+	}
+
+	@Test
+	void shouldKeepFrequentItemsInStreamOfMostlyUniqueItems() {
+		var sut = new SpaceSavingSketch(10);
+
+		for (int i = 0; i < 1000; i++) {
+			sut.add("unique-" + i);
+			if (i % 4 == 0) {
+				sut.add("frequent");
+			}
+		}
+
+		var top = sut.top(1);
+		assertThat(top).extracting(SpaceSavingSketch.Entry::item).isEqualTo(List.of("frequent"));
+		assertThat(top.getFirst().count() - top.getFirst().error()).isLessThanOrEqualTo(250);
+		assertThat(top.getFirst().count()).isGreaterThanOrEqualTo(250);
+	}
+
+	@Test
+	void shouldRejectCapacityLessThanOne() {
+		assertThrows(IllegalArgumentException.class, () -> new SpaceSavingSketch(0));
+	}
+
+	private static void add(SpaceSavingSketch sketch, String item, int times) {
+		for (int i = 0; i < times; i++) {
+			sketch.add(item);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package de.gessnerfl.fakesmtp.model.query;
+
+import de.gessnerfl.fakesmtp.model.Email;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterExpressionTest {
+    private static final ZonedDateTime RECEIVED_ON = ZonedDateTime.of(2024, 5, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void shouldMatchEqualAndNotEqualExpressions() {
+        var email = createEmail();
+
+        assertTrue(new EqualExpression("subject", "Test Subject").matches(email));
+        assertFalse(new EqualExpression("subject", "test subject").matches(email));
+        assertTrue(new EqualExpression("id", 42).matches(email));
+        assertTrue(new NotEqualExpression("fromAddress", "other@example.com").matches(email));
+        assertFalse(new NotEqualExpression("fromAddress", "sender@example.com").matches(email));
+    }
+
+    @Test
+    void shouldMatchToAddressIfAnyRecipientFulfillsTheCondition() {
+        var email = createEmail();
+
+        assertTrue(new EqualExpression(Email.TO_ADDRESS, "second@example.com").matches(email));
+        assertTrue(new NotEqualExpression(Email.TO_ADDRESS, "second@example.com").matches(email));
+        assertFalse(new EqualExpression(Email.TO_ADDRESS, "third@example.com").matches(email));
+    }
+
+    @Test
+    void shouldMatchLikeExpressionCaseInsensitive() {
+        var email = createEmail();
+
+        assertTrue(new LikeExpression("subject", "sUBJ").matches(email));
+        assertTrue(new LikeExpression(Email.TO_ADDRESS, "FIRST@").matches(email));
+        assertFalse(new LikeExpression("subject", "foo").matches(email));
+    }
+
+    @Test
+    void shouldMatchComparisonsOfDates() {
+        var email = createEmail();
+        var sameInstantInOtherZone = RECEIVED_ON.withZoneSameInstant(ZoneOffset.ofHours(2)).toOffsetDateTime().toString();
+
+        assertTrue(new EqualExpression("receivedOn", sameInstantInOtherZone).matches(email));
+        assertTrue(new GreaterThanExpression("receivedOn", RECEIVED_ON.minusSeconds(1).toString()).matches(email));
+        assertFalse(new GreaterThanExpression("receivedOn", RECEIVED_ON.toString()).matches(email));
+        assertTrue(new GreaterThanOrEqualExpression("receivedOn", RECEIVED_ON.toString()).matches(email));
+        assertTrue(new LessThanExpression("receivedOn", RECEIVED_ON.plusSeconds(1).toString()).matches(email));
+        assertFalse(new LessThanExpression("receivedOn", RECEIVED_ON.toString()).matches(email));
+        assertTrue(new LessThanOrEqualExpression("receivedOn", RECEIVED_ON.toString()).matches(email));
+    }
+
+    @Test
+    void shouldNotFulfillConditionsOnNullValues() {
+        var email = createEmail();
+
+        assertTrue(new IsNullExpression("messageId").matches(email));
+        assertFalse(new IsNotNullExpression("messageId").matches(email));
+        assertFalse(new EqualExpression("messageId", "<id>").matches(email));
+        assertFalse(new NotEqualExpression("messageId", "<id>").matches(email));
+        assertFalse(new LikeExpression("messageId", "id").matches(email));
+    }
+
+    @Test
+    void shouldCombineExpressions() {
+        var email = createEmail();
+        var subjectMatches = new LikeExpression("subject", "test");
+        var senderDoesNotMatch = new EqualExpression("fromAddress", "other@example.com");
+
+        assertFalse(new LogicalAnd(List.of(subjectMatches, senderDoesNotMatch)).matches(email));
+        assertTrue(new LogicalOr(List.of(subjectMatches, senderDoesNotMatch)).matches(email));
+        assertTrue(new Negation(senderDoesNotMatch).matches(email));
+    }
+
+    @Test
+    void shouldThrowExceptionForPropertiesWhichCannotBeFilteredInMemory() {
+        var email = createEmail();
+        var expression = new EqualExpression("rawData", "foo");
+
+        assertThrows(IllegalArgumentException.class, () -> expression.matches(email));
+    }
+
+    private Email createEmail() {
+        var email = new Email();
+        email.setId(42L);
+        email.setFromAddress("sender@example.com");
+        email.setRecipients(List.of("first@example.com", "second@example.com"));
+        email.setSubject("Test Subject");
+        email.setReceivedOn(RECEIVED_ON);
+        return email;
+    }
+}
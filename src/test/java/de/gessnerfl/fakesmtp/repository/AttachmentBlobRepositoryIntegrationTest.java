@@ -0,0 +1,91 @@
+package de.gessnerfl.fakesmtp.repository;
+
+import de.gessnerfl.fakesmtp.model.AttachmentBlob;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailAttachment;
+import de.gessnerfl.fakesmtp.service.AttachmentBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+@ActiveProfiles("mockserver")
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class AttachmentBlobRepositoryIntegrationTest {
+
+    private static final byte[] ATTACHMENT_DATA = "This is the attachment content".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private AttachmentBlobRepository sut;
+    @Autowired
+    private EmailRepository emailRepository;
+    @Autowired
+    private AttachmentBlobStore attachmentBlobStore;
+
+    @BeforeEach
+    void init() {
+        emailRepository.deleteAll();
+        sut.deleteAll();
+    }
+
+    @Test
+    void shouldStoreAttachmentsWithSameContentOnlyOnce() {
+        var mail1 = saveEmailWithAttachment("invoice.pdf");
+        var mail2 = saveEmailWithAttachment("copy-of-invoice.pdf");
+
+        assertEquals(1, sut.count());
+        var blob = mail1.getAttachments().getFirst().getBlob();
+        assertSame(blob, mail2.getAttachments().getFirst().getBlob());
+        assertEquals(AttachmentBlob.digestOf(ATTACHMENT_DATA), blob.getDigest());
+        assertArrayEquals(ATTACHMENT_DATA, mail2.getAttachments().getFirst().getData());
+    }
+
+    @Test
+    void shouldMarkOrphanedBlobsAndDeleteThemAfterTheyWereMarked() {
+        var mail = saveEmailWithAttachment("invoice.pdf");
+        var digest = AttachmentBlob.digestOf(ATTACHMENT_DATA);
+        var now = ZonedDateTime.now(ZoneId.of("UTC"));
+
+        assertEquals(0, sut.markOrphans(now));
+
+        emailRepository.delete(mail);
+        emailRepository.flush();
+
+        assertEquals(1, sut.markOrphans(now));
+        assertTrue(sut.findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(digest).isEmpty());
+        assertEquals(0, sut.deleteOrphansMarkedBefore(now.minusMinutes(1)));
+        assertEquals(1, sut.deleteOrphansMarkedBefore(now.plusSeconds(1)));
+        assertEquals(0, sut.count());
+    }
+
+    private Email saveEmailWithAttachment(String filename) {
+        var attachment = new EmailAttachment();
+        attachment.setFilename(filename);
+        attachment.setData(ATTACHMENT_DATA.clone());
+
+        var mail = new Email();
+        mail.setSubject("Test Subject");
+        mail.setRawDataAsString("Test Content");
+        mail.setReceivedOn(ZonedDateTime.now(ZoneId.of("UTC")));
+        mail.setFromAddress("sender@example.com");
+        mail.setToAddress("receiver@example.com");
+        mail.addRecipient("receiver@example.com");
+        mail.addAttachment(attachment);
+
+        attachmentBlobStore.deduplicate(List.of(mail));
+        return emailRepository.saveAndFlush(mail);
+    }
+}
@@ -7,9 +7,12 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -19,6 +22,7 @@ import java.time.ZonedDateTime;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +35,8 @@ class EmailRepositoryIntegrationTest {
     private static final Sort SORT_DESC_BY_RECEIVED_ON = Sort.by(Sort.Direction.DESC, "receivedOn");
     @Autowired
     private EmailRepository sut;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @BeforeEach
     void init() {
@@ -75,6 +81,19 @@ class EmailRepositoryIntegrationTest {
         assertThat(beforeDeletion, contains(mail3, mail2, mail1));
     }
 
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "SELECT id FROM email ORDER BY received_on DESC LIMIT 10 | EMAIL_RECEIVED_ON_IDX",
+            "SELECT id FROM email WHERE from_address = 'sender@example.com' | EMAIL_FROM_ADDRESS_IDX",
+            "SELECT id FROM email WHERE id IN (SELECT email FROM email_recipient WHERE address = 'receiver@example.com') | EMAIL_RECIPIENT_ADDRESS_IDX",
+            "SELECT id FROM email WHERE subject = 'Test Subject' | EMAIL_SUBJECT_IDX"
+    })
+    void shouldUseIndexesForSearchableColumns(String query, String index) {
+        var plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+
+        assertThat(plan, containsString(index));
+    }
+
     private Email createRandomEmail(int minusMinutes) {
         var randomToken = RandomStringUtils.insecure().nextAlphanumeric(6);
         var receivedOn = ZonedDateTime.now(ZoneId.of("UTC")).minusMinutes(minusMinutes);
@@ -85,10 +104,11 @@ class EmailRepositoryIntegrationTest {
 
         var mail = new Email();
         mail.setSubject("Test Subject " + randomToken);
-        mail.setRawData("Test Content " + randomToken);
+        mail.setRawDataAsString("Test Content " + randomToken);
         mail.setReceivedOn(receivedOn);
         mail.setFromAddress("sender@example.com");
         mail.setToAddress("receiver@example.com");
+        mail.addRecipient("receiver@example.com");
         mail.addContent(content);
         mail.setMessageId(randomToken);
         return sut.save(mail);
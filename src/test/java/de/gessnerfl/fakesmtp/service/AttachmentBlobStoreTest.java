@@ -0,0 +1,105 @@
+package de.gessnerfl.fakesmtp.service;
+
+import de.gessnerfl.fakesmtp.model.AttachmentBlob;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.EmailAttachment;
+import de.gessnerfl.fakesmtp.model.InlineImage;
+import de.gessnerfl.fakesmtp.repository.AttachmentBlobRepository;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentBlobStoreTest {
+
+    @Mock
+    private AttachmentBlobRepository attachmentBlobRepository;
+    @Mock
+    private TimestampProvider timestampProvider;
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private AttachmentBlobStore sut;
+
+    @Test
+    void shouldReuseStoredBlobWithSameDigest() {
+        var data = "content".getBytes(StandardCharsets.UTF_8);
+        var storedBlob = mock(AttachmentBlob.class);
+        var email = emailWithAttachments(data);
+
+        when(attachmentBlobRepository.findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(AttachmentBlob.digestOf(data))).thenReturn(Optional.of(storedBlob));
+
+        sut.deduplicate(List.of(email));
+
+        assertSame(storedBlob, email.getAttachments().getFirst().getBlob());
+    }
+
+    @Test
+    void shouldShareNewBlobBetweenAttachmentsWithSameContent() {
+        var data = "content".getBytes(StandardCharsets.UTF_8);
+        var email1 = emailWithAttachments(data, "other".getBytes(StandardCharsets.UTF_8));
+        var email2 = emailWithAttachments(data.clone());
+
+        when(attachmentBlobRepository.findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(anyString())).thenReturn(Optional.empty());
+
+        sut.deduplicate(List.of(email1, email2));
+
+        assertSame(email1.getAttachments().getFirst().getBlob(), email2.getAttachments().getFirst().getBlob());
+        assertNotSame(email1.getAttachments().getFirst().getBlob(), email1.getAttachments().get(1).getBlob());
+        verify(attachmentBlobRepository, times(2)).findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(anyString());
+    }
+
+    @Test
+    void shouldShareNewBlobBetweenAttachmentsAndInlineImagesWithSameContent() {
+        var data = "content".getBytes(StandardCharsets.UTF_8);
+        var email = emailWithAttachments(data);
+        var inlineImage = new InlineImage();
+        inlineImage.setContentId("image");
+        inlineImage.setData(data.clone());
+        email.addInlineImage(inlineImage);
+
+        when(attachmentBlobRepository.findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(anyString())).thenReturn(Optional.empty());
+
+        sut.deduplicate(List.of(email));
+
+        assertSame(email.getAttachments().getFirst().getBlob(), inlineImage.getBlob());
+        verify(attachmentBlobRepository).findFirstByDigestAndOrphanedOnIsNullOrderByIdAsc(anyString());
+    }
+
+    @Test
+    void shouldDeleteBlobsMarkedBeforeGracePeriodAndMarkNewOrphans() {
+        var now = ZonedDateTime.now(ZoneId.of("UTC"));
+        when(timestampProvider.now()).thenReturn(now);
+
+        sut.removeOrphans();
+
+        var inOrder = inOrder(attachmentBlobRepository);
+        inOrder.verify(attachmentBlobRepository).deleteOrphansMarkedBefore(now.minus(AttachmentBlobStore.ORPHAN_GRACE_PERIOD));
+        inOrder.verify(attachmentBlobRepository).markOrphans(now);
+    }
+
+    private static Email emailWithAttachments(byte[]... data) {
+        var email = new Email();
+        for (var d : data) {
+            var attachment = new EmailAttachment();
+            attachment.setFilename("file");
+            attachment.setData(d);
+            email.addAttachment(attachment);
+        }
+        return email;
+    }
+}
@@ -0,0 +1,139 @@
+package de.gessnerfl.fakesmtp.service;
+
+import de.gessnerfl.fakesmtp.event.EmailDeleted;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.model.query.AwaitRequest;
+import de.gessnerfl.fakesmtp.model.query.EqualExpression;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class EmailAwaitServiceTest {
+
+    @Mock
+    private EmailRepository emailRepository;
+    @Mock
+    private EmailBodyLoader emailBodyLoader;
+
+    @InjectMocks
+    private EmailAwaitService sut;
+
+    @AfterEach
+    void cleanup() {
+        sut.stop();
+    }
+
+    @Test
+    void shouldReturnImmediatelyWhenEnoughEmailsMatch() throws Exception {
+        var emails = page(createEmail(1L, "foo"), createEmail(2L, "foo"));
+        when(emailRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(emails);
+
+        var result = sut.await(AwaitRequest.of(new EqualExpression("subject", "foo"), 2, 10));
+
+        assertTrue(result.satisfied());
+        assertSame(emails, result.emails());
+        verify(emailRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+        verify(emailBodyLoader).loadBodies(emails.getContent());
+    }
+
+    @Test
+    void shouldReturnEmailsFoundSoFarWhenTimeoutExpires() throws Exception {
+        var emails = page(createEmail(1L, "foo"));
+        when(emailRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(emails);
+
+        var result = sut.await(AwaitRequest.of(new EqualExpression("subject", "foo"), 2, 0));
+
+        assertFalse(result.satisfied());
+        assertSame(emails, result.emails());
+    }
+
+    @Test
+    void shouldQueryEmailsAgainOnlyWhenAMatchingEmailWasReceived() throws Exception {
+        var matchingEmail = createEmail(2L, "foo");
+        var emptyPage = page();
+        var matchingPage = page(matchingEmail);
+        when(emailRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(emptyPage, matchingPage);
+
+        var future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sut.await(AwaitRequest.of(new EqualExpression("subject", "foo"), 1, 30));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        verify(emailRepository, timeout(5000)).findAll(any(Specification.class), any(Pageable.class));
+
+        sut.onEmailEvent(EmailReceived.of(createEmail(1L, "bar")));
+        sut.onEmailEvent(new EmailDeleted(1L));
+        Thread.sleep(100);
+        verify(emailRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+
+        sut.onEmailEvent(EmailReceived.of(matchingEmail));
+        var result = future.get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.satisfied());
+        assertSame(matchingPage, result.emails());
+        verify(emailRepository, times(2)).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void shouldQueryEmailsAgainWhenAnEventWasDropped() throws Exception {
+        var matchingPage = page(createEmail(2L, "foo"), createEmail(3L, "foo"));
+        when(emailRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page(), matchingPage);
+
+        var future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sut.await(AwaitRequest.of(new EqualExpression("subject", "foo"), 2, 30));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        verify(emailRepository, timeout(5000)).findAll(any(Specification.class), any(Pageable.class));
+        Thread.sleep(100);
+
+        sut.onEventDropped(EmailReceived.of(createEmail(2L, "foo")));
+        var result = future.get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.satisfied());
+        assertSame(matchingPage, result.emails());
+    }
+
+    @Test
+    void shouldProvideExecutorWithVirtualThreads() throws Exception {
+        var future = new CompletableFuture<Boolean>();
+
+        sut.getExecutor().execute(() -> future.complete(Thread.currentThread().isVirtual()));
+
+        assertTrue(future.get(5, TimeUnit.SECONDS));
+    }
+
+    private Email createEmail(Long id, String subject) {
+        var email = new Email();
+        email.setId(id);
+        email.setSubject(subject);
+        return email;
+    }
+
+    private Page<Email> page(Email... emails) {
+        return new PageImpl<>(List.of(emails));
+    }
+}
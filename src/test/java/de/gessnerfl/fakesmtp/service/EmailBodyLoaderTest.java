@@ -0,0 +1,76 @@
+package de.gessnerfl.fakesmtp.service;
+
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.smtp.server.EmailFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailBodyLoaderTest {
+
+    @Mock
+    private EmailFactory emailFactory;
+    @Mock
+    private AttachmentBlobStore attachmentBlobStore;
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private EmailBodyLoader sut;
+
+    @Test
+    void shouldNotParseBodyOfEmailWhichIsAlreadyParsed() {
+        var email = mock(Email.class);
+        when(email.isBodyParsed()).thenReturn(true);
+
+        sut.loadBody(email);
+
+        verifyNoInteractions(emailFactory, attachmentBlobStore, entityManager);
+    }
+
+    @Test
+    void shouldLockEmailAndParseBodyWhenBodyIsNotParsed() {
+        var email = mock(Email.class);
+        when(email.isBodyParsed()).thenReturn(false);
+
+        sut.loadBody(email);
+
+        var inOrder = inOrder(entityManager, emailFactory, attachmentBlobStore);
+        inOrder.verify(entityManager).refresh(email, LockModeType.PESSIMISTIC_WRITE);
+        inOrder.verify(emailFactory).parseBody(email);
+        inOrder.verify(attachmentBlobStore).deduplicate(List.of(email));
+    }
+
+    @Test
+    void shouldNotParseBodyWhenItWasParsedConcurrently() {
+        var email = mock(Email.class);
+        when(email.isBodyParsed()).thenReturn(false, true);
+
+        sut.loadBody(email);
+
+        verify(entityManager).refresh(email, LockModeType.PESSIMISTIC_WRITE);
+        verifyNoInteractions(emailFactory);
+    }
+
+    @Test
+    void shouldOnlyParseBodiesWhichAreNotParsed() {
+        var parsedEmail = mock(Email.class);
+        var unparsedEmail = mock(Email.class);
+        when(parsedEmail.isBodyParsed()).thenReturn(true);
+        when(unparsedEmail.isBodyParsed()).thenReturn(false);
+
+        sut.loadBodies(List.of(parsedEmail, unparsedEmail));
+
+        verify(emailFactory).parseBody(unparsedEmail);
+        verify(emailFactory, never()).parseBody(parsedEmail);
+    }
+}
@@ -1,6 +1,8 @@
 package de.gessnerfl.fakesmtp.service;
 
+import de.gessnerfl.fakesmtp.blob.SegmentBlobCompactor;
 import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.event.EmailsPurged;
 import de.gessnerfl.fakesmtp.repository.EmailRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,6 +10,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.mockito.Mockito.*;
 
@@ -19,6 +22,12 @@ class EmailRetentionTimerTest {
     @Mock
     private EmailRepository emailRepository;
     @Mock
+    private AttachmentBlobStore attachmentBlobStore;
+    @Mock
+    private SegmentBlobCompactor segmentBlobCompactor;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
     private Logger logger;
 
     @InjectMocks
@@ -30,10 +39,27 @@ class EmailRetentionTimerTest {
         var persistence = mock(FakeSmtpConfigurationProperties.Persistence.class);
         when(persistence.getMaxNumberEmails()).thenReturn(maxNumber);
         when(fakeSmtpConfigurationProperties.getPersistence()).thenReturn(persistence);
+        when(emailRepository.deleteEmailsExceedingDateRetentionLimit(maxNumber)).thenReturn(3);
+
+        sut.deleteOutdatedMails();
+
+        verify(emailRepository).deleteEmailsExceedingDateRetentionLimit(maxNumber);
+        verify(eventPublisher).publishEvent(new EmailsPurged(3));
+        verify(attachmentBlobStore).removeOrphans();
+        verify(segmentBlobCompactor).compact();
+    }
+
+    @Test
+    void shouldNotPublishEventWhenNoEmailWasDeleted(){
+        var maxNumber = 5;
+        var persistence = mock(FakeSmtpConfigurationProperties.Persistence.class);
+        when(persistence.getMaxNumberEmails()).thenReturn(maxNumber);
+        when(fakeSmtpConfigurationProperties.getPersistence()).thenReturn(persistence);
 
         sut.deleteOutdatedMails();
 
         verify(emailRepository).deleteEmailsExceedingDateRetentionLimit(maxNumber);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -45,6 +71,9 @@ class EmailRetentionTimerTest {
         sut.deleteOutdatedMails();
 
         verify(emailRepository, never()).deleteEmailsExceedingDateRetentionLimit(anyInt());
+        verifyNoInteractions(eventPublisher);
+        verify(attachmentBlobStore).removeOrphans();
+        verify(segmentBlobCompactor).compact();
     }
 
 }
\ No newline at end of file
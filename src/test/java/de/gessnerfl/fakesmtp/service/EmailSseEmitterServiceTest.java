@@ -1,6 +1,7 @@
 package de.gessnerfl.fakesmtp.service;
 
-import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.event.EmailDeleted;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -24,7 +25,6 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
-import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class EmailSseEmitterServiceTest {
@@ -35,9 +35,6 @@ class EmailSseEmitterServiceTest {
 	@Mock
 	private SseEmitter emitter;
 
-	@Mock
-	private Email email;
-
 	@InjectMocks
 	private EmailSseEmitterService sut;
 
@@ -56,29 +53,45 @@ class EmailSseEmitterServiceTest {
 
 	@Test
 	void shouldSendEmailReceivedEventToAllEmitters() throws IOException {
-		when(email.getId()).thenReturn(123L);
 		sut.add(emitter);
 
-		sut.sendEmailReceivedEvent(email);
+		sut.sendEmailReceivedEvent(123L);
 
 		verify(emitter).send(any(SseEmitter.SseEventBuilder.class));
 		verify(logger, never()).warn(anyString(), any(Exception.class));
 	}
 
+	@Test
+	void shouldSendEmailReceivedEventWhenEmailIsReceived() throws IOException {
+		sut.add(emitter);
+
+		sut.onEmailEvent(new EmailReceived(123L, null));
+
+		verify(emitter).send(any(SseEmitter.SseEventBuilder.class));
+	}
+
+	@Test
+	void shouldIgnoreOtherEmailEvents() throws IOException {
+		sut.add(emitter);
+
+		sut.onEmailEvent(new EmailDeleted(123L));
+
+		verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+	}
+
 	@Test
 	void shouldRemoveDeadEmittersWhenSendingEvents() throws IOException {
-		when(email.getId()).thenReturn(123L);
 		sut.add(emitter);
 		doThrow(new IOException("Test exception")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
 
-		sut.sendEmailReceivedEvent(email);
+		sut.sendEmailReceivedEvent(123L);
 
 		verify(emitter).send(any(SseEmitter.SseEventBuilder.class));
 		verify(logger).warn(eq("Failed to send event to emitter"), any(IOException.class));
 		verify(logger).debug(contains("Removed {} dead emitters"), eq(1), anyInt());
 
 		reset(emitter, logger);
-		sut.sendEmailReceivedEvent(email);
+		sut.sendEmailReceivedEvent(123L);
 		verifyNoInteractions(emitter);
 	}
 
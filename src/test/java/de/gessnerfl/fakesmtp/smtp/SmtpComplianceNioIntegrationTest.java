@@ -0,0 +1,55 @@
+package de.gessnerfl.fakesmtp.smtp;
+
+import de.gessnerfl.fakesmtp.smtp.client.Client;
+import de.gessnerfl.fakesmtp.smtp.server.BaseSmtpServer;
+import de.gessnerfl.fakesmtp.smtp.server.SmtpServer;
+import de.gessnerfl.fakesmtp.smtp.server.TransportType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the SMTP compliance tests against the {@link TransportType#NIO} transport.
+ */
+@DirtiesContext
+@ActiveProfiles({"integrationtest_with_nio_transport"})
+class SmtpComplianceNioIntegrationTest extends SmtpComplianceIntegrationTest {
+
+    @Autowired
+    private SmtpServer smtpServer;
+
+    @Test
+    void shouldUseNioTransport() {
+        assertEquals(TransportType.NIO, ((BaseSmtpServer) smtpServer).getTransportType());
+    }
+
+    @Test
+    void shouldServeManyIdleConnections() throws Exception {
+        final List<Client> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                final var client = new Client("localhost", smtpServer.getPort());
+                clients.add(client);
+                client.expect("220");
+            }
+            for (final Client client : clients) {
+                client.send("HELO foo.com");
+            }
+            for (final Client client : clients) {
+                client.expect("250");
+                client.send("QUIT");
+                client.expect("221");
+            }
+        } finally {
+            for (final Client client : clients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.gessnerfl.fakesmtp.smtp.command;
+
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+
+class BdatTest extends AbstractCommandIntegrationTest {
+
+	@Autowired
+	private EmailRepository emailRepository;
+
+	@Test
+	void testChunkingIsAdvertised() throws Exception {
+		this.expect("220");
+
+		this.send("EHLO foo.com");
+		this.expectContains("250-CHUNKING\n250-BINARYMIME");
+	}
+
+	@Test
+	void testNeedMail() throws Exception {
+		this.expect("220");
+
+		this.send("HELO foo.com");
+		this.expect("250");
+
+		this.send("BDAT 5\r\nabc");
+		this.expect("503 5.5.1 Error: need MAIL command");
+
+		this.send("NOOP");
+		this.expect("250 Ok");
+	}
+
+	@Test
+	void testNeedRcpt() throws Exception {
+		this.expect("220");
+
+		this.send("HELO foo.com");
+		this.expect("250");
+
+		this.send("MAIL FROM: success@example.com");
+		this.expect("250");
+
+		this.send("BDAT 5 LAST\r\nabc");
+		this.expect("503 Error: need RCPT command");
+
+		this.send("NOOP");
+		this.expect("250 Ok");
+	}
+
+	@Test
+	void testInvalidChunkSize() throws Exception {
+		this.expect("220");
+
+		this.send("BDAT foo");
+		this.expect("501 5.5.4 Syntax: BDAT <chunk-size> [ LAST ]");
+
+		this.send("BDAT 6 FIRST\r\nQUIT");
+		this.expect("501 5.5.4 Syntax: BDAT <chunk-size> [ LAST ]");
+
+		this.send("NOOP");
+		this.expect("250 Ok");
+	}
+
+	@Test
+	void testChunkedMessage() throws Exception {
+		this.expect("220");
+
+		this.send("EHLO foo.com");
+		this.expect("250");
+
+		this.send("MAIL FROM: success@example.com BODY=BINARYMIME");
+		this.expect("250 Ok");
+
+		this.send("RCPT TO: success@example.com");
+		this.expect("250 Ok");
+
+		final var firstChunk = "Subject: bdat chunked message\r\n\r\n";
+		this.send("BDAT " + firstChunk.length() + "\r\n" + firstChunk.substring(0, firstChunk.length() - 2));
+		this.expect("250 Ok " + firstChunk.length() + " octets received");
+
+		final var lastChunk = "first line\r\n.\r\n..second line\r\n";
+		this.send("BDAT " + lastChunk.length() + " LAST\r\n" + lastChunk.substring(0, lastChunk.length() - 2));
+		this.expect("250 Ok");
+
+		this.send("NOOP");
+		this.expect("250 Ok");
+
+		final var emails = emailRepository.findBySubject("bdat chunked message");
+		assertThat(emails, hasSize(1));
+		assertThat(emails.getFirst().getRawDataAsString(), containsString("first line\r\n.\r\n..second line"));
+	}
+
+	@Test
+	void testDataIsRejectedForBinaryMimeBody() throws Exception {
+		this.expect("220");
+
+		this.send("EHLO foo.com");
+		this.expect("250");
+
+		this.send("MAIL FROM: success@example.com BODY=BINARYMIME");
+		this.expect("250 Ok");
+
+		this.send("RCPT TO: success@example.com");
+		this.expect("250 Ok");
+
+		this.send("DATA");
+		this.expect("503 5.5.1 Error: message content must be sent with BDAT");
+	}
+}
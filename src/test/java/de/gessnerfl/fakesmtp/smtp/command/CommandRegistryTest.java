@@ -38,6 +38,20 @@ class CommandRegistryTest {
         assertEquals(CommandVerb.HELP, c.getVerb());
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"  rcpt TO: <foo@example.com>", "RCPT\tTO: <foo@example.com>", "Rcpt"})
+    void shouldMatchVerbOfFirstToken(final String commandString) throws InvalidCommandNameException, UnknownCommandException {
+        final var c = sut.getCommandFromString(commandString);
+
+        assertEquals(CommandVerb.RCPT, c.getVerb());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"RCPTTO: <foo@example.com>", "HEL O", "STARTTLSX"})
+    void shouldThrowExceptionWhenFirstTokenIsNotAVerb(final String commandString) {
+        assertThrows(UnknownCommandException.class, () -> sut.getCommandFromString(commandString));
+    }
+
     @Test
     void shouldThrowExceptionWhenCommandIsNotKnown() {
         assertThrows(UnknownCommandException.class, () -> sut.getCommandFromString("foobar"));
@@ -0,0 +1,64 @@
+package de.gessnerfl.fakesmtp.smtp.command;
+
+import de.gessnerfl.fakesmtp.config.BaseSmtpServerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DirtiesContext
+@ActiveProfiles({"integrationtest_with_max_size"})
+class DataWithMaxMessageSizeTest extends AbstractCommandIntegrationTest {
+	private static final String LINE = "0123456789".repeat(10);
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void testMessageWithinLimitIsAccepted() throws Exception {
+		this.expect("220");
+		this.send("HELO foo.com");
+		this.expect("250");
+		this.send("MAIL FROM: success@example.com");
+		this.expect("250");
+		this.send("RCPT TO: success@example.com");
+		this.expect("250");
+
+		this.send("DATA");
+		this.expect("354");
+		this.send("Subject: small message\r\n\r\n" + LINE + "\r\n.");
+		this.expect("250 Ok");
+	}
+
+	@Test
+	void testMessageExceedingLimitIsRejectedAndDiscarded() throws Exception {
+		final var counter = meterRegistry.get(BaseSmtpServerConfig.OVERSIZED_MESSAGE_BYTES).counter();
+		final var initialCount = counter.count();
+		final var maxSize = DataSize.ofMegabytes(1).toBytes();
+
+		this.expect("220");
+		this.send("HELO foo.com");
+		this.expect("250");
+		this.send("MAIL FROM: success@example.com");
+		this.expect("250");
+		this.send("RCPT TO: success@example.com");
+		this.expect("250");
+
+		this.send("DATA");
+		this.expect("354");
+		this.send("Subject: large message\r\n");
+		for (long sent = 0; sent <= 2 * maxSize; sent += LINE.length() + 2) {
+			this.send(LINE);
+		}
+		this.send(".");
+		this.expect("552 5.3.4 Message size exceeds fixed limit");
+
+		this.send("MAIL FROM: success@example.com");
+		this.expect("250");
+		assertTrue(counter.count() - initialCount > 2 * maxSize);
+	}
+}
@@ -29,6 +29,7 @@ class HelpTest extends AbstractCommandIntegrationTest {
                 "214-     STARTTLS\n" +
                 "214-     VRFY\n" +
                 "214-     EXPN\n" +
+                "214-     BDAT\n" +
                 "214-For more info use \"HELP <topic>\".\n" +
                 "214 End of HELP info");
     }
@@ -0,0 +1,69 @@
+package de.gessnerfl.fakesmtp.smtp.command;
+
+import org.junit.jupiter.api.Test;
+
+class PipeliningTest extends AbstractCommandIntegrationTest {
+
+	@Test
+	void testPipeliningIsAdvertised() throws Exception {
+		this.expect("220");
+
+		this.send("EHLO foo.com");
+		this.expectContains("250-PIPELINING");
+	}
+
+	@Test
+	void testPipelinedCommandGroup() throws Exception {
+		this.expect("220");
+
+		this.send("EHLO foo.com");
+		this.expect("250");
+
+		this.send("MAIL FROM: success@example.com\r\n"
+				+ "RCPT TO: first@example.com\r\n"
+				+ "RCPT TO: second@example.com\r\n"
+				+ "RCPT TO: third@example.com\r\n"
+				+ "DATA");
+		this.expect("250 Ok");
+		this.expect("250 Ok");
+		this.expect("250 Ok");
+		this.expect("250 Ok");
+		this.expect("354 End data with <CR><LF>.<CR><LF>");
+
+		this.send("Subject: pipelined\r\n\r\nBody\r\n.");
+		this.expect("250 Ok");
+	}
+
+	@Test
+	void testPipelinedCommandGroupWithRejectedRecipient() throws Exception {
+		this.expect("220");
+
+		this.send("EHLO foo.com");
+		this.expect("250");
+
+		this.send("MAIL FROM: success@example.com\r\n"
+				+ "RCPT TO: blocked@example.com\r\n"
+				+ "RCPT TO: success@example.com\r\n"
+				+ "DATA");
+		this.expect("250 Ok");
+		this.expect("553");
+		this.expect("250 Ok");
+		this.expect("354 End data with <CR><LF>.<CR><LF>");
+	}
+
+	@Test
+	void testPipelinedResetAndQuit() throws Exception {
+		this.expect("220");
+
+		this.send("HELO foo.com\r\n"
+				+ "MAIL FROM: success@example.com\r\n"
+				+ "RSET\r\n"
+				+ "NOOP\r\n"
+				+ "QUIT");
+		this.expect("250");
+		this.expect("250 Ok");
+		this.expect("250 Ok");
+		this.expect("250");
+		this.expect("221 Bye");
+	}
+}
@@ -3,6 +3,7 @@ package de.gessnerfl.fakesmtp.smtp.io;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -35,6 +36,36 @@ class CRLFTerminatedReaderTest {
         }
     }
 
+    @Test
+    void shouldNotReadBeyondTerminatingCrLf() throws IOException {
+        final var input = new ByteArrayInputStream("BDAT 4\r\nbody".getBytes(StandardCharsets.UTF_8));
+        try (var sut = new CRLFTerminatedReader(input, StandardCharsets.UTF_8)) {
+            assertEquals("BDAT 4", sut.readLine());
+            assertEquals("body", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void shouldReadLinesSpanningMultipleBlocks() throws IOException {
+        final var line1 = RandomStringUtils.insecure().nextAlphanumeric(CRLFTerminatedReader.MAX_LINE_LENGTH - 1);
+        final var line2 = "RCPT TO: <recipient@example.com>";
+        final var input = (line1 + "\r\n" + line2 + "\r\n").getBytes(StandardCharsets.UTF_8);
+        try (var sut = new CRLFTerminatedReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8)) {
+            assertEquals(line1, sut.readLine());
+            assertEquals(line2, sut.readLine());
+            assertNull(sut.readLine());
+        }
+    }
+
+    @Test
+    void shouldDecodeMultiByteCharacters() throws IOException {
+        final var line = "MAIL FROM: <j\u00fcrgen@example.com>";
+        final var input = (line + "\r\n").getBytes(StandardCharsets.UTF_8);
+        try (var sut = new CRLFTerminatedReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8)) {
+            assertEquals(line, sut.readLine());
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(strings = { "\r", "\n" })
     void shouldTerminateWhenSingleCrLfIsProvided(String linebreak) throws IOException {
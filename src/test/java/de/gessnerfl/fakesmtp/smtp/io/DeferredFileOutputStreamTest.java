@@ -1,12 +1,16 @@
 package de.gessnerfl.fakesmtp.smtp.io;
 
 import de.gessnerfl.fakesmtp.TestResourceUtil;
+import jakarta.mail.internet.SharedInputStream;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.util.unit.DataSize;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +26,57 @@ class DeferredFileOutputStreamTest {
         shouldReadFile(DataSize.ofBytes(512));
     }
 
+    @Test
+    void shouldProvideSharedInputStreamOnFileInGivenDirectory(@TempDir Path directory) throws IOException {
+        var data = TestResourceUtil.getTestFileContentBytes("mail-with-subect-and-content-type-html-with-inline-image.eml");
+
+        try (var sut = new DeferredFileOutputStream(512, directory.resolve("spool"))) {
+            sut.write(data);
+
+            try (var in = sut.getInputStream()) {
+                assertInstanceOf(SharedInputStream.class, in);
+                assertArrayEquals(data, IOUtils.toByteArray(((SharedInputStream) in).newStream(0, -1)));
+                assertArrayEquals(data, IOUtils.toByteArray(in));
+            }
+            try (var files = Files.list(directory.resolve("spool"))) {
+                assertEquals(1, files.count());
+            }
+        }
+        try (var files = Files.list(directory.resolve("spool"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void shouldProvideSharedInputStreamOnBuffer() throws IOException {
+        var data = "content".getBytes();
+
+        try (var sut = new DeferredFileOutputStream(512)) {
+            sut.write(data);
+
+            var in = sut.getInputStream();
+            assertInstanceOf(SharedInputStream.class, in);
+            assertArrayEquals(data, IOUtils.toByteArray(((SharedInputStream) in).newStream(0, -1)));
+        }
+    }
+
+    @Test
+    void shouldReturnSlabsToPoolWhenSwitchingToFileAndWhenClosed() throws IOException {
+        var pool = new SlabPool(256, 10);
+
+        try (var sut = new DeferredFileOutputStream(512, null, pool)) {
+            sut.write(new byte[500]);
+            assertEquals(0, pool.getPooledSlabs());
+            sut.write(new byte[100]);
+            assertEquals(2, pool.getPooledSlabs());
+        }
+        try (var sut = new DeferredFileOutputStream(512, null, pool)) {
+            sut.write(new byte[300]);
+            assertEquals(0, pool.getPooledSlabs());
+        }
+        assertEquals(2, pool.getPooledSlabs());
+    }
+
     private void shouldReadFile(DataSize maxBufferSize) throws IOException {
         var testFilename = "mail-with-subect-and-content-type-html-with-inline-image.eml";
         var data = TestResourceUtil.getTestFileContentBytes(testFilename);
@@ -0,0 +1,88 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DotTerminatedUnstuffingInputStreamTest {
+
+    @Test
+    void shouldReturnEmptyDataWhenStreamStartsWithTerminator() throws IOException {
+        try (var sut = new DotTerminatedUnstuffingInputStream(stream(".\r\n"))) {
+            assertEquals(-1, sut.read());
+        }
+    }
+
+    @Test
+    void shouldPreserveLastCrLf() throws IOException {
+        assertEquals("a\r\n", readFull(new DotTerminatedUnstuffingInputStream(stream("a\r\n.\r\n")), 8192));
+    }
+
+    @Test
+    void shouldRemoveStuffedDots() throws IOException {
+        final var input = "this is a test\r\n...this continues...\r\n..\r\n.\r\n";
+
+        assertEquals("this is a test\r\n..this continues...\r\n.\r\n",
+                readFull(new DotTerminatedUnstuffingInputStream(stream(input)), 8192));
+    }
+
+    @Test
+    void shouldFailWhenTerminatorIsMissing() {
+        final var sut = new DotTerminatedUnstuffingInputStream(stream("a\r\n"));
+
+        assertThrows(EOFException.class, () -> readFull(sut, 8192));
+    }
+
+    @Test
+    void shouldNotConsumeBytesFollowingTheTerminator() throws IOException {
+        final var input = stream("line\r\n..dot\r\n.\r\nQUIT\r\n");
+
+        assertEquals("line\r\n.dot\r\n", readFull(new DotTerminatedUnstuffingInputStream(input), 8192));
+        assertEquals("QUIT\r\n", new String(input.readAllBytes(), StandardCharsets.US_ASCII));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 7, 64, 8192})
+    void shouldDecodeLikeDotTerminatedAndDotUnstuffingInputStream(final int readSize) throws IOException {
+        final var random = new Random(readSize);
+        final byte[] alphabet = ".\r\nab".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < 200; i++) {
+            final var data = new ByteArrayOutputStream();
+            final int length = random.nextInt(300);
+            for (int j = 0; j < length; j++) {
+                data.write(alphabet[random.nextInt(alphabet.length)]);
+            }
+            data.writeBytes("\r\n.\r\nNOOP\r\n".getBytes(StandardCharsets.US_ASCII));
+            final byte[] input = data.toByteArray();
+
+            final var expected = readFull(new DotUnstuffingInputStream(new DotTerminatedInputStream(new ByteArrayInputStream(input))), readSize);
+            final var actual = readFull(new DotTerminatedUnstuffingInputStream(new ByteArrayInputStream(input)), readSize);
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static InputStream stream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String readFull(final InputStream in, final int readSize) throws IOException {
+        final var out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[readSize];
+        int read;
+        while ((read = in.read(buffer, 0, readSize)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
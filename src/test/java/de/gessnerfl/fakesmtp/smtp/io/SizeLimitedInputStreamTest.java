@@ -0,0 +1,52 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import de.gessnerfl.fakesmtp.smtp.MessageSizeExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizeLimitedInputStreamTest {
+
+    @Test
+    void shouldReadContentWithinLimit() throws IOException {
+        var content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        var sut = new SizeLimitedInputStream(new ByteArrayInputStream(content), content.length);
+
+        assertArrayEquals(content, sut.readAllBytes());
+        assertEquals(content.length, sut.getByteCount());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenLimitIsExceededAndReadAtMostOneByteBeyondTheLimit() {
+        var in = new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.US_ASCII));
+        var sut = new SizeLimitedInputStream(in, 5);
+
+        var ex = assertThrows(MessageSizeExceededException.class, () -> sut.read(new byte[10], 0, 10));
+        assertTrue(ex.getErrorResponse().startsWith("552"));
+
+        assertThrows(MessageSizeExceededException.class, () -> sut.read(new byte[10], 0, 10));
+        assertEquals(6, sut.getByteCount());
+        assertEquals(4, in.available());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenLimitIsExceededBySingleByteReads() throws IOException {
+        var sut = new SizeLimitedInputStream(new ByteArrayInputStream("012".getBytes(StandardCharsets.US_ASCII)), 2);
+
+        assertEquals('0', sut.read());
+        assertEquals('1', sut.read());
+        assertThrows(MessageSizeExceededException.class, sut::read);
+    }
+
+    @Test
+    void shouldCountSkippedBytes() throws IOException {
+        var sut = new SizeLimitedInputStream(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.US_ASCII)), 5);
+
+        assertEquals(4, sut.skip(4));
+        assertThrows(MessageSizeExceededException.class, () -> sut.skip(4));
+    }
+}
@@ -0,0 +1,93 @@
+package de.gessnerfl.fakesmtp.smtp.io;
+
+import jakarta.mail.internet.SharedInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlabOutputStreamTest {
+
+    @Test
+    void shouldBufferDataInSlabsOfPool() throws IOException {
+        var pool = new SlabPool(16, 10);
+        var data = randomBytes(40);
+        var sut = new SlabOutputStream(pool);
+
+        sut.write(data[0]);
+        sut.write(data, 1, data.length - 1);
+
+        assertEquals(40, sut.size());
+        assertArrayEquals(data, sut.getInputStream().readAllBytes());
+        var out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    void shouldReturnSlabsToPoolAndReuseThem() throws IOException {
+        var pool = new SlabPool(16, 10);
+        var sut = new SlabOutputStream(pool);
+        sut.write(randomBytes(40));
+
+        sut.release();
+
+        assertEquals(3, pool.getPooledSlabs());
+        var next = new SlabOutputStream(pool);
+        next.write(randomBytes(20));
+        assertEquals(1, pool.getPooledSlabs());
+    }
+
+    @Test
+    void shouldNotPoolMoreSlabsThanConfigured() throws IOException {
+        var pool = new SlabPool(16, 2);
+        var sut = new SlabOutputStream(pool);
+        sut.write(randomBytes(64));
+
+        sut.release();
+
+        assertEquals(2, pool.getPooledSlabs());
+    }
+
+    @Test
+    void shouldProvideSharedInputStream() throws IOException {
+        var data = randomBytes(50);
+        var sut = new SlabOutputStream(new SlabPool(16, 10));
+        sut.write(data);
+
+        var in = sut.getInputStream();
+        assertEquals(10, in.skip(10));
+        var shared = (SharedInputStream) in;
+        assertEquals(10, shared.getPosition());
+
+        var sub = shared.newStream(5, 30);
+        assertEquals(data[5], (byte) sub.read());
+        assertEquals(1, ((SharedInputStream) sub).getPosition());
+        var rest = sub.readAllBytes();
+        assertEquals(24, rest.length);
+        assertEquals(data[29], rest[23]);
+
+        var tail = shared.newStream(45, -1);
+        assertEquals(5, tail.readAllBytes().length);
+    }
+
+    @Test
+    void shouldFailToReadAfterRelease() throws IOException {
+        var sut = new SlabOutputStream(new SlabPool(16, 10));
+        sut.write(randomBytes(20));
+        var in = sut.getInputStream();
+
+        sut.release();
+
+        assertThrows(IOException.class, in::read);
+    }
+
+    private byte[] randomBytes(int length) {
+        var data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
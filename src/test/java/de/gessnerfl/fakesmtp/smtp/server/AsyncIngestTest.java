@@ -0,0 +1,64 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import de.gessnerfl.fakesmtp.smtp.command.AbstractCommandIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DirtiesContext
+@ActiveProfiles("integrationtest_with_async_ingest")
+class AsyncIngestTest extends AbstractCommandIntegrationTest {
+
+    @Autowired
+    private MessageIngestQueue messageIngestQueue;
+    @Autowired
+    private EmailRepository emailRepository;
+
+    @Test
+    void testMessageIsPersistedAsynchronously() throws Exception {
+        assertTrue(messageIngestQueue.isEnabled());
+
+        this.expect("220");
+
+        this.send("HELO foo.com");
+        this.expect("250");
+
+        for (int i = 0; i < 3; i++) {
+            this.send("MAIL FROM: success@example.com");
+            this.expect("250 Ok");
+
+            this.send("RCPT TO: success@example.com");
+            this.expect("250 Ok");
+
+            this.send("DATA");
+            this.expect("354");
+
+            this.send("Subject: async ingest\r\n\r\nmessage " + i + "\r\n.");
+            this.expect("250 Ok");
+        }
+
+        final var emails = awaitEmailsWithSubject("async ingest", 3);
+        assertThat(emails, hasSize(3));
+        assertEquals("success@example.com", emails.getFirst().getToAddress());
+    }
+
+    private List<Email> awaitEmailsWithSubject(String subject, int expectedCount) throws InterruptedException {
+        final var deadline = System.currentTimeMillis() + 10_000;
+        var emails = emailRepository.findBySubject(subject);
+        while (emails.size() < expectedCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            emails = emailRepository.findBySubject(subject);
+        }
+        return emails;
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import jakarta.transaction.Transactional;
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.hasSize;
@@ -55,7 +56,7 @@ class BaseMessageListenerIntegrationTest {
         assertEquals(SENDER, mail.getFromAddress());
         assertEquals(RECEIVER, mail.getToAddress());
         assertEquals("This is the mail title", mail.getSubject());
-        assertEquals(rawData, mail.getRawData());
+        assertEquals(rawData, mail.getRawDataAsString());
         assertFalse(mail.getHtmlContent().isPresent());
         assertTrue(mail.getPlainContent().isPresent());
         assertEquals("This is the message content", mail.getPlainContent().get().getData());
@@ -79,7 +80,7 @@ class BaseMessageListenerIntegrationTest {
         assertEquals(SENDER, mail.getFromAddress());
         assertEquals(RECEIVER, mail.getToAddress());
         assertEquals(EmailFactory.UNDEFINED, mail.getSubject());
-        assertEquals(rawData, mail.getRawData());
+        assertEquals(rawData, mail.getRawDataAsString());
         assertFalse(mail.getHtmlContent().isPresent());
         assertTrue(mail.getPlainContent().isPresent());
         assertEquals("This is the message content", mail.getPlainContent().get().getData());
@@ -102,10 +103,28 @@ class BaseMessageListenerIntegrationTest {
         assertEquals(SENDER, mail.getFromAddress());
         assertEquals(RECEIVER, mail.getToAddress());
         assertEquals(EmailFactory.UNDEFINED, mail.getSubject());
-        assertEquals(rawData, mail.getRawData());
+        assertEquals(rawData, mail.getRawDataAsString());
         assertFalse(mail.getHtmlContent().isPresent());
         assertTrue(mail.getPlainContent().isPresent());
         assertEquals(rawData, mail.getPlainContent().get().getData());
         assertNotNull(mail.getReceivedOn());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldCreateOneEmailForAllRecipients() throws Exception {
+        var testFilename = "mail-with-subject.eml";
+        var data = TestResourceUtil.getTestFile(testFilename);
+        var recipients = List.of("receiver1", "receiver2", "receiver3");
+
+        sut.deliver(SENDER, recipients, data);
+
+        var mails = emailRepository.findAll();
+        assertThat(mails, hasSize(1));
+
+        var mail = mails.get(0);
+
+        assertEquals("receiver1, receiver2, receiver3", mail.getToAddress());
+        assertEquals(recipients, mail.getRecipients());
+        assertEquals("This is the mail title", mail.getSubject());
+    }
+}
@@ -1,8 +1,5 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
-import de.gessnerfl.fakesmtp.model.Email;
-import de.gessnerfl.fakesmtp.repository.EmailRepository;
-import de.gessnerfl.fakesmtp.service.EmailSseEmitterService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -14,6 +11,7 @@ import org.slf4j.Logger;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,18 +19,14 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class BaseMessageListenerTest {
 
-    @Mock
-    private EmailFactory emailFactory;
     @Mock
     private EmailFilter emailFilter;
     @Mock
-    private EmailRepository emailRepository;
-    @Mock
-    private MessageForwarder messageForwarder;
-    @Mock
     private BlockedRecipientAddresses blockedRecipientAddresses;
     @Mock
-    private EmailSseEmitterService emailSseEmitterService;
+    private MessagePersister messagePersister;
+    @Mock
+    private MessageIngestQueue messageIngestQueue;
     @Mock
     private Logger logger;
 
@@ -61,47 +55,72 @@ class BaseMessageListenerTest {
     }
 
     @Test
-    void shouldCreateEmailEntityAndStoreItInDatabaseWhenEmailIsDelivered() throws IOException {
+    void shouldPersistEmailSynchronouslyWhenIngestQueueIsNotEnabled() throws IOException {
         var from = "from";
         var to = "to";
         var contentString = "content";
-        var content = contentString.getBytes(StandardCharsets.UTF_8);
-        var contentStream = new ByteArrayInputStream(content);
-        var mail = mock(Email.class);
-        var savedMail = mock(Email.class);
+        var contentStream = new ByteArrayInputStream(contentString.getBytes(StandardCharsets.UTF_8));
 
-        when(emailFactory.convert(any(RawData.class))).thenReturn(mail);
-        when(emailRepository.save(mail)).thenReturn(savedMail);
+        when(messageIngestQueue.isEnabled()).thenReturn(false);
 
         sut.deliver(from, to, contentStream);
 
         ArgumentCaptor<RawData> argumentCaptor = ArgumentCaptor.forClass(RawData.class);
-        verify(emailFactory).convert(argumentCaptor.capture());
+        verify(messagePersister).persist(argumentCaptor.capture());
         RawData rawData = argumentCaptor.getValue();
         assertEquals(from, rawData.getFrom());
         assertEquals(to, rawData.getTo());
         assertEquals(contentString, rawData.getContentAsString());
-        verify(emailRepository).save(mail);
-        verify(emailSseEmitterService).sendEmailReceivedEvent(savedMail);
-        verify(messageForwarder).forward(rawData);
+        verify(messageIngestQueue, never()).enqueue(any(RawData.class));
     }
 
     @Test
-    void shouldThrowExceptionWhenEmailEntityCannotBeCreatedWhenEmailIsDelivered() throws IOException {
+    void shouldEnqueueEmailWhenIngestQueueIsEnabled() throws IOException {
         var from = "from";
         var to = "to";
-        var content = "content".getBytes(StandardCharsets.UTF_8);
-        var contentStream = new ByteArrayInputStream(content);
+        var contentString = "content";
+        var contentStream = new ByteArrayInputStream(contentString.getBytes(StandardCharsets.UTF_8));
+
+        when(messageIngestQueue.isEnabled()).thenReturn(true);
+
+        sut.deliver(from, to, contentStream);
+
+        ArgumentCaptor<RawData> argumentCaptor = ArgumentCaptor.forClass(RawData.class);
+        verify(messageIngestQueue).enqueue(argumentCaptor.capture());
+        RawData rawData = argumentCaptor.getValue();
+        assertEquals(from, rawData.getFrom());
+        assertEquals(to, rawData.getTo());
+        assertEquals(contentString, rawData.getContentAsString());
+        verify(messagePersister, never()).persist(any(RawData.class));
+    }
+
+    @Test
+    void shouldPersistEmailOnceForAllRecipientsWhichAreNotFiltered() throws IOException {
+        var from = "from";
+        var contentStream = new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8));
+
+        when(emailFilter.ignore(eq(from), anyString())).thenAnswer(i -> "filtered".equals(i.getArgument(1)));
+
+        sut.deliver(from, List.of("to1", "filtered", "to2"), contentStream);
+
+        ArgumentCaptor<RawData> argumentCaptor = ArgumentCaptor.forClass(RawData.class);
+        verify(messagePersister).persist(argumentCaptor.capture());
+        RawData rawData = argumentCaptor.getValue();
+        assertEquals(List.of("to1", "to2"), rawData.getRecipients());
+        assertEquals("to1, to2", rawData.getTo());
+        assertEquals("content", rawData.getContentAsString());
+    }
 
-        when(emailFactory.convert(any(RawData.class))).thenThrow(new IOException("foo"));
+    @Test
+    void shouldNeitherPersistNorEnqueueEmailWhenEmailIsFiltered() throws IOException {
+        var from = "from";
+        var to = "to";
+        var contentStream = new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8));
 
-        assertThrows(IOException.class, () -> {
+        when(emailFilter.ignore(from, to)).thenReturn(true);
 
-            sut.deliver(from, to, contentStream);
+        sut.deliver(from, to, contentStream);
 
-            verify(emailRepository, never()).save(any(Email.class));
-            verify(emailSseEmitterService, never()).sendEmailReceivedEvent(any(Email.class));
-            verify(messageForwarder, never()).forward(any(RawData.class));
-        });
+        verifyNoInteractions(messagePersister, messageIngestQueue);
     }
-}
\ No newline at end of file
+}
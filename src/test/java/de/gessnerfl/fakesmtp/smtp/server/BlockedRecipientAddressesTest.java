@@ -7,8 +7,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -27,7 +30,7 @@ class BlockedRecipientAddressesTest {
 
     @Test
     void shouldNormalizeEmailsToLowerCaseOnInit(){
-        MatcherAssert.assertThat(sut.blockedAddresses, Matchers.contains("blocked@example.com"));
+        MatcherAssert.assertThat(sut.getEntries(), Matchers.contains("blocked@example.com"));
     }
 
     @Test
@@ -44,5 +47,59 @@ class BlockedRecipientAddressesTest {
     @Test
     void shouldReturnFalseWhenRecipientIsNotBlocked(){
         assertFalse(sut.isBlocked("valid@example.com"));
+        assertFalse(sut.isBlocked("blocked@example.co"));
+        assertFalse(sut.isBlocked("example.com"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldBlockAllAddressesOfDomain(){
+        sut.add(List.of("*@Domain.org"));
+
+        assertTrue(sut.isBlocked("anyone@domain.org"));
+        assertTrue(sut.isBlocked("Someone@DOMAIN.org"));
+        assertFalse(sut.isBlocked("anyone@sub.domain.org"));
+        assertFalse(sut.isBlocked("anyone@otherdomain.org"));
+    }
+
+    @Test
+    void shouldBlockAllAddressesOfSubdomains(){
+        sut.add(List.of("*@*.domain.org"));
+
+        assertTrue(sut.isBlocked("anyone@sub.domain.org"));
+        assertTrue(sut.isBlocked("anyone@deep.Sub.Domain.org"));
+        assertFalse(sut.isBlocked("anyone@domain.org"));
+        assertFalse(sut.isBlocked("anyone@subdomain.org"));
+    }
+
+    @Test
+    void shouldAddAndRemoveEntriesAtRuntime(){
+        sut.add(List.of("other@example.com", "*@domain.org", "*@*.domain.org"));
+
+        MatcherAssert.assertThat(sut.getEntries(), Matchers.contains("*@*.domain.org", "*@domain.org", "blocked@example.com", "other@example.com"));
+        assertTrue(sut.isBlocked("other@example.com"));
+
+        sut.remove(List.of("Blocked@example.com", "*@domain.org"));
+
+        MatcherAssert.assertThat(sut.getEntries(), Matchers.contains("*@*.domain.org", "other@example.com"));
+        assertFalse(sut.isBlocked("blocked@example.com"));
+        assertFalse(sut.isBlocked("anyone@domain.org"));
+        assertTrue(sut.isBlocked("anyone@sub.domain.org"));
+    }
+
+    @Test
+    void shouldRejectInvalidEntriesWithoutApplyingAnyEntry(){
+        assertThrows(IllegalArgumentException.class, () -> sut.add(List.of("valid@example.com", " ")));
+        assertThrows(IllegalArgumentException.class, () -> sut.add(List.of("*@")));
+        assertThrows(IllegalArgumentException.class, () -> sut.remove(List.of("*@*.")));
+
+        MatcherAssert.assertThat(sut.getEntries(), Matchers.contains("blocked@example.com"));
+    }
+
+    @Test
+    void shouldHandleLargeNumberOfEntries(){
+        sut.add(IntStream.range(0, 100_000).mapToObj(i -> "user" + i + "@example.com").toList());
+
+        assertTrue(sut.isBlocked("User99999@Example.com"));
+        assertFalse(sut.isBlocked("user100000@example.com"));
+    }
+}
@@ -14,14 +14,20 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,11 +57,38 @@ class EmailFactoryTest {
         assertPlainTextEmail(now, dataAsString, result);
     }
 
+    @Test
+    void shouldKeepEightBitRawDataUnchanged() throws Exception {
+        var now = getUtcNow();
+        var data = "Subject: 8bit\r\nContent-Type: text/plain; charset=ISO-8859-1\r\nContent-Transfer-Encoding: 8bit\r\n\r\nGr\u00fc\u00dfe\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        var rawData = new RawData(SENDER, RECEIVER, data);
+
+        when(timestampProvider.now()).thenReturn(now);
+
+        var result = sut.convert(rawData);
+
+        assertArrayEquals(data, result.getRawData());
+    }
+
+    @Test
+    void shouldAbbreviateSubjectExceedingMaximumLength() throws Exception {
+        var subject = "a".repeat(Email.MAX_SUBJECT_LENGTH + 1);
+        var data = ("Subject: " + subject + "\r\n\r\ncontent\r\n").getBytes(StandardCharsets.US_ASCII);
+        var rawData = new RawData(SENDER, RECEIVER, data);
+
+        var result = sut.convert(rawData);
+        var headersOnlyResult = sut.convertHeaders(rawData);
+
+        var expectedSubject = subject.substring(0, Email.MAX_SUBJECT_LENGTH - 3) + "...";
+        assertEquals(expectedSubject, result.getSubject());
+        assertEquals(expectedSubject, headersOnlyResult.getSubject());
+    }
+
     private void assertPlainTextEmail(ZonedDateTime now, String dataAsString, Email result) {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals("This is the mail title", result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(1));
         assertFalse(result.getHtmlContent().isPresent());
         assertTrue(result.getPlainContent().isPresent());
@@ -79,7 +112,7 @@ class EmailFactoryTest {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals("This is the mail title", result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(1));
         assertFalse(result.getPlainContent().isPresent());
         assertTrue(result.getHtmlContent().isPresent());
@@ -104,7 +137,7 @@ class EmailFactoryTest {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals("This is the mail title", result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(2));
         assertTrue(result.getPlainContent().isPresent());
         assertEquals("This is the test mail", result.getPlainContent().get().getData());
@@ -113,7 +146,8 @@ class EmailFactoryTest {
         assertEquals(now, result.getReceivedOn());
         assertThat(result.getAttachments(), empty());
         assertThat(result.getInlineImages(), hasSize(1));
-        assertEquals(imageBase64, result.getInlineImages().get(0).getData());
+        assertArrayEquals(Base64.getDecoder().decode(imageBase64), result.getInlineImages().get(0).getData());
+        assertEquals(Base64.getDecoder().decode(imageBase64).length, result.getInlineImages().get(0).getSize());
         assertEquals("image/png", result.getInlineImages().get(0).getContentType());
     }
 
@@ -148,7 +182,7 @@ class EmailFactoryTest {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals(EmailFactory.UNDEFINED, result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(1));
         assertFalse(result.getHtmlContent().isPresent());
         assertTrue(result.getPlainContent().isPresent());
@@ -171,7 +205,7 @@ class EmailFactoryTest {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals(EmailFactory.UNDEFINED, result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(1));
         assertFalse(result.getHtmlContent().isPresent());
         assertTrue(result.getPlainContent().isPresent());
@@ -195,7 +229,7 @@ class EmailFactoryTest {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals("This is the mail title", result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(2));
         assertTrue(result.getHtmlContent().isPresent());
         assertTrue(result.getPlainContent().isPresent());
@@ -220,7 +254,7 @@ class EmailFactoryTest {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals("This is the mail title", result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(2));
         assertFalse(result.getHtmlContent().isPresent());
         assertTrue(result.getPlainContent().isPresent());
@@ -245,7 +279,7 @@ class EmailFactoryTest {
         assertEquals(SENDER, result.getFromAddress());
         assertEquals(RECEIVER, result.getToAddress());
         assertEquals("Test-Alternative-Mail 4", result.getSubject());
-        assertEquals(dataAsString, result.getRawData());
+        assertEquals(dataAsString, result.getRawDataAsString());
         assertThat(result.getContents(), hasSize(2));
         assertTrue(result.getHtmlContent().isPresent());
         assertTrue(result.getPlainContent().isPresent());
@@ -256,6 +290,70 @@ class EmailFactoryTest {
         assertThat(result.getAttachments().stream().map(EmailAttachment::getFilename).collect(toList()), containsInAnyOrder("customizing.css", "app-icon.png"));
     }
 
+    @Test
+    void shouldOnlyParseHeadersAndExtractBodyOnDemand() throws Exception {
+        var now = getUtcNow();
+        var testFilename = "multipart-mail-html-and-plain-with-attachments.eml";
+        var data = TestResourceUtil.getTestFileContentBytes(testFilename);
+        var rawData = new RawData(SENDER, RECEIVER, data);
+
+        when(timestampProvider.now()).thenReturn(now);
+
+        var result = sut.convertHeaders(rawData);
+
+        assertEquals(SENDER, result.getFromAddress());
+        assertEquals(RECEIVER, result.getToAddress());
+        assertEquals("Test-Alternative-Mail 4", result.getSubject());
+        assertEquals(Optional.of("<335471116.29.1538567864763@[192.168.0.157]>"), result.getMessageId());
+        assertArrayEquals(data, result.getRawData());
+        assertEquals(now, result.getReceivedOn());
+        assertFalse(result.isBodyParsed());
+        assertThat(result.getContents(), empty());
+        assertThat(result.getAttachments(), empty());
+
+        sut.parseBody(result);
+
+        assertTrue(result.isBodyParsed());
+        assertThat(result.getContents(), hasSize(2));
+        assertEquals("This is the test mail number4", result.getPlainContent().get().getData());
+        assertEquals("<html><head></head><body>This is the test mail number 4</body>", result.getHtmlContent().get().getData());
+        assertThat(result.getAttachments(), hasSize(2));
+        assertThat(result.getAttachments().stream().map(EmailAttachment::getFilename).collect(toList()), containsInAnyOrder("customizing.css", "app-icon.png"));
+        assertTrue(result.getAttachments().stream().allMatch(a -> a.getEmail() == result));
+    }
+
+    @Test
+    void shouldUseUndefinedSubjectWhenOnlyHeadersAreParsedAndSubjectIsMissing() throws Exception {
+        var data = TestResourceUtil.getTestFileContentBytes("mail-without-subject.eml");
+        var rawData = new RawData(SENDER, RECEIVER, data);
+
+        when(timestampProvider.now()).thenReturn(getUtcNow());
+
+        var result = sut.convertHeaders(rawData);
+
+        assertEquals(EmailFactory.UNDEFINED, result.getSubject());
+        assertFalse(result.isBodyParsed());
+    }
+
+    @Test
+    void shouldCloseContentStreamWhenOnlyHeadersAreParsed() throws Exception {
+        var data = TestResourceUtil.getTestFileContentBytes("mail-without-subject.eml");
+        var closed = new AtomicBoolean();
+        var rawData = spy(new RawData(SENDER, RECEIVER, data));
+        doReturn(new ByteArrayInputStream(data) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        }).when(rawData).getContentAsStream();
+
+        when(timestampProvider.now()).thenReturn(getUtcNow());
+
+        sut.convertHeaders(rawData);
+
+        assertTrue(closed.get());
+    }
+
     private static ZonedDateTime getUtcNow() {
         return ZonedDateTime.now(ZoneId.of("UTC"));
     }
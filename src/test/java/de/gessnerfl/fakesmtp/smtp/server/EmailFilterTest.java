@@ -1,63 +1,144 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
 import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class EmailFilterTest {
   private static final String TEST_EMAIL_ADDRESS_1 = "john@doe.com";
   private static final String TEST_EMAIL_ADDRESS_2 = "jane@doe.com";
 
-  @Mock
-  private FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties;
+  private final FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties = new FakeSmtpConfigurationProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
 
   @Mock
   private Logger logger;
 
-  @InjectMocks
-  private EmailFilter sut;
+  private EmailFilter createSut(String filteredEmailRegexList) {
+    fakeSmtpConfigurationProperties.setFilteredEmailRegexList(filteredEmailRegexList);
+    return new EmailFilter(fakeSmtpConfigurationProperties, registry, logger);
+  }
 
   @Test
   void emptyFilter(){
-    when(fakeSmtpConfigurationProperties.getFilteredEmailRegexList()).thenReturn(null);
-    assertFalse(sut.ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2));
-
-    when(fakeSmtpConfigurationProperties.getFilteredEmailRegexList()).thenReturn("      ");
-    assertFalse(sut.ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2));
+    assertFalse(createSut(null).ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2));
+    assertFalse(createSut("      ").ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2));
   }
 
   @Test
   void noneMatchingFilter(){
-    when(fakeSmtpConfigurationProperties.getFilteredEmailRegexList()).thenReturn(".*@google.com");
-    assertFalse(sut.ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
+    assertFalse(createSut(".*@google.com").ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
   }
 
   @Test
   void matchingFilter(){
-    when(fakeSmtpConfigurationProperties.getFilteredEmailRegexList()).thenReturn(".*@doe.com");
-    assertTrue(sut.ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
+    assertTrue(createSut(".*@doe.com").ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
   }
 
   @ParameterizedTest
   @ValueSource(strings = {".*@other\\.com,jane@.*", ".*@doe\\.com,jane@.*"})
   void matchingFilterMultipleRegex(String regex){
-    when(fakeSmtpConfigurationProperties.getFilteredEmailRegexList()).thenReturn(regex);
-    assertTrue(sut.ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
+    assertTrue(createSut(regex).ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
   }
 
   @Test
   void invalidRegex(){
-    when(fakeSmtpConfigurationProperties.getFilteredEmailRegexList()).thenReturn("****");
-    assertFalse(sut.ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
+    assertFalse(createSut("****").ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
+  }
+
+  @Test
+  void invalidRegexDoesNotDisableValidRegex(){
+    var sut = createSut("****,jane@doe\\.com");
+
+    assertTrue(sut.ignore(TEST_EMAIL_ADDRESS_1,TEST_EMAIL_ADDRESS_2));
+    assertEquals(List.of("jane@doe\\.com"), sut.getRules());
+  }
+
+  @Test
+  void literalRulesMatchWholeAddressOnly(){
+    var sut = createSut("john@doe\\.com,.*@google\\.com");
+
+    assertTrue(sut.ignore(TEST_EMAIL_ADDRESS_1, "foo@bar.com"));
+    assertTrue(sut.ignore("foo@bar.com", "bar@google.com"));
+    assertTrue(sut.ignore("foo@bar.com", "@google.com"));
+    assertFalse(sut.ignore("xjohn@doe.com", "foo@mail.google.com"));
+    assertFalse(sut.ignore("john@doe.comx", "bar@google.co"));
+  }
+
+  @Test
+  void regexRulesWithBackReferences(){
+    var sut = createSut("x.*,(a+)@\\1\\.com");
+
+    assertTrue(sut.ignore("aa@aa.com", TEST_EMAIL_ADDRESS_2));
+    assertFalse(sut.ignore("aa@a.com", TEST_EMAIL_ADDRESS_2));
+  }
+
+  @Test
+  void regexRulesWithQuotes(){
+    var sut = createSut("x\\Q.y,\\Qb.\\E,c.*");
+
+    assertTrue(sut.ignore("x.y", TEST_EMAIL_ADDRESS_2));
+    assertTrue(sut.ignore("b.", TEST_EMAIL_ADDRESS_2));
+    assertTrue(sut.ignore("cd", TEST_EMAIL_ADDRESS_2));
+    assertFalse(sut.ignore("xzy", "bz"));
+    assertFalse(sut.ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2));
+  }
+
+  @Test
+  void regexRulesWhichCannotBeCombined(){
+    var sut = createSut("(?<user>j.*)@doe\\.com,(?<user>x.*)@other\\.com");
+
+    assertTrue(sut.ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2));
+    assertTrue(sut.ignore("xy@other.com", TEST_EMAIL_ADDRESS_2));
+    assertFalse(sut.ignore("foo@doe.com", "bar@other.com"));
+    assertEquals(List.of("(?<user>j.*)@doe\\.com", "(?<user>x.*)@other\\.com"), sut.getRules());
+  }
+
+  @Test
+  void countHitsPerRule(){
+    var sut = createSut("john@doe\\.com,.*@google\\.com,j.*@doe\\.com");
+
+    sut.ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2);
+    sut.ignore(TEST_EMAIL_ADDRESS_2, TEST_EMAIL_ADDRESS_2);
+
+    assertEquals(1, registry.get(EmailFilter.FILTER_RULE_HITS).tag("rule", "john@doe\\.com").counter().count());
+    assertEquals(0, registry.get(EmailFilter.FILTER_RULE_HITS).tag("rule", ".*@google\\.com").counter().count());
+    assertEquals(1, registry.get(EmailFilter.FILTER_RULE_HITS).tag("rule", "j.*@doe\\.com").counter().count());
+  }
+
+  @Test
+  void replaceRules(){
+    var sut = createSut("john@doe\\.com,.*@google\\.com");
+
+    sut.replaceRules(List.of(".*@google\\.com", "jane@.*"));
+
+    assertEquals(List.of(".*@google\\.com", "jane@.*"), sut.getRules());
+    assertFalse(sut.ignore(TEST_EMAIL_ADDRESS_1, "foo@bar.com"));
+    assertTrue(sut.ignore(TEST_EMAIL_ADDRESS_1, TEST_EMAIL_ADDRESS_2));
+    assertThat(registry.find(EmailFilter.FILTER_RULE_HITS).counters())
+        .extracting(c -> c.getId().getTag("rule"))
+        .containsExactlyInAnyOrder(".*@google\\.com", "jane@.*");
+  }
+
+  @Test
+  void keepRulesWhenReplacementIsInvalid(){
+    var sut = createSut("john@doe\\.com");
+
+    assertThrows(PatternSyntaxException.class, () -> sut.replaceRules(List.of("jane@.*", "****")));
+
+    assertEquals(List.of("john@doe\\.com"), sut.getRules());
+    assertTrue(sut.ignore(TEST_EMAIL_ADDRESS_1, "foo@bar.com"));
   }
 }
@@ -2,11 +2,18 @@ package de.gessnerfl.fakesmtp.smtp.server;
 
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class JavaMailSenderFacadeTest {
@@ -73,4 +80,68 @@ class JavaMailSenderFacadeTest {
         verifyNoMoreInteractions(logger);
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldSendAllMimeMessagesWhenMailSystemIsAvailable() {
+        var javaMailSender = mock(JavaMailSender.class);
+        var logger = mock(Logger.class);
+        var mimeMessage1 = mock(MimeMessage.class);
+        var mimeMessage2 = mock(MimeMessage.class);
+
+        var sut = new JavaMailSenderFacade();
+        sut.setJavaMailSender(javaMailSender);
+        sut.setLogger(logger);
+
+        var failures = sut.sendAll(List.of(mimeMessage1, mimeMessage2));
+
+        assertTrue(failures.isEmpty());
+        verify(javaMailSender).send(mimeMessage1, mimeMessage2);
+        verifyNoMoreInteractions(javaMailSender);
+        verifyNoInteractions(logger);
+    }
+
+    @Test
+    void shouldReturnFailedMessagesWhenSendingOfSomeMimeMessagesFails() {
+        var javaMailSender = mock(JavaMailSender.class);
+        var mimeMessage1 = mock(MimeMessage.class);
+        var mimeMessage2 = mock(MimeMessage.class);
+        var cause = new IllegalStateException("rejected");
+        doThrow(new MailSendException(Map.of(mimeMessage2, cause))).when(javaMailSender).send(mimeMessage1, mimeMessage2);
+
+        var sut = new JavaMailSenderFacade();
+        sut.setJavaMailSender(javaMailSender);
+
+        var failures = sut.sendAll(List.of(mimeMessage1, mimeMessage2));
+
+        assertEquals(Map.of(mimeMessage2, cause), failures);
+    }
+
+    @Test
+    void shouldReturnAllMessagesAsFailedWhenMailSystemFails() {
+        var javaMailSender = mock(JavaMailSender.class);
+        var mimeMessage1 = mock(MimeMessage.class);
+        var mimeMessage2 = mock(MimeMessage.class);
+        var exception = new MailAuthenticationException("authentication failed");
+        doThrow(exception).when(javaMailSender).send(mimeMessage1, mimeMessage2);
+
+        var sut = new JavaMailSenderFacade();
+        sut.setJavaMailSender(javaMailSender);
+
+        var failures = sut.sendAll(List.of(mimeMessage1, mimeMessage2));
+
+        assertEquals(Map.of(mimeMessage1, exception, mimeMessage2, exception), failures);
+    }
+
+    @Test
+    void shouldLogErrorAndSkipSendingOfAllMimeMessagesWhenMailSystemIsNotAvailable() {
+        var logger = mock(Logger.class);
+        var mimeMessage = mock(MimeMessage.class);
+
+        var sut = new JavaMailSenderFacade();
+        sut.setLogger(logger);
+
+        assertTrue(sut.sendAll(List.of(mimeMessage)).isEmpty());
+
+        verify(logger).error(JavaMailSenderFacade.ERROR_MESSAGE);
+        verifyNoMoreInteractions(logger);
+    }
+}
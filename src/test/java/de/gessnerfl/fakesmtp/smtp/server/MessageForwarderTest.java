@@ -1,43 +1,76 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
 import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.util.TimestampProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class MessageForwarderTest {
+    private static final long TIMEOUT_MILLIS = 5000;
 
-    @Mock
-    private FakeSmtpConfigurationProperties configurationProperties;
     @Mock
     private JavaMailSenderFacade javaMailSenderFacade;
     @Mock
+    private RawDataLoader rawDataLoader;
+    @Mock
     private Logger logger;
 
-    @InjectMocks
+    private final FakeSmtpConfigurationProperties configurationProperties = new FakeSmtpConfigurationProperties();
+    private final AtomicLong emailIds = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private MessageForwarder sut;
 
+    @BeforeEach
+    void init() {
+        configurationProperties.setForwardEmails(true);
+        configurationProperties.getForwarding().setWorkers(1);
+        configurationProperties.getForwarding().setMaxAttempts(2);
+        configurationProperties.getForwarding().setInitialBackoff(Duration.ofMillis(10));
+        sut = new MessageForwarder(configurationProperties, javaMailSenderFacade, rawDataLoader, new TimestampProvider(), meterRegistry, logger);
+    }
+
+    @AfterEach
+    void cleanup() {
+        sut.stop();
+    }
+
     @Test
     void shouldSkipForwardingWhenForwardingIsNotEnabled() throws Exception {
-        var rawData = mock(RawData.class);
-        when(configurationProperties.isForwardEmails()).thenReturn(false);
+        configurationProperties.setForwardEmails(false);
+        sut.start();
 
-        sut.forward(rawData);
+        sut.forward(email());
+        sut.onEventDropped(EmailReceived.of(email()));
 
-        verify(rawData, never()).toMimeMessage();
-        verifyNoInteractions(javaMailSenderFacade);
+        verifyNoInteractions(rawDataLoader, javaMailSenderFacade);
+        Assertions.assertTrue(sut.getDeadLetters().isEmpty());
     }
 
     @Test
@@ -45,13 +78,14 @@ class MessageForwarderTest {
         var mimeMessage = mock(MimeMessage.class);
         var rawData = mock(RawData.class);
         when(rawData.toMimeMessage()).thenReturn(mimeMessage);
-        when(configurationProperties.isForwardEmails()).thenReturn(true);
+        when(javaMailSenderFacade.sendAll(List.of(mimeMessage))).thenReturn(Map.of());
+        sut.start();
 
-        sut.forward(rawData);
+        sut.forward(emailOf(rawData));
 
-        verify(rawData).toMimeMessage();
-        verify(javaMailSenderFacade).send(mimeMessage);
-        verifyNoMoreInteractions(rawData, javaMailSenderFacade);
+        verify(javaMailSenderFacade, timeout(TIMEOUT_MILLIS)).sendAll(List.of(mimeMessage));
+        waitUntil(() -> meterRegistry.get(MessageForwarder.LATENCY).timer().count() == 1);
+        verifyNoMoreInteractions(javaMailSenderFacade);
     }
 
     @Test
@@ -62,22 +96,17 @@ class MessageForwarderTest {
         var content = "content";
         var rawData = mock(RawData.class);
         when(rawData.getFrom()).thenReturn(from);
-        when(rawData.getTo()).thenReturn(to);
+        when(rawData.getRecipients()).thenReturn(List.of(to));
         when(rawData.getContentAsString()).thenReturn(content);
         when(rawData.toMimeMessage()).thenThrow(expectedException);
-        when(configurationProperties.isForwardEmails()).thenReturn(true);
+        sut.start();
 
-        sut.forward(rawData);
+        sut.forward(emailOf(rawData));
 
-        verify(rawData).toMimeMessage();
-        verify(javaMailSenderFacade, never()).send(any(MimeMessage.class));
-        verify(logger).warn(anyString(), eq(expectedException));
-        verify(rawData).getFrom();
-        verify(rawData).getTo();
-        verify(rawData).getContentAsString();
         var mailMessageArgumentCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(javaMailSenderFacade).send(mailMessageArgumentCaptor.capture());
-        verifyNoMoreInteractions(rawData, javaMailSenderFacade);
+        verify(javaMailSenderFacade, timeout(TIMEOUT_MILLIS)).send(mailMessageArgumentCaptor.capture());
+        verify(javaMailSenderFacade, never()).sendAll(anyList());
+        verify(logger).warn(anyString(), eq(expectedException));
 
         var message = mailMessageArgumentCaptor.getValue();
         Assertions.assertEquals(from, message.getFrom());
@@ -85,4 +114,164 @@ class MessageForwarderTest {
         Assertions.assertEquals(content, message.getText());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldSendQueuedMessagesInOneBatch() throws Exception {
+        var firstSendStarted = new CountDownLatch(1);
+        var releaseFirstSend = new CountDownLatch(1);
+        var mimeMessages = List.of(mock(MimeMessage.class), mock(MimeMessage.class), mock(MimeMessage.class), mock(MimeMessage.class));
+        var emails = mimeMessages.stream().map(this::rawDataOf).map(this::emailOf).toList();
+        when(javaMailSenderFacade.sendAll(List.of(mimeMessages.getFirst()))).thenAnswer(invocation -> {
+            firstSendStarted.countDown();
+            releaseFirstSend.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return Map.of();
+        });
+        when(javaMailSenderFacade.sendAll(mimeMessages.subList(1, 4))).thenReturn(Map.of());
+        sut.start();
+
+        sut.forward(emails.getFirst());
+        Assertions.assertTrue(firstSendStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        emails.subList(1, 4).forEach(sut::forward);
+        releaseFirstSend.countDown();
+
+        verify(javaMailSenderFacade, timeout(TIMEOUT_MILLIS)).sendAll(mimeMessages.subList(1, 4));
+    }
+
+    @Test
+    void shouldRetryFailedMessage() throws Exception {
+        var mimeMessage = mock(MimeMessage.class);
+        var rawData = rawDataOf(mimeMessage);
+        when(javaMailSenderFacade.sendAll(List.of(mimeMessage)))
+                .thenReturn(Map.of(mimeMessage, new MailSendException("relay not available")))
+                .thenReturn(Map.of());
+        sut.start();
+
+        sut.forward(emailOf(rawData));
+
+        verify(javaMailSenderFacade, timeout(TIMEOUT_MILLIS).times(2)).sendAll(List.of(mimeMessage));
+        Assertions.assertEquals(1, meterRegistry.get(MessageForwarder.RETRIES).counter().count());
+        Assertions.assertTrue(sut.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void shouldAddMessageToDeadLettersWhenMaximumNumberOfAttemptsIsReached() throws Exception {
+        var mimeMessage = mock(MimeMessage.class);
+        var rawData = rawDataOf(mimeMessage);
+        when(javaMailSenderFacade.sendAll(List.of(mimeMessage))).thenReturn(Map.of(mimeMessage, new MailSendException("relay not available")));
+        sut.start();
+
+        sut.forward(emailOf(rawData));
+
+        waitUntil(() -> !sut.getDeadLetters().isEmpty());
+        var deadLetter = sut.getDeadLetters().getFirst();
+        Assertions.assertEquals(1L, deadLetter.emailId());
+        Assertions.assertEquals("from", deadLetter.from());
+        Assertions.assertEquals(List.of("to"), deadLetter.recipients());
+        Assertions.assertEquals(2, deadLetter.attempts());
+        Assertions.assertEquals("relay not available", deadLetter.error());
+        verify(javaMailSenderFacade, times(2)).sendAll(List.of(mimeMessage));
+
+        when(javaMailSenderFacade.sendAll(List.of(mimeMessage))).thenReturn(Map.of());
+        Assertions.assertEquals(1, sut.retryDeadLetters());
+
+        verify(javaMailSenderFacade, timeout(TIMEOUT_MILLIS).times(3)).sendAll(List.of(mimeMessage));
+        Assertions.assertTrue(sut.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void shouldAddMessageToDeadLettersWhenQueueIsFull() throws Exception {
+        configurationProperties.getForwarding().setQueueCapacity(1);
+        var firstSendStarted = new CountDownLatch(1);
+        var releaseFirstSend = new CountDownLatch(1);
+        var mimeMessage = mock(MimeMessage.class);
+        when(javaMailSenderFacade.sendAll(List.of(mimeMessage))).thenAnswer(invocation -> {
+            firstSendStarted.countDown();
+            releaseFirstSend.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return Map.of();
+        });
+        sut.start();
+
+        sut.forward(emailOf(rawDataOf(mimeMessage)));
+        Assertions.assertTrue(firstSendStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        sut.forward(email());
+        sut.forward(email());
+        releaseFirstSend.countDown();
+
+        Assertions.assertEquals(1, sut.getDeadLetters().size());
+        Assertions.assertEquals(MessageForwarder.QUEUE_FULL_ERROR, sut.getDeadLetters().getFirst().error());
+        Assertions.assertEquals(0, sut.getDeadLetters().getFirst().attempts());
+
+        sut.deleteDeadLetters();
+        Assertions.assertTrue(sut.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void shouldAddMessageToDeadLettersWhenEventIsDropped() {
+        sut.start();
+
+        sut.onEventDropped(EmailReceived.of(email()));
+
+        var deadLetter = sut.getDeadLetters().getFirst();
+        Assertions.assertEquals(1L, deadLetter.emailId());
+        Assertions.assertEquals(List.of("to"), deadLetter.recipients());
+        Assertions.assertEquals(MessageForwarder.EVENT_DROPPED_ERROR, deadLetter.error());
+        verifyNoInteractions(rawDataLoader, javaMailSenderFacade);
+    }
+
+    @Test
+    void shouldSkipMessageWhenEmailWasDeletedBeforeItWasForwarded() throws Exception {
+        var deleted = email();
+        when(rawDataLoader.load(deleted.getId(), "from", List.of("to"))).thenReturn(Optional.empty());
+        var mimeMessage = mock(MimeMessage.class);
+        when(javaMailSenderFacade.sendAll(List.of(mimeMessage))).thenReturn(Map.of());
+        sut.start();
+
+        sut.forward(deleted);
+        sut.forward(emailOf(rawDataOf(mimeMessage)));
+
+        verify(javaMailSenderFacade, timeout(TIMEOUT_MILLIS)).sendAll(List.of(mimeMessage));
+        verifyNoMoreInteractions(javaMailSenderFacade);
+        Assertions.assertTrue(sut.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void shouldIncreaseBackoffExponentiallyUpToMaximum() {
+        var forwarding = new FakeSmtpConfigurationProperties.Forwarding();
+
+        Assertions.assertEquals(Duration.ofSeconds(1), MessageForwarder.backoff(forwarding, 1));
+        Assertions.assertEquals(Duration.ofSeconds(4), MessageForwarder.backoff(forwarding, 3));
+        Assertions.assertEquals(Duration.ofMinutes(5), MessageForwarder.backoff(forwarding, 10));
+        Assertions.assertEquals(Duration.ofMinutes(5), MessageForwarder.backoff(forwarding, 100));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final var deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+
+    private Email email() {
+        var email = new Email();
+        email.setId(emailIds.incrementAndGet());
+        email.setFromAddress("from");
+        email.setRecipients(List.of("to"));
+        return email;
+    }
+
+    private Email emailOf(RawData rawData) {
+        var email = email();
+        when(rawDataLoader.load(email.getId(), "from", List.of("to"))).thenReturn(Optional.of(rawData));
+        return email;
+    }
+
+    private RawData rawDataOf(MimeMessage mimeMessage) {
+        try {
+            var rawData = mock(RawData.class);
+            when(rawData.toMimeMessage()).thenReturn(mimeMessage);
+            return rawData;
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
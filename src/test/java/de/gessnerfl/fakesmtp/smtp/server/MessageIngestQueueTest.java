@@ -0,0 +1,260 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.smtp.RejectException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageIngestQueueTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Mock
+    private MessagePersister messagePersister;
+    @Mock
+    private Logger logger;
+
+    private FakeSmtpConfigurationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private MessageIngestQueue sut;
+
+    @BeforeEach
+    void init() {
+        properties = new FakeSmtpConfigurationProperties();
+        properties.getIngest().setMode(FakeSmtpConfigurationProperties.IngestMode.ASYNCHRONOUS);
+        properties.getIngest().setSpoolDirectory(spoolDirectory);
+        meterRegistry = new SimpleMeterRegistry();
+        sut = new MessageIngestQueue(properties, messagePersister, meterRegistry, logger);
+    }
+
+    @AfterEach
+    void cleanup() {
+        sut.stop();
+    }
+
+    @Test
+    void shouldNotBeEnabledInSynchronousMode() throws IOException {
+        properties.getIngest().setMode(FakeSmtpConfigurationProperties.IngestMode.SYNCHRONOUS);
+
+        sut.start();
+
+        assertFalse(sut.isEnabled());
+    }
+
+    @Test
+    void shouldPersistEnqueuedMessageAndRemoveSpoolFile() throws IOException {
+        var rawData = new RawData("from", "to", "content".getBytes(StandardCharsets.UTF_8));
+        var contents = recordPersistedContents();
+        sut.start();
+
+        assertTrue(sut.isEnabled());
+        sut.enqueue(rawData);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RawData>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(messagePersister, timeout(5000)).persistAll(argumentCaptor.capture());
+        var persisted = argumentCaptor.getValue();
+        assertEquals(1, persisted.size());
+        assertEquals("from", persisted.get(0).getFrom());
+        assertEquals("to", persisted.get(0).getTo());
+
+        sut.stop();
+        assertEquals(List.of("content"), contents);
+        assertSpoolDirectoryIsEmpty();
+        assertEquals(1, meterRegistry.get(MessageIngestQueue.BATCH_SIZE).summary().count());
+        assertEquals(1, meterRegistry.get(MessageIngestQueue.LAG).timer().count());
+    }
+
+    @Test
+    void shouldRejectMessageWithTemporaryFailureWhenQueueIsFullAndPolicyIsReject() throws Exception {
+        properties.getIngest().setQueueCapacity(1);
+        properties.getIngest().setQueueFullPolicy(FakeSmtpConfigurationProperties.QueueFullPolicy.REJECT);
+        var writerBlocked = new CountDownLatch(1);
+        var releaseWriter = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writerBlocked.countDown();
+            releaseWriter.await();
+            return List.of();
+        }).when(messagePersister).persistAll(anyList());
+        sut.start();
+
+        sut.enqueue(new RawData("from", "to1", "content1".getBytes(StandardCharsets.UTF_8)));
+        writerBlocked.await();
+        sut.enqueue(new RawData("from", "to2", "content2".getBytes(StandardCharsets.UTF_8)));
+
+        var rawData = new RawData("from", "to3", "content3".getBytes(StandardCharsets.UTF_8));
+        var exception = assertThrows(RejectException.class, () -> sut.enqueue(rawData));
+        assertTrue(exception.getErrorResponse().startsWith("451 "));
+        assertEquals(1.0, meterRegistry.get(MessageIngestQueue.REJECTED).counter().count());
+
+        releaseWriter.countDown();
+        verify(messagePersister, timeout(5000).times(2)).persistAll(anyList());
+    }
+
+    @Test
+    void shouldRecoverSpooledMessagesOnStart() throws IOException {
+        var rawData = new RawData("from", "to", "content".getBytes(StandardCharsets.UTF_8));
+        doThrow(new IllegalStateException("database not available")).when(messagePersister).persistAll(anyList());
+        sut.start();
+        sut.enqueue(rawData);
+        verify(messagePersister, timeout(5000)).persistAll(anyList());
+        sut.stop();
+
+        try (var files = Files.list(spoolDirectory)) {
+            assertEquals(1, files.count());
+        }
+
+        reset(messagePersister);
+        var contents = recordPersistedContents();
+        sut = new MessageIngestQueue(properties, messagePersister, new SimpleMeterRegistry(), logger);
+        sut.start();
+
+        verify(messagePersister, timeout(5000)).persistAll(anyList());
+
+        sut.stop();
+        assertEquals(List.of("content"), contents);
+        assertSpoolDirectoryIsEmpty();
+    }
+
+    @Test
+    void shouldRetryFailedBatch() throws IOException {
+        properties.getIngest().setPersistInitialBackoff(Duration.ofMillis(10));
+        doThrow(new IllegalStateException("database not available")).doReturn(List.of()).when(messagePersister).persistAll(anyList());
+        sut.start();
+
+        sut.enqueue(new RawData("from", "to", "content".getBytes(StandardCharsets.UTF_8)));
+
+        verify(messagePersister, timeout(5000).times(2)).persistAll(anyList());
+        sut.stop();
+        assertSpoolDirectoryIsEmpty();
+        assertEquals(0.0, meterRegistry.get(MessageIngestQueue.DEAD_LETTERS).counter().count());
+    }
+
+    @Test
+    void shouldPersistMessagesOfFailedBatchOneAtATimeAndMovePoisonMessageToDeadLetters() throws Exception {
+        properties.getIngest().setPersistMaxAttempts(2);
+        properties.getIngest().setPersistInitialBackoff(Duration.ofMillis(10));
+        var writerBlocked = new CountDownLatch(1);
+        var releaseWriter = new CountDownLatch(1);
+        List<String> persisted = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<RawData> messages = invocation.getArgument(0);
+            if (messages.stream().anyMatch(m -> m.getContentAsString().equals("first"))) {
+                writerBlocked.countDown();
+                releaseWriter.await();
+            }
+            if (messages.stream().anyMatch(m -> m.getContentAsString().equals("poison"))) {
+                throw new IllegalStateException("constraint violation");
+            }
+            messages.forEach(m -> persisted.add(m.getContentAsString()));
+            return List.of();
+        }).when(messagePersister).persistAll(anyList());
+        sut.start();
+
+        sut.enqueue(new RawData("from", "to", "first".getBytes(StandardCharsets.UTF_8)));
+        writerBlocked.await();
+        sut.enqueue(new RawData("from", "to", "poison".getBytes(StandardCharsets.UTF_8)));
+        sut.enqueue(new RawData("from", "to", "good".getBytes(StandardCharsets.UTF_8)));
+        releaseWriter.countDown();
+
+        verify(messagePersister, timeout(5000).times(6)).persistAll(anyList());
+        sut.stop();
+
+        assertEquals(List.of("first", "good"), persisted);
+        assertEquals(1.0, meterRegistry.get(MessageIngestQueue.DEAD_LETTERS).counter().count());
+        assertSpoolDirectoryContainsOnlyDeadLetters(1);
+    }
+
+    @Test
+    void shouldMoveUnconvertibleMessageToDeadLetters() throws Exception {
+        var processed = new CountDownLatch(2);
+        List<String> persisted = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<RawData> messages = invocation.getArgument(0);
+            var unconvertible = messages.stream().filter(m -> m.getContentAsString().equals("broken")).toList();
+            messages.stream().filter(m -> !unconvertible.contains(m)).forEach(m -> persisted.add(m.getContentAsString()));
+            messages.forEach(m -> processed.countDown());
+            return unconvertible;
+        }).when(messagePersister).persistAll(anyList());
+        sut.start();
+
+        sut.enqueue(new RawData("from", "to", "broken".getBytes(StandardCharsets.UTF_8)));
+        sut.enqueue(new RawData("from", "to", "good".getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(processed.await(5, TimeUnit.SECONDS));
+        sut.stop();
+
+        assertEquals(List.of("good"), persisted);
+        assertEquals(1.0, meterRegistry.get(MessageIngestQueue.DEAD_LETTERS).counter().count());
+        assertSpoolDirectoryContainsOnlyDeadLetters(1);
+        try (var files = Files.list(spoolDirectory.resolve(MessageIngestQueue.DEAD_LETTER_DIRECTORY))) {
+            var content = new String(Files.readAllBytes(files.findFirst().orElseThrow()), StandardCharsets.ISO_8859_1);
+            assertTrue(content.endsWith("broken"));
+        }
+    }
+
+    @Test
+    void shouldMoveUnreadableSpoolFileToDeadLetters() throws IOException {
+        Files.write(spoolDirectory.resolve("0000000000000000001-0000000001.msg"), new byte[]{1});
+
+        sut.start();
+        sut.stop();
+
+        verify(messagePersister, never()).persistAll(anyList());
+        assertEquals(1.0, meterRegistry.get(MessageIngestQueue.DEAD_LETTERS).counter().count());
+        assertSpoolDirectoryContainsOnlyDeadLetters(1);
+    }
+
+    private void assertSpoolDirectoryContainsOnlyDeadLetters(int expectedDeadLetters) throws IOException {
+        try (var files = Files.list(spoolDirectory)) {
+            assertEquals(List.of(spoolDirectory.resolve(MessageIngestQueue.DEAD_LETTER_DIRECTORY)), files.toList());
+        }
+        try (var files = Files.list(spoolDirectory.resolve(MessageIngestQueue.DEAD_LETTER_DIRECTORY))) {
+            assertEquals(expectedDeadLetters, files.count());
+        }
+    }
+
+    /**
+     * Records the contents of the persisted messages, as the spool files are closed once the messages are persisted.
+     * The contents are complete once the queue is stopped, because the invocation is verifiable before it returns.
+     */
+    private List<String> recordPersistedContents() {
+        final List<String> contents = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<RawData> messages = invocation.getArgument(0);
+            messages.forEach(m -> contents.add(m.getContentAsString()));
+            return List.of();
+        }).when(messagePersister).persistAll(anyList());
+        return contents;
+    }
+
+    private void assertSpoolDirectoryIsEmpty() throws IOException {
+        try (var files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
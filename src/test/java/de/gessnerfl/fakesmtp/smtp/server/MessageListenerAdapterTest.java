@@ -0,0 +1,87 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.smtp.MessageContext;
+import jakarta.mail.internet.SharedInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class MessageListenerAdapterTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldDeliverMessageOfSingleRecipientFromSpoolFile() throws Exception {
+        var content = "Subject: test\r\n\r\n" + "x".repeat(4096);
+        var listener = new RecordingMessageListener(directory);
+        var sut = new MessageListenerAdapter(List.of(listener), 1024, directory);
+
+        var handler = sut.create(mock(MessageContext.class));
+        handler.from("from@example.com");
+        handler.recipient("to@example.com");
+        handler.data(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of(content), listener.contents);
+        assertEquals(List.of(1L), listener.spoolFiles);
+        assertTrue(listener.sharedStreams);
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void shouldDeliverMessageToAllListenersFromMemory() throws Exception {
+        var content = "Subject: test\r\n\r\nbody";
+        var listener1 = new RecordingMessageListener(directory);
+        var listener2 = new RecordingMessageListener(directory);
+        var sut = new MessageListenerAdapter(List.of(listener1, listener2), 1024, directory);
+
+        var handler = sut.create(mock(MessageContext.class));
+        handler.from("from@example.com");
+        handler.recipient("to@example.com");
+        handler.data(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of(content), listener1.contents);
+        assertEquals(List.of(0L), listener1.spoolFiles);
+        assertTrue(listener1.sharedStreams);
+        assertEquals(List.of(content), listener2.contents);
+        assertTrue(listener2.sharedStreams);
+    }
+
+    private static class RecordingMessageListener implements MessageListener {
+        private final Path directory;
+        private final List<String> contents = new ArrayList<>();
+        private final List<Long> spoolFiles = new ArrayList<>();
+        private boolean sharedStreams = true;
+
+        private RecordingMessageListener(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public boolean accept(String from, String recipient) {
+            return true;
+        }
+
+        @Override
+        public void deliver(String from, String recipient, InputStream data) throws IOException {
+            sharedStreams &= data instanceof SharedInputStream;
+            contents.add(new String(data.readAllBytes(), StandardCharsets.UTF_8));
+            try (var files = Files.list(directory)) {
+                spoolFiles.add(files.count());
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package de.gessnerfl.fakesmtp.smtp.server;
+
+import de.gessnerfl.fakesmtp.config.FakeSmtpConfigurationProperties;
+import de.gessnerfl.fakesmtp.event.EmailReceived;
+import de.gessnerfl.fakesmtp.model.Email;
+import de.gessnerfl.fakesmtp.repository.EmailRepository;
+import de.gessnerfl.fakesmtp.service.AttachmentBlobStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessagePersisterTest {
+
+    @Spy
+    private FakeSmtpConfigurationProperties fakeSmtpConfigurationProperties = new FakeSmtpConfigurationProperties();
+    @Mock
+    private EmailFactory emailFactory;
+    @Mock
+    private EmailRepository emailRepository;
+    @Mock
+    private AttachmentBlobStore attachmentBlobStore;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private Logger logger;
+
+    @InjectMocks
+    private MessagePersister sut;
+
+    @Test
+    void shouldCreateEmailEntityAndStoreItInDatabase() throws IOException {
+        var rawData = new RawData("from", "to", "content".getBytes(StandardCharsets.UTF_8));
+        var mail = mock(Email.class);
+        var savedMail = mock(Email.class);
+
+        when(emailFactory.convert(rawData)).thenReturn(mail);
+        when(emailRepository.save(mail)).thenReturn(savedMail);
+        when(savedMail.getId()).thenReturn(1L);
+
+        sut.persist(rawData);
+
+        verify(attachmentBlobStore).deduplicate(List.of(mail));
+        verify(emailRepository).save(mail);
+        verify(eventPublisher).publishEvent(new EmailReceived(1L, emailWithId(1L)));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenEmailEntityCannotBeCreated() throws IOException {
+        var rawData = new RawData("from", "to", "content".getBytes(StandardCharsets.UTF_8));
+
+        when(emailFactory.convert(rawData)).thenThrow(new IOException("foo"));
+
+        assertThrows(IOException.class, () -> sut.persist(rawData));
+
+        verify(emailRepository, never()).save(any(Email.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldStoreBatchOfEmailsAndSkipEmailsWhichCannotBeCreated() throws IOException {
+        var rawData1 = new RawData("from", "to1", "content1".getBytes(StandardCharsets.UTF_8));
+        var rawData2 = new RawData("from", "to2", "content2".getBytes(StandardCharsets.UTF_8));
+        var rawData3 = new RawData("from", "to3", "content3".getBytes(StandardCharsets.UTF_8));
+        var mail1 = mock(Email.class);
+        var mail3 = mock(Email.class);
+        var savedMail1 = mock(Email.class);
+        var savedMail3 = mock(Email.class);
+
+        when(emailFactory.convert(rawData1)).thenReturn(mail1);
+        when(emailFactory.convert(rawData2)).thenThrow(new IOException("foo"));
+        when(emailFactory.convert(rawData3)).thenReturn(mail3);
+        when(emailRepository.saveAll(List.of(mail1, mail3))).thenReturn(List.of(savedMail1, savedMail3));
+        when(savedMail1.getId()).thenReturn(1L);
+        when(savedMail3.getId()).thenReturn(3L);
+
+        var unconvertible = sut.persistAll(List.of(rawData1, rawData2, rawData3));
+
+        assertEquals(List.of(rawData2), unconvertible);
+        verify(attachmentBlobStore).deduplicate(List.of(mail1, mail3));
+        verify(emailRepository).saveAll(List.of(mail1, mail3));
+        verify(eventPublisher).publishEvent(new EmailReceived(1L, emailWithId(1L)));
+        verify(eventPublisher).publishEvent(new EmailReceived(3L, emailWithId(3L)));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldOnlyParseHeadersWhenLazyParsingIsEnabled() throws IOException {
+        fakeSmtpConfigurationProperties.getIngest().setParsing(FakeSmtpConfigurationProperties.ParsingMode.LAZY);
+        var rawData = new RawData("from", "to", "content".getBytes(StandardCharsets.UTF_8));
+        var mail = mock(Email.class);
+        var savedMail = mock(Email.class);
+
+        when(emailFactory.convertHeaders(rawData)).thenReturn(mail);
+        when(emailRepository.save(mail)).thenReturn(savedMail);
+        when(savedMail.getId()).thenReturn(1L);
+
+        sut.persist(rawData);
+
+        verify(emailFactory, never()).convert(any(RawData.class));
+        verify(emailRepository).save(mail);
+        verify(eventPublisher).publishEvent(new EmailReceived(1L, emailWithId(1L)));
+    }
+
+    private static Email emailWithId(Long id) {
+        var email = new Email();
+        email.setId(id);
+        return email;
+    }
+}
@@ -1,10 +1,16 @@
 package de.gessnerfl.fakesmtp.smtp.server;
 
 import de.gessnerfl.fakesmtp.TestResourceUtil;
+import jakarta.mail.util.SharedFileInputStream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 class RawDataTest {
 
@@ -16,4 +22,18 @@ class RawDataTest {
         Assertions.assertEquals("This is the mail title", message.getSubject());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldReadContentFromSharedInputStream(@TempDir Path directory) throws Exception {
+        var content = TestResourceUtil.getTestFileContentBytes("mail-with-subject.eml");
+        var file = Files.write(directory.resolve("message.eml"), content);
+
+        try (var source = new SharedFileInputStream(file.toFile())) {
+            RawData sut = new RawData("from", List.of("to"), source);
+
+            Assertions.assertEquals("This is the mail title", sut.toMimeMessage().getSubject());
+            Assertions.assertArrayEquals(content, sut.getContentAsStream().readAllBytes());
+            Assertions.assertArrayEquals(content, sut.getContent());
+        }
+    }
+
+}
@@ -74,6 +74,20 @@ class RequireAuthTest {
         c.expect("221 Bye");
     }
 
+    @Test
+    void testChunkOfRejectedBdatIsConsumed() throws Exception {
+        c.expect("220");
+
+        c.send("EHLO foo.com");
+        c.expect("250");
+
+        c.send("BDAT 6 LAST\r\nQUIT");
+        c.expect("530 5.7.0  Authentication required");
+
+        c.send("NOOP");
+        c.expect("250");
+    }
+
     @Test
     void testAuthSuccess() throws Exception {
         c.expect("220");
@@ -30,4 +30,18 @@ class RequireTlsTest extends AbstractCommandIntegrationTest {
         this.send("QUIT");
         this.expect("221 Bye");
     }
+
+    @Test
+    void testChunkOfRejectedBdatIsConsumed() throws Exception {
+        this.expect("220");
+
+        this.send("EHLO foo.com");
+        this.expect("250");
+
+        this.send("BDAT 6 LAST\r\nQUIT");
+        this.expect("530 Must issue a STARTTLS command first");
+
+        this.send("NOOP");
+        this.expect("250");
+    }
 }
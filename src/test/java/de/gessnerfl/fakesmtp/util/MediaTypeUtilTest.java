@@ -55,4 +55,17 @@ class MediaTypeUtilTest {
         assertEquals(MediaType.APPLICATION_OCTET_STREAM, result);
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldReturnMediaTypeWithParametersForMimeType(){
+        var result = sut.getMediaType("image/png; name=icon.png");
+
+        assertEquals(MediaType.IMAGE_PNG, new MediaType(result.getType(), result.getSubtype()));
+        assertEquals("icon.png", result.getParameter("name"));
+    }
+
+    @Test
+    void shouldReturnOctedStreamForMissingMimeType(){
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, sut.getMediaType(null));
+    }
+
+}
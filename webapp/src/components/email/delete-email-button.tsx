@@ -1,12 +1,12 @@
 import React, {FunctionComponent} from "react";
 import {Button} from "@mui/material";
-import {Email} from "../../models/email";
+import {EmailSummary} from "../../models/email";
 import DeleteIcon from '@mui/icons-material/Delete';
 import {DeleteEmailDialog} from "./delete-email-dialog";
 import {useDeleteEmailMutation} from "../../store/rest-api";
 
 export interface DeleteButtonProperties {
-    selectedEmail?: Email
+    selectedEmail?: Pick<EmailSummary, "id">
 }
 
 export const DeleteEmailButton: FunctionComponent<DeleteButtonProperties> = ({selectedEmail}) => {
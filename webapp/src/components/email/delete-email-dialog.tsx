@@ -1,9 +1,9 @@
 import React, {FunctionComponent} from "react";
 import {Button, Dialog, DialogActions, DialogContent, DialogContentText, DialogTitle} from "@mui/material";
-import {Email} from "../../models/email";
+import {EmailSummary} from "../../models/email";
 
 export interface DeleteEmailDialogProperties {
-    email?: Email
+    email?: Pick<EmailSummary, "id">
     open: boolean;
     onClose: (confirmed: boolean) => void;
 }
@@ -3,6 +3,7 @@ import '@testing-library/jest-dom'
 import {render, screen} from '@testing-library/react'
 import {testEmail1} from "../../setupTests";
 import {HtmlContentTabPanel} from "./html-content-tab-panel";
+import {TEST_BASE_PATH} from "../../base-path";
 
 describe('HtmlContentTabPanel', () => {
     it('render html content tab panel component with simple html', () => {
@@ -14,30 +15,30 @@ describe('HtmlContentTabPanel', () => {
     it('render html content tab panel with inline images with single quotes', () => {
         const email = {...testEmail1}
         email.inlineImages = [
-            {contentId: "img1", data: "FIRST_IMAGE", contentType: "image/png"},
-            {contentId: "img2", data: "SECOND_IMAGE", contentType: "image/png"}
+            {contentId: "img1", contentType: "image/png", size: 100},
+            {contentId: "img2", contentType: "image/png", size: 200}
         ]
 
         render(<HtmlContentTabPanel activeContentType={"html"} email={email} data={"<p>test1</p><p>test2</p><img alt='img1' src='cid:img1' /><img alt='img2' src='cid:img2' />"} />);
 
         expect(screen.getByText("test1")).toBeInTheDocument()
         expect(screen.getByText("test2")).toBeInTheDocument()
-        expect(screen.getByAltText("img1")).toHaveAttribute("src", "data:image/png;base64,FIRST_IMAGE")
-        expect(screen.getByAltText("img2")).toHaveAttribute("src", "data:image/png;base64,SECOND_IMAGE")
+        expect(screen.getByAltText("img1")).toHaveAttribute("src", `${TEST_BASE_PATH}/api/emails/${email.id}/inline-images/img1`)
+        expect(screen.getByAltText("img2")).toHaveAttribute("src", `${TEST_BASE_PATH}/api/emails/${email.id}/inline-images/img2`)
     })
     it('render html content tab panel with inline images with double quotes', () => {
         const email = {...testEmail1}
         email.inlineImages = [
-            {contentId: "img1", data: "FIRST_IMAGE", contentType: "image/png"},
-            {contentId: "img2", data: "SECOND_IMAGE", contentType: "image/png"}
+            {contentId: "img1", contentType: "image/png", size: 100},
+            {contentId: "img2", contentType: "image/png", size: 200}
         ]
 
         render(<HtmlContentTabPanel activeContentType={"html"} email={email} data={"<p>test1</p><p>test2</p><img alt=\"img1\" src=\"cid:img1\" /><img alt=\"img2\" src=\"cid:img2\" />"} />);
 
         expect(screen.getByText("test1")).toBeInTheDocument()
         expect(screen.getByText("test2")).toBeInTheDocument()
-        expect(screen.getByAltText("img1")).toHaveAttribute("src", "data:image/png;base64,FIRST_IMAGE")
-        expect(screen.getByAltText("img2")).toHaveAttribute("src", "data:image/png;base64,SECOND_IMAGE")
+        expect(screen.getByAltText("img1")).toHaveAttribute("src", `${TEST_BASE_PATH}/api/emails/${email.id}/inline-images/img1`)
+        expect(screen.getByAltText("img2")).toHaveAttribute("src", `${TEST_BASE_PATH}/api/emails/${email.id}/inline-images/img2`)
     })
     it('render html content tab panel with inline images as is when image not found', () => {
         render(<HtmlContentTabPanel activeContentType={"html"} email={testEmail1} data={"<p>test1</p><p>test2</p><img alt=\"img1\" src=\"cid:img1\" /><img alt=\"img2\" src=\"cid:img2\" />"} />);
@@ -2,6 +2,7 @@ import React, {FunctionComponent} from "react";
 import {EmailContentTabPanelProperties} from "./email-content-tab-panel-properties";
 import DOMPurify from "dompurify";
 import {Box} from "@mui/material";
+import {getBasePath} from "../../base-path";
 
 export const HtmlContentTabPanel: FunctionComponent<EmailContentTabPanelProperties> = ({
                                                                                            activeContentType,
@@ -12,7 +13,7 @@ export const HtmlContentTabPanel: FunctionComponent<EmailContentTabPanelProperti
     function getInlineImage(cid: string): (string | undefined) {
         const image = email.inlineImages.find(i => i.contentId === cid)
         if (image) {
-            return `data:${image.contentType};base64,${image.data}`
+            return `${getBasePath()}/api/emails/${email.id}/inline-images/${encodeURIComponent(image.contentId)}`
         }
     }
 
@@ -8,7 +8,7 @@ export interface EmailContent {
 export interface InlineImage {
     contentId: string
     contentType: string
-    data: string
+    size: number
 }
 
 export interface EmailAttachment {
@@ -28,4 +28,15 @@ export interface Email {
     inlineImages: InlineImage[],
 }
 
-export interface EmailPage extends Page<Email> {}
\ No newline at end of file
+export interface EmailPage extends Page<Email> {}
+
+export interface EmailSummary {
+    id: number,
+    fromAddress: string,
+    toAddress: string,
+    subject: string,
+    receivedOn: string,
+    attachmentCount: number,
+}
+
+export interface EmailSummaryPage extends Page<EmailSummary> {}
\ No newline at end of file
@@ -1,7 +1,8 @@
 import React, {useEffect, useState} from "react";
 import {DataGrid, GridColDef, GridRowSelectionModel} from '@mui/x-data-grid';
-import {useGetEmailsQuery} from "../store/rest-api";
-import {Email} from "../models/email";
+import {useGetEmailQuery, useGetEmailsQuery} from "../store/rest-api";
+import {EmailSummary} from "../models/email";
+import {skipToken} from "@reduxjs/toolkit/query/react";
 import {useSearchParams} from "react-router-dom";
 import Grid from '@mui/material/Grid';
 import {EmailCard} from "../components/email/email-card";
@@ -21,6 +22,8 @@ function EmailListPage() {
     const [selectedRow, setSelectedRow] = useState<GridRowSelectionModel>({type: 'include', ids: new Set([])})
     const [searchParams, setSearchParams] = useSearchParams()
     const {data, isLoading, refetch} = useGetEmailsQuery({page: page, pageSize: pageSize})
+    const selectedEmailSummary = getSelectedEmail()
+    const {currentData: selectedEmail, isFetching: isSelectedEmailFetching} = useGetEmailQuery(selectedEmailSummary ? selectedEmailSummary.id.toString() : skipToken)
     const columns: GridColDef[] = [
         {
             field: 'id',
@@ -69,9 +72,19 @@ function EmailListPage() {
             hideable: false,
             disableColumnMenu: true
         },
+        {
+            field: 'attachmentCount',
+            headerName: 'Attachments',
+            type: 'number',
+            flex: 0.1,
+            sortable: false,
+            filterable: false,
+            hideable: false,
+            disableColumnMenu: true
+        },
     ];
 
-    function transformEmail(e: Email) {
+    function transformEmail(e: EmailSummary) {
         return {...e, receivedOn: parseJSON(e.receivedOn)}
     }
 
@@ -111,7 +124,7 @@ function EmailListPage() {
     function renderGrid() {
         return <div>
             <div className={"toolbar"}>
-                <DeleteEmailButton selectedEmail={getSelectedEmail()}/>
+                <DeleteEmailButton selectedEmail={selectedEmailSummary}/>
                 <DeleteAllEmailsButton emailsAvailable={data !== undefined && data.numberOfElements > 0}/>
             </div>
             <div style={{ display: 'flex', flexDirection: 'column' }}>
@@ -139,7 +152,7 @@ function EmailListPage() {
         </div>;
     }
 
-    function getSelectedEmail(): Email | undefined {
+    function getSelectedEmail(): EmailSummary | undefined {
         if(selectedRow.ids.size === 1) {
             const selectedRowId = Array.from(selectedRow.ids)[0]
             return data?.content.find(e => e.id+"" === selectedRowId.toString());
@@ -148,9 +161,11 @@ function EmailListPage() {
     }
 
     function renderEmail() {
-        const email = getSelectedEmail()
-        if (email) {
-            return <EmailCard email={email}/>
+        if (selectedEmail) {
+            return <EmailCard email={selectedEmail}/>
+        }
+        if (isSelectedEmailFetching) {
+            return null
         }
         return <Alert severity="error">Email not found!</Alert>
     }
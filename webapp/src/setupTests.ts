@@ -3,7 +3,7 @@ import { formatRFC3339 } from "date-fns";
 import { delay, http, HttpResponse } from 'msw';
 import { setupServer } from 'msw/node';
 import "whatwg-fetch";
-import { Email, EmailPage } from "./models/email";
+import { Email, EmailPage, EmailSummary, EmailSummaryPage } from "./models/email";
 import { MetaData } from "./models/meta-data";
 import "./polyfills";
 import { endpointUrl } from "./test-utils";
@@ -69,6 +69,15 @@ const generateTestData = (): Email[] => Array.from(Array(15).keys()).map(i => {
     }
 })
 
+const toSummary = (e: Email): EmailSummary => ({
+    id: e.id,
+    fromAddress: e.fromAddress,
+    toAddress: e.toAddress,
+    subject: e.subject,
+    receivedOn: e.receivedOn,
+    attachmentCount: e.attachments.length
+})
+
 export const originalTestData = generateTestData()
 export let testData = [...originalTestData]
 
@@ -96,6 +105,29 @@ export const handlers = [
         }
         return new HttpResponse("Not found", { status: 404 })
     }),
+    http.get(endpointUrl('/api/emails/summaries'), async ({ request }) => {
+        const url = new URL(request.url)
+        const pageStr = url.searchParams.get('page')
+        const page = pageStr !== null ? parseInt(pageStr) : 0
+        const pageSizeStr = url.searchParams.get('size')
+        const pageSize = pageSizeStr !== null ? parseInt(pageSizeStr) : 10
+        if (page < 2) {
+            const data = testData.slice(page * pageSize, pageSize).map(toSummary)
+            const totalEntries = testData.length
+            const totalPages = (testData.length / pageSize) + (testData.length % pageSize > 0 ? 1 : 0)
+            const pageData: EmailSummaryPage = {
+                number: page,
+                numberOfElements: data.length,
+                size: data.length,
+                totalPages: totalPages,
+                totalElements: totalEntries,
+                content: data
+            }
+            await delay(150)
+            return HttpResponse.json(pageData)
+        }
+        return new HttpResponse("Not found", { status: 404 })
+    }),
     http.get(endpointUrl('/api/emails/:emailId'), async ({ params }) => {
         const { emailId } = params
         const id = typeof emailId === "string" ? parseInt(emailId) : undefined
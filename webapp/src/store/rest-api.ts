@@ -1,5 +1,5 @@
 import { createApi, fetchBaseQuery } from "@reduxjs/toolkit/query/react";
-import { Email, EmailPage } from "../models/email";
+import { Email, EmailSummaryPage } from "../models/email";
 import { Pageable } from "../models/pageable";
 import { MetaData } from "../models/meta-data";
 import { getBasePath } from "../base-path";
@@ -52,8 +52,8 @@ export const restApi = createApi({
         };
       },
     }),
-    getEmails: builder.query<EmailPage, Pageable>({
-      query: (p) => `/emails?page=${p.page}&size=${p.pageSize}`,
+    getEmails: builder.query<EmailSummaryPage, Pageable>({
+      query: (p) => `/emails/summaries?page=${p.page}&size=${p.pageSize}`,
       providesTags: (result) =>
           result ? [
             ...result.content.map(({id}) => ({type: "Emails", id} as const)),